@@ -0,0 +1,33 @@
+package project;
+
+/**
+ * The operations of an aggregate over a numeric column.
+ */
+public enum AggregateOperation {
+    SUM,
+    PRODUCT,
+    MAXIMUM,
+    MINIMUM;
+
+    /**
+     * Gets the name of the operation as written in commands.
+     * @return The name in lower case, such as "sum".
+     */
+    public String getName() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Finds the operation with the given name, ignoring case.
+     * @param name The name, such as "sum" or "maximum".
+     * @return The operation, or null if there is none with that name.
+     */
+    public static AggregateOperation fromName(String name) {
+        for (AggregateOperation operation : values()) {
+            if (operation.getName().equalsIgnoreCase(name.trim())) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
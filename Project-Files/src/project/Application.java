@@ -1,14 +1,95 @@
 package project;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * The main entry point for the Database CLI.
  */
 public class Application {
     /**
-     * The main method that starts the command line interface.
+     * The main method that starts the command line interface, or the server when started with
+     * "--server [port] [catalog]", or runs a script of commands when started with
+     * "--script &lt;file&gt; [--continue-on-error]", exiting with status 1 if a command failed.
+     * Started with "--follower &lt;catalog&gt; [port]", it serves a read replica of a catalog that a primary
+     * process, started with -Ddb.replication.primary=true in the same working directory, works on.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            startServer(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--follower")) {
+            startFollower(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--script")) {
+            System.exit(runScript(args) ? 0 : 1);
+        }
         CLI cli = new CLI();
         cli.start();
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs a script of commands without prompts.
+     * @param args Command line arguments: "--script", the script file path and optionally "--continue-on-error".
+     * @return True if every command of the script succeeded.
+     */
+    private static boolean runScript(String[] args) {
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals("--continue-on-error"))) {
+            System.out.println("Usage: --script <script_filepath> [--continue-on-error]");
+            return false;
+        }
+        return new ScriptRunner(Path.of(args[1]), args.length == 3).run();
+    }
+
+    /**
+     * Starts a read replica server on the given port, following the primary of the given catalog.
+     * @param args Command line arguments: "--follower", the catalog file path and optionally a port.
+     */
+    private static void startFollower(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Usage: --follower <catalog_filepath> [port]");
+            return;
+        }
+        int port = DatabaseServer.DEFAULT_PORT + 1;
+        if (args.length > 2) {
+            try {
+                port = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid port '" + args[2] + "'. Port must be a number.");
+                return;
+            }
+        }
+        try {
+            new DatabaseServer(port).startFollower(args[1]);
+        } catch (IOException e) {
+            System.out.println("ERROR: Could not start the replica on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts the database server on the given port, opening the given catalog first.
+     * @param args Command line arguments: "--server", then optionally a port and a catalog file path.
+     */
+    private static void startServer(String[] args) {
+        if (args.length > 3) {
+            System.out.println("Usage: --server [port] [catalog_filepath]");
+            return;
+        }
+        int port = DatabaseServer.DEFAULT_PORT;
+        if (args.length > 1) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid port '" + args[1] + "'. Port must be a number.");
+                return;
+            }
+        }
+        try {
+            new DatabaseServer(port).start(args.length > 2 ? args[2] : null);
+        } catch (IOException e) {
+            System.out.println("ERROR: Could not start the server on port " + port + ": " + e.getMessage());
+        }
+    }
+}
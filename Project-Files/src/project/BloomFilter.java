@@ -0,0 +1,144 @@
+package project;
+
+/**
+ * A Bloom filter over column values, for cheaply ruling out values that are not present.
+ * {@link #mightContain(Object)} never returns false for a value that was added, and returns true
+ * for an absent value with a probability close to the target false positive rate as long as no
+ * more than the planned number of values are added. Values cannot be removed; the owner rebuilds
+ * the filter once too many of its values are gone.
+ */
+public class BloomFilter {
+
+    /** Target false positive rate used when none is given. */
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private long insertions;
+    private long staleChanges;
+
+    /**
+     * Creates an empty filter sized for the planned number of values at the default false positive rate.
+     * @param capacity The number of values the filter is sized for.
+     */
+    public BloomFilter(long capacity) {
+        this(capacity, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Creates an empty filter sized for the planned number of values.
+     * @param capacity The number of values the filter is sized for.
+     * @param falsePositiveRate The target false positive rate, between 0 and 1.
+     */
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        this.capacity = Math.max(1, capacity);
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.capacity * ln2));
+        this.bits = new long[(int) (bitCount / 64)];
+        this.insertions = 0;
+        this.staleChanges = 0;
+    }
+
+    /**
+     * Adds a value. Null values are ignored.
+     * @param value The value to add.
+     */
+    public void add(Object value) {
+        if (value != null) {
+            addHash(ValueHash.hash64(value));
+        }
+    }
+
+    /**
+     * Adds a value by its 64-bit hash, for callers that hash composite keys themselves.
+     * @param hash A well-mixed 64-bit hash, such as one from {@link ValueHash}.
+     */
+    public void addHash(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        insertions++;
+    }
+
+    /**
+     * Checks whether a value may have been added.
+     * @param value The value to check. Null values are never added, so null is reported as absent.
+     * @return False if the value was definitely not added, true if it may have been.
+     */
+    public boolean mightContain(Object value) {
+        return value != null && mightContainHash(ValueHash.hash64(value));
+    }
+
+    /**
+     * Checks whether a value with the given hash may have been added.
+     * @param hash The 64-bit hash of the value, computed the same way as when it was added.
+     * @return False if the value was definitely not added, true if it may have been.
+     */
+    public boolean mightContainHash(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that a value in the filter was removed or overwritten. Its bits stay set,
+     * so the filter gets less selective until it is rebuilt.
+     */
+    public void markStale() {
+        staleChanges++;
+    }
+
+    /**
+     * Gets the number of removed or overwritten values since the filter was built.
+     * @return The stale change count.
+     */
+    public long getStaleChanges() {
+        return staleChanges;
+    }
+
+    /**
+     * Checks whether more values were added than the filter was sized for,
+     * so its false positive rate is above the target.
+     * @return True if the filter is over capacity.
+     */
+    public boolean isOverCapacity() {
+        return insertions > capacity;
+    }
+
+    /**
+     * Gets the number of values added.
+     * @return The insertion count.
+     */
+    public long getInsertions() {
+        return insertions;
+    }
+
+    /**
+     * Gets the size of the filter.
+     * @return The number of bits.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Gets the number of bit positions set for each value.
+     * @return The hash function count.
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+}
@@ -9,17 +9,48 @@ import project.commands.*;
  * It parses user input, maps commands to their handlers, and executes them.
  */
 public class CLI {
-    private final Database database = new Database();
-    private final Scanner inputScanner = new Scanner(System.in);
+    private final Database database;
+    private final Scanner inputScanner;
     private final Map<String, CommandHandler> commandMap = new HashMap<>();
+    // Commands that manage the session's jobs. They run without locks, so that a job holding
+    // exclusive access, such as a save, can still be followed and cancelled.
+    private static final Set<String> JOB_COMMANDS = Set.of("bg", "jobs", "cancel", "timeout");
+    // Commands that replace or write the catalog, which a read replica leaves to its primary.
+    private static final Set<String> CATALOG_COMMANDS = Set.of("open", "close", "save", "saveas");
+    private final Transaction transaction;
+    private final JobManager jobs;
+    private boolean replicaApplier; // True for the CLI that applies the primary's changes to a read replica
 
     /**
-     * Constructs a new CLI and initializes the available commands.
+     * Constructs a new CLI on a new database, reading from standard input, and initializes the available commands.
      */
     public CLI() {
+        this(new Database(), new Scanner(System.in));
+    }
+
+    /**
+     * Constructs a CLI on an existing database and initializes the available commands.
+     * Several CLIs can share one database, each reading its own input, as the connections of a
+     * {@link DatabaseServer} do.
+     * @param database The database the commands work on.
+     * @param inputScanner The scanner for reading commands and the answers to prompts.
+     */
+    public CLI(Database database, Scanner inputScanner) {
+        this.database = database;
+        this.inputScanner = inputScanner;
+        this.transaction = new Transaction(database);
+        this.jobs = new JobManager(this::executeJob, transaction::isActive);
         initializeCommands();
     }
 
+    /**
+     * Lets this CLI run commands that change a read replica, for the {@link ReplicaFollower} that applies
+     * the primary's changes. Client sessions on a replica can only read.
+     */
+    void allowReplicaChanges() {
+        this.replicaApplier = true;
+    }
+
     /**
      * Initializes the command map with all available commands and their handlers.
      */
@@ -40,21 +71,88 @@ public class CLI {
         commandMap.put("delete", new DeleteCommand(database));
         commandMap.put("insert", new InsertCommand(database));
         commandMap.put("innerjoin", new InnerJoinCommand(database));
+        commandMap.put("join", new JoinCommand(database));
+        commandMap.put("semijoin", new JoinVariantCommand(database, JoinType.SEMI));
+        commandMap.put("antijoin", new JoinVariantCommand(database, JoinType.ANTI));
+        commandMap.put("leftjoin", new JoinVariantCommand(database, JoinType.LEFT));
+        commandMap.put("orderby", new OrderByCommand(database));
         commandMap.put("rename", new RenameCommand(database));
         commandMap.put("count", new CountCommand(database));
         commandMap.put("aggregate", new AggregateCommand(database));
+        commandMap.put("cachestats", new CacheStatsCommand(database));
+        commandMap.put("stats", new StatsCommand(database));
+        commandMap.put("createindex", new CreateIndexCommand(database));
+        commandMap.put("dropindex", new DropIndexCommand(database));
+        commandMap.put("createbloom", new CreateBloomCommand(database));
+        commandMap.put("dropbloom", new DropBloomCommand(database));
+        commandMap.put("approxdistinct", new ApproxDistinctCommand(database));
+        commandMap.put("approxquantile", new ApproxQuantileCommand(database));
+        commandMap.put("createview", new CreateViewCommand(database));
+        commandMap.put("dropview", new DropViewCommand(database));
+        commandMap.put("creatematview", new CreateMatViewCommand(database));
+        commandMap.put("dropmatview", new DropMatViewCommand(database));
+        commandMap.put("begin", new BeginCommand(transaction));
+        commandMap.put("commit", new CommitCommand(transaction));
+        commandMap.put("rollback", new RollbackCommand(transaction));
+        commandMap.put("bg", new BgCommand(jobs));
+        commandMap.put("jobs", new JobsCommand(jobs));
+        commandMap.put("cancel", new CancelCommand(jobs));
+        commandMap.put("timeout", new TimeoutCommand(jobs));
+        commandMap.put("replication", new ReplicationCommand(database));
         commandMap.put("help", new HelpCommand());
         commandMap.put("exit", new ExitCommand(database, inputScanner));
     }
 
+    /**
+     * One parsed line of input: the command name in lower case and its arguments.
+     */
+    static final class CommandLine {
+        final String command;
+        final String[] args;
+        final boolean unclosedQuote; // The line ended inside a quoted argument
+        final String text;           // The line as typed, for the replication log
+
+        /**
+         * Constructs a parsed line.
+         * @param command The command name, in lower case.
+         * @param args The command arguments.
+         * @param unclosedQuote True if the line ended inside a quoted argument.
+         * @param text The line as typed, without surrounding whitespace.
+         */
+        private CommandLine(String command, String[] args, boolean unclosedQuote, String text) {
+            this.command = command;
+            this.args = args;
+            this.unclosedQuote = unclosedQuote;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Parses one line of input into a command and its arguments, without executing it or printing anything,
+     * so that a {@link ScriptRunner} can parse the next lines of a script while the current one runs.
+     * @param input The line of input.
+     * @return The parsed line, or null if the line is empty.
+     */
+    static CommandLine parse(String input) {
+        List<String> tokensList = new ArrayList<>();
+        String text = input.trim();
+        boolean unclosedQuote = parseArguments(text, tokensList);
+        if (tokensList.isEmpty()) {
+            return null;
+        }
+        String command = tokensList.get(0).toLowerCase();
+        String[] args = tokensList.subList(1, tokensList.size()).toArray(new String[0]);
+        return new CommandLine(command, args, unclosedQuote, text);
+    }
+
     /**
      * Parses the raw input string into a list of arguments.
      * It handles arguments enclosed in double quotes and escape characters.
      * @param input The raw input string from the user.
-     * @return A list of parsed arguments.
+     * @param tokens The list the parsed arguments are added to.
+     * @return True if the input ended inside a quoted argument.
      */
-    private List<String> parseArguments(String input) {
-        List<String> tokens = new ArrayList<>();
+    private static boolean parseArguments(String input, List<String> tokens) {
         StringBuilder currentToken = new StringBuilder();
         boolean inQuotes = false;
         boolean escapeNext = false;
@@ -83,10 +181,7 @@ public class CLI {
         if (currentToken.length() > 0) {
             tokens.add(currentToken.toString());
         }
-        if (inQuotes) {
-            System.out.println("WARNING: Unclosed quote in input.");
-        }
-        return tokens;
+        return inQuotes;
     }
 
     /**
@@ -97,34 +192,237 @@ public class CLI {
     public void start() {
         System.out.println("Simple Database CLI. Type 'help' for commands. Use 'open <catalog_filepath>' to begin.");
         while (true) {
+            jobs.printFinishedJobs();
             System.out.print("> ");
-            String input = inputScanner.nextLine().trim();
-            if (input.isEmpty()) {
-                continue;
+            execute(inputScanner.nextLine());
+        }
+    }
+
+    /**
+     * Parses one line of input and executes the corresponding command, holding the locks of the tables
+     * it uses while it runs. A command that only reads reads a snapshot taken when it starts; the changes
+     * of any other command are committed when it ends, before its locks are released.
+     * Empty lines are ignored. Errors are reported on the output rather than thrown.
+     * @param input The line of input.
+     */
+    public void execute(String input) {
+        CommandLine line = parse(input);
+        if (line != null) {
+            execute(line);
+        }
+    }
+
+    /**
+     * Gets the tables a parsed line of input would use, without executing it.
+     * @param line The parsed line.
+     * @return The access its command declares, or null if the command is unknown.
+     */
+    TableAccess getTableAccess(CommandLine line) {
+        CommandHandler handler = commandMap.get(line.command);
+        return handler == null ? null : handler.getTableAccess(line.args);
+    }
+
+    /**
+     * Executes a parsed line of input, as {@link #execute(String)} does.
+     * The command is stopped if it runs past the session's timeout.
+     * @param line The parsed line.
+     */
+    void execute(CommandLine line) {
+        if (line.unclosedQuote) {
+            System.out.println("WARNING: Unclosed quote in input.");
+        }
+        CommandProgress progress = new CommandProgress(jobs.getTimeoutMillis(), false);
+        progress.bind();
+        try {
+            execute(line.command, line.args, line.text, true);
+        } finally {
+            progress.finish();
+            CommandProgress.unbind();
+        }
+    }
+
+    /**
+     * Executes the command of a background job on the job's thread. The job does not take part in the
+     * session's transaction, since it may still run after the transaction ends.
+     * @param command The command name, in lower case.
+     * @param args The command arguments.
+     * @param progress The progress of the job.
+     */
+    private void executeJob(String command, String[] args, CommandProgress progress) {
+        progress.bind();
+        try {
+            execute(command, args, args.length == 0 ? command : command + " " + String.join(" ", args), false);
+        } finally {
+            progress.finish();
+            CommandProgress.unbind();
+        }
+    }
+
+    /**
+     * Executes a command, holding its locks while it runs, with the progress of the current thread.
+     * @param command The command name, in lower case.
+     * @param args The command arguments.
+     * @param text The command line, logged for read replicas if the command changes the database.
+     * @param inSession True if the command runs in the session itself and joins its active transaction.
+     */
+    private void execute(String command, String[] args, String text, boolean inSession) {
+        CommandHandler handler = commandMap.get(command);
+        if (handler != null) {
+            if (database.isReplica() && !replicaApplier
+                    && (ReplicationLog.isLogged(command) || CATALOG_COMMANDS.contains(command))) {
+                System.out.println("ERROR: This database is a read-only replica. Run '" + command + "' on the primary.");
+                return;
+            }
+            // Checks if a command requires an open catalog file.
+            // Most commands do, except for 'open', 'help', 'exit' and the job commands.
+            boolean needsOpen = !(command.equals("open") || command.equals("help") || command.equals("exit")
+                    || JOB_COMMANDS.contains(command));
+            if (needsOpen && !database.isCatalogOpen()) {
+                System.out.println("ERROR: No catalog file open. Please use 'open <filepath>' first.");
+                return;
             }
-            List<String> tokensList = parseArguments(input);
-            if (tokensList.isEmpty()) {
-                continue;
+            if (JOB_COMMANDS.contains(command)) {
+                handler.execute(args);
+                return;
             }
-            String command = tokensList.get(0).toLowerCase();
-            String[] args = tokensList.subList(1, tokensList.size()).toArray(new String[0]);
-            CommandHandler handler = commandMap.get(command);
-            if (handler != null) {
-                // Checks if a command requires an open catalog file.
-                // Most commands do, except for 'open', 'help', and 'exit'.
-                boolean needsOpen = !(command.equals("open") || command.equals("help") || command.equals("exit"));
-                if (needsOpen && !database.isCatalogOpen()) {
-                    System.out.println("ERROR: No catalog file open. Please use 'open <filepath>' first.");
-                    continue;
+            if (needsOpen && database.isReplica() && !replicaApplier) {
+                database.getReplicaFollower().warnIfBehind();
+            }
+            TableAccess access = handler.getTableAccess(args);
+            boolean inTransaction = inSession && transaction.isActive();
+            // Commands of a transaction are not queued for memory, since other commands may be waiting for its locks.
+            try (QueryMemory memory = QueryMemory.admit(!inTransaction)) {
+                memory.bind();
+                ReplicationLog replicationLog = ReplicationLog.isLogged(command) ? database.getReplicationLog() : null;
+                if (inTransaction) {
+                    executeInTransaction(handler, access, args, replicationLog != null ? text : null);
+                } else {
+                    executeWithLocks(handler, access, args, replicationLog, text);
                 }
+            } catch (DatabaseOperationException e) {
+                System.out.println("ERROR: " + e.getMessage());
+            } finally {
+                QueryMemory.unbind();
+            }
+        } else {
+            System.out.println("ERROR: Unknown command: '" + command + "'.");
+        }
+    }
+
+    /**
+     * Executes a command outside a transaction, holding its locks while it runs. A command that only
+     * reads reads a snapshot; the changes of any other command are committed when it ends.
+     * A command that changes the database is written to the replication log, if there is one, before its locks are released.
+     * @param handler The command handler.
+     * @param access The tables the command declares.
+     * @param args The command arguments.
+     * @param replicationLog The log to write the command to, or null if it is not logged.
+     * @param text The command line.
+     */
+    private void executeWithLocks(CommandHandler handler, TableAccess access, String[] args,
+                                  ReplicationLog replicationLog, String text) {
+        try {
+            TableLockManager.Locks locks = database.lockTables(access);
+            try {
+                VersionClock.Snapshot snapshot = access.isReadOnly() ? database.openSnapshot() : null;
                 try {
+                    if (replicationLog == null) {
+                        handler.execute(args);
+                    } else {
+                        ReplicationLog.Change change = executeForReplication(handler, args, text);
+                        if (change != null) {
+                            replicationLog.append(change);
+                        }
+                    }
+                } finally {
+                    if (snapshot != null) {
+                        snapshot.close();
+                    }
+                    database.commitChanges();
+                }
+            } finally {
+                locks.close();
+            }
+        } catch (Exception e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Executes a command inside the active transaction. Its locks are kept until the transaction ends,
+     * its changes are recorded for a rollback and are not committed when it ends.
+     * A command that changes the database is recorded to be written to the replication log when the transaction commits.
+     * @param handler The command handler.
+     * @param access The tables the command declares.
+     * @param args The command arguments.
+     * @param replicatedText The command line if the command is logged for replicas, or null.
+     */
+    private void executeInTransaction(CommandHandler handler, TableAccess access, String[] args, String replicatedText) {
+        try {
+            TableAccess effective = transaction.lock(access);
+            VersionClock.Snapshot snapshot = effective.isReadOnly() ? database.openSnapshot() : null;
+            UndoLog.setCurrent(transaction.getUndoLog());
+            try {
+                if (replicatedText == null) {
                     handler.execute(args);
-                } catch (Exception e) {
-                    System.out.println("ERROR: " + e.getMessage());
+                } else {
+                    ReplicationLog.Change change = executeForReplication(handler, args, replicatedText);
+                    if (change != null) {
+                        transaction.recordReplicatedChange(change);
+                    }
                 }
-            } else {
-                System.out.println("ERROR: Unknown command: '" + command + "'.");
+            } finally {
+                if (snapshot != null) {
+                    snapshot.close();
+                }
+                UndoLog.setCurrent(null);
             }
+        } catch (Exception e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a command that is logged for read replicas, recording whether it changes the database and
+     * the names it reserves for result tables. A command that failed after changing something is still
+     * logged, so that replicas make the same changes.
+     * @param handler The command handler.
+     * @param args The command arguments.
+     * @param text The command line.
+     * @return The change to log, or null if the command changed nothing.
+     */
+    private ReplicationLog.Change executeForReplication(CommandHandler handler, String[] args, String text) {
+        ReplicationLog.startRecording();
+        ReplicationLog.Recording recording;
+        try {
+            handler.execute(args);
+        } finally {
+            recording = ReplicationLog.stopRecording();
+        }
+        return recording.changed ? new ReplicationLog.Change(text, recording.names) : null;
+    }
+
+    /**
+     * Prints the outcome and output of the background jobs that have finished since the last prompt.
+     * Called before each prompt.
+     */
+    public void printFinishedJobs() {
+        jobs.printFinishedJobs();
+    }
+
+    /**
+     * Ends the session, cancelling its background jobs and rolling back its transaction if one is still active.
+     */
+    public void endSession() {
+        jobs.cancelAll();
+        if (!transaction.isActive()) {
+            return;
+        }
+        try {
+            int changes = transaction.rollback();
+            System.out.println("WARNING: Session ended inside a transaction; " + changes + " change(s) rolled back.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
         }
     }
 }
\ No newline at end of file
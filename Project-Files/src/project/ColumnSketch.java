@@ -0,0 +1,95 @@
+package project;
+
+/**
+ * Holds the approximate summaries of a single column: a {@link HyperLogLog} for distinct counts
+ * and, for numeric columns, a {@link KllSketch} for quantiles.
+ * Both use bounded memory and are updated incrementally as rows are inserted.
+ * Sketches cannot forget values, so {@link Table} counts updates and deletions as stale changes
+ * and rebuilds the sketch once too many have accumulated.
+ */
+public class ColumnSketch {
+
+    private final HyperLogLog distinctSketch;
+    private final KllSketch quantileSketch; // Null for non-numeric columns
+    private long staleChanges;
+
+    /**
+     * Constructs an empty sketch for a column of the given type.
+     * @param type The data type of the column.
+     */
+    public ColumnSketch(DataType type) {
+        this.distinctSketch = new HyperLogLog();
+        this.quantileSketch = (type == DataType.INTEGER || type == DataType.DOUBLE) ? new KllSketch() : null;
+        this.staleChanges = 0;
+    }
+
+    /**
+     * Adds a value to the sketches. Null values are ignored.
+     * @param value The value to add.
+     */
+    void add(Object value) {
+        if (value == null) {
+            return;
+        }
+        distinctSketch.add(value);
+        if (quantileSketch != null && value instanceof Number) {
+            quantileSketch.add(((Number) value).doubleValue());
+        }
+    }
+
+    /**
+     * Records that a value summarized by the sketch was removed or overwritten.
+     */
+    void markStale() {
+        staleChanges++;
+    }
+
+    /**
+     * Gets the number of removed or overwritten values still reflected in the sketch.
+     * @return The stale change count.
+     */
+    long getStaleChanges() {
+        return staleChanges;
+    }
+
+    /**
+     * Merges another column sketch into this one, for example one built over a different
+     * partition of the same column.
+     * @param other The sketch to merge in. Must describe a column of the same type.
+     */
+    public void merge(ColumnSketch other) {
+        distinctSketch.merge(other.distinctSketch);
+        if (quantileSketch != null && other.quantileSketch != null) {
+            quantileSketch.merge(other.quantileSketch);
+        }
+        staleChanges += other.staleChanges;
+    }
+
+    /**
+     * Estimates the number of distinct non-null values in the column.
+     * @return The estimated distinct count.
+     */
+    public long estimateDistinct() {
+        return distinctSketch.estimate();
+    }
+
+    /**
+     * Checks whether quantiles can be estimated for this column.
+     * @return True if the column is numeric.
+     */
+    public boolean supportsQuantiles() {
+        return quantileSketch != null;
+    }
+
+    /**
+     * Estimates the value at a given quantile of the column's non-null values.
+     * @param q The quantile, between 0 and 1 inclusive.
+     * @return The estimated value, or NaN if the column has no non-null values.
+     * @throws DatabaseOperationException If the column is not numeric.
+     */
+    public double estimateQuantile(double q) throws DatabaseOperationException {
+        if (quantileSketch == null)
+            throw new DatabaseOperationException("ERROR: Quantiles are only available for INTEGER and DOUBLE columns.");
+        return quantileSketch.quantile(q);
+    }
+}
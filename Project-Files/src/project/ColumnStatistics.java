@@ -0,0 +1,316 @@
+package project;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Holds statistics about the values of a single table column: null count,
+ * distinct count, minimum, maximum and the number of occurrences of each value.
+ * The statistics are maintained incrementally by {@link Table} as values are added and removed,
+ * so answering questions about the column never requires a scan of the rows.
+ * Occurrences are counted exactly only while the column has at most
+ * {@link #MAX_TRACKED_VALUES} distinct values, set with the system property "db.stats.maxTrackedValues",
+ * so that a column of mostly unique values does not keep a second copy of them. Beyond that the distinct
+ * count is estimated with a {@link HyperLogLog} sketch, which only grows when values are removed, and the
+ * minimum and maximum are tracked on their own; removing one of them leaves it unknown until
+ * {@link Table} rebuilds the statistics from the rows.
+ */
+public class ColumnStatistics {
+
+    /** Largest number of distinct values whose occurrences are counted exactly. */
+    static final int MAX_TRACKED_VALUES = Integer.getInteger("db.stats.maxTrackedValues", 1000);
+
+    private TreeMap<Object, Integer> valueCounts; // Occurrences of each non-null value, in sorted order; null once there are too many
+    private HyperLogLog distinctSketch;           // Distinct values once they are no longer counted exactly
+    private Object min;                           // Smallest and largest values once they are no longer counted exactly
+    private Object max;
+    private boolean extremesKnown;                // False once the minimum or maximum was removed and not counted exactly
+    private long nullCount;
+    private long nonNullCount;
+    private boolean sorted;             // True while the non-null values are known to be in ascending row order
+    private Object lastAppendedValue;   // Last non-null value appended at the end of the table
+
+    /**
+     * Constructs empty statistics for a column with no values.
+     */
+    public ColumnStatistics() {
+        this.valueCounts = new TreeMap<>();
+        this.extremesKnown = true;
+        this.nullCount = 0;
+        this.nonNullCount = 0;
+        this.sorted = true;
+        this.lastAppendedValue = null;
+    }
+
+    /**
+     * Constructs a copy of other statistics, which does not change when the original does.
+     * @param other The statistics to copy.
+     */
+    ColumnStatistics(ColumnStatistics other) {
+        this.valueCounts = other.valueCounts != null ? new TreeMap<>(other.valueCounts) : null;
+        if (other.distinctSketch != null) {
+            this.distinctSketch = new HyperLogLog();
+            this.distinctSketch.merge(other.distinctSketch);
+        }
+        this.min = other.min;
+        this.max = other.max;
+        this.extremesKnown = other.extremesKnown;
+        this.nullCount = other.nullCount;
+        this.nonNullCount = other.nonNullCount;
+        this.sorted = other.sorted;
+        this.lastAppendedValue = other.lastAppendedValue;
+    }
+
+    /**
+     * Restores statistics that were saved with a table whose values are counted exactly.
+     * @param nullCount The number of null values.
+     * @param sorted True if the column is known to be sorted.
+     * @param valueCounts The occurrences of each non-null value.
+     * @return The statistics.
+     */
+    static ColumnStatistics restoreCounted(long nullCount, boolean sorted, TreeMap<Object, Integer> valueCounts) {
+        ColumnStatistics statistics = new ColumnStatistics();
+        statistics.valueCounts = valueCounts;
+        for (int count : valueCounts.values()) {
+            statistics.nonNullCount += count;
+        }
+        statistics.restoreOrder(nullCount, sorted);
+        return statistics;
+    }
+
+    /**
+     * Restores statistics that were saved with a table whose values are no longer counted exactly.
+     * @param nullCount The number of null values.
+     * @param nonNullCount The number of non-null values.
+     * @param sorted True if the column is known to be sorted.
+     * @param min The smallest value.
+     * @param max The largest value.
+     * @param distinctSketch The sketch of the distinct values.
+     * @return The statistics.
+     */
+    static ColumnStatistics restoreEstimated(long nullCount, long nonNullCount, boolean sorted, Object min, Object max,
+                                             HyperLogLog distinctSketch) {
+        ColumnStatistics statistics = new ColumnStatistics();
+        statistics.valueCounts = null;
+        statistics.distinctSketch = distinctSketch;
+        statistics.min = min;
+        statistics.max = max;
+        statistics.nonNullCount = nonNullCount;
+        statistics.restoreOrder(nullCount, sorted);
+        return statistics;
+    }
+
+    /**
+     * Sets the null count and the sort order of restored statistics. The last value appended to a sorted
+     * column is its maximum.
+     * @param nullCount The number of null values.
+     * @param sorted True if the column is known to be sorted.
+     */
+    private void restoreOrder(long nullCount, boolean sorted) {
+        this.nullCount = nullCount;
+        this.sorted = sorted;
+        this.lastAppendedValue = sorted ? getMax() : null;
+    }
+
+    /**
+     * Records a value being added in a new row at the end of the table,
+     * tracking whether the column is still in ascending order.
+     * @param value The appended value, possibly null.
+     */
+    @SuppressWarnings("unchecked")
+    void append(Object value) {
+        add(value);
+        if (value == null) {
+            return;
+        }
+        if (sorted && lastAppendedValue != null && ((Comparable<Object>) value).compareTo(lastAppendedValue) < 0) {
+            sorted = false;
+        }
+        lastAppendedValue = value;
+    }
+
+    /**
+     * Records that a value was changed in place, so the column can no longer be assumed to be sorted.
+     */
+    void markUnsorted() {
+        sorted = false;
+    }
+
+    /**
+     * Records a value being added to the column.
+     * @param value The added value, possibly null.
+     */
+    @SuppressWarnings("unchecked")
+    void add(Object value) {
+        if (value == null) {
+            nullCount++;
+            return;
+        }
+        nonNullCount++;
+        if (valueCounts != null) {
+            valueCounts.merge(value, 1, Integer::sum);
+            if (valueCounts.size() > MAX_TRACKED_VALUES) {
+                stopCounting();
+            }
+            return;
+        }
+        distinctSketch.add(value);
+        if (min == null || ((Comparable<Object>) value).compareTo(min) < 0) {
+            min = value;
+        }
+        if (max == null || ((Comparable<Object>) value).compareTo(max) > 0) {
+            max = value;
+        }
+    }
+
+    /**
+     * Drops the exact occurrence counts once the column has too many distinct values, keeping their
+     * minimum, maximum and a sketch of them.
+     */
+    private void stopCounting() {
+        distinctSketch = new HyperLogLog();
+        for (Object value : valueCounts.keySet()) {
+            distinctSketch.add(value);
+        }
+        min = valueCounts.firstKey();
+        max = valueCounts.lastKey();
+        valueCounts = null;
+    }
+
+    /**
+     * Records a value being removed from the column.
+     * @param value The removed value, possibly null.
+     */
+    void remove(Object value) {
+        if (value == null) {
+            if (nullCount > 0) nullCount--;
+            return;
+        }
+        if (valueCounts == null) {
+            if (nonNullCount > 0) nonNullCount--;
+            if (value.equals(min) || value.equals(max)) {
+                extremesKnown = false;
+            }
+            return;
+        }
+        Integer count = valueCounts.get(value);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            valueCounts.remove(value);
+        } else {
+            valueCounts.put(value, count - 1);
+        }
+        nonNullCount--;
+    }
+
+    /**
+     * Checks whether the statistics lost their minimum or maximum and must be rebuilt from the rows.
+     * @return True if a rebuild is needed.
+     */
+    boolean needsRebuild() {
+        return !extremesKnown;
+    }
+
+    /**
+     * Checks whether the occurrences of each value are counted exactly.
+     * @return True while the column has at most {@link #MAX_TRACKED_VALUES} distinct values.
+     */
+    public boolean isCounted() {
+        return valueCounts != null;
+    }
+
+    /**
+     * Checks whether the column's non-null values are known to appear in ascending order in the table's rows.
+     * Removing rows keeps a sorted column sorted; changing a value in place clears the flag
+     * until the statistics are rebuilt.
+     * @return True if the column is known to be sorted.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Gets the number of null values in the column.
+     * @return The null count.
+     */
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * Gets the number of non-null values in the column.
+     * @return The non-null count.
+     */
+    public long getNonNullCount() {
+        return nonNullCount;
+    }
+
+    /**
+     * Gets the number of distinct non-null values in the column, estimated if they are not counted exactly.
+     * @return The distinct count.
+     */
+    public int getDistinctCount() {
+        if (valueCounts != null) {
+            return valueCounts.size();
+        }
+        return (int) Math.min(Math.min(distinctSketch.estimate(), nonNullCount), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the smallest non-null value in the column.
+     * @return The minimum value, or null if the column has no non-null values or the minimum is unknown.
+     */
+    public Object getMin() {
+        if (valueCounts == null) {
+            return extremesKnown && nonNullCount > 0 ? min : null;
+        }
+        return valueCounts.isEmpty() ? null : valueCounts.firstKey();
+    }
+
+    /**
+     * Gets the largest non-null value in the column.
+     * @return The maximum value, or null if the column has no non-null values or the maximum is unknown.
+     */
+    public Object getMax() {
+        if (valueCounts == null) {
+            return extremesKnown && nonNullCount > 0 ? max : null;
+        }
+        return valueCounts.isEmpty() ? null : valueCounts.lastKey();
+    }
+
+    /**
+     * Gets the number of rows whose value in this column equals the given value.
+     * @param value The value to look up. Null counts the null values.
+     * @return The number of occurrences, or -1 if the column's values are not counted exactly.
+     * @throws ClassCastException If the value is not comparable with the column's values.
+     */
+    public long getCount(Object value) {
+        if (value == null) {
+            return nullCount;
+        }
+        if (valueCounts == null) {
+            return -1;
+        }
+        Integer count = valueCounts.get(value);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Gets a read-only view of the occurrences of each non-null value, in ascending order.
+     * @return A sorted map of value to occurrence count, or null if the values are not counted exactly.
+     */
+    public Map<Object, Integer> getValueCounts() {
+        return valueCounts != null ? Collections.unmodifiableMap(valueCounts) : null;
+    }
+
+    /**
+     * Gets the sketch of the distinct values, to be saved with the table.
+     * @return The sketch, or null while the values are counted exactly.
+     */
+    HyperLogLog getDistinctSketch() {
+        return distinctSketch;
+    }
+}
@@ -0,0 +1,17 @@
+package project;
+
+/**
+ * Thrown from inside a long-running operation when its command was cancelled or ran past its timeout.
+ * Commands report it like any other failed database operation.
+ */
+public class CommandCancelledException extends DatabaseOperationException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new CommandCancelledException with the specified detail message.
+     * @param message The detail message.
+     */
+    public CommandCancelledException(String message) {
+        super(message);
+    }
+}
@@ -10,4 +10,15 @@ public interface CommandHandler {
      * @param args The arguments for the command.
      */
     void execute(String[] args);
+
+    /**
+     * Declares the tables the command reads and writes with the given arguments, so that it can run
+     * alongside commands on other tables. The arguments may be invalid; the command reports that when it runs.
+     * Commands that do not declare their tables get exclusive access to the whole database.
+     * @param args The arguments for the command.
+     * @return The tables the command uses.
+     */
+    default TableAccess getTableAccess(String[] args) {
+        return TableAccess.exclusive();
+    }
 }
\ No newline at end of file
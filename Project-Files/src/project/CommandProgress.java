@@ -0,0 +1,175 @@
+package project;
+
+/**
+ * Progress, cancellation and timeout of the command running on a thread.
+ * Long-running loops, such as the scans of joins, imports and saves, call {@link #advance(long)} for the
+ * rows they process; every few thousand rows the count is published for progress reports and the command
+ * is checked for cancellation and for its timeout, ending it with a {@link CommandCancelledException}.
+ * Cancellation is cooperative: a command stops only at these checks.
+ * A row visited by several passes of an operation counts once per pass.
+ */
+public class CommandProgress {
+
+    private static final ThreadLocal<CommandProgress> CURRENT = new ThreadLocal<>();
+    private static final CommandProgress NONE = new CommandProgress(0, false); // For threads without a command
+    private static final int CHECK_INTERVAL = 4096; // Rows between checks
+
+    private final long startNanos;
+    private final long timeoutMillis;      // 0 for no timeout
+    private final boolean background;
+    private volatile boolean cancelled;
+    private volatile boolean stopped;      // Set once a check has ended the command
+    private volatile long processed;       // Rows published so far
+    private volatile long expected;        // Rows the command is expected to process, or 0 if unknown
+    private long pending;                  // Rows not published yet; used only by the command's thread
+
+    /**
+     * Constructs the progress of a command that is about to start.
+     * @param timeoutMillis The time after which the command is stopped, or 0 for no timeout.
+     * @param background True if the command runs as a background job, without prompts.
+     */
+    public CommandProgress(long timeoutMillis, boolean background) {
+        this.startNanos = System.nanoTime();
+        this.timeoutMillis = timeoutMillis;
+        this.background = background;
+    }
+
+    /**
+     * Gets the progress of the command running on the current thread.
+     * @return The progress, or an inactive progress that is never cancelled if no command is running.
+     */
+    public static CommandProgress current() {
+        CommandProgress progress = CURRENT.get();
+        return progress != null ? progress : NONE;
+    }
+
+    /**
+     * Binds the progress to the current thread while its command runs.
+     */
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Unbinds the progress from the current thread when its command ends.
+     */
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Adds rows the command is expected to process, for estimating the remaining time.
+     * @param rows The number of rows.
+     */
+    public void expect(long rows) {
+        if (this != NONE) {
+            expected += rows;
+        }
+    }
+
+    /**
+     * Records processed rows, checking every few thousand rows whether the command must stop.
+     * @param rows The number of rows processed since the last call.
+     * @throws CommandCancelledException If the command was cancelled or ran past its timeout.
+     */
+    public void advance(long rows) throws CommandCancelledException {
+        if (this == NONE) {
+            return;
+        }
+        pending += rows;
+        if (pending >= CHECK_INTERVAL) {
+            processed += pending;
+            pending = 0;
+            check();
+        }
+    }
+
+    /**
+     * Publishes the last rows when the command ends, so that its final count is reported without an estimate.
+     */
+    void finish() {
+        processed += pending;
+        pending = 0;
+        expected = 0;
+    }
+
+    /**
+     * Checks whether the command must stop.
+     * @throws CommandCancelledException If the command was cancelled or ran past its timeout.
+     */
+    public void check() throws CommandCancelledException {
+        if (cancelled) {
+            stopped = true;
+            throw new CommandCancelledException("ERROR: Command cancelled.");
+        }
+        if (isTimedOut()) {
+            stopped = true;
+            throw new CommandCancelledException("ERROR: Command stopped after its timeout of " + timeoutMillis + " ms.");
+        }
+    }
+
+    /**
+     * Asks the command to stop at its next check.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the command was asked to stop.
+     * @return True after {@link #cancel()}.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether a check has ended the command, because it was cancelled or ran past its timeout.
+     * A command may also finish normally after a cancellation, if it was near its end.
+     * @return True if the command was stopped.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Checks whether the command has run past its timeout.
+     * @return True if it has a timeout and has run longer.
+     */
+    public boolean isTimedOut() {
+        return timeoutMillis > 0 && getElapsedMillis() > timeoutMillis;
+    }
+
+    /**
+     * Checks whether the command runs as a background job, in which case it must not prompt for input.
+     * @return True for a background job.
+     */
+    public boolean isBackground() {
+        return background;
+    }
+
+    /**
+     * Gets the time since the command started.
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Describes the progress: the rows processed, the throughput and, if the amount of work is known,
+     * the estimated remaining time.
+     * @return A description such as "1200000 rows processed, 400000 rows/s, ETA 3 s".
+     */
+    public String describe() {
+        long done = processed;
+        long millis = Math.max(1, getElapsedMillis());
+        long rate = done * 1000 / millis;
+        String description = done + " rows processed, " + rate + " rows/s";
+        long total = expected;
+        if (total > done && rate > 0) {
+            description += ", ETA " + ((total - done + rate - 1) / rate) + " s";
+        }
+        return description;
+    }
+}
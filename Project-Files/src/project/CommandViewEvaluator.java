@@ -0,0 +1,59 @@
+package project;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+import project.commands.*;
+
+/**
+ * Evaluates the queries of a database's views by running their commands as queries.
+ * A query is parsed like a command line, and its command must be one of the query commands.
+ * Each {@link Database} has one evaluator of its own, shared by every session, so evaluating a view
+ * does not depend on which command line interface defined it or is still connected.
+ */
+class CommandViewEvaluator implements ViewEvaluator {
+
+    private final Map<String, QueryCommand> queryCommands = new HashMap<>();
+
+    /**
+     * Constructs the evaluator of a database, with the query commands that work on it.
+     * The commands never prompt while evaluating, so they read no input.
+     * @param database The database whose views are evaluated.
+     */
+    CommandViewEvaluator(Database database) {
+        Scanner noInput = new Scanner(InputStream.nullInputStream());
+        queryCommands.put("select", new SelectCommand(database, noInput));
+        queryCommands.put("innerjoin", new InnerJoinCommand(database));
+        queryCommands.put("join", new JoinCommand(database));
+        queryCommands.put("semijoin", new JoinVariantCommand(database, JoinType.SEMI));
+        queryCommands.put("antijoin", new JoinVariantCommand(database, JoinType.ANTI));
+        queryCommands.put("leftjoin", new JoinVariantCommand(database, JoinType.LEFT));
+        queryCommands.put("orderby", new OrderByCommand(database));
+    }
+
+    /**
+     * Evaluates the query of a view by running its command as a query.
+     * @param viewName The name of the view, used as the name of the result table.
+     * @param query The query text.
+     * @return The result table.
+     * @throws DatabaseOperationException If the query is empty, its command is unknown or cannot be
+     * used as a view query, or the query fails.
+     */
+    @Override
+    public Table evaluate(String viewName, String query) throws DatabaseOperationException {
+        CLI.CommandLine line = CLI.parse(query);
+        if (line == null) {
+            throw new DatabaseOperationException("ERROR: View '" + viewName + "' has an empty query.");
+        }
+        if (line.unclosedQuote) {
+            System.out.println("WARNING: Unclosed quote in input.");
+        }
+        QueryCommand command = queryCommands.get(line.command);
+        if (command == null) {
+            throw new DatabaseOperationException("ERROR: '" + line.command + "' cannot be used as a view query.");
+        }
+        return command.evaluate(viewName, line.args);
+    }
+}
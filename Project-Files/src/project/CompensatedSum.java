@@ -0,0 +1,43 @@
+package project;
+
+/**
+ * A running sum of doubles that keeps the low-order bits lost to rounding in a separate compensation
+ * term (Neumaier's variant of Kahan summation). The result is as accurate as if the sum were kept
+ * with twice the precision, so a value that is added and later subtracted again leaves the sum as it
+ * was, and a sum maintained incrementally agrees with one computed by a scan of the same values.
+ */
+public class CompensatedSum {
+
+    private double sum;
+    private double compensation; // Low-order bits lost from sum
+
+    /**
+     * Adds a value to the sum.
+     * @param value The value.
+     */
+    public void add(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    /**
+     * Subtracts a value from the sum.
+     * @param value The value.
+     */
+    public void subtract(double value) {
+        add(-value);
+    }
+
+    /**
+     * Gets the sum.
+     * @return The sum of the values added, less the values subtracted.
+     */
+    public double get() {
+        return sum + compensation;
+    }
+}
@@ -1,31 +1,69 @@
 package project;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages the database, including its catalog of tables,
  * loaded tables in memory, and tracking unsaved changes.
+ * Commands may run at the same time on different threads: each one first takes the locks of the
+ * tables it uses with {@link #lockTables(TableAccess)}. The catalog maps that commands on different
+ * tables may change at the same time, such as the registry when a join registers its result, are
+ * safe for concurrent use. The tables in memory are multi-versioned: a reading command reads a snapshot
+ * taken with {@link #openSnapshot()}, and the changes of a writing command become visible to new
+ * snapshots when it calls {@link #commitChanges()}.
  */
 public class Database {
 
-    private String currentCatalogFilePath;
+    private volatile String currentCatalogFilePath;
     private Map<String, String> tableFilePathsRegistry; // Stores table file path
     private Map<String, Table> allTablesInMemory;       // Stores table object
-    private boolean hasUnsavedChangesGlobal;
+    private volatile boolean hasUnsavedChangesGlobal;
+    private Map<String, Long> tableVersions;            // Stores current version of each table
+    private final AtomicLong versionCounter;            // Source of new versions, never reset
+    private final Set<String> reservedNames;            // Names handed out for tables not registered yet
+    private final TableLockManager lockManager;
+    private final VersionClock versionClock;
+    private final QueryCache queryCache;
+    private Map<String, View> views;                    // Stores view definitions and their cached results
+    private Map<String, MaterializedAggregate> materializedViews; // Incrementally maintained aggregates
+    private final ViewEvaluator viewEvaluator;          // Runs the queries of views, for every session
+    private final Deque<Map<String, Long>> viewDependencies; // Reads recorded for each view being evaluated
+    private final Set<String> viewsBeingEvaluated;
+    private final ReplicationLog replicationLog;        // Null unless this process is a replication primary
+    private volatile ReplicaFollower follower;          // Applies the primary's changes on a read replica; null otherwise
 
     /**
      * Constructs a new Database instance, initializing internal structures.
      */
     public Database() {
         this.currentCatalogFilePath = null;
-        this.tableFilePathsRegistry = new LinkedHashMap<>(); // Preserves insertion order for catalog writing
-        this.allTablesInMemory = new HashMap<>();
+        this.tableFilePathsRegistry = Collections.synchronizedMap(new LinkedHashMap<>()); // Preserves insertion order for catalog writing
+        this.allTablesInMemory = new ConcurrentHashMap<>();
         this.hasUnsavedChangesGlobal = false;
+        this.tableVersions = new ConcurrentHashMap<>();
+        this.versionCounter = new AtomicLong();
+        this.reservedNames = ConcurrentHashMap.newKeySet();
+        this.lockManager = new TableLockManager();
+        this.versionClock = new VersionClock();
+        this.queryCache = new QueryCache();
+        this.views = new LinkedHashMap<>();
+        this.materializedViews = new LinkedHashMap<>();
+        this.viewDependencies = new ArrayDeque<>();
+        this.viewsBeingEvaluated = new HashSet<>();
+        this.replicationLog = ReplicationLog.createIfEnabled();
+        this.follower = null;
+        this.viewEvaluator = new CommandViewEvaluator(this);
     }
 
     /**
@@ -59,13 +97,34 @@ public class Database {
      * Then, for each entry, it attempts to load the table data from its file.
      * @param filePath The path to the database catalog file.
      * @param registry A map containing table names as keys and their file paths as values, typically read from the catalog file.
+     * @param viewDefinitions A map containing view names as keys and their query text as values, read from the catalog file.
+     * @param materializedViewDefinitions A map containing materialized view names as keys and their definitions as values.
      * @throws DatabaseOperationException If any error occurs during catalog loading or table loading.
      */
-    public void loadCatalog(String filePath, Map<String, String> registry) throws DatabaseOperationException {
+    public void loadCatalog(String filePath, Map<String, String> registry, Map<String, String> viewDefinitions,
+                            Map<String, String> materializedViewDefinitions) throws DatabaseOperationException {
         closeDatabaseInternal();
 
         this.currentCatalogFilePath = filePath;
-        this.tableFilePathsRegistry = new LinkedHashMap<>(registry); // Use a new map from the loaded registry
+        this.tableFilePathsRegistry = Collections.synchronizedMap(new LinkedHashMap<>(registry)); // Use a new map from the loaded registry
+        for (Map.Entry<String, String> entry : viewDefinitions.entrySet()) {
+            if (this.tableFilePathsRegistry.containsKey(entry.getKey())) {
+                System.out.println("WARNING: View '" + entry.getKey() + "' has the same name as a table. Skipping the view.");
+                continue;
+            }
+            this.views.put(entry.getKey(), new View(entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, String> entry : materializedViewDefinitions.entrySet()) {
+            if (isNameTaken(entry.getKey())) {
+                System.out.println("WARNING: Materialized view '" + entry.getKey() + "' has the same name as a table or view. Skipping it.");
+                continue;
+            }
+            try {
+                this.materializedViews.put(entry.getKey(), MaterializedAggregate.parse(entry.getKey(), entry.getValue()));
+            } catch (DatabaseOperationException e) {
+                System.out.println("WARNING: Skipping materialized view '" + entry.getKey() + "': " + e.getMessage());
+            }
+        }
 
         System.out.println("Database catalog '" + new File(filePath).getName() + "' definition loaded.");
 
@@ -86,7 +145,9 @@ public class Database {
                             "') differs from registered name ('" + tableName + "'). Using registered name.");
                     table.setName(tableName);
                 }
+                table.setVersionClock(this.versionClock);
                 this.allTablesInMemory.put(tableName, table);
+                bumpVersion(tableName);
             } catch (DatabaseOperationException e) {
                 closeDatabaseInternal();
                 throw new DatabaseOperationException("Failed to load table '" + tableName + "' from '" + tableDataFilePath + "': " + e.getMessage(), e);
@@ -95,6 +156,15 @@ public class Database {
 
         this.hasUnsavedChangesGlobal = false;
         System.out.println("All tables for database '" + new File(filePath).getName() + "' loaded successfully. " + this.allTablesInMemory.size() + " table(s) in memory.");
+        if (!this.views.isEmpty()) {
+            System.out.println(this.views.size() + " view(s) defined; they are evaluated when first used.");
+        }
+        if (!this.materializedViews.isEmpty()) {
+            System.out.println(this.materializedViews.size() + " materialized view(s) defined; they are built when first used.");
+        }
+        if (this.replicationLog != null) {
+            this.replicationLog.opened(filePath);
+        }
     }
 
 
@@ -110,6 +180,9 @@ public class Database {
         }
         String closedFileName = new File(currentCatalogFilePath).getName();
         closeDatabaseInternal();
+        if (this.replicationLog != null) {
+            this.replicationLog.closed();
+        }
         System.out.println("Successfully closed database: " + closedFileName);
     }
 
@@ -122,6 +195,18 @@ public class Database {
         this.tableFilePathsRegistry.clear();
         this.allTablesInMemory.clear();
         this.hasUnsavedChangesGlobal = false;
+        this.tableVersions.clear();
+        this.queryCache.clear();
+        this.views.clear();
+        for (MaterializedAggregate materializedView : this.materializedViews.values()) {
+            materializedView.detach();
+        }
+        this.materializedViews.clear();
+        this.viewDependencies.clear();
+        this.viewsBeingEvaluated.clear();
+        this.reservedNames.clear();
+        this.lockManager.clearTableLocks();
+        this.versionClock.clear();
     }
 
     /**
@@ -132,11 +217,69 @@ public class Database {
     public void markCatalogAsSaved(String filePath) {
         this.currentCatalogFilePath = filePath;
         this.hasUnsavedChangesGlobal = false;
+        if (this.replicationLog != null) {
+            this.replicationLog.saved(true);
+        }
+    }
+
+    /**
+     * Marks in the replication log that a save is about to write the table files, if this process is a
+     * replication primary. Must be followed by {@link #markCatalogAsSaved(String)} or {@link #markSaveFailed()}.
+     * @param filePath The path the catalog is being saved to.
+     */
+    public void markSaveStarted(String filePath) {
+        if (this.replicationLog != null) {
+            this.replicationLog.saving(filePath);
+        }
+    }
+
+    /**
+     * Marks in the replication log that a save failed after it started writing the table files,
+     * if this process is a replication primary.
+     */
+    public void markSaveFailed() {
+        if (this.replicationLog != null) {
+            this.replicationLog.saved(false);
+        }
+    }
+
+    /**
+     * Gets the log of changes kept for read replicas.
+     * @return The log, or null unless this process is a replication primary.
+     */
+    public ReplicationLog getReplicationLog() {
+        return this.replicationLog;
+    }
+
+    /**
+     * Checks whether this database is a read replica, whose tables only its {@link ReplicaFollower} changes.
+     * @return True on a replica.
+     */
+    public boolean isReplica() {
+        return this.follower != null;
+    }
+
+    /**
+     * Gets the follower that applies the primary's changes to this read replica.
+     * @return The follower, or null if this database is not a replica.
+     */
+    public ReplicaFollower getReplicaFollower() {
+        return this.follower;
+    }
+
+    /**
+     * Makes this database a read replica, on which client sessions cannot run commands that change it.
+     * @param follower The follower that applies the primary's changes.
+     */
+    void setReplicaFollower(ReplicaFollower follower) {
+        this.follower = follower;
     }
 
     /**
      * Retrieves a table by its name from the in-memory store.
-     * @param name The name of the table to retrieve.
+     * If the name is a view, the view's result is returned, evaluating the view's query first
+     * if it has not been evaluated yet or a table it reads has changed since.
+     * @param name The name of the table or view to retrieve.
      * @return The Table object.
      * @throws DatabaseOperationException If no catalog is open, or if the table is not found or not loaded.
      */
@@ -147,11 +290,354 @@ public class Database {
         Table table = this.allTablesInMemory.get(name);
         if (table == null) {
             if (this.tableFilePathsRegistry.containsKey(name)) {
-                throw new DatabaseOperationException("ERROR: Table '" + name + "' is registered but was not found in memory (load may have failed during open operation).");
+                table = loadRegisteredTable(name);
+            } else if (this.views.containsKey(name)) {
+                table = evaluateView(this.views.get(name));
+            } else if (this.materializedViews.containsKey(name)) {
+                table = getMaterializedViewResult(this.materializedViews.get(name));
             } else {
                 throw new DatabaseOperationException("ERROR: Table '" + name + "' not found in the database (not listed in catalog).");
             }
         }
+        if (!this.viewDependencies.isEmpty()) {
+            this.viewDependencies.peek().put(name, getTableVersion(name));
+        }
+        return table;
+    }
+
+    /**
+     * Retrieves a table that is about to be modified.
+     * Same as {@link #getTable(String)}, except that views are rejected, since their data is derived from other tables.
+     * @param name The name of the table to retrieve.
+     * @return The Table object.
+     * @throws DatabaseOperationException If no catalog is open, the name is a view, or the table is not found.
+     */
+    public Table getTableForUpdate(String name) throws DatabaseOperationException {
+        if (this.views.containsKey(name) || this.materializedViews.containsKey(name)) {
+            throw new DatabaseOperationException("ERROR: '" + name + "' is a view and cannot be modified. Modify the tables it reads instead.");
+        }
+        return getTable(name);
+    }
+
+    /**
+     * Defines a new view. The query is not evaluated until the view is first read.
+     * Marks the database as having unsaved changes.
+     * @param name The name of the view.
+     * @param query The query text, a command line of a query command.
+     * @throws DatabaseOperationException If no catalog is open, the name is invalid, or the name is already in use.
+     */
+    public void createView(String name, String query) throws DatabaseOperationException {
+        if (!isCatalogOpen()) {
+            throw new DatabaseOperationException("ERROR: No database file open to create a view in.");
+        }
+        if (name == null || name.trim().isEmpty() || name.contains(",")) {
+            throw new DatabaseOperationException("ERROR: View name cannot be empty or contain commas.");
+        }
+        if (isNameTaken(name)) {
+            throw new DatabaseOperationException("ERROR: Name '" + name + "' already exists in the database.");
+        }
+        this.views.put(name, new View(name, query));
+        bumpVersion(name);
+        markChanged();
+    }
+
+    /**
+     * Removes a view definition. Views that read it will fail when next evaluated.
+     * Marks the database as having unsaved changes.
+     * @param name The name of the view.
+     * @throws DatabaseOperationException If no catalog is open or the view is not found.
+     */
+    public void dropView(String name) throws DatabaseOperationException {
+        if (!isCatalogOpen()) {
+            throw new DatabaseOperationException("ERROR: No database file open.");
+        }
+        if (this.views.remove(name) == null) {
+            throw new DatabaseOperationException("ERROR: View '" + name + "' not found.");
+        }
+        bumpVersion(name);
+        markChanged();
+    }
+
+    /**
+     * Checks whether a name is a view.
+     * @param name The name to check.
+     * @return True if a view with that name is defined.
+     */
+    public boolean isView(String name) {
+        return this.views.containsKey(name);
+    }
+
+    /**
+     * Gets the view definitions, for writing them to the catalog file.
+     * @return An unmodifiable map of view names to query text, in definition order.
+     */
+    public Map<String, String> getViewDefinitions() {
+        Map<String, String> definitions = new LinkedHashMap<>();
+        for (View view : this.views.values()) {
+            definitions.put(view.getName(), view.getQuery());
+        }
+        return Collections.unmodifiableMap(definitions);
+    }
+
+    /**
+     * Gets the view with the given name.
+     * @param name The name of the view.
+     * @return The {@link View}, or null if there is none.
+     */
+    public View getView(String name) {
+        return this.views.get(name);
+    }
+
+    /**
+     * Defines a materialized aggregate over a registered table and builds it with one scan of the table.
+     * From then on it is updated from the table's changes.
+     * Marks the database as having unsaved changes.
+     * @param materializedView The materialized aggregate, not built yet.
+     * @throws DatabaseOperationException If no catalog is open, the name is invalid or in use,
+     * the source is not a registered table, or the definition does not fit the table.
+     */
+    public void createMaterializedView(MaterializedAggregate materializedView) throws DatabaseOperationException {
+        if (!isCatalogOpen()) {
+            throw new DatabaseOperationException("ERROR: No database file open to create a view in.");
+        }
+        String name = materializedView.getName();
+        if (name == null || name.trim().isEmpty() || name.contains(",")) {
+            throw new DatabaseOperationException("ERROR: View name cannot be empty or contain commas.");
+        }
+        if (isNameTaken(name)) {
+            throw new DatabaseOperationException("ERROR: Name '" + name + "' already exists in the database.");
+        }
+        if (!this.tableFilePathsRegistry.containsKey(materializedView.getTableName())) {
+            throw new DatabaseOperationException("ERROR: Materialized views can only be defined on tables, and '"
+                    + materializedView.getTableName() + "' is not a registered table.");
+        }
+        materializedView.build(getTable(materializedView.getTableName()));
+        this.materializedViews.put(name, materializedView);
+        bumpVersion(name);
+        markChanged();
+    }
+
+    /**
+     * Removes a materialized view and stops maintaining it.
+     * Marks the database as having unsaved changes.
+     * @param name The name of the materialized view.
+     * @throws DatabaseOperationException If no catalog is open or the materialized view is not found.
+     */
+    public void dropMaterializedView(String name) throws DatabaseOperationException {
+        if (!isCatalogOpen()) {
+            throw new DatabaseOperationException("ERROR: No database file open.");
+        }
+        MaterializedAggregate materializedView = this.materializedViews.remove(name);
+        if (materializedView == null) {
+            throw new DatabaseOperationException("ERROR: Materialized view '" + name + "' not found.");
+        }
+        materializedView.detach();
+        bumpVersion(name);
+        markChanged();
+    }
+
+    /**
+     * Checks whether a name is a materialized view.
+     * @param name The name to check.
+     * @return True if a materialized view with that name is defined.
+     */
+    public boolean isMaterializedView(String name) {
+        return this.materializedViews.containsKey(name);
+    }
+
+    /**
+     * Gets the materialized view definitions, for writing them to the catalog file.
+     * @return An unmodifiable map of materialized view names to definitions, in definition order.
+     */
+    public Map<String, String> getMaterializedViewDefinitions() {
+        Map<String, String> definitions = new LinkedHashMap<>();
+        for (MaterializedAggregate materializedView : this.materializedViews.values()) {
+            definitions.put(materializedView.getName(), materializedView.getDefinition());
+        }
+        return Collections.unmodifiableMap(definitions);
+    }
+
+    /**
+     * Checks whether a name is used by a registered table, a view or a materialized view.
+     * @param name The name to check.
+     * @return True if the name is in use.
+     */
+    public boolean isNameTaken(String name) {
+        return this.tableFilePathsRegistry.containsKey(name) || this.allTablesInMemory.containsKey(name)
+                || this.views.containsKey(name) || this.materializedViews.containsKey(name)
+                || this.reservedNames.contains(name);
+    }
+
+    /**
+     * Checks whether a name is used by a registered table, not counting names reserved for tables
+     * that commands are still creating.
+     * @param name The name to check.
+     * @return True if a table is registered under the name.
+     */
+    public boolean isTableRegistered(String name) {
+        return (this.tableFilePathsRegistry.containsKey(name) || this.allTablesInMemory.containsKey(name))
+                && !this.reservedNames.contains(name);
+    }
+
+    /**
+     * Reserves a name for a table that a command is about to create, so that commands running at the
+     * same time never pick the same name or write the same file. The name is the base name, or the base
+     * name with a suffix (_2, _3, etc.) if it is taken. The reservation ends when a table is registered
+     * under the name, when it is released, or when the catalog is closed.
+     * A command a replica replays from the primary's {@link ReplicationLog} gets the name the primary chose.
+     * @param base The preferred table name.
+     * @return A name that no table, view or other reservation uses.
+     */
+    public synchronized String reserveTableName(String base) {
+        String name = ReplicationLog.takePresetName();
+        if (name == null || isNameTaken(name)) {
+            name = base;
+            int suffix = 1;
+            while (isNameTaken(name)) {
+                name = base + "_" + (++suffix);
+            }
+        }
+        this.reservedNames.add(name);
+        ReplicationLog.nameReserved(name);
+        return name;
+    }
+
+    /**
+     * Releases a name reserved with {@link #reserveTableName(String)} whose table will not be registered,
+     * for instance because the command creating it failed.
+     * @param name The reserved name.
+     */
+    public void releaseTableName(String name) {
+        this.reservedNames.remove(name);
+    }
+
+    /**
+     * Takes the locks a command needs and holds them until the returned locks are closed.
+     * Commands that use a view or materialized view get exclusive access, since evaluating or
+     * maintaining them reads other tables and changes shared state.
+     * @param access The tables the command reads and writes.
+     * @return The held locks.
+     * @throws DatabaseOperationException If the command needs exclusive access and it is not free in time.
+     */
+    public TableLockManager.Locks lockTables(TableAccess access) throws DatabaseOperationException {
+        return this.lockManager.acquire(access, name -> this.views.containsKey(name) || this.materializedViews.containsKey(name));
+    }
+
+    /**
+     * Takes the locks a command of a transaction needs and adds them to the locks the transaction holds.
+     * @param held The locks of the transaction, kept until it ends.
+     * @param access The tables the command reads, writes and alters.
+     * @throws DatabaseOperationException If the command cannot run inside a transaction or its locks are not free in time.
+     */
+    public void lockTablesWithin(TableLockManager.Locks held, TableAccess access) throws DatabaseOperationException {
+        this.lockManager.acquireWithin(held, access, name -> this.views.containsKey(name) || this.materializedViews.containsKey(name));
+    }
+
+    /**
+     * Takes a snapshot of the committed data for the current thread, for a command that only reads.
+     * Until the snapshot is closed, the thread sees every table as it was when the snapshot was taken,
+     * while other commands keep changing the tables.
+     * @return The snapshot, to be closed when the command ends.
+     */
+    public VersionClock.Snapshot openSnapshot() {
+        return this.versionClock.openSnapshot();
+    }
+
+    /**
+     * Commits the changes the current thread made to tables, making them visible to new snapshots.
+     * Called when a command ends, before its locks are released. Does nothing if no table was changed.
+     */
+    public void commitChanges() {
+        this.versionClock.commit();
+    }
+
+    /**
+     * Returns the current result of a materialized view, building it first if it was loaded from
+     * the catalog and has not been used yet.
+     * @param materializedView The materialized view.
+     * @return The result table.
+     * @throws DatabaseOperationException If its table is missing or no longer fits the definition.
+     */
+    private Table getMaterializedViewResult(MaterializedAggregate materializedView) throws DatabaseOperationException {
+        if (!materializedView.isBuilt()) {
+            materializedView.build(getTable(materializedView.getTableName()));
+        }
+        return materializedView.getResult();
+    }
+
+    /**
+     * Returns the result of a view, evaluating its query if there is no stored result
+     * or a table or view it read has a new version.
+     * A new result gives the view a new version, which invalidates results cached from the old one.
+     * @param view The view.
+     * @return The view's result table.
+     * @throws DatabaseOperationException If the query fails or refers to the view itself.
+     */
+    private Table evaluateView(View view) throws DatabaseOperationException {
+        if (view.getResult() != null && isViewResultCurrent(view)) {
+            return view.getResult();
+        }
+        if (!this.viewsBeingEvaluated.add(view.getName())) {
+            throw new DatabaseOperationException("ERROR: View '" + view.getName() + "' refers to itself.");
+        }
+        this.viewDependencies.push(new HashMap<>());
+        Table result;
+        Map<String, Long> dependencies;
+        try {
+            result = this.viewEvaluator.evaluate(view.getName(), view.getQuery());
+        } finally {
+            dependencies = this.viewDependencies.pop();
+            this.viewsBeingEvaluated.remove(view.getName());
+        }
+        result.setName(view.getName());
+        view.setResult(result, dependencies);
+        bumpVersion(view.getName());
+        return result;
+    }
+
+    /**
+     * Checks whether the stored result of a view is still current: every table and view it read
+     * still has the version that was read, and every view it read is itself still current.
+     * @param view The view.
+     * @return True if the stored result can be reused.
+     */
+    private boolean isViewResultCurrent(View view) {
+        for (Map.Entry<String, Long> dependency : view.getDependencies().entrySet()) {
+            if (getTableVersion(dependency.getKey()) != dependency.getValue()) {
+                return false;
+            }
+            View dependencyView = this.views.get(dependency.getKey());
+            if (dependencyView != null && (dependencyView.getResult() == null || !isViewResultCurrent(dependencyView))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads a table that is registered in the catalog but not yet held in memory,
+     * such as a result table that was streamed straight to its file.
+     * @param name The registered name of the table.
+     * @return The loaded Table object.
+     * @throws DatabaseOperationException If the table file cannot be read.
+     */
+    private synchronized Table loadRegisteredTable(String name) throws DatabaseOperationException {
+        Table loaded = this.allTablesInMemory.get(name);
+        if (loaded != null) {
+            return loaded; // Loaded by another reader in the meantime.
+        }
+        String tableDataFilePath = this.tableFilePathsRegistry.get(name);
+        Table table;
+        try {
+            table = FileHandler.readTableFromFile(tableDataFilePath);
+        } catch (DatabaseOperationException e) {
+            throw new DatabaseOperationException("ERROR: Table '" + name + "' is registered but could not be loaded from '" + tableDataFilePath + "': " + e.getMessage(), e);
+        }
+        if (!table.getName().equals(name)) {
+            table.setName(name);
+        }
+        table.setVersionClock(this.versionClock);
+        this.allTablesInMemory.put(name, table);
         return table;
     }
 
@@ -163,7 +649,7 @@ public class Database {
      * @param filePath The file path where this table will be/is saved.
      * @throws DatabaseOperationException If no catalog is open, the table name is invalid, or the table name already exists.
      */
-    public void registerNewTable(Table table, String filePath) throws DatabaseOperationException {
+    public synchronized void registerNewTable(Table table, String filePath) throws DatabaseOperationException {
         if (!isCatalogOpen()) {
             throw new DatabaseOperationException("ERROR: No database file open to register new table.");
         }
@@ -171,12 +657,15 @@ public class Database {
         if (tableName == null || tableName.trim().isEmpty()) {
             throw new DatabaseOperationException("ERROR: Table name cannot be null or empty for registration.");
         }
-        if (this.tableFilePathsRegistry.containsKey(tableName) || this.allTablesInMemory.containsKey(tableName)) {
+        this.reservedNames.remove(tableName); // A reservation is for this registration.
+        if (isNameTaken(tableName)) {
             throw new DatabaseOperationException("ERROR: Table name '" + tableName + "' already exists in the database.");
         }
         this.tableFilePathsRegistry.put(tableName, filePath);
+        table.setVersionClock(this.versionClock);
         this.allTablesInMemory.put(tableName, table);
-        this.hasUnsavedChangesGlobal = true;
+        bumpVersion(tableName);
+        markChanged();
     }
 
     /**
@@ -187,7 +676,7 @@ public class Database {
      * @param filePath The file path from which this table was imported.
      * @throws DatabaseOperationException If no catalog is open, the table name is invalid, or the table name already exists.
      */
-    public void registerImportedTable(Table table, String filePath) throws DatabaseOperationException {
+    public synchronized void registerImportedTable(Table table, String filePath) throws DatabaseOperationException {
         if (!isCatalogOpen()) {
             throw new DatabaseOperationException("ERROR: No database file open to import table into.");
         }
@@ -195,17 +684,46 @@ public class Database {
         if (tableName == null || tableName.trim().isEmpty()) {
             throw new DatabaseOperationException("ERROR: Imported table name cannot be null or empty.");
         }
-        if (this.tableFilePathsRegistry.containsKey(tableName) || this.allTablesInMemory.containsKey(tableName)) {
+        this.reservedNames.remove(tableName); // A reservation is for this registration.
+        if (isNameTaken(tableName)) {
             throw new DatabaseOperationException("ERROR: Table name '" + tableName + "' already exists in the database. Cannot import.");
         }
         this.tableFilePathsRegistry.put(tableName, filePath);
+        table.setVersionClock(this.versionClock);
         this.allTablesInMemory.put(tableName, table);
-        this.hasUnsavedChangesGlobal = true;
+        bumpVersion(tableName);
+        markChanged();
+    }
+
+    /**
+     * Registers a table whose data has already been written to a file, without loading it into memory.
+     * The table is loaded from the file the first time it is requested with {@link #getTable(String)}.
+     * Used for large results that are streamed straight to disk.
+     * Marks the database as having unsaved changes.
+     * @param tableName The name of the table.
+     * @param filePath The file path holding the table's data.
+     * @throws DatabaseOperationException If no catalog is open, the table name is invalid, or the table name already exists.
+     */
+    public synchronized void registerTableFile(String tableName, String filePath) throws DatabaseOperationException {
+        if (!isCatalogOpen()) {
+            throw new DatabaseOperationException("ERROR: No database file open to register new table.");
+        }
+        if (tableName == null || tableName.trim().isEmpty()) {
+            throw new DatabaseOperationException("ERROR: Table name cannot be null or empty for registration.");
+        }
+        this.reservedNames.remove(tableName); // A reservation is for this registration.
+        if (isNameTaken(tableName)) {
+            throw new DatabaseOperationException("ERROR: Table name '" + tableName + "' already exists in the database.");
+        }
+        this.tableFilePathsRegistry.put(tableName, filePath);
+        bumpVersion(tableName);
+        markChanged();
     }
 
     /**
      * Marks that data within a specific table has been modified.
-     * This sets the global unsaved changes flag for the database.
+     * This sets the global unsaved changes flag for the database and advances the table's version,
+     * which invalidates any cached query results computed from it.
      * @param tableName The name of the table that was modified.
      * @throws DatabaseOperationException If no catalog is open or if the table is not known/loaded.
      */
@@ -216,7 +734,14 @@ public class Database {
         if (!this.allTablesInMemory.containsKey(tableName)) {
             throw new DatabaseOperationException("ERROR: Cannot mark data modified for an unknown or unloaded table: '" + tableName + "'.");
         }
-        this.hasUnsavedChangesGlobal = true;
+        bumpVersion(tableName);
+        // Materialized views already applied the change; their results have a new version too.
+        for (MaterializedAggregate materializedView : this.materializedViews.values()) {
+            if (materializedView.getTableName().equals(tableName)) {
+                bumpVersion(materializedView.getName());
+            }
+        }
+        markChanged();
     }
 
     /**
@@ -236,7 +761,8 @@ public class Database {
         }
         this.tableFilePathsRegistry.remove(name);
         this.allTablesInMemory.remove(name);
-        this.hasUnsavedChangesGlobal = true;
+        bumpVersion(name);
+        markChanged();
         System.out.println("Table '" + name + "' removed from database (memory and registration).");
     }
 
@@ -258,15 +784,17 @@ public class Database {
         if (oldName.equalsIgnoreCase(newName)) {
             if (this.tableFilePathsRegistry.containsKey(oldName) && !this.tableFilePathsRegistry.get(oldName).equals(newFilePath)) {
                 this.tableFilePathsRegistry.put(oldName, newFilePath);
-                this.hasUnsavedChangesGlobal = true;
+                markChanged();
                 System.out.println("Table '" + oldName + "' file path in registry updated to '" + newFilePath + "'.");
             }
             return;
         }
 
-        if (!this.allTablesInMemory.containsKey(oldName) || !this.tableFilePathsRegistry.containsKey(oldName))
+        if (!this.tableFilePathsRegistry.containsKey(oldName))
             throw new DatabaseOperationException("ERROR: Table '" + oldName + "' not found for renaming.");
-        if (this.allTablesInMemory.containsKey(newName) || this.tableFilePathsRegistry.containsKey(newName))
+        if (!this.allTablesInMemory.containsKey(oldName))
+            loadRegisteredTable(oldName);
+        if (isNameTaken(newName))
             throw new DatabaseOperationException("ERROR: Target table name '" + newName + "' already exists.");
 
         Table tableToRename = this.allTablesInMemory.remove(oldName);
@@ -275,33 +803,44 @@ public class Database {
         tableToRename.setName(newName); // Update the name within the Table object itself
         this.allTablesInMemory.put(newName, tableToRename);
         this.tableFilePathsRegistry.put(newName, newFilePath); // Register under new name and path
+        bumpVersion(oldName);
+        bumpVersion(newName);
+        for (MaterializedAggregate materializedView : this.materializedViews.values()) {
+            if (materializedView.getTableName().equals(oldName)) {
+                materializedView.setTableName(newName);
+            }
+        }
 
-        this.hasUnsavedChangesGlobal = true;
+        markChanged();
         System.out.println("Table renamed from '" + oldName + "' to '" + newName + "'.");
     }
 
     /**
-     * Gets an unmodifiable view of the table file path registry.
+     * Gets an unmodifiable copy of the table file path registry.
      * @return An unmodifiable map of table names to their file paths.
      */
     public Map<String, String> getTableRegistry() {
-        return Collections.unmodifiableMap(this.tableFilePathsRegistry);
+        synchronized (this.tableFilePathsRegistry) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(this.tableFilePathsRegistry));
+        }
     }
 
     /**
-     * Gets an unmodifiable view of all tables currently loaded in memory.
+     * Gets an unmodifiable copy of the map of all tables currently loaded in memory.
      * @return An unmodifiable map of table names to {@link Table} objects.
      */
     public Map<String, Table> getAllTablesInMemory() {
-        return Collections.unmodifiableMap(allTablesInMemory);
+        return Collections.unmodifiableMap(new HashMap<>(allTablesInMemory));
     }
 
     /**
-     * Gets an unmodifiable set of the names of all tables registered in the catalog.
+     * Gets an unmodifiable copy of the names of all tables registered in the catalog.
      * @return An unmodifiable set of table names.
      */
     public Set<String> getTableNames() {
-        return Collections.unmodifiableSet(this.tableFilePathsRegistry.keySet());
+        synchronized (this.tableFilePathsRegistry) {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(this.tableFilePathsRegistry.keySet()));
+        }
     }
 
     /**
@@ -325,7 +864,7 @@ public class Database {
      */
     public Set<String> getModifiedLoadedTableNames() {
         if (this.hasUnsavedChangesGlobal) {
-            return Collections.unmodifiableSet(this.allTablesInMemory.keySet());
+            return Collections.unmodifiableSet(new LinkedHashSet<>(this.allTablesInMemory.keySet()));
         }
         return Collections.emptySet();
     }
@@ -339,4 +878,51 @@ public class Database {
     public Table getLoadedTable(String name) {
         return this.allTablesInMemory.get(name);
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the current version of a table.
+     * The version changes whenever the table is registered, modified, renamed or removed,
+     * so two reads that see the same version are guaranteed to see the same data.
+     * A reader whose snapshot does not see the latest rows of the table gets -1, since what it reads
+     * belongs to no version.
+     * @param tableName The name of the table.
+     * @return The current version, 0 if the table has never been registered, or -1 if the current
+     * thread's snapshot is older than the table's latest rows.
+     */
+    public long getTableVersion(String tableName) {
+        Long version = this.tableVersions.get(tableName);
+        Table table = this.allTablesInMemory.get(tableName); // Checked after the version is read
+        if (table != null && !table.isCurrentForSnapshot()) {
+            return -1;
+        }
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Gets the cache of read-only query results for this database.
+     * @return The {@link QueryCache} instance.
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Assigns a new, never previously used version to a table and drops its cached query results.
+     * A single counter is shared by all tables, so a table that is removed and later re-created
+     * under the same name can never reuse an old version.
+     * @param tableName The name of the table whose version changes.
+     */
+    private void bumpVersion(String tableName) {
+        this.tableVersions.put(tableName, this.versionCounter.incrementAndGet());
+        this.queryCache.invalidateTable(tableName);
+    }
+
+    /**
+     * Records a change of the tables, views or catalog: the database has unsaved changes, and the
+     * running command is logged for read replicas.
+     */
+    private void markChanged() {
+        this.hasUnsavedChangesGlobal = true;
+        ReplicationLog.changeMade();
+    }
+}
@@ -0,0 +1,179 @@
+package project;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves one loaded database to many clients over a line protocol on a local TCP socket.
+ * Each connection gets its own thread and its own {@link CLI}, reading command lines from the socket
+ * and writing the output back to it, so the tables are loaded once and shared by all clients.
+ * Commands of different clients run at the same time, each holding the locks of the tables it uses.
+ * Pagination is off by default in server mode, so results are written in full instead of holding
+ * locks while waiting for navigation input; a client ends
+ * its session with "exit" or "quit", which closes only the connection.
+ */
+public class DatabaseServer {
+
+    /** Port the server listens on when none is given. */
+    public static final int DEFAULT_PORT = 5050;
+
+    private final Database database;
+    private final int port;
+    private final ExecutorService connectionThreads;
+    private final AtomicInteger connectionCounter;
+
+    /**
+     * Constructs a server for a new, empty database.
+     * @param port The local port to listen on.
+     */
+    public DatabaseServer(int port) {
+        this.database = new Database();
+        this.port = port;
+        this.connectionCounter = new AtomicInteger();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.connectionThreads = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "db-connection-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the catalog if one is given, then accepts connections on the loopback address until the process ends.
+     * @param catalogPath The catalog to open before accepting connections, or null to let the clients open one.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public void start(String catalogPath) throws IOException {
+        OutputRouter.install();
+        if (System.getProperty("db.output.paging") == null) {
+            System.setProperty("db.output.paging", "false");
+        }
+        if (catalogPath != null) {
+            new CLI(database, new Scanner(System.in)).execute("open " + catalogPath);
+        }
+        listen();
+    }
+
+    /**
+     * Serves a read replica of a catalog that a primary process works on: loads it, keeps it up to date
+     * with the primary's replication log, and accepts connections, whose sessions can only read.
+     * @param catalogPath The primary's catalog file.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    public void startFollower(String catalogPath) throws IOException {
+        OutputRouter.install();
+        if (System.getProperty("db.output.paging") == null) {
+            System.setProperty("db.output.paging", "false");
+        }
+        new ReplicaFollower(database, catalogPath).start();
+        listen();
+    }
+
+    /**
+     * Accepts connections on the loopback address until the process ends.
+     * @throws IOException If the server socket cannot be opened.
+     */
+    private void listen() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Database server listening on " + serverSocket.getInetAddress().getHostAddress()
+                    + ":" + serverSocket.getLocalPort() + ".");
+            while (true) {
+                Socket socket = serverSocket.accept();
+                int connectionId = connectionCounter.incrementAndGet();
+                connectionThreads.execute(() -> serve(socket, connectionId));
+            }
+        } finally {
+            connectionThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the session of one client: reads command lines until the client quits or disconnects,
+     * executing each one with the output routed to the connection.
+     * @param socket The client connection.
+     * @param connectionId The number of the connection, for console messages.
+     */
+    private void serve(Socket socket, int connectionId) {
+        OutputRouter.console().println("Connection " + connectionId + " opened from " + socket.getRemoteSocketAddress() + ".");
+        try (socket;
+             PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8)) {
+            Scanner in = new Scanner(new FlushingInputStream(socket.getInputStream(), out), StandardCharsets.UTF_8);
+            OutputRouter.route(out);
+            CLI cli = new CLI(database, in);
+            out.println("Simple Database server. Type 'help' for commands, 'quit' to disconnect.");
+            while (true) {
+                cli.printFinishedJobs();
+                out.print("> ");
+                if (!in.hasNextLine()) {
+                    break;
+                }
+                String line = in.nextLine().trim();
+                if (line.equalsIgnoreCase("exit") || line.equalsIgnoreCase("quit")) {
+                    out.println("Goodbye.");
+                    break;
+                }
+                cli.execute(line);
+            }
+            cli.endSession();
+        } catch (IOException e) {
+            OutputRouter.console().println("WARNING: Connection " + connectionId + " failed: " + e.getMessage());
+        } finally {
+            OutputRouter.clear();
+        }
+        OutputRouter.console().println("Connection " + connectionId + " closed.");
+    }
+
+    /**
+     * Input stream of a connection that flushes the connection's output before it blocks for input,
+     * so that prompts written without a line end reach the client before the server waits for the answer.
+     */
+    private static class FlushingInputStream extends FilterInputStream {
+        private final PrintStream output;
+
+        /**
+         * Constructs the stream.
+         * @param in The input of the connection.
+         * @param output The output of the connection.
+         */
+        FlushingInputStream(InputStream in, PrintStream output) {
+            super(in);
+            this.output = output;
+        }
+
+        /**
+         * Flushes the output, then reads one byte.
+         * @return The byte, or -1 at the end of the input.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        public int read() throws IOException {
+            output.flush();
+            return super.read();
+        }
+
+        /**
+         * Flushes the output, then reads bytes.
+         * @param buffer The destination.
+         * @param offset The position of the first byte to fill.
+         * @param length The maximum number of bytes to read.
+         * @return The number of bytes read, or -1 at the end of the input.
+         * @throws IOException If reading fails.
+         */
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            output.flush();
+            return super.read(buffer, offset, length);
+        }
+    }
+}
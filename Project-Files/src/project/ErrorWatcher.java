@@ -0,0 +1,97 @@
+package project;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output stream that passes everything to another stream and notes whether a line starting
+ * with "ERROR:" was written, which is how commands report failures.
+ */
+class ErrorWatcher extends OutputStream {
+    private static final byte[] PREFIX = "ERROR:".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream target;
+    private int matched;      // Bytes of the prefix matched at the start of the current line, or -1 if it cannot match
+    private boolean sawError;
+
+    /**
+     * Constructs the stream.
+     * @param target The stream everything is passed to.
+     */
+    ErrorWatcher(OutputStream target) {
+        this.target = target;
+    }
+
+    /**
+     * Checks whether an error line was written.
+     * @return True if a line started with "ERROR:".
+     */
+    boolean sawError() {
+        return sawError;
+    }
+
+    /**
+     * Writes one byte.
+     * @param b The byte.
+     */
+    @Override
+    public void write(int b) {
+        watch((byte) b);
+        try {
+            target.write(b);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes bytes.
+     * @param bytes The bytes.
+     * @param offset The position of the first byte.
+     * @param length The number of bytes.
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            watch(bytes[i]);
+        }
+        try {
+            target.write(bytes, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the target.
+     */
+    @Override
+    public void flush() {
+        try {
+            target.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Matches one byte against the error prefix at the start of the line.
+     * @param b The byte.
+     */
+    private void watch(byte b) {
+        if (b == '\n') {
+            matched = 0;
+        } else if (matched >= 0 && matched < PREFIX.length) {
+            if (b == PREFIX[matched]) {
+                matched++;
+                if (matched == PREFIX.length) {
+                    sawError = true;
+                }
+            } else {
+                matched = -1;
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package project;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 /**
@@ -9,16 +12,28 @@ import java.util.*;
  */
 public class FileHandler {
 
-    private static final String TABLE_NAME_PREFIX = "Table: ";
-    private static final String DELIMITER_WRITE = " | ";
-    private static final String HEADER_SEPARATOR_DELIMITER_WRITE = "-+-";
+    static final String TABLE_NAME_PREFIX = "Table: ";
+    static final String DELIMITER_WRITE = " | ";
+    static final String HEADER_SEPARATOR_DELIMITER_WRITE = "-+-";
+    static final String NO_ROWS_PLACEHOLDER = "| (Table has no rows)";
     // Regex for splitting, allowing for surrounding whitespace.
     private static final String DELIMITER_PATTERN_READ = "\\s*\\|\\s*";
+    private static final String STATISTICS_FILE_SUFFIX = ".stats";
+    private static final String STATISTICS_ROWS_PREFIX = "Rows: ";
+    private static final String STATISTICS_DATA_BYTES_PREFIX = "Data bytes: ";
+    private static final String STATISTICS_COUNTS_PREFIX = "Counts of column ";
+    private static final String STATISTICS_SKETCH_PREFIX = "Sketch of column ";
+    private static final String VIEW_LINE_PREFIX = "@view ";
+    private static final String MATERIALIZED_VIEW_LINE_PREFIX = "@matview ";
+    // Directory a read replica writes its table files to, leaving the primary's files alone; null otherwise.
+    private static volatile Path localDirectory;
 
 
     /**
      * Reads a database catalog file and returns a map of table names to their file paths.
      * Catalog file format: TableName,FilePath (one per line, '#' for comments).
+     * View lines ("@view ViewName,Query") and materialized view lines ("@matview ViewName,Definition") are skipped;
+     * see {@link #readViewDefinitions(String)} and {@link #readMaterializedViewDefinitions(String)}.
      * @param catalogFilePath The path to the catalog file.
      * @return A {@link LinkedHashMap} preserving the order of entries, mapping table names to file paths.
      * @throws DatabaseOperationException If an I/O error occurs or the file format is invalid.
@@ -36,7 +51,8 @@ public class FileHandler {
             while ((line = reader.readLine()) != null) {
                 lineNumber++;
                 line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) {
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith(VIEW_LINE_PREFIX)
+                        || line.startsWith(MATERIALIZED_VIEW_LINE_PREFIX)) {
                     continue;
                 }
                 String[] parts = line.split(",", 2);
@@ -63,18 +79,98 @@ public class FileHandler {
     }
 
     /**
-     * Writes the table registry (map of table names to file paths) to a catalog file.
+     * Reads the view definitions from a database catalog file.
+     * View line format: @view ViewName,Query (the query runs to the end of the line).
+     * @param catalogFilePath The path to the catalog file.
+     * @return A {@link LinkedHashMap} preserving the order of entries, mapping view names to query text.
+     * Empty if the file does not exist.
+     * @throws DatabaseOperationException If an I/O error occurs.
+     */
+    public static Map<String, String> readViewDefinitions(String catalogFilePath) throws DatabaseOperationException {
+        return readPrefixedDefinitions(catalogFilePath, VIEW_LINE_PREFIX, "view");
+    }
+
+    /**
+     * Reads the materialized view definitions from a database catalog file.
+     * Line format: @matview ViewName,Table TargetColumnIndex Operation [group ColumnIndex]
+     * @param catalogFilePath The path to the catalog file.
+     * @return A {@link LinkedHashMap} preserving the order of entries, mapping view names to definitions.
+     * Empty if the file does not exist.
+     * @throws DatabaseOperationException If an I/O error occurs.
+     */
+    public static Map<String, String> readMaterializedViewDefinitions(String catalogFilePath) throws DatabaseOperationException {
+        return readPrefixedDefinitions(catalogFilePath, MATERIALIZED_VIEW_LINE_PREFIX, "materialized view");
+    }
+
+    /**
+     * Reads the catalog lines that start with a prefix, each holding a name and a definition separated by the first comma.
+     * @param catalogFilePath The path to the catalog file.
+     * @param prefix The line prefix.
+     * @param kind What the lines define, for warnings.
+     * @return A {@link LinkedHashMap} preserving the order of entries, mapping names to definitions.
+     * @throws DatabaseOperationException If an I/O error occurs.
+     */
+    private static Map<String, String> readPrefixedDefinitions(String catalogFilePath, String prefix, String kind) throws DatabaseOperationException {
+        Map<String, String> definitions = new LinkedHashMap<>();
+        File catalogFile = new File(catalogFilePath);
+        int lineNumber = 0;
+        if (!catalogFile.exists()) {
+            return definitions;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(catalogFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (!line.startsWith(prefix)) {
+                    continue;
+                }
+                String[] parts = line.substring(prefix.length()).split(",", 2);
+                if (parts.length != 2 || parts[0].trim().isEmpty() || parts[1].trim().isEmpty()) {
+                    System.out.println("WARNING: Skipping invalid " + kind + " line " + lineNumber + " in database: " + line);
+                    continue;
+                }
+                String name = parts[0].trim();
+                if (definitions.containsKey(name)) {
+                    System.out.println("WARNING: Duplicate " + kind + " name '" + name + "' in database (line " + lineNumber + ").");
+                    continue;
+                }
+                definitions.put(name, parts[1].trim());
+            }
+        } catch (IOException e) {
+            throw new DatabaseOperationException("ERROR: Reading database file '" + catalogFilePath + "': " + e.getMessage(), e);
+        }
+        return definitions;
+    }
+
+    /**
+     * Writes the table registry (map of table names to file paths) and the view definitions to a catalog file.
      * @param registry The map of table names to file paths.
+     * @param views The map of view names to query text.
+     * @param materializedViews The map of materialized view names to definitions.
      * @param catalogFilePath The path to the catalog file to be written.
      * @throws DatabaseOperationException If an I/O error occurs.
      */
-    public static void writeCatalog(Map<String, String> registry, String catalogFilePath) throws DatabaseOperationException {
+    public static void writeCatalog(Map<String, String> registry, Map<String, String> views,
+                                    Map<String, String> materializedViews, String catalogFilePath) throws DatabaseOperationException {
         try (PrintWriter writer = new PrintWriter(new FileWriter(catalogFilePath))) {
             writer.println("# Database File");
             writer.println("# Format: TableName,FilePath");
+            if (!views.isEmpty()) {
+                writer.println("# Views: " + VIEW_LINE_PREFIX + "ViewName,Query");
+            }
+            if (!materializedViews.isEmpty()) {
+                writer.println("# Materialized views: " + MATERIALIZED_VIEW_LINE_PREFIX + "ViewName,Table TargetColumn Operation [group Column]");
+            }
             for (Map.Entry<String, String> entry : registry.entrySet()) {
                 writer.println(entry.getKey() + "," + entry.getValue());
             }
+            for (Map.Entry<String, String> entry : views.entrySet()) {
+                writer.println(VIEW_LINE_PREFIX + entry.getKey() + "," + entry.getValue());
+            }
+            for (Map.Entry<String, String> entry : materializedViews.entrySet()) {
+                writer.println(MATERIALIZED_VIEW_LINE_PREFIX + entry.getKey() + "," + entry.getValue());
+            }
         } catch (IOException e) {
             throw new DatabaseOperationException("ERROR: Writing database file '" + catalogFilePath + "': " + e.getMessage(), e);
         }
@@ -94,7 +190,8 @@ public class FileHandler {
         List<Column> importedColumns = new ArrayList<>();
         List<Row> importedRows = new ArrayList<>();
         int lineNumber = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+        String actualFilename = getReadPath(filename);
+        try (BufferedReader reader = new BufferedReader(new FileReader(actualFilename))) {
             String line;
 
             line = reader.readLine();
@@ -142,10 +239,16 @@ public class FileHandler {
                 }
             }
 
+            // Rows are padded to the width of the separator line, which gives the number of rows to expect.
+            CommandProgress progress = CommandProgress.current();
+            if (trimmedSeparatorLine != null && !trimmedSeparatorLine.isEmpty()) {
+                progress.expect(new File(actualFilename).length() / (line.length() + 1));
+            }
             while ((line = reader.readLine()) != null) {
                 lineNumber++;
+                progress.advance(1);
                 String trimmedDataLine = line.trim();
-                if (trimmedDataLine.startsWith("| (Table has no rows)")) continue; // Skip no rows placeholder message
+                if (trimmedDataLine.startsWith(NO_ROWS_PLACEHOLDER)) continue; // Skip no rows placeholder message
 
                 if (importedColumns.isEmpty()) {
                     if (!trimmedDataLine.equals("|") && !trimmedDataLine.equals("||") && !trimmedDataLine.equals("| |") && !trimmedDataLine.isEmpty()) {
@@ -170,12 +273,8 @@ public class FileHandler {
                 List<Object> parsedValues = new ArrayList<>();
                 for (int i = 0; i < importedColumns.size(); i++) {
                     String valToParse = valuesStr[i].trim();
-                    if (valToParse.equals("[NoData]") || valToParse.equals("[DataErr]") || valToParse.equalsIgnoreCase("NULL")) {
-                        parsedValues.add(null);
-                        continue;
-                    }
                     try {
-                        parsedValues.add(TypeParser.parse(valToParse, importedColumns.get(i).getType()));
+                        parsedValues.add(parseStoredValue(valToParse, importedColumns.get(i).getType()));
                     } catch (DatabaseOperationException e) {
                         System.out.println("WARNING: Line " + lineNumber + ", Col " + (i + 1) + " ('" + importedColumns.get(i).getName() + "'): Parse error for value '" + valToParse + "' as " + importedColumns.get(i).getType() + ". Using NULL. Error: " + e.getMessage());
                         parsedValues.add(null);
@@ -183,7 +282,10 @@ public class FileHandler {
                 }
                 importedRows.add(new Row(parsedValues));
             }
-            return new Table(actualTableName, importedColumns, importedRows);
+            List<ColumnStatistics> savedStatistics = readStatisticsFile(actualFilename, importedColumns, importedRows.size());
+            return savedStatistics != null
+                    ? new Table(actualTableName, importedColumns, importedRows, savedStatistics)
+                    : new Table(actualTableName, importedColumns, importedRows);
         } catch (FileNotFoundException e) {
             throw new DatabaseOperationException("ERROR: Table file not found '" + filename + "'", e);
         } catch (IOException e) {
@@ -197,91 +299,361 @@ public class FileHandler {
      * Formats the output with table name, column headers (name and type),
      * a separator line, and then pipe-delimited row data.
      * Calculates column widths for pretty printing.
+     * The data is written to a temporary file that replaces the table file only once it is complete,
+     * so a save that fails or is cancelled leaves the previous file intact.
      * @param table The {@link Table} object to write.
      * @param filename The path to the file where the table data will be written.
-     * @throws DatabaseOperationException If an I/O error occurs.
+     * @throws DatabaseOperationException If an I/O error occurs or the command is cancelled.
      */
     public static void writeTableToFile(Table table, String filename) throws DatabaseOperationException {
+        String localFilename = getWritePath(filename);
+        Path target = Path.of(localFilename);
+        Path temporary = Path.of(localFilename + ".tmp");
+        try {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(temporary.toFile()))) {
+                writeTableData(table, writer);
+                if (writer.checkError()) {
+                    throw new IOException("write failed");
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(temporary);
+            throw new DatabaseOperationException("ERROR: Writing table file '" + filename + "': " + e.getMessage(), e);
+        } catch (DatabaseOperationException e) {
+            deleteQuietly(temporary);
+            throw e;
+        }
+        writeStatisticsFile(table, filename);
+    }
+
+    /**
+     * Sends the table file writes of this process to a directory of its own, as a read replica does so that
+     * it never changes the files of its primary. Table files written there are read from there; other
+     * table files are read from their own paths.
+     * @param directory The directory, or null to write table files to their own paths again.
+     */
+    public static void setLocalDirectory(Path directory) {
+        localDirectory = directory;
+    }
+
+    /**
+     * Gets the path a table file or sidecar is written to: its own path, or its place in the local directory
+     * of a read replica.
+     * @param filename The path of the file.
+     * @return The path to write to.
+     */
+    public static String getWritePath(String filename) {
+        Path directory = localDirectory;
+        if (directory == null) {
+            return filename;
+        }
+        Path path = Path.of(filename);
+        if (path.isAbsolute()) {
+            path = path.getRoot().relativize(path);
+        }
+        path = path.normalize();
+        if (path.startsWith("..")) {
+            path = path.getFileName();
+        }
+        Path local = directory.resolve(path);
+        try {
+            Files.createDirectories(local.getParent());
+        } catch (IOException e) {
+            // The write that follows reports the problem.
+        }
+        return local.toString();
+    }
+
+    /**
+     * Gets the path a table file or sidecar is read from: its place in the local directory of a read replica
+     * if the replica wrote it, otherwise its own path.
+     * @param filename The path of the file.
+     * @return The path to read from.
+     */
+    public static String getReadPath(String filename) {
+        if (localDirectory == null) {
+            return filename;
+        }
+        String local = getWritePath(filename);
+        return new File(local).exists() ? local : filename;
+    }
+
+    /**
+     * Writes the table name, the column headers and the rows of a table in the data file format.
+     * @param table The table to write.
+     * @param writer The destination.
+     * @throws CommandCancelledException If the command is cancelled while the rows are written.
+     */
+    private static void writeTableData(Table table, PrintWriter writer) throws CommandCancelledException {
         List<Column> columns = table.getColumns();
         List<Row> rows = table.getRows();
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            writer.println(TABLE_NAME_PREFIX + table.getName());
+        CommandProgress progress = CommandProgress.current();
+        progress.expect((long) rows.size() * (columns.size() + 1)); // One pass per column for the widths, then the rows
+        writer.println(TABLE_NAME_PREFIX + table.getName());
 
-            if (columns.isEmpty()) {
-                writer.println("| (Table has no columns) |"); // Special placeholder if no columns
-                return;
-            }
+        if (columns.isEmpty()) {
+            writer.println("| (Table has no columns) |"); // Special placeholder if no columns
+            return;
+        }
 
-            List<String> combinedColumnHeaders = new ArrayList<>();
-            Map<Integer, Integer> columnWidths = new HashMap<>();
+        List<String> combinedColumnHeaders = new ArrayList<>();
+        Map<Integer, Integer> columnWidths = new HashMap<>();
+
+        // Calculate optimal column widths for formatting.
+        // Width is based on header text length and the length of the longest data value in that column.
+        for (int i = 0; i < columns.size(); i++) {
+            Column col = columns.get(i);
+            String headerText = col.getName() + " - " + col.getType().name();
+            combinedColumnHeaders.add(headerText);
+            int maxWidth = headerText.length();
+            for (Row row : rows) {
+                progress.advance(1);
+                if (i < row.size()) { // Check if row has this column
+                    try {
+                        // Use formatValueAsString to get the string representation for width calculation
+                        maxWidth = Math.max(maxWidth, formatValueAsString(row.getValue(i)).length());
+                    } catch (IndexOutOfBoundsException e) {
+                    }
+                }
+            }
+            columnWidths.put(i, Math.max(maxWidth, 5));
+        }
 
-            // Calculate optimal column widths for formatting.
-            // Width is based on header text length and the length of the longest data value in that column.
-            for (int i = 0; i < columns.size(); i++) {
-                Column col = columns.get(i);
-                String headerText = col.getName() + " - " + col.getType().name();
-                combinedColumnHeaders.add(headerText);
-                int maxWidth = headerText.length();
-                for (Row row : rows) {
-                    if (i < row.size()) { // Check if row has this column
+        StringBuilder headerLine = new StringBuilder("|");
+        StringBuilder separatorLine = new StringBuilder("|");
+        for (int i = 0; i < columns.size(); i++) {
+            String paddedHeader = padRight(combinedColumnHeaders.get(i), columnWidths.get(i));
+            headerLine.append(paddedHeader);
+            separatorLine.append(repeatChar('-', columnWidths.get(i)));
+            if (i < columns.size() - 1) {
+                headerLine.append(DELIMITER_WRITE);
+                separatorLine.append(HEADER_SEPARATOR_DELIMITER_WRITE);
+            }
+        }
+        headerLine.append("|");
+        separatorLine.append("|");
+        writer.println(headerLine.toString());
+        writer.println(separatorLine.toString());
+
+        if (rows.isEmpty()) {
+            StringBuilder emptyRowLine = new StringBuilder("(Table has no rows)");
+            int targetLength = separatorLine.length() - 3;
+            while(emptyRowLine.length() < targetLength -1){
+                emptyRowLine.insert(0," ");
+                if(emptyRowLine.length() < targetLength -1) emptyRowLine.append(" ");
+            }
+            writer.println("| " + padRight(emptyRowLine.toString(), targetLength-1)+ "|");
+        } else {
+            for (Row row : rows) {
+                progress.advance(1);
+                writer.print("|");
+                List<Object> values = row.getValues();
+                for (int j = 0; j < columns.size(); j++) {
+                    String valStr = "[NoData]";
+                    if (j < values.size()) {
                         try {
-                            // Use formatValueAsString to get the string representation for width calculation
-                            maxWidth = Math.max(maxWidth, formatValueAsString(row.getValue(i)).length());
+                            valStr = formatValueForSave(values.get(j));
                         } catch (IndexOutOfBoundsException e) {
+                            valStr = "[DataErr]";
                         }
                     }
+                    writer.print(padRight(valStr, columnWidths.get(j)));
+                    if (j < columns.size() - 1) {
+                        writer.print(DELIMITER_WRITE);
+                    }
                 }
-                columnWidths.put(i, Math.max(maxWidth, 5));
+                writer.println(" |");
             }
+        }
+    }
 
-            StringBuilder headerLine = new StringBuilder("|");
-            StringBuilder separatorLine = new StringBuilder("|");
+    /**
+     * Deletes a file, ignoring failures, when cleaning up after an error.
+     * @param path The file to delete.
+     */
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Gets the path of the statistics sidecar file that accompanies a table data file.
+     * @param tableFilename The path to the table data file.
+     * @return The path to the sidecar file.
+     */
+    public static String getStatisticsFilePath(String tableFilename) {
+        return tableFilename + STATISTICS_FILE_SUFFIX;
+    }
+
+    /**
+     * Writes the column statistics of a table to a sidecar file next to its data file, so that loading
+     * the table restores them instead of rebuilding them from the rows.
+     * The sidecar records the row count, the size of the data file it describes and, for each column,
+     * the null count, non-null count, distinct count, minimum, maximum and sort order, in the same
+     * pipe-delimited layout as table files. Then come the occurrences of each value of the columns whose
+     * values are counted exactly, and the distinct-value sketch of the others.
+     * @param table The {@link Table} whose statistics are written.
+     * @param tableFilename The path to the table data file, which must already be written.
+     * @throws DatabaseOperationException If an I/O error occurs.
+     */
+    public static void writeStatisticsFile(Table table, String tableFilename) throws DatabaseOperationException {
+        String statisticsFilename = getWritePath(getStatisticsFilePath(tableFilename));
+        List<Column> columns = table.getColumns();
+        List<ColumnStatistics> statistics = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            statistics.add(table.getColumnStatistics(i));
+        }
+        try (PrintWriter writer = new PrintWriter(new FileWriter(statisticsFilename))) {
+            writer.println(TABLE_NAME_PREFIX + table.getName());
+            writer.println(STATISTICS_ROWS_PREFIX + table.getRowCount());
+            writer.println(STATISTICS_DATA_BYTES_PREFIX + new File(getWritePath(tableFilename)).length());
+            writer.println("|Column - TYPE" + DELIMITER_WRITE + "Nulls" + DELIMITER_WRITE + "Values" + DELIMITER_WRITE + "Distinct"
+                    + DELIMITER_WRITE + "Min" + DELIMITER_WRITE + "Max" + DELIMITER_WRITE + "Sorted|");
             for (int i = 0; i < columns.size(); i++) {
-                String paddedHeader = padRight(combinedColumnHeaders.get(i), columnWidths.get(i));
-                headerLine.append(paddedHeader);
-                separatorLine.append(repeatChar('-', columnWidths.get(i)));
-                if (i < columns.size() - 1) {
-                    headerLine.append(DELIMITER_WRITE);
-                    separatorLine.append(HEADER_SEPARATOR_DELIMITER_WRITE);
+                ColumnStatistics columnStatistics = statistics.get(i);
+                writer.println("|" + columns.get(i).getName() + " - " + columns.get(i).getType().name()
+                        + DELIMITER_WRITE + columnStatistics.getNullCount()
+                        + DELIMITER_WRITE + columnStatistics.getNonNullCount()
+                        + DELIMITER_WRITE + columnStatistics.getDistinctCount()
+                        + DELIMITER_WRITE + formatValueForSave(columnStatistics.getMin())
+                        + DELIMITER_WRITE + formatValueForSave(columnStatistics.getMax())
+                        + DELIMITER_WRITE + (columnStatistics.isSorted() ? "yes" : "no") + "|");
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                ColumnStatistics columnStatistics = statistics.get(i);
+                if (columnStatistics.isCounted()) {
+                    writer.println(STATISTICS_COUNTS_PREFIX + i + ":");
+                    for (Map.Entry<Object, Integer> entry : columnStatistics.getValueCounts().entrySet()) {
+                        writer.println("|" + formatValueForSave(entry.getKey()) + DELIMITER_WRITE + entry.getValue() + "|");
+                    }
+                } else {
+                    writer.println(STATISTICS_SKETCH_PREFIX + i + ": "
+                            + Base64.getEncoder().encodeToString(columnStatistics.getDistinctSketch().getRegisters()));
                 }
             }
-            headerLine.append("|");
-            separatorLine.append("|");
-            writer.println(headerLine.toString());
-            writer.println(separatorLine.toString());
-
-            if (rows.isEmpty()) {
-                StringBuilder emptyRowLine = new StringBuilder("(Table has no rows)");
-                int targetLength = separatorLine.length() - 3;
-                while(emptyRowLine.length() < targetLength -1){
-                    emptyRowLine.insert(0," ");
-                    if(emptyRowLine.length() < targetLength -1) emptyRowLine.append(" ");
+            if (writer.checkError()) {
+                throw new IOException("write failed");
+            }
+        } catch (IOException e) {
+            throw new DatabaseOperationException("ERROR: Writing statistics file '" + statisticsFilename + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the column statistics saved next to a table's data file, if they still describe it.
+     * Statistics are restored only if the sidecar records the same row count, data file size and columns
+     * as the loaded table; otherwise they are rebuilt from the rows. A row count that differs means the
+     * data file was edited outside the application, and a warning is printed in that case.
+     * A missing sidecar, or one written by an older version, is silently ignored.
+     * @param tableFilename The path to the table data file that was read.
+     * @param columns The columns of the loaded table.
+     * @param rowCount The number of rows loaded.
+     * @return The statistics of each column, or null if they must be rebuilt.
+     */
+    private static List<ColumnStatistics> readStatisticsFile(String tableFilename, List<Column> columns, int rowCount) {
+        File statisticsFile = new File(getStatisticsFilePath(tableFilename));
+        if (!statisticsFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(statisticsFile))) {
+            reader.readLine(); // Table name
+            String rowsLine = reader.readLine();
+            if (rowsLine == null || !rowsLine.startsWith(STATISTICS_ROWS_PREFIX)) {
+                return null;
+            }
+            long recordedRows = Long.parseLong(rowsLine.substring(STATISTICS_ROWS_PREFIX.length()).trim());
+            if (recordedRows != rowCount) {
+                System.out.println("WARNING: Statistics file '" + statisticsFile.getName() + "' records " + recordedRows
+                        + " rows but '" + tableFilename + "' has " + rowCount + ". Statistics were rebuilt from the data.");
+                return null;
+            }
+            String bytesLine = reader.readLine();
+            if (bytesLine == null || !bytesLine.startsWith(STATISTICS_DATA_BYTES_PREFIX)
+                    || Long.parseLong(bytesLine.substring(STATISTICS_DATA_BYTES_PREFIX.length()).trim()) != new File(tableFilename).length()) {
+                return null;
+            }
+            reader.readLine(); // Header
+            long[] nullCounts = new long[columns.size()];
+            long[] nonNullCounts = new long[columns.size()];
+            Object[] mins = new Object[columns.size()];
+            Object[] maxes = new Object[columns.size()];
+            boolean[] sortedColumns = new boolean[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                String[] fields = splitStoredLine(reader.readLine());
+                DataType type = columns.get(i).getType();
+                if (fields == null || fields.length != 7 || !fields[0].equals(columns.get(i).getName() + " - " + type.name())) {
+                    return null;
                 }
-                writer.println("| " + padRight(emptyRowLine.toString(), targetLength-1)+ "|");
-            } else {
-                for (Row row : rows) {
-                    writer.print("|");
-                    List<Object> values = row.getValues();
-                    for (int j = 0; j < columns.size(); j++) {
-                        String valStr = "[NoData]";
-                        if (j < values.size()) {
-                            try {
-                                valStr = formatValueForSave(values.get(j));
-                            } catch (IndexOutOfBoundsException e) {
-                                valStr = "[DataErr]";
-                            }
-                        }
-                        writer.print(padRight(valStr, columnWidths.get(j)));
-                        if (j < columns.size() - 1) {
-                            writer.print(DELIMITER_WRITE);
+                nullCounts[i] = Long.parseLong(fields[1]);
+                nonNullCounts[i] = Long.parseLong(fields[2]);
+                mins[i] = parseStoredValue(fields[4], type);
+                maxes[i] = parseStoredValue(fields[5], type);
+                sortedColumns[i] = fields[6].equals("yes");
+            }
+            List<ColumnStatistics> statistics = new ArrayList<>();
+            String line = reader.readLine();
+            for (int i = 0; i < columns.size(); i++) {
+                DataType type = columns.get(i).getType();
+                if (line == null) {
+                    return null;
+                }
+                if (line.equals(STATISTICS_COUNTS_PREFIX + i + ":")) {
+                    TreeMap<Object, Integer> valueCounts = new TreeMap<>();
+                    while ((line = reader.readLine()) != null && line.startsWith("|")) {
+                        String[] fields = splitStoredLine(line);
+                        if (fields == null || fields.length != 2) {
+                            return null;
                         }
+                        valueCounts.put(parseStoredValue(fields[0], type), Integer.parseInt(fields[1]));
                     }
-                    writer.println(" |");
+                    statistics.add(ColumnStatistics.restoreCounted(nullCounts[i], sortedColumns[i], valueCounts));
+                } else if (line.startsWith(STATISTICS_SKETCH_PREFIX + i + ": ")) {
+                    byte[] registers = Base64.getDecoder().decode(line.substring((STATISTICS_SKETCH_PREFIX + i + ": ").length()).trim());
+                    statistics.add(ColumnStatistics.restoreEstimated(nullCounts[i], nonNullCounts[i], sortedColumns[i],
+                            mins[i], maxes[i], new HyperLogLog(registers)));
+                    line = reader.readLine();
+                } else {
+                    return null;
                 }
             }
-        } catch (IOException e) {
-            throw new DatabaseOperationException("ERROR: Writing table file '" + filename + "': " + e.getMessage(), e);
+            return statistics;
+        } catch (IOException | DatabaseOperationException | IllegalArgumentException e) {
+            System.out.println("WARNING: Ignoring unreadable statistics file '" + statisticsFile.getName() + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Splits a pipe-delimited line of a statistics file into its trimmed fields.
+     * @param line The line.
+     * @return The fields, or null if the line is missing or does not start and end with '|'.
+     */
+    private static String[] splitStoredLine(String line) {
+        if (line == null) {
+            return null;
+        }
+        String trimmed = line.trim();
+        if (trimmed.length() < 2 || !trimmed.startsWith("|") || !trimmed.endsWith("|")) {
+            return null;
+        }
+        return trimmed.substring(1, trimmed.length() - 1).split(DELIMITER_PATTERN_READ, -1);
+    }
+
+    /**
+     * Parses a value as written to a table or statistics file.
+     * @param text The value as written, trimmed.
+     * @param type The type of its column.
+     * @return The value, or null for NULL and the markers of missing data.
+     * @throws DatabaseOperationException If the text cannot be parsed as the type.
+     */
+    private static Object parseStoredValue(String text, DataType type) throws DatabaseOperationException {
+        if (text.equals("[NoData]") || text.equals("[DataErr]") || text.equalsIgnoreCase("NULL")) {
+            return null;
         }
+        return TypeParser.parse(text, type);
     }
 
     /**
@@ -323,7 +695,7 @@ public class FileHandler {
 
         // Always save the database file itself, as it might have changed.
         System.out.println("Saving database to " + catalogFilePath + "...");
-        writeCatalog(registry, catalogFilePath);
+        writeCatalog(registry, db.getViewDefinitions(), db.getMaterializedViewDefinitions(), catalogFilePath);
 
         System.out.println("Database and all relevant tables saved successfully.");
     }
@@ -336,7 +708,7 @@ public class FileHandler {
      * @param value The object value to format.
      * @return The string representation of the value for file storage.
      */
-    private static String formatValueForSave(Object value) {
+    static String formatValueForSave(Object value) {
         if (value == null) {
             return "NULL";
         }
@@ -0,0 +1,318 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Equi-join of two row lists on one or more columns each. Rows with a NULL in any key column never match.
+ * An inner join produces rows made of the left row's values followed by the right row's values; the other
+ * {@link JoinType}s keep or drop left rows depending on whether they have a match.
+ * For an inner join the smaller input is used as the build side of a {@link JoinHashTable} and the larger
+ * one probes it. Semi, anti and left joins always build on the right input and probe with the left one;
+ * semi and anti joins stop probing a row at its first match.
+ * Keys of one or two INTEGER columns are packed into a long; other keys are hashed column by column,
+ * so no key object is created per row.
+ * When the build side has more rows than the memory budget, both inputs are first partitioned by
+ * key hash into temporary files (grace hash join) and the partitions are joined one pair at a time,
+ * so only one build partition is held in memory. The join also partitions when the query's {@link QueryMemory}
+ * budget cannot hold the hash table, with enough partitions for one of them to fit; a partition that still does
+ * not fit, because of skewed keys, stops the join with an error. While the build input is partitioned, a {@link BloomFilter}
+ * of its keys is built, and probe rows it rejects are never written to disk.
+ * Output rows are handed to a {@link RowSink} as soon as they are produced.
+ */
+public class HashJoin {
+
+    /** Default number of build-side rows held in a hash table before the join partitions to disk. */
+    public static final int DEFAULT_MEMORY_ROWS = Integer.getInteger("db.join.memoryRows", 100_000);
+    private static final int MAX_PARTITIONS = 256;
+
+    private final JoinType type;
+    private final List<Row> leftRows;
+    private final int[] leftKeyIndexes;
+    private final List<Row> rightRows;
+    private final int[] rightKeyIndexes;
+    private final int rightColumnCount;
+    private final boolean packedKeys;
+    private final int memoryRows;
+    private String strategy;
+
+    /**
+     * A sequential source of rows, either a list in memory or a partition file on disk.
+     */
+    private interface RowSource {
+        Row next() throws DatabaseOperationException;
+    }
+
+    /**
+     * Constructs an inner hash join with the default memory budget.
+     * @param leftRows The rows of the left input.
+     * @param leftKeyIndexes The join column indexes in the left rows.
+     * @param rightRows The rows of the right input.
+     * @param rightKeyIndexes The join column indexes in the right rows, matched pairwise with the left ones.
+     * @param packedKeys True if the key is one or two INTEGER columns on both sides (see {@link JoinHashTable#canPack}).
+     */
+    public HashJoin(List<Row> leftRows, int[] leftKeyIndexes, List<Row> rightRows, int[] rightKeyIndexes, boolean packedKeys) {
+        this(JoinType.INNER, leftRows, leftKeyIndexes, rightRows, rightKeyIndexes, 0, packedKeys, DEFAULT_MEMORY_ROWS);
+    }
+
+    /**
+     * Constructs a hash join of any type with the default memory budget.
+     * @param type The kind of join.
+     * @param leftRows The rows of the left input.
+     * @param leftKeyIndexes The join column indexes in the left rows.
+     * @param rightRows The rows of the right input.
+     * @param rightKeyIndexes The join column indexes in the right rows, matched pairwise with the left ones.
+     * @param rightColumnCount The number of columns in the right input, used to pad unmatched rows of a left join.
+     * @param packedKeys True if the key is one or two INTEGER columns on both sides (see {@link JoinHashTable#canPack}).
+     */
+    public HashJoin(JoinType type, List<Row> leftRows, int[] leftKeyIndexes, List<Row> rightRows, int[] rightKeyIndexes,
+                    int rightColumnCount, boolean packedKeys) {
+        this(type, leftRows, leftKeyIndexes, rightRows, rightKeyIndexes, rightColumnCount, packedKeys, DEFAULT_MEMORY_ROWS);
+    }
+
+    /**
+     * Constructs a hash join.
+     * @param type The kind of join.
+     * @param leftRows The rows of the left input.
+     * @param leftKeyIndexes The join column indexes in the left rows.
+     * @param rightRows The rows of the right input.
+     * @param rightKeyIndexes The join column indexes in the right rows, matched pairwise with the left ones.
+     * @param rightColumnCount The number of columns in the right input, used to pad unmatched rows of a left join.
+     * @param packedKeys True if the key is one or two INTEGER columns on both sides (see {@link JoinHashTable#canPack}).
+     * @param memoryRows The maximum number of build-side rows to hold in memory at once.
+     */
+    public HashJoin(JoinType type, List<Row> leftRows, int[] leftKeyIndexes, List<Row> rightRows, int[] rightKeyIndexes,
+                    int rightColumnCount, boolean packedKeys, int memoryRows) {
+        this.type = type;
+        this.leftRows = leftRows;
+        this.leftKeyIndexes = leftKeyIndexes;
+        this.rightRows = rightRows;
+        this.rightKeyIndexes = rightKeyIndexes;
+        this.rightColumnCount = rightColumnCount;
+        this.packedKeys = packedKeys;
+        this.memoryRows = Math.max(1, memoryRows);
+        this.strategy = "not executed";
+    }
+
+    /**
+     * Runs the join and sends every output row to the sink.
+     * @param sink The destination for the joined rows.
+     * @return The number of rows produced.
+     * @throws DatabaseOperationException If the sink rejects a row or a temporary file cannot be used.
+     */
+    public long execute(RowSink sink) throws DatabaseOperationException {
+        boolean buildLeft = type == JoinType.INNER && leftRows.size() <= rightRows.size();
+        List<Row> buildRows = buildLeft ? leftRows : rightRows;
+        List<Row> probeRows = buildLeft ? rightRows : leftRows;
+        int[] buildKeyIndexes = buildLeft ? leftKeyIndexes : rightKeyIndexes;
+        int[] probeKeyIndexes = buildLeft ? rightKeyIndexes : leftKeyIndexes;
+        String buildSide = buildLeft ? "left" : "right";
+        String keyKind = packedKeys ? "packed" : "hashed";
+        String keyDescription = leftKeyIndexes.length == 1 ? keyKind + " key" : keyKind + " " + leftKeyIndexes.length + "-column key";
+        String joinName = type == JoinType.INNER ? "hash join" : "hash " + type.name().toLowerCase() + " join";
+        CommandProgress progress = CommandProgress.current();
+        progress.expect(buildRows.size() + probeRows.size());
+
+        QueryMemory memory = QueryMemory.current();
+        long tableBytes = JoinHashTable.estimateBytes(buildRows.size());
+        if (buildRows.size() <= memoryRows && memory.tryReserve(tableBytes)) {
+            strategy = "in-memory " + joinName + " on " + keyDescription + " (build " + buildSide + ")";
+            try {
+                return joinPartition(listSource(buildRows), buildKeyIndexes, listSource(probeRows), probeKeyIndexes, buildLeft, sink);
+            } finally {
+                memory.release(tableBytes);
+            }
+        }
+
+        // Partitions are read back from disk as new rows, so each one needs room for its rows as well as its hash table.
+        long rowBytes = QueryMemory.estimateRows(buildRows, 1) + JoinHashTable.BYTES_PER_ENTRY;
+        long partitionsForBudget = (buildRows.size() * rowBytes) / Math.max(1, memory.getAvailableBytes() / 2) + 1;
+        long partitionsForRows = 2L * ((buildRows.size() + memoryRows - 1) / memoryRows);
+        int partitionCount = (int) Math.min(MAX_PARTITIONS, Math.max(partitionsForRows, partitionsForBudget));
+        progress.expect(buildRows.size() + probeRows.size()); // The partitions are read back in a second pass
+        strategy = "grace " + joinName + " on " + keyDescription + " with " + partitionCount + " partitions (build " + buildSide + ")";
+        List<SpillFile> buildPartitions = new ArrayList<>();
+        List<SpillFile> probePartitions = new ArrayList<>();
+        try {
+            for (int p = 0; p < partitionCount; p++) {
+                buildPartitions.add(new SpillFile());
+                probePartitions.add(new SpillFile());
+            }
+            BloomFilter buildKeys = new BloomFilter(buildRows.size());
+            for (Row row : buildRows) {
+                progress.advance(1);
+                if (JoinHashTable.hasNullKey(row, buildKeyIndexes)) continue;
+                long hash = keyHash(row, buildKeyIndexes);
+                buildKeys.addHash(hash);
+                buildPartitions.get(partitionOf(hash, partitionCount)).write(row);
+            }
+
+            // Probe rows whose key is NULL or rejected by the Bloom filter over the build keys cannot match,
+            // so they are not written to disk; anti and left joins output them right away.
+            long produced = 0;
+            long filtered = 0;
+            for (Row row : probeRows) {
+                progress.advance(1);
+                if (JoinHashTable.hasNullKey(row, probeKeyIndexes)) {
+                    produced += emitUnmatched(row, sink);
+                    continue;
+                }
+                long hash = keyHash(row, probeKeyIndexes);
+                if (!buildKeys.mightContainHash(hash)) {
+                    produced += emitUnmatched(row, sink);
+                    filtered++;
+                    continue;
+                }
+                probePartitions.get(partitionOf(hash, partitionCount)).write(row);
+            }
+            strategy += ", Bloom filter skipped " + filtered + " of " + probeRows.size() + " probe rows";
+
+            for (int p = 0; p < partitionCount; p++) {
+                if (probePartitions.get(p).getRowCount() == 0
+                        || (buildPartitions.get(p).getRowCount() == 0 && !keepsUnmatched())) {
+                    continue;
+                }
+                long partitionBytes = buildPartitions.get(p).getRowCount() * rowBytes;
+                memory.reserve(partitionBytes, "partition " + (p + 1) + " of the hash join");
+                try (SpillFile.Reader buildReader = buildPartitions.get(p).openReader();
+                     SpillFile.Reader probeReader = probePartitions.get(p).openReader()) {
+                    produced += joinPartition(buildReader::next, buildKeyIndexes, probeReader::next, probeKeyIndexes, buildLeft, sink);
+                } finally {
+                    memory.release(partitionBytes);
+                }
+            }
+            return produced;
+        } finally {
+            for (SpillFile file : buildPartitions) file.close();
+            for (SpillFile file : probePartitions) file.close();
+        }
+    }
+
+    /**
+     * Gets a short description of how the join was executed.
+     * @return The strategy description.
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Builds a hash table over one build source and streams one probe source through it.
+     * @param build The build-side rows.
+     * @param buildKeyIndexes The join columns in the build rows.
+     * @param probe The probe-side rows.
+     * @param probeKeyIndexes The join columns in the probe rows.
+     * @param buildLeft True if the build rows come from the left input.
+     * @param sink The destination for joined rows.
+     * @return The number of rows produced.
+     * @throws DatabaseOperationException If reading a source or writing to the sink fails.
+     */
+    private long joinPartition(RowSource build, int[] buildKeyIndexes, RowSource probe, int[] probeKeyIndexes,
+                               boolean buildLeft, RowSink sink) throws DatabaseOperationException {
+        CommandProgress progress = CommandProgress.current();
+        JoinHashTable hashTable = new JoinHashTable(buildKeyIndexes, packedKeys);
+        Row row;
+        while ((row = build.next()) != null) {
+            progress.advance(1);
+            hashTable.add(row);
+        }
+        long produced = 0;
+        while ((row = probe.next()) != null) {
+            progress.advance(1);
+            int entry = hashTable.firstMatch(row, probeKeyIndexes);
+            if (entry < 0) {
+                produced += emitUnmatched(row, sink);
+                continue;
+            }
+            if (type == JoinType.SEMI) {
+                sink.accept(row);
+                produced++;
+                continue;
+            }
+            if (type == JoinType.ANTI) {
+                continue;
+            }
+            for (; entry >= 0; entry = hashTable.nextMatch(entry, row, probeKeyIndexes)) {
+                Row match = hashTable.rowAt(entry);
+                sink.accept(buildLeft ? concat(match, row) : concat(row, match));
+                produced++;
+            }
+        }
+        return produced;
+    }
+
+    /**
+     * Checks whether the join keeps left rows that have no match.
+     * @return True for anti and left joins.
+     */
+    private boolean keepsUnmatched() {
+        return type == JoinType.ANTI || type == JoinType.LEFT;
+    }
+
+    /**
+     * Outputs a left row that has no match, if the join type keeps such rows.
+     * An anti join outputs the row as is; a left join pads it with NULL right values.
+     * @param row The unmatched left row.
+     * @param sink The destination for joined rows.
+     * @return The number of rows produced (0 or 1).
+     * @throws DatabaseOperationException If the sink rejects the row.
+     */
+    private long emitUnmatched(Row row, RowSink sink) throws DatabaseOperationException {
+        if (type == JoinType.ANTI) {
+            sink.accept(row);
+            return 1;
+        }
+        if (type == JoinType.LEFT) {
+            List<Object> values = new ArrayList<>(row.size() + rightColumnCount);
+            for (int i = 0; i < row.size(); i++) values.add(row.getValue(i));
+            for (int i = 0; i < rightColumnCount; i++) values.add(null);
+            sink.accept(new Row(values));
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Computes a well-mixed hash of a row's join key, used for partitioning and the Bloom filter.
+     * @param row The row. Its key columns must not be NULL.
+     * @param keyIndexes The join columns.
+     * @return The 64-bit key hash.
+     */
+    private long keyHash(Row row, int[] keyIndexes) {
+        return ValueHash.mix(JoinHashTable.keyOf(row, keyIndexes, packedKeys));
+    }
+
+    /**
+     * Picks the partition for a key hash. The high bits of the hash are used, since the hash table
+     * inside each partition uses the low bits to pick buckets.
+     * @param hash The key hash.
+     * @param partitionCount The number of partitions.
+     * @return The partition number.
+     */
+    private static int partitionOf(long hash, int partitionCount) {
+        return (int) Math.floorMod(hash >>> 32, (long) partitionCount);
+    }
+
+    /**
+     * Creates a row holding the values of a left row followed by the values of a right row.
+     * @param left The left row.
+     * @param right The right row.
+     * @return The combined row.
+     */
+    static Row concat(Row left, Row right) {
+        List<Object> values = new ArrayList<>(left.size() + right.size());
+        for (int i = 0; i < left.size(); i++) values.add(left.getValue(i));
+        for (int i = 0; i < right.size(); i++) values.add(right.getValue(i));
+        return new Row(values);
+    }
+
+    /**
+     * Wraps a list as a row source.
+     * @param rows The rows.
+     * @return A source returning the rows in list order.
+     */
+    private static RowSource listSource(List<Row> rows) {
+        int[] position = {0};
+        return () -> position[0] < rows.size() ? rows.get(position[0]++) : null;
+    }
+}
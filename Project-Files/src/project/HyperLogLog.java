@@ -0,0 +1,94 @@
+package project;
+
+/**
+ * A HyperLogLog sketch for estimating the number of distinct values in a column.
+ * It uses a fixed array of 2^{@value #PRECISION} registers, so memory stays constant
+ * no matter how many values are added, and the standard error is about 1.6%.
+ * Two sketches can be merged to estimate the distinct count of the union of their inputs.
+ */
+public class HyperLogLog {
+
+    /** The number of hash bits used to select a register. */
+    public static final int PRECISION = 12;
+    private static final int REGISTER_COUNT = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private final byte[] registers;
+
+    /**
+     * Constructs an empty HyperLogLog sketch.
+     */
+    public HyperLogLog() {
+        this.registers = new byte[REGISTER_COUNT];
+    }
+
+    /**
+     * Constructs a sketch from saved registers.
+     * @param registers The registers, as returned by {@link #getRegisters()}.
+     * @throws IllegalArgumentException If the number of registers does not match the precision.
+     */
+    HyperLogLog(byte[] registers) {
+        if (registers.length != REGISTER_COUNT) {
+            throw new IllegalArgumentException("ERROR: Expected " + REGISTER_COUNT + " registers but got " + registers.length + ".");
+        }
+        this.registers = registers.clone();
+    }
+
+    /**
+     * Gets a copy of the registers, for saving the sketch.
+     * @return The registers.
+     */
+    byte[] getRegisters() {
+        return registers.clone();
+    }
+
+    /**
+     * Adds a value to the sketch. Null values are ignored.
+     * @param value The value to add.
+     */
+    public void add(Object value) {
+        if (value == null) {
+            return;
+        }
+        long hash = ValueHash.hash64(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Rank of the first set bit in the remaining bits, counting from 1.
+        long remaining = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Merges another sketch into this one. Afterwards this sketch estimates the
+     * distinct count of all values added to either sketch.
+     * @param other The sketch to merge in.
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of distinct values added to the sketch.
+     * Uses linear counting for small cardinalities, where it is more accurate.
+     * @return The estimated distinct count.
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeroRegisters++;
+        }
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeroRegisters > 0) {
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+}
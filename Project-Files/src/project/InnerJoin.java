@@ -0,0 +1,165 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A validated inner join of two tables on one or more pairs of columns, ready to run into a {@link RowSink}.
+ * Rows match when every pair of join columns holds equal values. The columns of the result are those of
+ * the first table followed by those of the second, each prefixed with its table name (e.g., "table1.colA").
+ * For single-column joins, when both join columns have an ordered index or are known to be sorted, and have the same type,
+ * the tables are merge joined in key order without building a hash table. If only one side is
+ * ordered and a hash join would have to spill to disk, the other side is sorted in memory and
+ * merged. Otherwise the join builds a hash table on the smaller table; if that exceeds the join
+ * memory budget, both tables are partitioned to temporary files and joined one partition at a time.
+ * Keys of one or two INTEGER columns are packed into a long for hashing; other keys are hashed
+ * column by column without creating a key object per row.
+ */
+public class InnerJoin {
+
+    private final Table t1;
+    private final Table t2;
+    private final int[] c1Idxs;
+    private final int[] c2Idxs;
+    private final boolean sameTypes;
+    private final List<DataType> keyTypes;
+    private final List<Column> joinedCols;
+    private String strategy;   // Set once the join has run
+
+    /**
+     * Validates an inner join.
+     * @param database The database holding the tables.
+     * @param t1Name The name of the first table.
+     * @param c1Idxs The join columns of the first table.
+     * @param t2Name The name of the second table.
+     * @param c2Idxs The join columns of the second table, paired with those of the first.
+     * @throws DatabaseOperationException If a table is not found, the tables are the same, the column
+     * lists differ in length or a column index is out of range.
+     */
+    public InnerJoin(Database database, String t1Name, int[] c1Idxs, String t2Name, int[] c2Idxs) throws DatabaseOperationException {
+        this.t1 = database.getTable(t1Name);
+        this.t2 = database.getTable(t2Name);
+        if (t1Name.equalsIgnoreCase(t2Name)) {
+            throw new DatabaseOperationException("ERROR: Self-join is not supported. Tables must be different.");
+        }
+        if (c1Idxs.length != c2Idxs.length) {
+            throw new DatabaseOperationException("ERROR: Both tables must be joined on the same number of columns (" + c1Idxs.length + " vs " + c2Idxs.length + ").");
+        }
+        this.c1Idxs = c1Idxs;
+        this.c2Idxs = c2Idxs;
+
+        boolean same = true;
+        this.keyTypes = new ArrayList<>();
+        for (int i = 0; i < c1Idxs.length; i++) {
+            Column col1 = t1.getColumn(c1Idxs[i]);
+            Column col2 = t2.getColumn(c2Idxs[i]);
+            if (col1.getType() != col2.getType()) {
+                same = false;
+            }
+            keyTypes.add(col1.getType());
+        }
+        this.sameTypes = same;
+
+        // Column names are prefixed with original table names to avoid clashes.
+        this.joinedCols = new ArrayList<>();
+        for (Column c : t1.getColumns()) {
+            joinedCols.add(new Column(t1Name + "." + c.getName(), c.getType()));
+        }
+        for (Column c : t2.getColumns()) {
+            joinedCols.add(new Column(t2Name + "." + c.getName(), c.getType()));
+        }
+    }
+
+    /**
+     * Gets the columns of the joined rows.
+     * @return The columns of the first table, then those of the second, prefixed with their table names.
+     */
+    public List<Column> getColumns() {
+        return joinedCols;
+    }
+
+    /**
+     * Gets the strategy the join used, for messages.
+     * @return A description of the strategy, or null if the join has not run.
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Runs the join with a merge join where possible and a hash join otherwise, and records the strategy used.
+     * @param sink The destination for the joined rows.
+     * @return The number of rows produced.
+     * @throws DatabaseOperationException If the sink rejects a row or the join fails.
+     */
+    public long run(RowSink sink) throws DatabaseOperationException {
+        try {
+            MergeJoin mergeJoin = c1Idxs.length == 1 && sameTypes ? chooseMergeJoin(c1Idxs[0], c2Idxs[0]) : null;
+            if (mergeJoin != null) {
+                CommandProgress.current().expect((long) t1.getRowCount() + t2.getRowCount());
+                long rowsJoined = mergeJoin.execute(sink);
+                strategy = mergeJoin.getStrategy();
+                return rowsJoined;
+            }
+            // Packing needs INTEGER values on both sides; mismatched types fall back to hashing and never match.
+            boolean packed = sameTypes && JoinHashTable.canPack(keyTypes);
+            HashJoin hashJoin = new HashJoin(t1.getRows(), c1Idxs, t2.getRows(), c2Idxs, packed);
+            long rowsJoined = hashJoin.execute(sink);
+            strategy = hashJoin.getStrategy();
+            return rowsJoined;
+        } catch (IndexOutOfBoundsException e) {
+            throw new DatabaseOperationException("ERROR: An issue occurred during the join operation process.", e);
+        }
+    }
+
+    /**
+     * Decides whether the tables can be merge joined and, if so, prepares the merge join.
+     * A side is ordered if its join column has an index or is known to be sorted.
+     * Both sides ordered: merge join. One side ordered: merge join only if the smaller table is over the
+     * hash join memory budget and the sorted copy fits in the query's {@link QueryMemory} budget, sorting the
+     * unordered side in memory. Otherwise a hash join is cheaper, or can at least spill to disk.
+     * @param c1Idx The left join column.
+     * @param c2Idx The right join column, of the same type as the left one.
+     * @return The merge join to run, or null to use a hash join.
+     * @throws DatabaseOperationException If a column index is invalid.
+     */
+    private MergeJoin chooseMergeJoin(int c1Idx, int c2Idx) throws DatabaseOperationException {
+        OrderedIndex index1 = t1.getIndex(c1Idx);
+        OrderedIndex index2 = t2.getIndex(c2Idx);
+        boolean ordered1 = index1 != null || t1.getColumnStatistics(c1Idx).isSorted();
+        boolean ordered2 = index2 != null || t2.getColumnStatistics(c2Idx).isSorted();
+        if (ordered1 && ordered2) {
+            return new MergeJoin(index1, t1.getRows(), c1Idx, index2, t2.getRows(), c2Idx);
+        }
+        boolean hashJoinSpills = Math.min(t1.getRowCount(), t2.getRowCount()) > HashJoin.DEFAULT_MEMORY_ROWS;
+        if (!hashJoinSpills || (!ordered1 && !ordered2)) {
+            return null;
+        }
+        // The sorted copy is a list of references to the unordered side's rows, kept until the query ends.
+        long sortBytes = (long) (ordered1 ? t2.getRowCount() : t1.getRowCount()) * QueryMemory.REFERENCE_BYTES;
+        if (!QueryMemory.current().tryReserve(sortBytes)) {
+            return null;
+        }
+        List<Row> rows1 = ordered1 ? t1.getRows() : sortedByColumn(t1.getRows(), c1Idx);
+        List<Row> rows2 = ordered2 ? t2.getRows() : sortedByColumn(t2.getRows(), c2Idx);
+        return new MergeJoin(index1, rows1, c1Idx, index2, rows2, c2Idx);
+    }
+
+    /**
+     * Sorts a copy of the rows ascending by one column. Rows with NULL keys are left out, since they never join.
+     * @param rows The rows to sort.
+     * @param columnIndex The sort column.
+     * @return The sorted rows with non-null keys.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Row> sortedByColumn(List<Row> rows, int columnIndex) {
+        List<Row> sorted = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.getValue(columnIndex) != null) {
+                sorted.add(row);
+            }
+        }
+        sorted.sort((a, b) -> ((Comparable<Object>) a.getValue(columnIndex)).compareTo(b.getValue(columnIndex)));
+        return sorted;
+    }
+}
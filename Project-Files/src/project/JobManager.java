@@ -0,0 +1,221 @@
+package project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The background jobs of one session, and the timeout of its commands.
+ * A job runs one command on its own thread while the session goes on with other commands. The job
+ * takes the locks of its tables like any other command, so it waits for conflicting commands and makes
+ * them wait in turn. Its output is collected and printed, with the job's outcome, before the session's
+ * next prompt once the job has finished. Jobs are stopped with {@link #cancel(int)}; like the timeout,
+ * cancellation is cooperative and takes effect at the next progress check of the running operation.
+ */
+public class JobManager {
+
+    /**
+     * Runs a command of a job on the job's thread.
+     */
+    @FunctionalInterface
+    interface Executor {
+        /**
+         * Runs the command, reporting errors on the output.
+         * @param command The command name, in lower case.
+         * @param args The command arguments.
+         * @param progress The progress of the job, bound to the current thread while the command runs.
+         */
+        void execute(String command, String[] args, CommandProgress progress);
+    }
+
+    // Commands that control the session or prompt for input, which only make sense in the foreground.
+    private static final Set<String> FOREGROUND_ONLY = Set.of(
+            "bg", "jobs", "cancel", "timeout", "begin", "commit", "rollback", "close", "exit");
+
+    private final Executor executor;
+    private final BooleanSupplier inTransaction;
+    private final Map<Integer, Job> jobs = new TreeMap<>();
+    private int nextId = 1;
+    private volatile long timeoutMillis;
+
+    /**
+     * A command running or finished in the background.
+     */
+    private static final class Job {
+        final int id;
+        final String text;
+        final CommandProgress progress;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        volatile boolean finished;
+        volatile long finishedMillis; // Running time of the command once it has finished
+
+        /**
+         * Constructs a job.
+         * @param id The job number.
+         * @param text The command line, for listings.
+         * @param progress The progress of the command.
+         */
+        Job(int id, String text, CommandProgress progress) {
+            this.id = id;
+            this.text = text;
+            this.progress = progress;
+        }
+
+        /**
+         * Gets the running time of the job.
+         * @return The time since the job started, or its total running time once it has finished, in milliseconds.
+         */
+        long elapsedMillis() {
+            return finished ? finishedMillis : progress.getElapsedMillis();
+        }
+
+        /**
+         * Describes the state of the job.
+         * @return "Running", "Cancelling", "Done", "Cancelled" or "Timed out".
+         */
+        String state() {
+            if (!finished) {
+                return progress.isCancelled() ? "Cancelling" : "Running";
+            }
+            if (!progress.isStopped()) {
+                return "Done";
+            }
+            return progress.isCancelled() ? "Cancelled" : "Timed out";
+        }
+    }
+
+    /**
+     * Constructs the job manager of a session. The command timeout starts at the value of the
+     * system property "db.command.timeoutMillis", or no timeout if it is not set.
+     * @param executor Runs the command of a job.
+     * @param inTransaction Tells whether the session is inside a transaction, where jobs cannot be started.
+     */
+    JobManager(Executor executor, BooleanSupplier inTransaction) {
+        this.executor = executor;
+        this.inTransaction = inTransaction;
+        this.timeoutMillis = Math.max(0, Long.getLong("db.command.timeoutMillis", 0));
+    }
+
+    /**
+     * Gets the time after which the commands of the session are stopped.
+     * @return The timeout in milliseconds, or 0 for no timeout.
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Sets the time after which the commands of the session, including background jobs started later,
+     * are stopped.
+     * @param timeoutMillis The timeout in milliseconds, or 0 for no timeout.
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Starts a command as a background job.
+     * @param command The command name.
+     * @param args The command arguments.
+     * @return The job number.
+     * @throws DatabaseOperationException If the command cannot run in the background or the session
+     * is inside a transaction.
+     */
+    public int start(String command, String[] args) throws DatabaseOperationException {
+        String name = command.toLowerCase();
+        if (FOREGROUND_ONLY.contains(name)) {
+            throw new DatabaseOperationException("ERROR: '" + name + "' cannot run as a background job.");
+        }
+        if (inTransaction.getAsBoolean()) {
+            throw new DatabaseOperationException("ERROR: Background jobs cannot be started inside a transaction.");
+        }
+        OutputRouter.install();
+        String text = args.length == 0 ? name : name + " " + String.join(" ", args);
+        Job job;
+        synchronized (this) {
+            job = new Job(nextId++, text, new CommandProgress(timeoutMillis, true));
+            jobs.put(job.id, job);
+        }
+        Thread thread = new Thread(() -> run(job, name, args), "job-" + job.id);
+        thread.setDaemon(true);
+        thread.start();
+        return job.id;
+    }
+
+    /**
+     * Runs the command of a job on the job's thread, collecting its output.
+     * @param job The job.
+     * @param command The command name.
+     * @param args The command arguments.
+     */
+    private void run(Job job, String command, String[] args) {
+        PrintStream output = new PrintStream(job.output, true);
+        OutputRouter.route(output);
+        try {
+            executor.execute(command, args, job.progress);
+        } catch (RuntimeException e) {
+            output.println("ERROR: " + e.getMessage());
+        } finally {
+            OutputRouter.clear();
+            output.flush();
+            job.finishedMillis = job.progress.getElapsedMillis();
+            job.finished = true;
+        }
+    }
+
+    /**
+     * Lists the jobs that have not been reported yet, with their progress.
+     * @return One line per job, such as "[1] Running 12 s: innerjoin A 0 B 0 (1200000 rows processed, 400000 rows/s, ETA 3 s)".
+     */
+    public synchronized List<String> describeJobs() {
+        List<String> lines = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            lines.add("[" + job.id + "] " + job.state() + " " + (job.elapsedMillis() / 1000) + " s: "
+                    + job.text + " (" + job.progress.describe() + ")");
+        }
+        return lines;
+    }
+
+    /**
+     * Asks a job to stop at its next progress check.
+     * @param id The job number.
+     * @return True if the job is running, false if it has finished or does not exist.
+     */
+    public synchronized boolean cancel(int id) {
+        Job job = jobs.get(id);
+        if (job == null || job.finished) {
+            return false;
+        }
+        job.progress.cancel();
+        return true;
+    }
+
+    /**
+     * Asks every running job to stop, when the session ends and no one is left to see their results.
+     */
+    public synchronized void cancelAll() {
+        for (Job job : jobs.values()) {
+            job.progress.cancel();
+        }
+    }
+
+    /**
+     * Prints the outcome and output of the jobs that have finished since the last call, and forgets them.
+     * Called by the session before each prompt.
+     */
+    public void printFinishedJobs() {
+        List<Job> finished = new ArrayList<>();
+        synchronized (this) {
+            jobs.values().removeIf(job -> job.finished && finished.add(job));
+        }
+        for (Job job : finished) {
+            System.out.println("[" + job.id + "] " + job.state() + " after " + job.elapsedMillis() + " ms: " + job.text);
+            System.out.print(job.output.toString());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hash table over the build side of a hash join, keyed on one or more columns.
+ * No key object is allocated per row. When the key is one or two INTEGER columns, the values are
+ * packed into a single long that is both the hash input and the full key, so matches are found by
+ * comparing longs. Otherwise each entry stores a 64-bit hash of its key columns, and candidate
+ * matches with an equal hash are confirmed by comparing the key columns one by one.
+ * Entries are kept in parallel arrays and chained through an int array; rows with the same key
+ * are returned in the order they were added.
+ */
+public class JoinHashTable {
+
+    /** Estimated memory per entry: the key, the chain link, the bucket slots and the row reference, with array growth. */
+    static final int BYTES_PER_ENTRY = 40;
+
+    private final int[] keyIndexes;
+    private final boolean packed;
+    private final List<Row> rows;
+    private long[] keys;       // Packed key, or key hash, of each entry
+    private int[] next;        // Next entry in the same bucket, or -1
+    private int[] buckets;     // First entry of each bucket, or -1
+    private int mask;
+
+    /**
+     * Creates an empty table.
+     * @param keyIndexes The key columns in the build rows.
+     * @param packed True if the key is one or two INTEGER columns that can be packed into a long.
+     */
+    JoinHashTable(int[] keyIndexes, boolean packed) {
+        this.keyIndexes = keyIndexes;
+        this.packed = packed;
+        this.rows = new ArrayList<>();
+        this.keys = new long[16];
+        this.next = null;
+        this.buckets = null;
+    }
+
+    /**
+     * Estimates the memory a table over a number of build rows takes, not counting the rows themselves.
+     * @param entries The number of build rows.
+     * @return The estimated size in bytes.
+     */
+    static long estimateBytes(long entries) {
+        return entries * BYTES_PER_ENTRY;
+    }
+
+    /**
+     * Checks whether a key can be packed into a long: one or two columns, all of type INTEGER.
+     * @param keyTypes The types of the key columns.
+     * @return True if the key can be packed.
+     */
+    public static boolean canPack(List<DataType> keyTypes) {
+        if (keyTypes.isEmpty() || keyTypes.size() > 2) {
+            return false;
+        }
+        for (DataType type : keyTypes) {
+            if (type != DataType.INTEGER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether any key column of a row is NULL. Such rows never match.
+     * @param row The row.
+     * @param keyIndexes The key columns.
+     * @return True if a key value is NULL.
+     */
+    static boolean hasNullKey(Row row, int[] keyIndexes) {
+        for (int index : keyIndexes) {
+            if (row.getValue(index) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the stored key of a row: the packed INTEGER values, or a hash of the key values.
+     * Rows with equal keys always produce equal results.
+     * @param row The row. Its key columns must not be NULL.
+     * @param keyIndexes The key columns.
+     * @param packed True to pack INTEGER values instead of hashing.
+     * @return The stored key.
+     */
+    static long keyOf(Row row, int[] keyIndexes, boolean packed) {
+        if (packed) {
+            long key = (Integer) row.getValue(keyIndexes[0]);
+            if (keyIndexes.length == 2) {
+                key = (key << 32) | ((Integer) row.getValue(keyIndexes[1]) & 0xffffffffL);
+            }
+            return key;
+        }
+        long hash = 0;
+        for (int index : keyIndexes) {
+            hash = hash * 31 + ValueHash.hash64(row.getValue(index));
+        }
+        return hash;
+    }
+
+    /**
+     * Adds a build row. Rows with a NULL key value are ignored.
+     * @param row The row to add.
+     */
+    void add(Row row) {
+        if (hasNullKey(row, keyIndexes)) {
+            return;
+        }
+        int entry = rows.size();
+        if (entry == keys.length) {
+            keys = Arrays.copyOf(keys, entry * 2);
+        }
+        keys[entry] = keyOf(row, keyIndexes, packed);
+        rows.add(row);
+        buckets = null;
+    }
+
+    /**
+     * Finds the first build row matching a probe row.
+     * @param probe The probe row.
+     * @param probeKeyIndexes The key columns in the probe row, in the same order as the build key columns.
+     * @return The entry number of the first match, or -1 if there is none.
+     */
+    int firstMatch(Row probe, int[] probeKeyIndexes) {
+        if (hasNullKey(probe, probeKeyIndexes)) {
+            return -1;
+        }
+        if (buckets == null) {
+            link();
+        }
+        long key = keyOf(probe, probeKeyIndexes, packed);
+        return scan(buckets[bucketOf(key)], key, probe, probeKeyIndexes);
+    }
+
+    /**
+     * Finds the next build row after an earlier match that matches the same probe row.
+     * @param entry The entry number of the previous match.
+     * @param probe The probe row.
+     * @param probeKeyIndexes The key columns in the probe row.
+     * @return The entry number of the next match, or -1 if there is none.
+     */
+    int nextMatch(int entry, Row probe, int[] probeKeyIndexes) {
+        return scan(next[entry], keys[entry], probe, probeKeyIndexes);
+    }
+
+    /**
+     * Gets the build row of an entry.
+     * @param entry The entry number.
+     * @return The row.
+     */
+    Row rowAt(int entry) {
+        return rows.get(entry);
+    }
+
+    /**
+     * Walks a bucket chain from an entry to the first one matching the probe key.
+     * @param entry The entry to start at, or -1.
+     * @param key The stored key of the probe row.
+     * @param probe The probe row.
+     * @param probeKeyIndexes The key columns in the probe row.
+     * @return The entry number of the match, or -1 if there is none.
+     */
+    private int scan(int entry, long key, Row probe, int[] probeKeyIndexes) {
+        while (entry >= 0) {
+            if (keys[entry] == key && (packed || keyColumnsEqual(rows.get(entry), probe, probeKeyIndexes))) {
+                return entry;
+            }
+            entry = next[entry];
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the key columns of a build row and a probe row.
+     * @param build The build row.
+     * @param probe The probe row.
+     * @param probeKeyIndexes The key columns in the probe row.
+     * @return True if every key value is equal.
+     */
+    private boolean keyColumnsEqual(Row build, Row probe, int[] probeKeyIndexes) {
+        for (int i = 0; i < keyIndexes.length; i++) {
+            if (!Objects.equals(build.getValue(keyIndexes[i]), probe.getValue(probeKeyIndexes[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the bucket chains once all rows are added. Entries are linked from last to first,
+     * so each chain lists its entries in the order they were added.
+     */
+    private void link() {
+        int capacity = Integer.highestOneBit(Math.max(16, rows.size() * 4 / 3 + 1) - 1) << 1;
+        buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        mask = capacity - 1;
+        next = new int[rows.size()];
+        for (int entry = rows.size() - 1; entry >= 0; entry--) {
+            int bucket = bucketOf(keys[entry]);
+            next[entry] = buckets[bucket];
+            buckets[bucket] = entry;
+        }
+    }
+
+    /**
+     * Picks the bucket for a stored key.
+     * @param key The stored key.
+     * @return The bucket number.
+     */
+    private int bucketOf(long key) {
+        return (int) ValueHash.mix(key) & mask;
+    }
+}
@@ -0,0 +1,15 @@
+package project;
+
+/**
+ * Enumerates the kinds of join a {@link HashJoin} can perform.
+ */
+public enum JoinType {
+    /** Every pair of matching left and right rows, with the left values followed by the right values. */
+    INNER,
+    /** Each left row that has at least one matching right row, with the left values only. */
+    SEMI,
+    /** Each left row that has no matching right row, with the left values only. */
+    ANTI,
+    /** Like an inner join, but left rows without a match are kept once, with NULL right values. */
+    LEFT
+}
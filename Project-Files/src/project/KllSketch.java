@@ -0,0 +1,225 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A KLL sketch for estimating quantiles of a numeric column.
+ * Values are kept in a hierarchy of compactors; an item on level h stands for 2^h input values.
+ * When the sketch grows beyond its capacity, a level is sorted and every other item is promoted
+ * to the next level, so memory stays bounded at roughly {@value #DEFAULT_K} items times a small
+ * logarithmic factor while the rank error stays around 1-2%.
+ * Two sketches can be merged to estimate quantiles of the union of their inputs.
+ */
+public class KllSketch {
+
+    /** The default accuracy parameter: the capacity of the top level. */
+    public static final int DEFAULT_K = 200;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private final List<double[]> levels;
+    private final List<Integer> levelSizes;
+    private final Random random;
+    private long count;
+    private double min;
+    private double max;
+
+    /**
+     * Constructs an empty KLL sketch with the default accuracy.
+     */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Constructs an empty KLL sketch.
+     * @param k The accuracy parameter. Larger values use more memory and give smaller errors.
+     * @throws IllegalArgumentException If k is smaller than the minimum level capacity.
+     */
+    public KllSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY)
+            throw new IllegalArgumentException("ERROR: KLL accuracy parameter must be at least " + MIN_LEVEL_CAPACITY + ".");
+        this.k = k;
+        this.levels = new ArrayList<>();
+        this.levelSizes = new ArrayList<>();
+        this.random = new Random(k); // Fixed seed keeps answers reproducible between runs.
+        this.count = 0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        addLevel();
+    }
+
+    /**
+     * Adds a value to the sketch.
+     * @param value The value to add.
+     */
+    public void add(double value) {
+        if (count == 0 || value < min) min = value;
+        if (count == 0 || value > max) max = value;
+        count++;
+        append(0, value);
+        compress();
+    }
+
+    /**
+     * Merges another sketch into this one. Afterwards this sketch estimates quantiles
+     * of all values added to either sketch.
+     * @param other The sketch to merge in.
+     */
+    public void merge(KllSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0 || other.min < min) min = other.min;
+        if (count == 0 || other.max > max) max = other.max;
+        count += other.count;
+        for (int h = 0; h < other.levels.size(); h++) {
+            while (levels.size() <= h) {
+                addLevel();
+            }
+            double[] items = other.levels.get(h);
+            int size = other.levelSizes.get(h);
+            for (int i = 0; i < size; i++) {
+                append(h, items[i]);
+            }
+        }
+        compress();
+    }
+
+    /**
+     * Gets the number of values added to the sketch.
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Estimates the value at a given quantile.
+     * @param q The quantile, between 0 and 1 inclusive (0.5 is the median).
+     * @return The estimated value, or NaN if the sketch is empty.
+     * @throws IllegalArgumentException If q is outside [0, 1].
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1 || Double.isNaN(q))
+            throw new IllegalArgumentException("ERROR: Quantile must be between 0 and 1.");
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) return min;
+        if (q == 1) return max;
+
+        // Collect every retained item with its weight and walk them in value order.
+        int retained = 0;
+        for (int size : levelSizes) {
+            retained += size;
+        }
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            double[] items = levels.get(h);
+            for (int i = 0; i < levelSizes.get(h); i++) {
+                values[n] = items[i];
+                weights[n] = 1L << h;
+                n++;
+            }
+        }
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        long totalWeight = 0;
+        for (long w : weights) totalWeight += w;
+        double target = q * totalWeight;
+        long cumulative = 0;
+        for (int index : order) {
+            cumulative += weights[index];
+            if (cumulative >= target) {
+                return values[index];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Appends an item to a level, growing its buffer if needed.
+     * @param level The level index.
+     * @param value The item.
+     */
+    private void append(int level, double value) {
+        double[] items = levels.get(level);
+        int size = levelSizes.get(level);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels.set(level, items);
+        }
+        items[size] = value;
+        levelSizes.set(level, size + 1);
+    }
+
+    /**
+     * Adds an empty level on top of the hierarchy.
+     */
+    private void addLevel() {
+        levels.add(new double[MIN_LEVEL_CAPACITY]);
+        levelSizes.add(0);
+    }
+
+    /**
+     * Gets the capacity of a level. Lower levels get geometrically smaller capacities.
+     * @param level The level index.
+     * @return The capacity.
+     */
+    private int capacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    /**
+     * Compacts levels until the sketch fits within its total capacity.
+     */
+    private void compress() {
+        while (true) {
+            int totalSize = 0;
+            int totalCapacity = 0;
+            for (int h = 0; h < levels.size(); h++) {
+                totalSize += levelSizes.get(h);
+                totalCapacity += capacity(h);
+            }
+            if (totalSize <= totalCapacity) {
+                return;
+            }
+            for (int h = 0; h < levels.size(); h++) {
+                if (levelSizes.get(h) >= capacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other item to the level above, doubling their weight.
+     * If the level has an odd number of items, one item stays behind so no weight is lost.
+     * @param level The level to compact.
+     */
+    private void compact(int level) {
+        if (level + 1 == levels.size()) {
+            addLevel();
+        }
+        double[] items = levels.get(level);
+        int size = levelSizes.get(level);
+        Arrays.sort(items, 0, size);
+        int start = size % 2; // Keep the first item behind when the size is odd.
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = start + offset; i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+        levelSizes.set(level, start);
+    }
+}
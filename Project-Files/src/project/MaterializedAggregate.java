@@ -0,0 +1,454 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A materialized view holding an aggregate (sum, count, minimum, maximum or average) of a numeric
+ * column of a table, either over the whole table or per value of a group column.
+ * The table is scanned once when the view is first built. After that the view listens to the
+ * table's changes and adjusts the running state of the affected group for every inserted, deleted
+ * or updated row. The only rescans are for minimum and maximum: when the current extreme of a group
+ * is deleted or overwritten, the group's new extreme is unknown, and the groups affected this way are
+ * recomputed together in one pass over the table the next time the view is read.
+ */
+public class MaterializedAggregate implements TableChangeListener {
+
+    /**
+     * The aggregate function of a materialized view.
+     */
+    public enum Operation {
+        SUM, COUNT, MIN, MAX, AVG;
+
+        /**
+         * Parses an operation name: sum, count, min or minimum, max or maximum, avg or average.
+         * @param name The operation name, in any case.
+         * @return The operation.
+         * @throws DatabaseOperationException If the name is not a known operation.
+         */
+        public static Operation parse(String name) throws DatabaseOperationException {
+            switch (name.trim().toLowerCase()) {
+                case "sum":
+                    return SUM;
+                case "count":
+                    return COUNT;
+                case "min":
+                case "minimum":
+                    return MIN;
+                case "max":
+                case "maximum":
+                    return MAX;
+                case "avg":
+                case "average":
+                    return AVG;
+                default:
+                    throw new DatabaseOperationException("ERROR: Unknown operation: '" + name + "'. Valid operations are: sum, count, min, max, avg.");
+            }
+        }
+    }
+
+    /**
+     * Running aggregate state of one group.
+     */
+    private static class GroupState {
+        private long rows;            // Rows in the group, including those with a NULL target value
+        private long count;           // Non-null target values
+        private long integerSum;      // Exact sum of INTEGER target values
+        private final CompensatedSum doubleSum = new CompensatedSum(); // Sum of DOUBLE target values, without drift from removals
+        private Number min;
+        private Number max;
+        private boolean extremesStale; // True when a removed value was the minimum or maximum
+    }
+
+    private final String name;
+    private String tableName;
+    private final int targetColumn;
+    private final Operation operation;
+    private final int groupColumn;     // -1 when not grouped
+    private final Map<Object, GroupState> groups;
+    private final Set<Object> staleGroups;
+    private Table source;              // The table being listened to, once built
+    private Table result;              // Cached result table, or null if it must be rebuilt
+
+    /**
+     * Constructs a materialized aggregate that is not built yet.
+     * @param name The name of the view.
+     * @param tableName The name of the table to aggregate.
+     * @param targetColumn The index of the column to aggregate.
+     * @param operation The aggregate function.
+     * @param groupColumn The index of the column to group by, or -1 for a single group.
+     */
+    public MaterializedAggregate(String name, String tableName, int targetColumn, Operation operation, int groupColumn) {
+        this.name = name;
+        this.tableName = tableName;
+        this.targetColumn = targetColumn;
+        this.operation = operation;
+        this.groupColumn = groupColumn;
+        this.groups = new LinkedHashMap<>();
+        this.staleGroups = new HashSet<>();
+        this.source = null;
+        this.result = null;
+    }
+
+    /**
+     * Parses a definition as written by {@link #getDefinition()}:
+     * "&lt;table&gt; &lt;target column index&gt; &lt;operation&gt; [group &lt;column index&gt;]".
+     * @param name The name of the view.
+     * @param definition The definition text.
+     * @return The materialized aggregate, not built yet.
+     * @throws DatabaseOperationException If the definition is malformed.
+     */
+    public static MaterializedAggregate parse(String name, String definition) throws DatabaseOperationException {
+        return parse(name, definition.trim().split("\\s+"));
+    }
+
+    /**
+     * Parses a definition given as separate words:
+     * &lt;table&gt; &lt;target column index&gt; &lt;operation&gt; [group &lt;column index&gt;].
+     * @param name The name of the view.
+     * @param words The words of the definition.
+     * @return The materialized aggregate, not built yet.
+     * @throws DatabaseOperationException If the definition is malformed.
+     */
+    public static MaterializedAggregate parse(String name, String[] words) throws DatabaseOperationException {
+        if (words.length != 3 && !(words.length == 5 && words[3].equalsIgnoreCase("group"))) {
+            throw new DatabaseOperationException("ERROR: Invalid materialized view definition '" + String.join(" ", words)
+                    + "'. Expected <table> <target column index> <operation> [group <column index>].");
+        }
+        try {
+            int targetColumn = Integer.parseInt(words[1]);
+            int groupColumn = words.length == 5 ? Integer.parseInt(words[4]) : -1;
+            return new MaterializedAggregate(name, words[0], targetColumn, Operation.parse(words[2]), groupColumn);
+        } catch (NumberFormatException e) {
+            throw new DatabaseOperationException("ERROR: Invalid index. Column indices must be numbers.");
+        }
+    }
+
+    /**
+     * Gets the name of the view.
+     * @return The view name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the name of the aggregated table.
+     * @return The table name.
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Follows a rename of the aggregated table.
+     * @param tableName The new table name.
+     */
+    void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * Gets the definition of the view, in the form read by {@link #parse(String, String)}.
+     * @return The definition text.
+     */
+    public String getDefinition() {
+        return tableName + " " + targetColumn + " " + operation.name().toLowerCase()
+                + (groupColumn >= 0 ? " group " + groupColumn : "");
+    }
+
+    /**
+     * Checks whether the view has been built and is listening to its table.
+     * @return True if built.
+     */
+    public boolean isBuilt() {
+        return source != null;
+    }
+
+    /**
+     * Builds the aggregate state with one scan of the table and starts listening to its changes.
+     * @param table The table to aggregate.
+     * @throws DatabaseOperationException If a column index is out of range, or the target column is not
+     * numeric for an operation other than count.
+     */
+    void build(Table table) throws DatabaseOperationException {
+        DataType targetType = table.getColumn(targetColumn).getType();
+        if (operation != Operation.COUNT && targetType != DataType.INTEGER && targetType != DataType.DOUBLE) {
+            throw new DatabaseOperationException("ERROR: Target column '" + table.getColumn(targetColumn).getName()
+                    + "' must be numeric (INTEGER or DOUBLE) for " + operation.name().toLowerCase() + ".");
+        }
+        if (groupColumn >= 0) {
+            table.getColumn(groupColumn); // Validates column index
+        }
+        detach();
+        rescan(table);
+        table.addChangeListener(this);
+        source = table;
+    }
+
+    /**
+     * Recomputes the state of every group from the rows of the table.
+     * @param table The table.
+     */
+    private void rescan(Table table) {
+        groups.clear();
+        staleGroups.clear();
+        for (Row row : table.getRows()) {
+            add(groupKey(row), row.getValue(targetColumn));
+        }
+        result = null;
+    }
+
+    /**
+     * Stops listening to the table. The view has to be built again before it is read.
+     */
+    void detach() {
+        if (source != null) {
+            source.removeChangeListener(this);
+            source = null;
+        }
+        result = null;
+    }
+
+    /**
+     * Gets the current aggregate as a table: one row per group, holding the group value (when grouped)
+     * and the aggregate value. Groups whose extreme was removed are recomputed first, in one pass over the table.
+     * @return The result table, shared until the next change.
+     * @throws DatabaseOperationException If the view has not been built.
+     */
+    public Table getResult() throws DatabaseOperationException {
+        if (source == null) {
+            throw new DatabaseOperationException("ERROR: Materialized view '" + name + "' has not been built.");
+        }
+        if (!staleGroups.isEmpty()) {
+            recomputeExtremes();
+        }
+        if (result == null) {
+            result = buildResult();
+        }
+        return result;
+    }
+
+    /**
+     * Records a new row of the table.
+     * @param table The table.
+     * @param row The added row.
+     */
+    @Override
+    public void rowAdded(Table table, Row row) {
+        add(groupKey(row), row.getValue(targetColumn));
+        result = null;
+    }
+
+    /**
+     * Takes a removed row of the table out of its group.
+     * @param table The table.
+     * @param row The removed row.
+     */
+    @Override
+    public void rowRemoved(Table table, Row row) {
+        remove(groupKey(row), row.getValue(targetColumn));
+        result = null;
+    }
+
+    /**
+     * Moves a changed row from its old aggregate contribution to its new one.
+     * Changes to columns other than the target and group columns are ignored.
+     * @param table The table.
+     * @param row The changed row, holding the new value.
+     * @param columnIndex The changed column.
+     * @param oldValue The previous value of the column.
+     */
+    @Override
+    public void valueChanged(Table table, Row row, int columnIndex, Object oldValue) {
+        boolean groupChanged = groupColumn >= 0 && columnIndex == groupColumn;
+        if (columnIndex != targetColumn && !groupChanged) {
+            return;
+        }
+        Object oldGroup = groupChanged ? oldValue : groupKey(row);
+        Object oldTarget = columnIndex == targetColumn ? oldValue : row.getValue(targetColumn);
+        remove(oldGroup, oldTarget);
+        add(groupKey(row), row.getValue(targetColumn));
+        result = null;
+    }
+
+    /**
+     * Recomputes the state after all rows of the table were replaced.
+     * @param table The table.
+     */
+    @Override
+    public void rowsReplaced(Table table) {
+        rescan(table);
+    }
+
+    /**
+     * Gets the group a row belongs to.
+     * @param row The row.
+     * @return The group column value, or null when the view is not grouped.
+     */
+    private Object groupKey(Row row) {
+        return groupColumn >= 0 ? row.getValue(groupColumn) : null;
+    }
+
+    /**
+     * Adds a row's target value to its group.
+     * @param group The group key.
+     * @param value The target value, possibly null.
+     */
+    private void add(Object group, Object value) {
+        GroupState state = groups.computeIfAbsent(group, key -> new GroupState());
+        state.rows++;
+        if (!(value instanceof Number)) {
+            return;
+        }
+        Number number = (Number) value;
+        state.count++;
+        if (number instanceof Integer) {
+            state.integerSum += number.intValue();
+        } else {
+            state.doubleSum.add(number.doubleValue());
+        }
+        if (!state.extremesStale) {
+            if (state.min == null || number.doubleValue() < state.min.doubleValue()) {
+                state.min = number;
+            }
+            if (state.max == null || number.doubleValue() > state.max.doubleValue()) {
+                state.max = number;
+            }
+        }
+    }
+
+    /**
+     * Removes a row's target value from its group. If the value was the group's minimum or maximum
+     * and the view needs it, the group is marked for recomputation.
+     * @param group The group key.
+     * @param value The target value, possibly null.
+     */
+    private void remove(Object group, Object value) {
+        GroupState state = groups.get(group);
+        if (state == null) {
+            return;
+        }
+        state.rows--;
+        if (state.rows == 0 && groupColumn >= 0) {
+            groups.remove(group);
+            staleGroups.remove(group);
+            return;
+        }
+        if (!(value instanceof Number)) {
+            return;
+        }
+        Number number = (Number) value;
+        state.count--;
+        if (number instanceof Integer) {
+            state.integerSum -= number.intValue();
+        } else {
+            state.doubleSum.subtract(number.doubleValue());
+        }
+        if (state.count == 0) {
+            state.min = null;
+            state.max = null;
+            state.extremesStale = false;
+            staleGroups.remove(group);
+        } else if ((operation == Operation.MIN || operation == Operation.MAX) && !state.extremesStale
+                && (number.doubleValue() == state.min.doubleValue() || number.doubleValue() == state.max.doubleValue())) {
+            state.extremesStale = true;
+            staleGroups.add(group);
+        }
+    }
+
+    /**
+     * Recomputes the minimum and maximum of every group whose extreme was removed,
+     * in a single pass over the table.
+     */
+    private void recomputeExtremes() {
+        for (Object group : staleGroups) {
+            GroupState state = groups.get(group);
+            state.min = null;
+            state.max = null;
+        }
+        for (Row row : source.getRows()) {
+            Object group = groupKey(row);
+            if (!staleGroups.contains(group)) {
+                continue;
+            }
+            Object value = row.getValue(targetColumn);
+            if (value instanceof Number) {
+                Number number = (Number) value;
+                GroupState state = groups.get(group);
+                if (state.min == null || number.doubleValue() < state.min.doubleValue()) {
+                    state.min = number;
+                }
+                if (state.max == null || number.doubleValue() > state.max.doubleValue()) {
+                    state.max = number;
+                }
+            }
+        }
+        for (Object group : staleGroups) {
+            groups.get(group).extremesStale = false;
+        }
+        staleGroups.clear();
+        result = null;
+    }
+
+    /**
+     * Builds the result table from the group states.
+     * @return The result table.
+     * @throws DatabaseOperationException If a column index is out of range.
+     */
+    private Table buildResult() throws DatabaseOperationException {
+        Column target = source.getColumn(targetColumn);
+        DataType valueType;
+        switch (operation) {
+            case COUNT:
+                valueType = DataType.INTEGER;
+                break;
+            case MIN:
+            case MAX:
+                valueType = target.getType();
+                break;
+            default:
+                valueType = DataType.DOUBLE;
+        }
+        List<Column> columns = new ArrayList<>();
+        if (groupColumn >= 0) {
+            columns.add(source.getColumn(groupColumn));
+        }
+        columns.add(new Column(operation.name().toLowerCase() + "(" + target.getName() + ")", valueType));
+
+        Table table = new Table(name, columns);
+        if (groupColumn < 0 && groups.isEmpty()) {
+            groups.put(null, new GroupState());
+        }
+        for (Map.Entry<Object, GroupState> entry : groups.entrySet()) {
+            GroupState state = entry.getValue();
+            Object value;
+            switch (operation) {
+                case COUNT:
+                    value = (int) state.count;
+                    break;
+                case SUM:
+                    value = state.count == 0 ? null : state.integerSum + state.doubleSum.get();
+                    break;
+                case AVG:
+                    value = state.count == 0 ? null : (state.integerSum + state.doubleSum.get()) / state.count;
+                    break;
+                case MIN:
+                    value = state.min;
+                    break;
+                default:
+                    value = state.max;
+            }
+            List<Object> values = groupColumn >= 0
+                    ? new ArrayList<>(Arrays.asList(entry.getKey(), value))
+                    : new ArrayList<>(Arrays.asList(value));
+            table.addRow(new Row(values));
+        }
+        return table;
+    }
+}
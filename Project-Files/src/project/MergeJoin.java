@@ -0,0 +1,178 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Equi-join of two inputs that can each be read in ascending key order, producing rows made of the
+ * left row's values followed by the right row's values. NULL keys never match.
+ * Each input is read either from an {@link OrderedIndex} on the join column or from rows already
+ * sorted by it. Both inputs are streamed once, side by side; rows sharing a key on both sides
+ * produce every combination of those rows. Only the rows of the current key are held at a time,
+ * so no hash table is built.
+ */
+public class MergeJoin {
+
+    private final KeyRuns left;
+    private final KeyRuns right;
+    private final String strategy;
+
+    /**
+     * A sequence of runs of rows with equal keys, in ascending key order.
+     */
+    private interface KeyRuns {
+        /**
+         * Advances to the next run.
+         * @return True if there is another run, false at the end of the input.
+         */
+        boolean advance();
+
+        /**
+         * Gets the key of the current run.
+         * @return The key.
+         */
+        Object key();
+
+        /**
+         * Gets the rows of the current run.
+         * @return The rows sharing the current key.
+         */
+        List<Row> rows();
+    }
+
+    /**
+     * Constructs a merge join. Each side is given either an index on its join column or its rows
+     * sorted ascending by the join column; when an index is given, the rows are not used.
+     * @param leftIndex The index on the left join column, or null to use the sorted left rows.
+     * @param leftRows The left rows in ascending order of the join column, used when there is no index.
+     * @param leftKeyIndex The join column index in the left rows.
+     * @param rightIndex The index on the right join column, or null to use the sorted right rows.
+     * @param rightRows The right rows in ascending order of the join column, used when there is no index.
+     * @param rightKeyIndex The join column index in the right rows.
+     */
+    public MergeJoin(OrderedIndex leftIndex, List<Row> leftRows, int leftKeyIndex,
+                     OrderedIndex rightIndex, List<Row> rightRows, int rightKeyIndex) {
+        this.left = leftIndex != null ? indexRuns(leftIndex) : sortedRuns(leftRows, leftKeyIndex);
+        this.right = rightIndex != null ? indexRuns(rightIndex) : sortedRuns(rightRows, rightKeyIndex);
+        this.strategy = "merge join (left " + (leftIndex != null ? "index" : "sorted")
+                + ", right " + (rightIndex != null ? "index" : "sorted") + ")";
+    }
+
+    /**
+     * Runs the join and sends every output row to the sink.
+     * @param sink The destination for the joined rows.
+     * @return The number of rows produced.
+     * @throws DatabaseOperationException If the sink rejects a row.
+     */
+    @SuppressWarnings("unchecked")
+    public long execute(RowSink sink) throws DatabaseOperationException {
+        CommandProgress progress = CommandProgress.current();
+        long produced = 0;
+        boolean hasLeft = left.advance();
+        boolean hasRight = right.advance();
+        while (hasLeft && hasRight) {
+            progress.advance(1);
+            int c = ((Comparable<Object>) left.key()).compareTo(right.key());
+            if (c < 0) {
+                hasLeft = left.advance();
+            } else if (c > 0) {
+                hasRight = right.advance();
+            } else {
+                for (Row leftRow : left.rows()) {
+                    for (Row rightRow : right.rows()) {
+                        sink.accept(HashJoin.concat(leftRow, rightRow));
+                        produced++;
+                    }
+                }
+                hasLeft = left.advance();
+                hasRight = right.advance();
+            }
+        }
+        return produced;
+    }
+
+    /**
+     * Gets a short description of how the join was executed.
+     * @return The strategy description.
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Reads key runs from an ordered index, one entry per run.
+     * @param index The index.
+     * @return The runs in ascending key order.
+     */
+    private static KeyRuns indexRuns(OrderedIndex index) {
+        Iterator<Map.Entry<Object, List<Row>>> entries = index.getEntries().entrySet().iterator();
+        return new KeyRuns() {
+            private Map.Entry<Object, List<Row>> current;
+
+            @Override
+            public boolean advance() {
+                current = entries.hasNext() ? entries.next() : null;
+                return current != null;
+            }
+
+            @Override
+            public Object key() {
+                return current.getKey();
+            }
+
+            @Override
+            public List<Row> rows() {
+                return current.getValue();
+            }
+        };
+    }
+
+    /**
+     * Reads key runs from rows sorted by the key column, grouping consecutive rows with equal keys.
+     * Rows with NULL keys are skipped wherever they appear.
+     * @param rows The sorted rows.
+     * @param keyIndex The key column.
+     * @return The runs in ascending key order.
+     */
+    private static KeyRuns sortedRuns(List<Row> rows, int keyIndex) {
+        return new KeyRuns() {
+            private int position = 0;
+            private Object key;
+            private final List<Row> run = new ArrayList<>();
+
+            @Override
+            public boolean advance() {
+                run.clear();
+                key = null;
+                while (position < rows.size()) {
+                    Row row = rows.get(position);
+                    Object value = row.getValue(keyIndex);
+                    if (value == null) {
+                        position++;
+                        continue;
+                    }
+                    if (key == null) {
+                        key = value;
+                    } else if (!key.equals(value)) {
+                        break;
+                    }
+                    run.add(row);
+                    position++;
+                }
+                return key != null;
+            }
+
+            @Override
+            public Object key() {
+                return key;
+            }
+
+            @Override
+            public List<Row> rows() {
+                return run;
+            }
+        };
+    }
+}
@@ -0,0 +1,314 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inner equi-join of several tables in one pipelined pass.
+ * The tables are connected by one join condition fewer than there are tables, forming a tree.
+ * A join order is chosen greedily from row counts and distinct-value statistics: first the pair of
+ * tables with the smallest estimated result, then, one at a time, the connected table that keeps the
+ * estimated intermediate result smallest. Every table after the first gets a {@link JoinHashTable} on
+ * its join column, and the rows of the first table are streamed through all of them, so intermediate
+ * results are never collected in memory or written to disk. The hash tables are reserved from the query's
+ * {@link QueryMemory} budget; since they cannot spill, a join whose hash tables do not fit stops with an error.
+ * Output rows hold the columns of the tables in the order the tables were given, whatever the join order.
+ */
+public class MultiJoin {
+
+    /**
+     * An equality condition between a column of one table and a column of another.
+     */
+    public static class Condition {
+        private final int leftTable;
+        private final int leftColumn;
+        private final int rightTable;
+        private final int rightColumn;
+
+        /**
+         * Constructs a join condition.
+         * @param leftTable The position of the first table in the table list.
+         * @param leftColumn The column index in the first table.
+         * @param rightTable The position of the second table in the table list.
+         * @param rightColumn The column index in the second table.
+         */
+        public Condition(int leftTable, int leftColumn, int rightTable, int rightColumn) {
+            this.leftTable = leftTable;
+            this.leftColumn = leftColumn;
+            this.rightTable = rightTable;
+            this.rightColumn = rightColumn;
+        }
+
+        /**
+         * Checks whether the condition involves a table.
+         * @param table The table position.
+         * @return True if the table is either side of the condition.
+         */
+        boolean involves(int table) {
+            return leftTable == table || rightTable == table;
+        }
+
+        /**
+         * Gets the table on the other side of the condition.
+         * @param table The table position on one side.
+         * @return The table position on the other side.
+         */
+        int other(int table) {
+            return table == leftTable ? rightTable : leftTable;
+        }
+
+        /**
+         * Gets the join column of one side of the condition.
+         * @param table The table position of that side.
+         * @return The column index in that table.
+         */
+        int columnOf(int table) {
+            return table == leftTable ? leftColumn : rightColumn;
+        }
+    }
+
+    private final List<Table> tables;
+    private final List<Condition> conditions;
+    private final int[] order;                 // Table positions in join order
+    private final Condition[] stepConditions;  // Condition that adds order[k] to the tables before it
+    private final double[] estimatedRows;      // Estimated intermediate row count after each step
+
+    /**
+     * Constructs a multi-way join and chooses its join order.
+     * @param tables The tables to join, in output column order. Must be at least two distinct tables.
+     * @param conditions The join conditions, exactly one fewer than the tables, connecting all of them.
+     * @throws DatabaseOperationException If the conditions do not connect all tables as a tree,
+     * or a condition refers to a missing column.
+     */
+    public MultiJoin(List<Table> tables, List<Condition> conditions) throws DatabaseOperationException {
+        if (tables.size() < 2)
+            throw new DatabaseOperationException("ERROR: A join needs at least two tables.");
+        if (conditions.size() != tables.size() - 1)
+            throw new DatabaseOperationException("ERROR: Joining " + tables.size() + " tables needs exactly "
+                    + (tables.size() - 1) + " join conditions, got " + conditions.size() + ".");
+        for (Condition condition : conditions) {
+            if (condition.leftTable == condition.rightTable)
+                throw new DatabaseOperationException("ERROR: A join condition must compare columns of two different tables.");
+            tables.get(condition.leftTable).getColumn(condition.leftColumn);   // Validates column index
+            tables.get(condition.rightTable).getColumn(condition.rightColumn); // Validates column index
+        }
+        this.tables = tables;
+        this.conditions = conditions;
+        this.order = new int[tables.size()];
+        this.stepConditions = new Condition[tables.size()];
+        this.estimatedRows = new double[tables.size()];
+        chooseOrder();
+    }
+
+    /**
+     * Runs the join and sends every output row to the sink.
+     * @param sink The destination for the joined rows.
+     * @return The number of rows produced.
+     * @throws DatabaseOperationException If the sink rejects a row or the hash tables do not fit in the query's memory budget.
+     */
+    public long execute(RowSink sink) throws DatabaseOperationException {
+        int n = tables.size();
+        int[] offsets = new int[n];   // Start of each step's values in the combined row
+        int width = 0;
+        for (int k = 0; k < n; k++) {
+            offsets[k] = width;
+            width += tables.get(order[k]).getColumns().size();
+        }
+
+        // The hash tables cannot spill, so they are reserved in full before they are built.
+        QueryMemory memory = QueryMemory.current();
+        long hashTableBytes = 0;
+        try {
+            JoinHashTable[] hashTables = new JoinHashTable[n];
+            int[][] probeKeys = new int[n][];
+            for (int k = 1; k < n; k++) {
+                Condition condition = stepConditions[k];
+                int table = order[k];
+                int earlier = condition.other(table);
+                int earlierStep = stepOf(earlier);
+                Table buildTable = tables.get(table);
+                long bytes = JoinHashTable.estimateBytes(buildTable.getRowCount());
+                memory.reserve(bytes, "the hash table on '" + buildTable.getName() + "'");
+                hashTableBytes += bytes;
+                boolean packed = buildTable.getColumn(condition.columnOf(table)).getType() == DataType.INTEGER
+                        && tables.get(earlier).getColumn(condition.columnOf(earlier)).getType() == DataType.INTEGER;
+                hashTables[k] = new JoinHashTable(new int[]{condition.columnOf(table)}, packed);
+                for (Row row : buildTable.getRows()) {
+                    hashTables[k].add(row);
+                }
+                probeKeys[k] = new int[]{offsets[earlierStep] + condition.columnOf(earlier)};
+            }
+
+            // Position in the combined row of each output column, in the order the tables were given.
+            int[] outputPositions = new int[width];
+            int position = 0;
+            for (int t = 0; t < n; t++) {
+                int step = stepOf(t);
+                for (int c = 0; c < tables.get(t).getColumns().size(); c++) {
+                    outputPositions[position++] = offsets[step] + c;
+                }
+            }
+
+            Row combined = new Row(Collections.nCopies(width, null));
+            long produced = 0;
+            for (Row row : tables.get(order[0]).getRows()) {
+                copyInto(combined, offsets[0], row);
+                produced += extend(1, combined, offsets, hashTables, probeKeys, outputPositions, sink);
+            }
+            return produced;
+        } finally {
+            memory.release(hashTableBytes);
+        }
+    }
+
+    /**
+     * Describes the chosen join order with the estimated row count after each step.
+     * @return The plan description, for example "Colors -> Audi (~9 rows) -> Specs (~4 rows)".
+     */
+    public String getPlanDescription() {
+        StringBuilder plan = new StringBuilder(tables.get(order[0]).getName());
+        for (int k = 1; k < order.length; k++) {
+            plan.append(" -> ").append(tables.get(order[k]).getName())
+                    .append(" (~").append(Math.round(estimatedRows[k])).append(" rows)");
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Adds the matching rows of one step's table to the combined row and continues with the next step,
+     * emitting the row once every table has contributed.
+     * @param step The step to fill.
+     * @param combined The combined row, filled for all earlier steps.
+     * @param offsets The start of each step's values in the combined row.
+     * @param hashTables The hash table of each step's table.
+     * @param probeKeys The combined-row key column of each step.
+     * @param outputPositions The combined-row position of each output column.
+     * @param sink The destination for the joined rows.
+     * @return The number of rows produced.
+     * @throws DatabaseOperationException If the sink rejects a row.
+     */
+    private long extend(int step, Row combined, int[] offsets, JoinHashTable[] hashTables, int[][] probeKeys,
+                        int[] outputPositions, RowSink sink) throws DatabaseOperationException {
+        if (step == offsets.length) {
+            List<Object> values = new ArrayList<>(outputPositions.length);
+            for (int position : outputPositions) {
+                values.add(combined.getValue(position));
+            }
+            sink.accept(new Row(values));
+            return 1;
+        }
+        long produced = 0;
+        JoinHashTable hashTable = hashTables[step];
+        for (int entry = hashTable.firstMatch(combined, probeKeys[step]); entry >= 0;
+             entry = hashTable.nextMatch(entry, combined, probeKeys[step])) {
+            copyInto(combined, offsets[step], hashTable.rowAt(entry));
+            produced += extend(step + 1, combined, offsets, hashTables, probeKeys, outputPositions, sink);
+        }
+        return produced;
+    }
+
+    /**
+     * Copies the values of a row into the combined row.
+     * @param combined The combined row.
+     * @param offset The position of the first value.
+     * @param row The row to copy.
+     */
+    private static void copyInto(Row combined, int offset, Row row) {
+        for (int i = 0; i < row.size(); i++) {
+            combined.setValue(offset + i, row.getValue(i));
+        }
+    }
+
+    /**
+     * Chooses the join order greedily by estimated intermediate size.
+     * The first two tables are the pair with the smallest estimated join result; the larger of the two
+     * is streamed and the smaller gets a hash table. Each further table is the connected table whose
+     * join keeps the estimate smallest.
+     * @throws DatabaseOperationException If the conditions do not connect all tables.
+     */
+    private void chooseOrder() throws DatabaseOperationException {
+        Condition first = null;
+        double firstEstimate = Double.MAX_VALUE;
+        for (Condition condition : conditions) {
+            Table left = tables.get(condition.leftTable);
+            Table right = tables.get(condition.rightTable);
+            double estimate = joinEstimate(left.getRowCount(), left, condition.leftColumn, right, condition.rightColumn);
+            if (estimate < firstEstimate) {
+                firstEstimate = estimate;
+                first = condition;
+            }
+        }
+        boolean leftLarger = tables.get(first.leftTable).getRowCount() >= tables.get(first.rightTable).getRowCount();
+        order[0] = leftLarger ? first.leftTable : first.rightTable;
+        order[1] = first.other(order[0]);
+        stepConditions[1] = first;
+        estimatedRows[0] = tables.get(order[0]).getRowCount();
+        estimatedRows[1] = firstEstimate;
+
+        boolean[] joined = new boolean[tables.size()];
+        joined[order[0]] = true;
+        joined[order[1]] = true;
+        for (int k = 2; k < tables.size(); k++) {
+            Condition best = null;
+            double bestEstimate = Double.MAX_VALUE;
+            for (Condition condition : conditions) {
+                if (joined[condition.leftTable] == joined[condition.rightTable]) {
+                    continue; // Both sides already joined, or neither.
+                }
+                int earlier = joined[condition.leftTable] ? condition.leftTable : condition.rightTable;
+                int next = condition.other(earlier);
+                double estimate = joinEstimate(estimatedRows[k - 1], tables.get(earlier), condition.columnOf(earlier),
+                        tables.get(next), condition.columnOf(next));
+                if (estimate < bestEstimate) {
+                    bestEstimate = estimate;
+                    best = condition;
+                }
+            }
+            if (best == null)
+                throw new DatabaseOperationException("ERROR: The join conditions do not connect all tables.");
+            order[k] = joined[best.leftTable] ? best.rightTable : best.leftTable;
+            joined[order[k]] = true;
+            stepConditions[k] = best;
+            estimatedRows[k] = bestEstimate;
+        }
+    }
+
+    /**
+     * Estimates the size of joining an intermediate result with a table, assuming uniformly
+     * distributed values: rows on each side with a non-null key, multiplied together and divided by
+     * the larger number of distinct keys. The intermediate's key column is scaled from its base
+     * table by the intermediate's estimated size.
+     * @param rows The estimated row count of the intermediate result (or of the left table).
+     * @param left The table that the intermediate's join column comes from.
+     * @param leftColumn The join column in that table.
+     * @param right The table being joined.
+     * @param rightColumn The join column in that table.
+     * @return The estimated number of result rows.
+     * @throws DatabaseOperationException If a column index is invalid.
+     */
+    private static double joinEstimate(double rows, Table left, int leftColumn, Table right, int rightColumn)
+            throws DatabaseOperationException {
+        ColumnStatistics leftStatistics = left.getColumnStatistics(leftColumn);
+        ColumnStatistics rightStatistics = right.getColumnStatistics(rightColumn);
+        double leftNonNull = left.getRowCount() == 0 ? 0 : rows * leftStatistics.getNonNullCount() / left.getRowCount();
+        double rightNonNull = rightStatistics.getNonNullCount();
+        double leftDistinct = Math.min(leftStatistics.getDistinctCount(), Math.max(leftNonNull, 1));
+        double distinct = Math.max(1, Math.max(leftDistinct, rightStatistics.getDistinctCount()));
+        return leftNonNull * rightNonNull / distinct;
+    }
+
+    /**
+     * Finds the step at which a table is joined.
+     * @param table The table position.
+     * @return The step number.
+     */
+    private int stepOf(int table) {
+        for (int k = 0; k < order.length; k++) {
+            if (order[k] == table) {
+                return k;
+            }
+        }
+        throw new IllegalStateException("Table " + table + " is not in the join order.");
+    }
+}
@@ -0,0 +1,162 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * An in-memory ordered index on one column of a table.
+ * It maps each non-null column value, in ascending order, to the rows holding that value.
+ * The index is maintained by {@link Table} as rows are added, removed and updated, and lets
+ * operators such as a merge join read the table in key order without sorting it.
+ */
+public class OrderedIndex {
+
+    private final int columnIndex;
+    private final TreeMap<Object, List<Row>> entries;
+
+    /**
+     * Builds an index over the given rows.
+     * @param columnIndex The zero-based index of the indexed column.
+     * @param rows The rows to index.
+     */
+    OrderedIndex(int columnIndex, List<Row> rows) {
+        this.columnIndex = columnIndex;
+        this.entries = new TreeMap<>();
+        for (Row row : rows) {
+            add(row);
+        }
+    }
+
+    /**
+     * Constructs a copy of another index, which does not change when the original does.
+     * @param other The index to copy.
+     */
+    private OrderedIndex(OrderedIndex other) {
+        this.columnIndex = other.columnIndex;
+        this.entries = new TreeMap<>();
+        for (Map.Entry<Object, List<Row>> entry : other.entries.entrySet()) {
+            this.entries.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+    }
+
+    /**
+     * Copies the index, for a reader that uses it while writers may change the original.
+     * @return The copy.
+     */
+    OrderedIndex copy() {
+        return new OrderedIndex(this);
+    }
+
+    /**
+     * Gets the index of the indexed column.
+     * @return The zero-based column index.
+     */
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * Adds a row under its current value in the indexed column.
+     * @param row The row to add.
+     */
+    void add(Row row) {
+        insert(row.getValue(columnIndex), row);
+    }
+
+    /**
+     * Removes a row from under its current value in the indexed column.
+     * @param row The row to remove.
+     */
+    void remove(Row row) {
+        delete(row.getValue(columnIndex), row);
+    }
+
+    /**
+     * Moves a row whose indexed value changed from one key to another.
+     * @param row The changed row.
+     * @param oldValue The previous value in the indexed column.
+     * @param newValue The new value in the indexed column.
+     */
+    void update(Row row, Object oldValue, Object newValue) {
+        delete(oldValue, row);
+        insert(newValue, row);
+    }
+
+    /**
+     * Finds the rows holding a value in the indexed column.
+     * @param key The value to look up. Null values are not indexed.
+     * @return The matching rows, or an empty list.
+     */
+    public List<Row> lookup(Object key) {
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        List<Row> rows = entries.get(key);
+        return rows == null ? Collections.emptyList() : Collections.unmodifiableList(rows);
+    }
+
+    /**
+     * Gets a read-only view of the index entries in ascending key order.
+     * @return A sorted map of column value to the rows holding it.
+     */
+    public NavigableMap<Object, List<Row>> getEntries() {
+        return Collections.unmodifiableNavigableMap(entries);
+    }
+
+    /**
+     * Gets the number of distinct keys in the index.
+     * @return The key count.
+     */
+    public int getKeyCount() {
+        return entries.size();
+    }
+
+    /**
+     * Adds a row under a key. Null keys are not indexed.
+     * @param key The key.
+     * @param row The row.
+     */
+    private void insert(Object key, Row row) {
+        if (key != null) {
+            entries.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+        }
+    }
+
+    /**
+     * Removes a row from under a key, dropping the key once no rows remain.
+     * @param key The key.
+     * @param row The row.
+     */
+    private void delete(Object key, Row row) {
+        if (key == null) {
+            return;
+        }
+        List<Row> rows = entries.get(key);
+        if (rows == null) {
+            return;
+        }
+        // Rows are matched by identity: two rows with equal values are still different rows.
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) == row) {
+                rows.remove(i);
+                break;
+            }
+        }
+        if (rows.isEmpty()) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Returns a short description of the index.
+     * @return A string naming the indexed column and key count.
+     */
+    @Override
+    public String toString() {
+        return "OrderedIndex(column " + columnIndex + ", " + entries.size() + " keys)";
+    }
+}
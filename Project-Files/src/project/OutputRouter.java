@@ -0,0 +1,236 @@
+package project;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Standard output that sends each thread's output to that thread's own stream.
+ * Commands write their results to System.out; once the router is installed, a thread serving a
+ * client connection routes its output to the connection, and every other thread writes to the console.
+ * The common print methods are passed straight to the thread's stream, so a slow client only holds
+ * up its own output and never the lock of the shared System.out.
+ */
+public class OutputRouter extends PrintStream {
+
+    private static final ThreadLocal<PrintStream> THREAD_OUTPUT = new ThreadLocal<>();
+
+    private final PrintStream console;
+
+    /**
+     * Constructs a router.
+     * @param console The stream for threads without a stream of their own.
+     */
+    private OutputRouter(PrintStream console) {
+        super(new OutputStream() {
+            @Override
+            public void write(int b) {
+                target(console).write(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                target(console).write(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() {
+                target(console).flush();
+            }
+        }, true);
+        this.console = console;
+    }
+
+    /**
+     * Replaces System.out with a router, unless one is already installed.
+     */
+    public static synchronized void install() {
+        if (!(System.out instanceof OutputRouter)) {
+            System.setOut(new OutputRouter(System.out));
+        }
+    }
+
+    /**
+     * Sends the output of the current thread to a stream until {@link #clear()} is called.
+     * @param output The stream for the current thread.
+     */
+    public static void route(PrintStream output) {
+        THREAD_OUTPUT.set(output);
+    }
+
+    /**
+     * Sends the output of the current thread back to the console.
+     */
+    public static void clear() {
+        THREAD_OUTPUT.remove();
+    }
+
+    /**
+     * Gets the stream the output of the current thread is sent to, so that it can be restored after
+     * routing the output somewhere else for a while.
+     * @return The stream, or null if the thread writes to the console.
+     */
+    public static PrintStream current() {
+        return THREAD_OUTPUT.get();
+    }
+
+    /**
+     * Gets the console stream, for messages that must reach the console from any thread.
+     * @return The console stream, or System.out if no router is installed.
+     */
+    public static PrintStream console() {
+        PrintStream out = System.out;
+        return out instanceof OutputRouter ? ((OutputRouter) out).console : out;
+    }
+
+    /**
+     * Gets the stream of the current thread.
+     * @param console The stream for threads without a stream of their own.
+     * @return The stream to write to.
+     */
+    private static PrintStream target(PrintStream console) {
+        PrintStream output = THREAD_OUTPUT.get();
+        return output != null ? output : console;
+    }
+
+    /**
+     * Gets the stream of the current thread.
+     * @return The stream to write to.
+     */
+    private PrintStream target() {
+        return target(console);
+    }
+
+    /**
+     * Prints a string to the current thread's stream.
+     * @param s The string.
+     */
+    @Override
+    public void print(String s) {
+        target().print(s);
+    }
+
+    /**
+     * Prints an object to the current thread's stream.
+     * @param obj The object.
+     */
+    @Override
+    public void print(Object obj) {
+        target().print(obj);
+    }
+
+    /**
+     * Prints a character to the current thread's stream.
+     * @param c The character.
+     */
+    @Override
+    public void print(char c) {
+        target().print(c);
+    }
+
+    /**
+     * Ends the line on the current thread's stream.
+     */
+    @Override
+    public void println() {
+        target().println();
+    }
+
+    /**
+     * Prints a string and ends the line on the current thread's stream.
+     * @param x The string.
+     */
+    @Override
+    public void println(String x) {
+        target().println(x);
+    }
+
+    /**
+     * Prints an object and ends the line on the current thread's stream.
+     * @param x The object.
+     */
+    @Override
+    public void println(Object x) {
+        target().println(x);
+    }
+
+    /**
+     * Prints formatted text to the current thread's stream.
+     * @param format The format string.
+     * @param args The format arguments.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream printf(String format, Object... args) {
+        target().printf(format, args);
+        return this;
+    }
+
+    /**
+     * Prints formatted text to the current thread's stream.
+     * @param l The locale to format with.
+     * @param format The format string.
+     * @param args The format arguments.
+     * @return This stream.
+     */
+    @Override
+    public PrintStream printf(Locale l, String format, Object... args) {
+        target().printf(l, format, args);
+        return this;
+    }
+
+    /**
+     * Writes a byte to the current thread's stream.
+     * @param b The byte.
+     */
+    @Override
+    public void write(int b) {
+        target().write(b);
+    }
+
+    /**
+     * Writes bytes to the current thread's stream.
+     * @param buf The bytes.
+     * @param off The position of the first byte.
+     * @param len The number of bytes.
+     */
+    @Override
+    public void write(byte[] buf, int off, int len) {
+        target().write(buf, off, len);
+    }
+
+    /**
+     * Writes bytes to the current thread's stream.
+     * @param buf The bytes.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void write(byte[] buf) throws IOException {
+        target().write(buf);
+    }
+
+    /**
+     * Flushes the current thread's stream.
+     */
+    @Override
+    public void flush() {
+        target().flush();
+    }
+
+    /**
+     * Checks the current thread's stream for errors.
+     * @return True if the stream has hit an error.
+     */
+    @Override
+    public boolean checkError() {
+        return target().checkError();
+    }
+
+    /**
+     * Does nothing: the console and the connection streams are closed by their owners.
+     */
+    @Override
+    public void close() {
+    }
+}
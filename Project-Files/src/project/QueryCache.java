@@ -0,0 +1,177 @@
+package project;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache for the results of read-only queries
+ * such as count, aggregate and select.
+ * Every entry is keyed by the table it reads, the version of that table at the time
+ * the result was computed, and a normalized form of the command. Because the table
+ * version changes on every modification, a stale result can never be returned.
+ * A negative version stands for data that belongs to no version, such as an older snapshot of a
+ * table that was changed since; such results are never cached.
+ * All methods are synchronized, since commands on different tables may use the cache at the same time.
+ */
+public class QueryCache {
+
+    /** The default maximum number of cached results. */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private final int capacity;
+    private final LinkedHashMap<String, CacheEntry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * A single cached result together with the table it was computed from.
+     */
+    private static class CacheEntry {
+        private final String tableName;
+        private final Object value;
+
+        CacheEntry(String tableName, Object value) {
+            this.tableName = tableName;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Constructs a QueryCache with the default capacity.
+     */
+    public QueryCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a QueryCache holding at most the given number of results.
+     * @param capacity The maximum number of entries. Must be positive.
+     * @throws IllegalArgumentException If capacity is not positive.
+     */
+    public QueryCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("ERROR: Query cache capacity must be positive.");
+        this.capacity = capacity;
+        // Access order makes the iteration order least-recently-used first.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > QueryCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up a cached result.
+     * @param tableName The name of the table the query reads.
+     * @param tableVersion The current version of that table, or a negative number for uncacheable data.
+     * @param normalizedQuery The normalized command text.
+     * @return The cached result, or null if there is none.
+     */
+    public synchronized Object get(String tableName, long tableVersion, String normalizedQuery) {
+        if (tableVersion < 0) {
+            misses++;
+            return null;
+        }
+        CacheEntry entry = entries.get(buildKey(tableName, tableVersion, normalizedQuery));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Stores the result of a query, evicting the least recently used entry if the cache is full.
+     * @param tableName The name of the table the query reads.
+     * @param tableVersion The version of that table the result was computed from, or a negative number
+     * for uncacheable data.
+     * @param normalizedQuery The normalized command text.
+     * @param value The result to cache. Null values and results of uncacheable data are not cached.
+     */
+    public synchronized void put(String tableName, long tableVersion, String normalizedQuery, Object value) {
+        if (value == null || tableVersion < 0) {
+            return;
+        }
+        entries.put(buildKey(tableName, tableVersion, normalizedQuery), new CacheEntry(tableName, value));
+    }
+
+    /**
+     * Removes every cached result that was computed from the given table.
+     * Called whenever the table's version changes so that outdated entries do not occupy capacity.
+     * @param tableName The name of the table.
+     */
+    public synchronized void invalidateTable(String tableName) {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().tableName.equals(tableName)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached results. Statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of lookups that returned a cached result.
+     * @return The hit count.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found no cached result.
+     * @return The miss count.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries removed because the cache was full.
+     * @return The eviction count.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of results currently cached.
+     * @return The current size.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the maximum number of results the cache holds.
+     * @return The capacity.
+     */
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Builds the lookup key for a query against a specific table version.
+     * @param tableName The table name.
+     * @param tableVersion The table version.
+     * @param normalizedQuery The normalized command text.
+     * @return The cache key.
+     */
+    private static String buildKey(String tableName, long tableVersion, String normalizedQuery) {
+        return tableName + "@" + tableVersion + ":" + normalizedQuery;
+    }
+}
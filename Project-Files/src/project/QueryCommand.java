@@ -0,0 +1,16 @@
+package project;
+
+/**
+ * A command handler whose result is a table, so that it can also serve as the query of a view.
+ */
+public interface QueryCommand extends CommandHandler {
+    /**
+     * Evaluates the command's query and returns its result as an in-memory table,
+     * without registering it in the database or writing it to a file.
+     * @param resultName The name to give the result table.
+     * @param args The arguments for the command, as for {@link #execute(String[])}.
+     * @return The result table.
+     * @throws DatabaseOperationException If the arguments are invalid or the query fails.
+     */
+    Table evaluate(String resultName, String[] args) throws DatabaseOperationException;
+}
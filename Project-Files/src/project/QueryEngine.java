@@ -0,0 +1,405 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+
+/**
+ * Programmatic access to the queries and changes of a {@link Database}, returning typed results
+ * instead of printing them, for embedding the database in other programs. The select, count, aggregate,
+ * insert, update and inner join commands format the results of these methods.
+ * The methods expect the caller to hold the locks of the tables they use, as commands do while they run;
+ * a program that embeds the database runs them through {@link #call(TableAccess, Query)}, which takes the
+ * locks, gives read-only work a snapshot and commits the changes when the work ends.
+ * Search values are given as in commands and compared with {@link TypeParser#looselyEquals}; values to
+ * store are typed: Integer for INTEGER columns, Double for DOUBLE columns, String for STRING columns,
+ * or null.
+ */
+public class QueryEngine {
+
+    private final Database database;
+
+    /**
+     * Work run by {@link #call(TableAccess, Query)} while holding the locks of the tables it uses.
+     * @param <T> The type of the result.
+     */
+    public interface Query<T> {
+        /**
+         * Runs the work.
+         * @param engine The engine to query.
+         * @return The result.
+         * @throws DatabaseOperationException If a query or change fails.
+         */
+        T run(QueryEngine engine) throws DatabaseOperationException;
+    }
+
+    /**
+     * Constructs an engine over a database.
+     * @param database The database to query and change.
+     */
+    public QueryEngine(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Runs work while holding the locks of the tables it uses, as a command does. Work that only reads
+     * sees a snapshot taken when it starts; the changes of any other work are committed when it ends.
+     * Unless it runs inside a command, the work is admitted and given a memory budget as a query, see {@link QueryMemory}.
+     * Lazy results, such as the rows of a select, must be read inside the work.
+     * @param access The tables the work reads, writes and alters.
+     * @param query The work.
+     * @param <T> The type of the result.
+     * @return The result of the work.
+     * @throws DatabaseOperationException If the work fails or is not admitted.
+     */
+    public <T> T call(TableAccess access, Query<T> query) throws DatabaseOperationException {
+        if (!QueryMemory.isBound()) {
+            try (QueryMemory memory = QueryMemory.admit(true)) {
+                memory.bind();
+                return call(access, query);
+            } finally {
+                QueryMemory.unbind();
+            }
+        }
+        TableLockManager.Locks locks = database.lockTables(access);
+        try {
+            VersionClock.Snapshot snapshot = access.isReadOnly() ? database.openSnapshot() : null;
+            try {
+                return query.run(this);
+            } finally {
+                if (snapshot != null) {
+                    snapshot.close();
+                }
+                database.commitChanges();
+            }
+        } finally {
+            locks.close();
+        }
+    }
+
+    /**
+     * Selects the rows of a table whose value in a column loosely equals a search value.
+     * If the column has a Bloom filter that rules the value out, no rows are scanned.
+     * The table is scanned only as far as the rows are read. Repeated selects against an unchanged table
+     * are served from the result cache; a scan is added to the cache once it has run to the end of the table,
+     * unless its matches took more than the query's memory budget to keep.
+     * @param tableName The name of the table or view.
+     * @param columnIndex The index of the column to compare.
+     * @param searchValue The value to match, as written in commands.
+     * @return The columns of the table and the matching rows.
+     * @throws DatabaseOperationException If the table is not found or the column index is out of range.
+     */
+    public SelectResult select(String tableName, int columnIndex, String searchValue) throws DatabaseOperationException {
+        Table table = database.getTable(tableName);
+        DataType searchType = table.getColumn(columnIndex).getType();
+        if (!table.mightContainValue(columnIndex, searchValue)) {
+            return new SelectResult(tableName, table.getColumns(), Collections.emptyIterator());
+        }
+        QueryCache cache = database.getQueryCache();
+        long tableVersion = database.getTableVersion(tableName);
+        String normalizedQuery = "select " + columnIndex + " " + searchValue;
+        List<Row> cachedRows = castRows(cache.get(tableName, tableVersion, normalizedQuery));
+        if (cachedRows != null) {
+            return new SelectResult(tableName, table.getColumns(), cachedRows.iterator());
+        }
+        List<Row> rows = table.getRows();
+        QueryMemory memory = QueryMemory.current();
+        Iterator<Row> matches = new Iterator<Row>() {
+            private int position = 0;
+            private Row nextMatch = null;
+            private List<Row> matches = new ArrayList<>(); // Kept for the cache, or null once over the memory budget
+
+            @Override
+            public boolean hasNext() {
+                while (nextMatch == null && position < rows.size()) {
+                    Row row = rows.get(position++);
+                    if (TypeParser.looselyEquals(row.getValue(columnIndex), searchValue, searchType)) {
+                        nextMatch = row;
+                        if (matches != null && memory.tryReserve(QueryMemory.REFERENCE_BYTES)) {
+                            matches.add(row);
+                        } else {
+                            matches = null; // Too large to cache; the rows are still returned.
+                        }
+                    }
+                    if (position == rows.size() && matches != null) {
+                        cache.put(tableName, tableVersion, normalizedQuery, Collections.unmodifiableList(matches));
+                    }
+                }
+                return nextMatch != null;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Row row = nextMatch;
+                nextMatch = null;
+                return row;
+            }
+        };
+        return new SelectResult(tableName, table.getColumns(), matches);
+    }
+
+    /**
+     * Counts the rows of a table whose value in a column loosely equals a search value.
+     * Values ruled out by the column's Bloom filter count as zero; otherwise the count is taken
+     * from the column statistics when possible, then from the result cache, and the rows are scanned
+     * as a last resort.
+     * @param tableName The name of the table or view.
+     * @param columnIndex The index of the column to compare.
+     * @param searchValue The value to match, as written in commands.
+     * @return The number of matching rows.
+     * @throws DatabaseOperationException If the table is not found or the column index is out of range.
+     */
+    public long count(String tableName, int columnIndex, String searchValue) throws DatabaseOperationException {
+        Table table = database.getTable(tableName);
+        Column searchColumn = table.getColumn(columnIndex); // Validates column index
+        if (!table.mightContainValue(columnIndex, searchValue)) {
+            return 0;
+        }
+        // Equality predicates are answered from the column statistics without a scan.
+        long statisticsCount = table.countMatchesFromStatistics(columnIndex, searchValue);
+        if (statisticsCount >= 0) {
+            return statisticsCount;
+        }
+        // Serve repeated queries against an unchanged table from the result cache.
+        QueryCache cache = database.getQueryCache();
+        long tableVersion = database.getTableVersion(tableName);
+        String normalizedQuery = "count " + columnIndex + " " + searchValue;
+        Object cachedCount = cache.get(tableName, tableVersion, normalizedQuery);
+        if (cachedCount != null) {
+            return ((Number) cachedCount).longValue();
+        }
+        int count = 0;
+        try {
+            for (Row row : table.getRows()) {
+                if (TypeParser.looselyEquals(row.getValue(columnIndex), searchValue, searchColumn.getType())) {
+                    count++;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new DatabaseOperationException("ERROR: During count - column index out of bounds for a row.", e);
+        }
+        cache.put(tableName, tableVersion, normalizedQuery, count);
+        return count;
+    }
+
+    /**
+     * Aggregates a numeric column over the rows whose value in a search column loosely equals a search value.
+     * Rows whose target value is NULL are skipped. Minimum and maximum are answered from the column
+     * statistics when every row matches or when the search and target columns are the same, and repeated
+     * aggregates against an unchanged table are served from the result cache.
+     * @param tableName The name of the table or view.
+     * @param searchColumnIndex The index of the column to compare.
+     * @param searchValue The value to match, as written in commands.
+     * @param targetColumnIndex The index of the INTEGER or DOUBLE column to aggregate.
+     * @param operation The aggregate operation.
+     * @return The result, or an empty result if no matching row has a target value.
+     * @throws DatabaseOperationException If the table is not found, a column index is out of range or the
+     * target column is not numeric.
+     */
+    public OptionalDouble aggregate(String tableName, int searchColumnIndex, String searchValue, int targetColumnIndex,
+                                    AggregateOperation operation) throws DatabaseOperationException {
+        Table table = database.getTable(tableName);
+        Column searchColumn = table.getColumn(searchColumnIndex);
+        Column targetColumn = table.getColumn(targetColumnIndex);
+        DataType targetType = targetColumn.getType();
+        if (targetType != DataType.INTEGER && targetType != DataType.DOUBLE) {
+            throw new DatabaseOperationException("ERROR: Target column '" + targetColumn.getName() + "' must be numeric (INTEGER or DOUBLE) for aggregation.");
+        }
+
+        // Answer from the column statistics without scanning when the predicate allows it.
+        long matchingRows = table.countMatchesFromStatistics(searchColumnIndex, searchValue);
+        if (matchingRows == 0) {
+            return OptionalDouble.empty();
+        }
+        if (matchingRows > 0 && (operation == AggregateOperation.MAXIMUM || operation == AggregateOperation.MINIMUM)) {
+            Object extreme = null;
+            if (matchingRows == table.getRowCount()) {
+                // Every row matches, so the extreme of the whole target column is the answer.
+                ColumnStatistics targetStatistics = table.getColumnStatistics(targetColumnIndex);
+                extreme = operation == AggregateOperation.MAXIMUM ? targetStatistics.getMax() : targetStatistics.getMin();
+            } else if (searchColumnIndex == targetColumnIndex) {
+                // Every matching row holds the search value itself in the target column.
+                extreme = TypeParser.parse(searchValue, targetType);
+            }
+            if (extreme instanceof Number) {
+                return OptionalDouble.of(((Number) extreme).doubleValue());
+            }
+        }
+
+        // Serve repeated queries against an unchanged table from the result cache.
+        QueryCache cache = database.getQueryCache();
+        long tableVersion = database.getTableVersion(tableName);
+        String normalizedQuery = "aggregate " + searchColumnIndex + " " + searchValue + " " + targetColumnIndex + " " + operation.getName();
+        Object cachedResult = cache.get(tableName, tableVersion, normalizedQuery);
+        if (cachedResult != null) {
+            return (OptionalDouble) cachedResult;
+        }
+
+        boolean found = false;
+        double result = operation == AggregateOperation.PRODUCT ? 1 : 0;
+        CompensatedSum sum = new CompensatedSum(); // As materialized views sum, so that both agree
+        try {
+            for (Row row : table.getRows()) {
+                if (!TypeParser.looselyEquals(row.getValue(searchColumnIndex), searchValue, searchColumn.getType())) {
+                    continue;
+                }
+                Object targetCellValue = row.getValue(targetColumnIndex);
+                if (!(targetCellValue instanceof Number)) {
+                    continue;
+                }
+                double value = ((Number) targetCellValue).doubleValue();
+                switch (operation) {
+                    case SUM:
+                        sum.add(value);
+                        break;
+                    case PRODUCT:
+                        result *= value;
+                        break;
+                    case MAXIMUM:
+                        result = found ? Math.max(result, value) : value;
+                        break;
+                    case MINIMUM:
+                        result = found ? Math.min(result, value) : value;
+                        break;
+                }
+                found = true;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new DatabaseOperationException("ERROR: During aggregate filter - column index out of bounds.", e);
+        }
+        if (operation == AggregateOperation.SUM) {
+            result = sum.get();
+        }
+        OptionalDouble aggregate = found ? OptionalDouble.of(result) : OptionalDouble.empty();
+        cache.put(tableName, tableVersion, normalizedQuery, aggregate);
+        return aggregate;
+    }
+
+    /**
+     * Prepares an inner join of two tables, to be run into a {@link RowSink}.
+     * @param t1Name The name of the first table.
+     * @param c1Idxs The join columns of the first table.
+     * @param t2Name The name of the second table.
+     * @param c2Idxs The join columns of the second table, paired with those of the first.
+     * @return The validated join.
+     * @throws DatabaseOperationException If the join is invalid.
+     */
+    public InnerJoin prepareInnerJoin(String t1Name, int[] c1Idxs, String t2Name, int[] c2Idxs) throws DatabaseOperationException {
+        return new InnerJoin(database, t1Name, c1Idxs, t2Name, c2Idxs);
+    }
+
+    /**
+     * Joins two tables into an in-memory table that is not registered in the database.
+     * @param resultName The name to give the result table.
+     * @param t1Name The name of the first table.
+     * @param c1Idxs The join columns of the first table.
+     * @param t2Name The name of the second table.
+     * @param c2Idxs The join columns of the second table, paired with those of the first.
+     * @return The joined table.
+     * @throws DatabaseOperationException If the join is invalid or fails.
+     */
+    public Table innerJoin(String resultName, String t1Name, int[] c1Idxs, String t2Name, int[] c2Idxs) throws DatabaseOperationException {
+        InnerJoin join = prepareInnerJoin(t1Name, c1Idxs, t2Name, c2Idxs);
+        Table result = new Table(resultName, join.getColumns());
+        join.run(QueryMemory.current().track(result::addRow, "the result of the join"));
+        return result;
+    }
+
+    /**
+     * Inserts a row at the end of a table.
+     * @param tableName The name of the table.
+     * @param values One typed value per column, in column order.
+     * @throws DatabaseOperationException If the table is not found or is a view, or the values do not
+     * match the columns in number or type.
+     */
+    public void insert(String tableName, List<Object> values) throws DatabaseOperationException {
+        Table table = database.getTableForUpdate(tableName);
+        List<Column> columns = table.getColumns();
+        if (values.size() != columns.size()) {
+            throw new DatabaseOperationException("ERROR: Expected " + columns.size() + " values for " + columns.size() +
+                    " columns in table '" + tableName + "', but got " + values.size() + ".");
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            checkType(columns.get(i), values.get(i));
+        }
+        table.addRow(new Row(new ArrayList<>(values)));
+        database.dataModified(tableName);
+    }
+
+    /**
+     * Sets a column to a new value in every row of a table whose value in a search column loosely equals
+     * a search value.
+     * @param tableName The name of the table.
+     * @param searchColumnIndex The index of the column to compare.
+     * @param searchValue The value to match, as written in commands.
+     * @param targetColumnIndex The index of the column to set.
+     * @param newValue The typed new value.
+     * @return The number of rows updated.
+     * @throws DatabaseOperationException If the table is not found or is a view, a column index is out of
+     * range, or the new value does not match the type of the target column.
+     */
+    public int update(String tableName, int searchColumnIndex, String searchValue, int targetColumnIndex, Object newValue) throws DatabaseOperationException {
+        Table table = database.getTableForUpdate(tableName);
+        Column searchColumn = table.getColumn(searchColumnIndex);
+        checkType(table.getColumn(targetColumnIndex), newValue);
+        int updatedCount = 0;
+        try {
+            for (Row row : table.getRows()) {
+                if (TypeParser.looselyEquals(row.getValue(searchColumnIndex), searchValue, searchColumn.getType())) {
+                    table.setValue(row, targetColumnIndex, newValue);
+                    updatedCount++;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new DatabaseOperationException("ERROR: During update - internal error accessing row data by index.", e);
+        }
+        if (updatedCount > 0) {
+            database.dataModified(tableName);
+        }
+        return updatedCount;
+    }
+
+    /**
+     * Checks that a value can be stored in a column.
+     * @param column The column.
+     * @param value The value, or null.
+     * @throws DatabaseOperationException If the value has the wrong type for the column.
+     */
+    private static void checkType(Column column, Object value) throws DatabaseOperationException {
+        if (value == null) {
+            return;
+        }
+        boolean matches;
+        switch (column.getType()) {
+            case INTEGER:
+                matches = value instanceof Integer;
+                break;
+            case DOUBLE:
+                matches = value instanceof Double;
+                break;
+            default:
+                matches = value instanceof String;
+                break;
+        }
+        if (!matches) {
+            throw new DatabaseOperationException("ERROR: Value '" + value + "' of type " + value.getClass().getSimpleName()
+                    + " cannot be stored in column '" + column.getName() + "' (" + column.getType() + ").");
+        }
+    }
+
+    /**
+     * Converts a cached select result back to its row list.
+     * @param cached The object returned by the query cache, possibly null.
+     * @return The cached list of matching rows, or null if nothing was cached.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Row> castRows(Object cached) {
+        return (List<Row>) cached;
+    }
+}
@@ -0,0 +1,306 @@
+package project;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Memory accounting of the command running on a thread, against a per-query budget and a pool shared by
+ * all commands of the process.
+ * Operations that hold many rows or entries in memory, such as join hash tables, sort buffers, pagination
+ * row lists and result tables built in memory, reserve an estimate of their size before allocating it and
+ * release it when done. An operation that can spill to disk asks with {@link #tryReserve(long)} and spills
+ * when the answer is no; one that cannot fails cleanly with {@link #reserve(long, String)} instead of
+ * exhausting the heap. Everything a query reserved is returned to the pool when it ends.
+ * Before a command starts, {@link #admit(boolean)} queues it while the memory reserved by running queries
+ * is above the admission threshold, so that a burst of large queries runs a few at a time.
+ * The sizes are estimates of the Java objects involved, not exact measurements.
+ * The budget of a query is set by the system property "db.query.memoryBytes", the pool by
+ * "db.memory.poolBytes" and the admission threshold by "db.memory.admissionPercent".
+ */
+public class QueryMemory implements AutoCloseable {
+
+    /** Estimated size of a row object and its value list, not counting the values. */
+    public static final int ROW_OVERHEAD_BYTES = 56;
+    /** Estimated size of one reference in a list or array. */
+    public static final int REFERENCE_BYTES = 8;
+
+    private static final long POOL_BYTES = Long.getLong("db.memory.poolBytes", Runtime.getRuntime().maxMemory() / 2);
+    private static final long QUERY_BYTES = Long.getLong("db.query.memoryBytes", POOL_BYTES / 4);
+    private static final long ADMISSION_BYTES = POOL_BYTES * Math.min(100, Math.max(1, Integer.getInteger("db.memory.admissionPercent", 75))) / 100;
+    private static final long ADMISSION_WAIT_MILLIS = Long.getLong("db.memory.admissionWaitMillis", 30_000);
+    private static final long GRANT_BYTES = 1 << 20;    // Bytes taken from the pool at a time
+    private static final int SAMPLE_ROWS = 64;          // Rows sampled to estimate the size of a row list
+
+    private static final ThreadLocal<QueryMemory> CURRENT = new ThreadLocal<>();
+    private static final QueryMemory NONE = new QueryMemory(Long.MAX_VALUE); // For threads without a command
+    private static final Object POOL_LOCK = new Object();
+    private static long poolReserved;     // Bytes granted to running queries; guarded by POOL_LOCK
+    private static long nextTicket;       // Admission order of queued queries; guarded by POOL_LOCK
+    private static long servingTicket;    // Ticket of the first query in the queue; guarded by POOL_LOCK
+    private static final Set<Long> ABANDONED = new HashSet<>(); // Tickets of queries that gave up; guarded by POOL_LOCK
+
+    private final long budgetBytes;
+    private long reserved;                // Bytes reserved by the query; used only by the query's thread
+    private long granted;                 // Bytes taken from the pool, at least the reserved bytes
+
+    /**
+     * Constructs the accounting of a query.
+     * @param budgetBytes The most memory the query may reserve.
+     */
+    private QueryMemory(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Admits a new query with the configured budget. If the memory reserved by running queries is above
+     * the admission threshold, the query waits for it to drop, behind the queries that came before it.
+     * A query that waits too long, or whose command is cancelled or times out, is not admitted.
+     * @param queue False to admit the query at once, for a command that holds locks other queries may wait for.
+     * @return The accounting of the query, to be bound to its thread and closed when it ends.
+     * @throws DatabaseOperationException If the query was not admitted.
+     */
+    public static QueryMemory admit(boolean queue) throws DatabaseOperationException {
+        if (!queue) {
+            return new QueryMemory(QUERY_BYTES);
+        }
+        CommandProgress progress = CommandProgress.current();
+        long deadline = System.currentTimeMillis() + ADMISSION_WAIT_MILLIS;
+        synchronized (POOL_LOCK) {
+            long ticket = nextTicket++;
+            try {
+                while (ticket != servingTicket || poolReserved > ADMISSION_BYTES) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new DatabaseOperationException("ERROR: Query not started: " + megabytes(poolReserved)
+                                + " MB of query memory stayed in use for " + ADMISSION_WAIT_MILLIS + " ms. Try again later.");
+                    }
+                    progress.check();
+                    POOL_LOCK.wait(Math.min(remaining, 100));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DatabaseOperationException("ERROR: Interrupted while waiting for query memory.", e);
+            } finally {
+                leaveQueue(ticket);
+            }
+        }
+        return new QueryMemory(QUERY_BYTES);
+    }
+
+    /**
+     * Gets the accounting of the query running on the current thread.
+     * @return The accounting, or an unlimited one that uses no pool memory if no query is running.
+     */
+    public static QueryMemory current() {
+        QueryMemory memory = CURRENT.get();
+        return memory != null ? memory : NONE;
+    }
+
+    /**
+     * Checks whether a query is running on the current thread.
+     * @return True if a query's accounting is bound to the thread.
+     */
+    public static boolean isBound() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Binds the accounting to the current thread while its query runs.
+     */
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Unbinds the accounting from the current thread when its query ends.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Reserves memory if the query's budget and the pool allow it.
+     * @param bytes The estimated size of the allocation.
+     * @return True if the memory was reserved; false if the caller must spill or do without.
+     */
+    public boolean tryReserve(long bytes) {
+        if (this == NONE || bytes <= 0) {
+            return true;
+        }
+        if (reserved + bytes > budgetBytes) {
+            return false;
+        }
+        if (reserved + bytes > granted) {
+            long grant = Math.max(GRANT_BYTES, reserved + bytes - granted);
+            synchronized (POOL_LOCK) {
+                if (poolReserved + grant > POOL_BYTES) {
+                    return false;
+                }
+                poolReserved += grant;
+            }
+            granted += grant;
+        }
+        reserved += bytes;
+        return true;
+    }
+
+    /**
+     * Reserves memory for an allocation that cannot spill to disk.
+     * @param bytes The estimated size of the allocation.
+     * @param purpose What the memory is for, such as "the hash table of a join", for the error message.
+     * @throws DatabaseOperationException If the query's budget or the pool does not allow it.
+     */
+    public void reserve(long bytes, String purpose) throws DatabaseOperationException {
+        if (tryReserve(bytes)) {
+            return;
+        }
+        if (reserved + bytes > budgetBytes) {
+            throw new DatabaseOperationException("ERROR: Query stopped: " + purpose + " would take about " + megabytes(bytes)
+                    + " MB, over the query memory budget of " + megabytes(budgetBytes) + " MB (" + megabytes(reserved) + " MB in use).");
+        }
+        throw new DatabaseOperationException("ERROR: Query stopped: " + purpose + " would take about " + megabytes(bytes)
+                + " MB, but the memory shared by running queries is exhausted. Try again later.");
+    }
+
+    /**
+     * Releases memory reserved earlier, once the allocation is no longer used.
+     * @param bytes The size that was reserved.
+     */
+    public void release(long bytes) {
+        if (this == NONE || bytes <= 0) {
+            return;
+        }
+        reserved = Math.max(0, reserved - bytes);
+        if (granted - reserved > 2 * GRANT_BYTES) {
+            returnToPool(granted - reserved - GRANT_BYTES);
+        }
+    }
+
+    /**
+     * Wraps a sink that keeps rows in memory, such as a result table, so that every row is reserved before
+     * it is kept. The rows are assumed to reference the values of their input rows, so only the row and its
+     * value list are counted.
+     * @param sink The sink that keeps the rows.
+     * @param purpose What the rows are, for the error message when the budget is exceeded.
+     * @return The accounting sink.
+     */
+    public RowSink track(RowSink sink, String purpose) {
+        if (this == NONE) {
+            return sink;
+        }
+        return row -> {
+            reserve(ROW_OVERHEAD_BYTES + (long) REFERENCE_BYTES * row.size(), purpose);
+            sink.accept(row);
+        };
+    }
+
+    /**
+     * Gets the memory the query can still reserve within its budget, not counting other queries.
+     * @return The bytes left in the budget.
+     */
+    public long getAvailableBytes() {
+        return budgetBytes - reserved;
+    }
+
+    /**
+     * Returns everything the query reserved to the pool when it ends.
+     */
+    @Override
+    public void close() {
+        if (this == NONE) {
+            return;
+        }
+        reserved = 0;
+        returnToPool(granted);
+    }
+
+    /**
+     * Estimates the memory taken by rows that are not shared with a table, such as rows read back from disk,
+     * from a sample of the rows.
+     * @param rows The rows.
+     * @param count The number of rows to estimate for.
+     * @return The estimated size in bytes.
+     */
+    public static long estimateRows(List<Row> rows, long count) {
+        if (rows.isEmpty() || count <= 0) {
+            return 0;
+        }
+        int step = Math.max(1, rows.size() / SAMPLE_ROWS);
+        long sampleBytes = 0;
+        int sampled = 0;
+        for (int i = 0; i < rows.size() && sampled < SAMPLE_ROWS; i += step, sampled++) {
+            sampleBytes += estimateRow(rows.get(i));
+        }
+        return sampleBytes / sampled * count;
+    }
+
+    /**
+     * Estimates the memory taken by a row and its values.
+     * @param row The row.
+     * @return The estimated size in bytes.
+     */
+    public static long estimateRow(Row row) {
+        long bytes = ROW_OVERHEAD_BYTES;
+        for (Object value : row.getValues()) {
+            bytes += REFERENCE_BYTES;
+            if (value instanceof String) {
+                bytes += 40 + ((String) value).length();
+            } else if (value != null) {
+                bytes += 16;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the memory reserved by all running queries, for reports.
+     * @return The reserved bytes.
+     */
+    public static long getPoolReservedBytes() {
+        synchronized (POOL_LOCK) {
+            return poolReserved;
+        }
+    }
+
+    /**
+     * Returns memory granted to the query to the pool and wakes queued queries.
+     * @param bytes The bytes to return.
+     */
+    private void returnToPool(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        granted -= bytes;
+        synchronized (POOL_LOCK) {
+            poolReserved -= bytes;
+            POOL_LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * Removes a query from the admission queue, admitted or not, and wakes the queries behind it.
+     * A query that gives up before its turn is passed over when its turn comes.
+     * @param ticket The query's ticket. Must be called while holding POOL_LOCK.
+     */
+    private static void leaveQueue(long ticket) {
+        if (ticket == servingTicket) {
+            servingTicket++;
+        } else {
+            ABANDONED.add(ticket);
+        }
+        while (ABANDONED.remove(servingTicket)) {
+            servingTicket++;
+        }
+        POOL_LOCK.notifyAll();
+    }
+
+    /**
+     * Converts bytes to whole megabytes, rounded up, for messages.
+     * @param bytes The number of bytes.
+     * @return The number of megabytes.
+     */
+    private static long megabytes(long bytes) {
+        return (bytes + (1 << 20) - 1) >> 20;
+    }
+}
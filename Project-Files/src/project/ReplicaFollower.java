@@ -0,0 +1,485 @@
+package project;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a read replica up to date with a primary process working on the same catalog.
+ * The follower loads the catalog from the table files the primary last saved, then applies the commands
+ * the primary logged in its {@link ReplicationLog} since that save, and goes on reading the log every
+ * "db.replication.pollMillis" milliseconds (200 by default), applying new commands as they appear.
+ * The commands of a transaction are applied as one transaction, so readers of the replica see all of them
+ * or none. Table files the replayed commands write, such as join results, go to a directory of the
+ * follower's own, so the primary's files are never changed. When the primary opens the catalog again,
+ * the follower loads it again; when the primary closes it, the replica keeps serving the last state.
+ * The follower must run in the primary's working directory, since table paths in the catalog and the
+ * logged commands are relative to it. Readers are warned when the replica has not caught up with the
+ * log for longer than "db.replication.maxLagMillis" milliseconds (5000 by default).
+ */
+public class ReplicaFollower {
+
+    private static final long POLL_MILLIS = Math.max(10, Long.getLong("db.replication.pollMillis", 200));
+    private static final long MAX_LAG_MILLIS = Long.getLong("db.replication.maxLagMillis", 5000);
+
+    private final Database database;
+    private final String catalogPath;
+    private final String logPath;
+    private final CLI applier;
+    private Path localDirectory;
+
+    private String logHeader;                // First line of the log that was loaded, to notice a new log
+    private long position;                   // Bytes of the log that were read
+    private List<Entry> openTransaction;     // Commands of a transaction whose commit has not been read yet
+    private volatile long appliedSequence;   // Sequence number of the last entry read
+    private volatile long appliedCount;      // Commands applied since the catalog was loaded
+    private volatile long failedCount;       // Commands that could not be applied since then
+    private volatile long caughtUpMillis;    // When the whole log was last applied
+    private volatile boolean primaryClosed;  // The primary closed the catalog
+
+    /**
+     * One entry of the log.
+     */
+    private static final class Entry {
+        final long sequence;
+        final String kind;
+        final List<String> names;
+        final String text;
+
+        /**
+         * Constructs an entry.
+         * @param sequence The sequence number.
+         * @param kind The kind of entry.
+         * @param names The table names the command reserved.
+         * @param text The command line, or other data of the entry.
+         */
+        Entry(long sequence, String kind, List<String> names, String text) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.names = names;
+            this.text = text;
+        }
+
+        /**
+         * Checks whether the table files hold every change logged before this entry.
+         * @return True for the entries of an open and of a finished save.
+         */
+        boolean isCheckpoint() {
+            return kind.equals(ReplicationLog.OPEN) || kind.equals(ReplicationLog.SAVED);
+        }
+
+        /**
+         * Checks whether a save started writing the table files at this entry.
+         * @return True for the start of a save and for a failed save.
+         */
+        boolean isSaveInProgress() {
+            return kind.equals(ReplicationLog.SAVING) || kind.equals(ReplicationLog.SAVE_FAILED);
+        }
+    }
+
+    /**
+     * The entries read from the log in one pass.
+     */
+    private static final class LogRead {
+        final String header;
+        final List<Entry> entries = new ArrayList<>();
+        long end;
+
+        /**
+         * Constructs an empty read.
+         * @param header The first line of the log, or null if there is no log.
+         */
+        LogRead(String header) {
+            this.header = header;
+        }
+    }
+
+    /**
+     * Constructs the follower of a replica.
+     * @param database The replica's database, which must not have a catalog open.
+     * @param catalogPath The path of the primary's catalog file.
+     */
+    public ReplicaFollower(Database database, String catalogPath) {
+        this.database = database;
+        this.catalogPath = catalogPath;
+        this.logPath = ReplicationLog.getLogPath(catalogPath);
+        this.applier = new CLI(database, new Scanner(InputStream.nullInputStream()));
+        this.applier.allowReplicaChanges();
+    }
+
+    /**
+     * Loads the catalog and starts following the primary's log on a thread of its own.
+     * Client sessions cannot change the database from now on.
+     * @throws IOException If the directory for the replica's own table files cannot be created, or the
+     * thread is interrupted while waiting for the catalog.
+     */
+    public void start() throws IOException {
+        OutputRouter.install();
+        if (System.getProperty("db.input.prompts") == null) {
+            System.setProperty("db.input.prompts", "false");
+        }
+        localDirectory = Files.createTempDirectory("replica-");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteLocalFiles(true)));
+        FileHandler.setLocalDirectory(localDirectory);
+        database.setReplicaFollower(this);
+        try {
+            load();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the replica.");
+        }
+        Thread thread = new Thread(this::follow, "replica-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reads the log and applies new entries until the process ends, loading the catalog again when the
+     * primary starts a new log.
+     */
+    private void follow() {
+        while (true) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+                String header = readHeader();
+                if (header != null && !header.equals(logHeader) || new File(logPath).length() < position) {
+                    OutputRouter.console().println("The primary started a new replication log; loading the catalog again.");
+                    load();
+                } else {
+                    applyNewEntries();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                OutputRouter.console().println("WARNING: Replication: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Loads the catalog from the table files and applies the commands logged since the primary last wrote
+     * them. Waits while the primary is saving, and starts over if a save began while the files were read.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private void load() throws InterruptedException {
+        boolean warned = false;
+        while (true) {
+            try {
+                LogRead before = readLog(0);
+                int checkpoint = findCheckpoint(before.entries);
+                if (checkpoint >= 0 || before.entries.isEmpty()) {
+                    openCatalog();
+                    LogRead after = readLog(0);
+                    if (sameLog(before, after) && findCheckpoint(after.entries) == checkpoint) {
+                        logHeader = after.header;
+                        position = 0;
+                        openTransaction = null;
+                        appliedSequence = 0;
+                        appliedCount = 0;
+                        failedCount = 0;
+                        primaryClosed = false;
+                        apply(after, checkpoint + 1);
+                        OutputRouter.console().println("Replica of '" + catalogPath + "' loaded: "
+                                + database.getTableNames().size() + " table(s), " + appliedCount + " logged change(s) applied.");
+                        return;
+                    }
+                }
+            } catch (IOException | DatabaseOperationException e) {
+                if (!warned) {
+                    OutputRouter.console().println("WARNING: Replica cannot load '" + catalogPath + "' yet: " + e.getMessage() + " Retrying.");
+                }
+                warned = true;
+                Thread.sleep(POLL_MILLIS);
+                continue;
+            }
+            if (!warned) {
+                OutputRouter.console().println("The primary is saving '" + catalogPath + "'; waiting for the save to finish.");
+                warned = true;
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    /**
+     * Finds the last entry at which the table files held every logged change, unless a save has started since.
+     * @param entries The entries of the log.
+     * @return The index of the entry, or -1 if there is none or a save is in progress.
+     */
+    private static int findCheckpoint(List<Entry> entries) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (entry.isSaveInProgress()) {
+                return -1;
+            }
+            if (entry.isCheckpoint()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether two reads of the log come from the same log, the second having read at least as much.
+     * @param before The first read.
+     * @param after The second read.
+     * @return True if the primary did not start a new log in between.
+     */
+    private static boolean sameLog(LogRead before, LogRead after) {
+        return (before.header == null ? after.header == null : before.header.equals(after.header)) && after.end >= before.end;
+    }
+
+    /**
+     * Replaces the replica's tables with the ones in the catalog's table files, holding every table lock
+     * so that no reader sees a half-loaded catalog. Table files the replica wrote earlier are discarded.
+     * @throws DatabaseOperationException If the catalog or a table file cannot be read.
+     */
+    private void openCatalog() throws DatabaseOperationException {
+        PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+        OutputRouter.route(silent);
+        try {
+            TableLockManager.Locks locks = database.lockTables(TableAccess.exclusive());
+            try {
+                deleteLocalFiles(false);
+                Map<String, String> registry = FileHandler.readCatalog(catalogPath);
+                Map<String, String> viewDefinitions = FileHandler.readViewDefinitions(catalogPath);
+                Map<String, String> materializedViewDefinitions = FileHandler.readMaterializedViewDefinitions(catalogPath);
+                database.loadCatalog(catalogPath, registry, viewDefinitions, materializedViewDefinitions);
+                database.commitChanges();
+            } finally {
+                locks.close();
+            }
+        } finally {
+            OutputRouter.clear();
+        }
+    }
+
+    /**
+     * Reads the entries the primary appended since the last read and applies them.
+     * @throws IOException If the log cannot be read.
+     */
+    private void applyNewEntries() throws IOException {
+        LogRead read = readLog(position);
+        apply(read, 0);
+    }
+
+    /**
+     * Applies entries of the log and records how far it was read.
+     * @param read The entries that were read.
+     * @param first The index of the first entry to apply; earlier ones are in the table files already.
+     */
+    private void apply(LogRead read, int first) {
+        for (int i = first; i < read.entries.size(); i++) {
+            Entry entry = read.entries.get(i);
+            switch (entry.kind) {
+                case ReplicationLog.COMMAND:
+                    if (openTransaction != null) {
+                        openTransaction.add(entry);
+                    } else {
+                        applyCommand(entry);
+                    }
+                    break;
+                case ReplicationLog.BEGIN:
+                    openTransaction = new ArrayList<>();
+                    break;
+                case ReplicationLog.COMMIT:
+                    if (openTransaction != null) {
+                        applyTransaction(openTransaction);
+                        openTransaction = null;
+                    }
+                    break;
+                case ReplicationLog.CLOSED:
+                    if (!primaryClosed) {
+                        OutputRouter.console().println("WARNING: The primary closed '" + catalogPath + "'. The replica keeps serving its last state.");
+                    }
+                    primaryClosed = true;
+                    break;
+                default:
+                    break; // Saves do not change the replica.
+            }
+            appliedSequence = entry.sequence;
+        }
+        position = read.end;
+        if (openTransaction == null) {
+            caughtUpMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Applies the commands of a transaction as one transaction, so readers see all of them or none.
+     * @param entries The commands.
+     */
+    private void applyTransaction(List<Entry> entries) {
+        run("begin", Collections.emptyList());
+        for (Entry entry : entries) {
+            applyCommand(entry);
+        }
+        run("commit", Collections.emptyList());
+    }
+
+    /**
+     * Applies one logged command, warning on the console if it fails.
+     * @param entry The entry of the command.
+     */
+    private void applyCommand(Entry entry) {
+        if (run(entry.text, entry.names)) {
+            appliedCount++;
+        } else {
+            failedCount++;
+            OutputRouter.console().println("WARNING: Replica could not apply change " + entry.sequence + " ('" + entry.text
+                    + "'). The replica may differ from the primary until it loads the catalog again.");
+        }
+    }
+
+    /**
+     * Runs a command on the replica with its output discarded.
+     * @param text The command line.
+     * @param names The table names the primary reserved for the command's results.
+     * @return True if the command reported no error.
+     */
+    private boolean run(String text, List<String> names) {
+        ErrorWatcher watcher = new ErrorWatcher(OutputStream.nullOutputStream());
+        OutputRouter.route(new PrintStream(watcher, true));
+        ReplicationLog.presetNames(names);
+        try {
+            applier.execute(text);
+        } finally {
+            ReplicationLog.presetNames(Collections.emptyList());
+            OutputRouter.clear();
+        }
+        return !watcher.sawError();
+    }
+
+    /**
+     * Reads the complete lines of the log from a position on.
+     * @param from The position to read from, in bytes.
+     * @return The entries and the position after the last complete line; no entries if there is no log.
+     * @throws IOException If the log cannot be read.
+     */
+    private LogRead readLog(long from) throws IOException {
+        LogRead read = new LogRead(readHeader());
+        read.end = from;
+        if (read.header == null) {
+            return read;
+        }
+        byte[] bytes;
+        try (RandomAccessFile file = new RandomAccessFile(logPath, "r")) {
+            long length = file.length();
+            if (length <= from) {
+                return read;
+            }
+            bytes = new byte[(int) Math.min(Integer.MAX_VALUE - 8, length - from)];
+            file.seek(from);
+            file.readFully(bytes);
+        }
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                String line = new String(bytes, lineStart, i - lineStart, Charset.defaultCharset());
+                lineStart = i + 1;
+                Entry entry = parse(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+                if (entry != null) {
+                    read.entries.add(entry);
+                }
+            }
+        }
+        read.end = from + lineStart; // A line the primary is still writing is read next time
+        return read;
+    }
+
+    /**
+     * Reads the first line of the log, which tells one log from the next.
+     * @return The line, or null if there is no log or it is still empty.
+     * @throws IOException If the log cannot be read.
+     */
+    private String readHeader() throws IOException {
+        if (!new File(logPath).exists()) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(logPath, "r")) {
+            String line = file.readLine();
+            return line != null && line.contains("\t" + ReplicationLog.OPEN + "\t") ? line : null;
+        }
+    }
+
+    /**
+     * Parses one line of the log.
+     * @param line The line: sequence, time, kind, names and text, separated by tabs.
+     * @return The entry, or null if the line is malformed.
+     */
+    private static Entry parse(String line) {
+        String[] fields = line.split("\t", 5);
+        if (fields.length != 5) {
+            return null;
+        }
+        try {
+            return new Entry(Long.parseLong(fields[0]), fields[2], ReplicationLog.parseNames(fields[3]), fields[4]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the table files the replica wrote.
+     * @param directoryToo True to delete the directory as well, when the process ends.
+     */
+    private void deleteLocalFiles(boolean directoryToo) {
+        if (localDirectory == null || !Files.isDirectory(localDirectory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(localDirectory)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .filter(path -> directoryToo || !path.equals(localDirectory))
+                    .forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            OutputRouter.console().println("WARNING: Could not remove the replica's table files in '" + localDirectory + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets how long ago the replica last applied the whole log, which bounds how far behind the primary it is.
+     * @return The time in milliseconds.
+     */
+    public long getLagMillis() {
+        return System.currentTimeMillis() - caughtUpMillis;
+    }
+
+    /**
+     * Warns a reader if the replica has not caught up with the primary's log for longer than the configured lag.
+     */
+    public void warnIfBehind() {
+        long lag = getLagMillis();
+        if (lag > MAX_LAG_MILLIS) {
+            System.out.println("WARNING: This replica last caught up with the primary " + lag + " ms ago. Results may be out of date.");
+        }
+    }
+
+    /**
+     * Describes the state of the replica, for the "replication" command.
+     * @return A description such as "Replica of 'cat.txt': 12 change(s) applied, log read up to entry 15, caught up 80 ms ago."
+     */
+    public String describe() {
+        String description = "Replica of '" + catalogPath + "': " + appliedCount + " change(s) applied, log read up to entry "
+                + appliedSequence + ", caught up " + getLagMillis() + " ms ago.";
+        if (failedCount > 0) {
+            description += " " + failedCount + " change(s) could not be applied.";
+        }
+        if (primaryClosed) {
+            description += " The primary has closed the catalog.";
+        }
+        return description;
+    }
+}
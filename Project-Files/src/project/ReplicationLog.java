@@ -0,0 +1,300 @@
+package project;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The log of changes a primary database writes for its read replicas.
+ * When the system property "db.replication.primary" is true, every command that changes the tables or
+ * the catalog, such as insert, update, delete, createtable, rename, the joins and the index and view
+ * commands, is appended to a log file next to the open catalog once it has run, while it still
+ * holds its locks, so commands on the same table are logged in the order they ran. A command is logged
+ * if it changed a table, view or index, even if it then failed part way, since a follower replaying
+ * it makes the same changes; a command that changed nothing is not. The commands of a
+ * transaction are appended together when it commits and never if it rolls back. Saves are marked in
+ * the log, so a {@link ReplicaFollower} knows which logged changes the table files already contain.
+ * Result tables of joins and sorts get names chosen when the command runs; those names are logged
+ * with the command so that a follower gives its copies the same names.
+ * The log is a text file with one entry per line: "sequence, time, kind, names, command line",
+ * separated by tabs. It is started over when the primary opens a catalog.
+ */
+public class ReplicationLog {
+
+    /** Entry written when the primary opens the catalog: the table files hold every change before it. */
+    static final String OPEN = "open";
+    /** Entry written before a save starts writing table files. */
+    static final String SAVING = "saving";
+    /** Entry written once a save has written every table file: they hold every change before it. */
+    static final String SAVED = "saved";
+    /** Entry written when a save fails, leaving the table files partly written. */
+    static final String SAVE_FAILED = "savefailed";
+    /** Entry written when the primary closes the catalog. */
+    static final String CLOSED = "closed";
+    /** Entry holding one command. */
+    static final String COMMAND = "cmd";
+    /** Entry starting the commands of a transaction. */
+    static final String BEGIN = "begin";
+    /** Entry ending the commands of a transaction. */
+    static final String COMMIT = "commit";
+
+    /** Suffix added to the catalog path to get the path of its log. */
+    public static final String FILE_SUFFIX = ".replog";
+
+    // Commands whose changes are logged. Save, open and close are logged as markers instead.
+    private static final Set<String> LOGGED_COMMANDS = Set.of(
+            "createtable", "import", "addcolumn", "update", "delete", "insert", "rename",
+            "innerjoin", "join", "semijoin", "antijoin", "leftjoin", "orderby",
+            "createindex", "dropindex", "createbloom", "dropbloom",
+            "createview", "dropview", "creatematview", "dropmatview");
+
+    private static final ThreadLocal<Recording> RECORDING = new ThreadLocal<>();         // What the running command did
+    private static final ThreadLocal<Deque<String>> PRESET_NAMES = new ThreadLocal<>();  // Names a replayed command must reserve
+
+    private String logPath;        // Null while no catalog is open
+    private PrintWriter writer;
+    private long nextSequence;
+    private long entriesWritten;
+
+    /**
+     * A command to be logged: its command line and the table names it reserved.
+     */
+    static final class Change {
+        final String text;
+        final List<String> names;
+
+        /**
+         * Constructs a change.
+         * @param text The command line.
+         * @param names The names the command reserved for its result tables, in order.
+         */
+        Change(String text, List<String> names) {
+            this.text = text;
+            this.names = names;
+        }
+    }
+
+    /**
+     * What a command did that decides whether and how it is logged: the table names it reserved and
+     * whether it changed the database.
+     */
+    static final class Recording {
+        final List<String> names = new ArrayList<>();
+        boolean changed;
+    }
+
+    /**
+     * Creates the log of a primary if replication is turned on with the system property "db.replication.primary".
+     * @return The log, or null if the process is not a primary.
+     */
+    static ReplicationLog createIfEnabled() {
+        return Boolean.getBoolean("db.replication.primary") ? new ReplicationLog() : null;
+    }
+
+    /**
+     * Checks whether a command's changes are logged.
+     * @param command The command name, in lower case.
+     * @return True for commands that change tables, views or indexes.
+     */
+    static boolean isLogged(String command) {
+        return LOGGED_COMMANDS.contains(command);
+    }
+
+    /**
+     * Gets the path of the log of a catalog.
+     * @param catalogPath The path of the catalog file.
+     * @return The path of its log.
+     */
+    public static String getLogPath(String catalogPath) {
+        return catalogPath + FILE_SUFFIX;
+    }
+
+    /**
+     * Starts a new log for a catalog the primary has opened, replacing any earlier log.
+     * @param catalogPath The path of the catalog file.
+     */
+    synchronized void opened(String catalogPath) {
+        closeWriter();
+        logPath = getLogPath(catalogPath);
+        nextSequence = 1;
+        try {
+            writer = new PrintWriter(new FileWriter(logPath, false));
+        } catch (IOException e) {
+            System.out.println("WARNING: Could not start the replication log '" + logPath + "': " + e.getMessage()
+                    + ". Replicas will not see the changes.");
+            writer = null;
+            return;
+        }
+        write(OPEN, Collections.emptyList(), String.valueOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * Marks the start of a save. A save to another catalog file continues in the log of that file.
+     * @param catalogPath The path the catalog is saved to.
+     */
+    synchronized void saving(String catalogPath) {
+        if (logPath != null && !logPath.equals(getLogPath(catalogPath))) {
+            write(CLOSED, Collections.emptyList(), "");
+            opened(catalogPath);
+        }
+        write(SAVING, Collections.emptyList(), "");
+    }
+
+    /**
+     * Marks the end of a save, successful or not.
+     * @param succeeded True if every table file and the catalog were written.
+     */
+    synchronized void saved(boolean succeeded) {
+        write(succeeded ? SAVED : SAVE_FAILED, Collections.emptyList(), "");
+    }
+
+    /**
+     * Marks that the primary closed the catalog, and stops logging until it opens one.
+     */
+    synchronized void closed() {
+        write(CLOSED, Collections.emptyList(), "");
+        closeWriter();
+        logPath = null;
+    }
+
+    /**
+     * Appends a command that changed the database. Called while the command still holds its locks.
+     * @param change The command.
+     */
+    synchronized void append(Change change) {
+        write(COMMAND, change.names, change.text);
+    }
+
+    /**
+     * Appends the commands of a committed transaction as one group, which a follower applies as one transaction.
+     * Called before the transaction releases its locks.
+     * @param changes The commands, in the order they ran.
+     */
+    synchronized void appendTransaction(List<Change> changes) {
+        if (changes.size() == 1) {
+            append(changes.get(0));
+            return;
+        }
+        write(BEGIN, Collections.emptyList(), "");
+        for (Change change : changes) {
+            write(COMMAND, change.names, change.text);
+        }
+        write(COMMIT, Collections.emptyList(), "");
+    }
+
+    /**
+     * Describes the log, for the "replication" command.
+     * @return A description such as "Primary: 120 entries written to 'cat.txt.replog'".
+     */
+    public synchronized String describe() {
+        if (writer == null) {
+            return "Primary: no catalog open, nothing is being logged.";
+        }
+        return "Primary: " + entriesWritten + " entries written to '" + logPath + "' (next sequence number " + nextSequence + ").";
+    }
+
+    /**
+     * Writes one entry and flushes it, so followers see it at once.
+     * @param kind The kind of entry.
+     * @param names The reserved table names.
+     * @param text The command line, or other data of the entry.
+     */
+    private void write(String kind, List<String> names, String text) {
+        if (writer == null) {
+            return;
+        }
+        writer.println(nextSequence++ + "\t" + System.currentTimeMillis() + "\t" + kind + "\t"
+                + (names.isEmpty() ? "-" : String.join(",", names)) + "\t" + text);
+        writer.flush();
+        entriesWritten++;
+        if (writer.checkError()) {
+            System.out.println("WARNING: Writing the replication log '" + logPath + "' failed. Replicas will not see further changes.");
+            closeWriter();
+        }
+    }
+
+    /**
+     * Closes the log file.
+     */
+    private void closeWriter() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Starts recording the table names the command on the current thread reserves and whether it changes the database.
+     */
+    static void startRecording() {
+        RECORDING.set(new Recording());
+    }
+
+    /**
+     * Stops recording.
+     * @return What the command did since {@link #startRecording()}.
+     */
+    static Recording stopRecording() {
+        Recording recording = RECORDING.get();
+        RECORDING.remove();
+        return recording != null ? recording : new Recording();
+    }
+
+    /**
+     * Records a name the command on the current thread reserved, if it is being recorded.
+     * @param name The reserved name.
+     */
+    static void nameReserved(String name) {
+        Recording recording = RECORDING.get();
+        if (recording != null) {
+            recording.names.add(name);
+        }
+    }
+
+    /**
+     * Records that the command on the current thread changed a table, view or index, if it is being recorded.
+     */
+    static void changeMade() {
+        Recording recording = RECORDING.get();
+        if (recording != null) {
+            recording.changed = true;
+        }
+    }
+
+    /**
+     * Sets the names the command replayed on the current thread must reserve, the ones the primary chose.
+     * @param names The names, in order, or an empty list to let the command choose.
+     */
+    static void presetNames(List<String> names) {
+        if (names.isEmpty()) {
+            PRESET_NAMES.remove();
+        } else {
+            PRESET_NAMES.set(new ArrayDeque<>(names));
+        }
+    }
+
+    /**
+     * Takes the next name preset for the command replayed on the current thread.
+     * @return The name, or null if none is left.
+     */
+    static String takePresetName() {
+        Deque<String> names = PRESET_NAMES.get();
+        return names != null ? names.pollFirst() : null;
+    }
+
+    /**
+     * Splits the names field of an entry.
+     * @param field The field: names separated by commas, or "-".
+     * @return The names.
+     */
+    static List<String> parseNames(String field) {
+        return field.equals("-") ? Collections.emptyList() : Arrays.asList(field.split(","));
+    }
+}
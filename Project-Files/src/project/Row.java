@@ -6,9 +6,38 @@ import java.util.List;
 /**
  * Represents a single row of data in a table.
  * A row consists of a list of object values, corresponding to the columns of the table.
+ * A row of a database table also keeps its older values while snapshots may still read them:
+ * a change through {@link Table#setValue(Row, int, Object)} replaces the value list instead of
+ * changing it, and every read returns the version that the reading thread's snapshot sees
+ * (see {@link VersionClock}).
  */
 public class Row {
-    private List<Object> values;
+    private volatile List<Object> values;
+    private volatile RowVersion previous; // Older versions still needed by snapshots, newest first
+    private volatile long versionTime;    // Commit time of the current values
+    volatile long insertedAt;             // Commit time of the insert, 0 for rows that were always there
+    volatile long deletedAt;              // Commit time of the delete, 0 while the row is in its table
+
+    /**
+     * An older version of the values of a row.
+     */
+    private static final class RowVersion {
+        final List<Object> values;
+        final long createdAt;          // Commit time of these values
+        volatile RowVersion previous;
+
+        /**
+         * Constructs a version.
+         * @param values The values, never changed afterwards.
+         * @param createdAt The commit time of the values.
+         * @param previous The next older version, or null.
+         */
+        RowVersion(List<Object> values, long createdAt, RowVersion previous) {
+            this.values = values;
+            this.createdAt = createdAt;
+            this.previous = previous;
+        }
+    }
 
     /**
      * Constructs a new Row with a given list of values.
@@ -26,7 +55,30 @@ public class Row {
      */
     public List<Object> getValues() {
 
-        return new ArrayList<>(values);
+        return new ArrayList<>(visibleValues());
+    }
+
+    /**
+     * Gets the values the current thread sees: the current values, or the newest older version that
+     * was committed at or before the thread's snapshot. The current values are read before the older
+     * versions, which a change records first, so a change that is still pending is never returned
+     * to a snapshot.
+     * @return The visible values; must not be modified.
+     */
+    private List<Object> visibleValues() {
+        List<Object> current = values;
+        RowVersion older = previous;
+        if (older == null) {
+            return current;
+        }
+        long snapshot = VersionClock.currentSnapshotTime();
+        if (versionTime <= snapshot) {
+            return current;
+        }
+        while (older != null && older.createdAt > snapshot) {
+            older = older.previous;
+        }
+        return older != null ? older.values : current;
     }
 
     /**
@@ -35,6 +87,23 @@ public class Row {
      * @return The object value at the specified index.
      */
     public Object getValue(int index) throws IndexOutOfBoundsException {
+        List<Object> values = visibleValues();
+        if (index >= 0 && index < values.size()) {
+            return values.get(index);
+        }
+
+        throw new IndexOutOfBoundsException("ERROR: Row index out of bounds: " + index + ". Row size is " + values.size() + ".");
+    }
+
+    /**
+     * Gets the value at a specific index (column) in the newest version of the row, including a pending
+     * change, whatever snapshot the current thread reads. The summaries and indexes of a table follow
+     * the newest version, so they are updated with this value.
+     * @param index The zero-based index of the value to retrieve.
+     * @return The object value at the specified index.
+     */
+    Object getLatestValue(int index) throws IndexOutOfBoundsException {
+        List<Object> values = this.values;
         if (index >= 0 && index < values.size()) {
             return values.get(index);
         }
@@ -44,6 +113,8 @@ public class Row {
 
     /**
      * Sets the value at a specific index (column) in the row.
+     * The current values are changed in place, without keeping the old value for snapshots,
+     * so rows of a database table are changed through {@link Table#setValue(Row, int, Object)}.
      * @param index The zero-based index of the value to set.
      * @param value The new value to set at the specified index.
      */
@@ -56,24 +127,102 @@ public class Row {
         }
     }
 
+    /**
+     * Sets a value as a new version of the row, keeping the current values for the snapshots that
+     * may still read them. The new version is pending until {@link #commit(long)} is called.
+     * A row that was inserted or already changed by the pending command is changed in place,
+     * since no snapshot sees those values.
+     * @param index The zero-based index of the value to set.
+     * @param value The new value to set at the specified index.
+     */
+    void setVersionedValue(int index, Object value) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= values.size()) {
+            throw new IndexOutOfBoundsException("ERROR: Row index out of bounds: " + index + ". Row size is " + values.size() + ".");
+        }
+        if (insertedAt == VersionClock.PENDING || versionTime == VersionClock.PENDING) {
+            values.set(index, value);
+            return;
+        }
+        List<Object> updated = new ArrayList<>(values);
+        updated.set(index, value);
+        previous = new RowVersion(values, versionTime, previous); // Recorded before the new values
+        versionTime = VersionClock.PENDING;
+        values = updated;
+    }
+
+    /**
+     * Gives the pending insert, change or delete of this row a commit time.
+     * @param time The commit time.
+     */
+    void commit(long time) {
+        if (insertedAt == VersionClock.PENDING) {
+            insertedAt = time;
+        }
+        if (versionTime == VersionClock.PENDING) {
+            versionTime = time;
+        }
+        if (deletedAt == VersionClock.PENDING) {
+            deletedAt = time;
+        }
+    }
+
+    /**
+     * Drops the older versions that no snapshot at or after a time can see.
+     * @param horizon The time of the oldest snapshot that may still read the row.
+     * @return True if the row still keeps older versions.
+     */
+    boolean pruneVersions(long horizon) {
+        if (versionTime <= horizon) {
+            previous = null;
+            return false;
+        }
+        RowVersion version = previous;
+        while (version != null && version.createdAt > horizon) {
+            version = version.previous;
+        }
+        if (version != null) {
+            version.previous = null;
+        }
+        return previous != null;
+    }
+
+    /**
+     * Checks whether the row keeps older versions for snapshots.
+     * @return True if older versions are kept.
+     */
+    boolean hasOlderVersions() {
+        return previous != null;
+    }
+
     /**
      * Gets the number of values (columns) in this row.
      * @return The size of the row.
      */
     public int size() {
-        return values.size();
+        return visibleValues().size();
     }
 
     /**
      * Adds a value to the end of the row.
      * This method is protected and intended for use by the {@link Table} class when adding a new column
-     * to existing rows.
+     * to existing rows. Older versions are dropped, since they no longer fit the table.
      * @param value The value to add.
      */
     protected void addValue(Object value) {
+        previous = null;
         values.add(value);
     }
 
+    /**
+     * Removes the last value of the row.
+     * This method is protected and intended for use by the {@link Table} class when a column added
+     * by a transaction is taken back. Older versions are dropped, since they no longer fit the table.
+     */
+    protected void removeLastValue() {
+        previous = null;
+        values.remove(values.size() - 1);
+    }
+
     /**
      * Returns a string representation of the row.
      * Values are comma-separated, and null values are represented as "NULL".
@@ -81,6 +230,7 @@ public class Row {
      */
     @Override
     public String toString() {
+        List<Object> values = visibleValues();
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < values.size(); i++) {
             Object value = values.get(i);
@@ -0,0 +1,15 @@
+package project;
+
+/**
+ * A destination for rows produced by an operator such as a join.
+ * Implementations decide whether rows are kept in memory or written straight to a file,
+ * so operators can stream their output without holding all of it.
+ */
+public interface RowSink {
+    /**
+     * Accepts the next output row.
+     * @param row The {@link Row} produced by the operator.
+     * @throws DatabaseOperationException If the row cannot be stored.
+     */
+    void accept(Row row) throws DatabaseOperationException;
+}
@@ -0,0 +1,149 @@
+package project;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs a file of commands without user interaction, for batch jobs that would otherwise pipe commands
+ * into the interactive CLI. Pagination and confirmation prompts are off by default, so results are
+ * written in full and closing or exiting with unsaved changes fails instead of waiting for an answer.
+ * A command fails when it reports an error; the script then stops, unless it was asked to continue.
+ * While a command runs, a reader thread reads and parses the following lines, so the next command is
+ * ready as soon as the current one ends, and a {@link ScriptScheduler} runs commands that use different
+ * tables at the same time. The time of each command is written to standard error,
+ * which keeps the results on standard output clean.
+ * Empty lines and lines starting with '#' are skipped.
+ */
+public class ScriptRunner {
+
+    private static final int READ_AHEAD = 64; // Parsed lines waiting for execution
+
+    private final Path scriptPath;
+    private final boolean continueOnError;
+
+    /**
+     * A line of the script, parsed by the reader thread.
+     */
+    private static final class ScriptLine {
+        final int number;                // Line number in the file, or -1 at the end of the script
+        final String text;
+        final CLI.CommandLine command;
+        final String readError;          // Why the script could not be read further, or null
+
+        /**
+         * Constructs a script line.
+         * @param number The line number, or -1 at the end of the script.
+         * @param text The text of the line.
+         * @param command The parsed command.
+         * @param readError Why the script could not be read further, or null.
+         */
+        ScriptLine(int number, String text, CLI.CommandLine command, String readError) {
+            this.number = number;
+            this.text = text;
+            this.command = command;
+            this.readError = readError;
+        }
+    }
+
+    /**
+     * Constructs a runner for a script file.
+     * @param scriptPath The file of commands, one per line.
+     * @param continueOnError True to run the remaining commands after a command fails, false to stop.
+     */
+    public ScriptRunner(Path scriptPath, boolean continueOnError) {
+        this.scriptPath = scriptPath;
+        this.continueOnError = continueOnError;
+    }
+
+    /**
+     * Runs the script on a new database.
+     * @return True if every command succeeded.
+     */
+    public boolean run() {
+        if (!Files.isReadable(scriptPath)) {
+            System.out.println("ERROR: Script file '" + scriptPath + "' not found or not readable.");
+            return false;
+        }
+        if (System.getProperty("db.output.paging") == null) {
+            System.setProperty("db.output.paging", "false");
+        }
+        if (System.getProperty("db.input.prompts") == null) {
+            System.setProperty("db.input.prompts", "false");
+        }
+        OutputRouter.install();
+        BlockingQueue<ScriptLine> queue = new ArrayBlockingQueue<>(READ_AHEAD);
+        Thread reader = new Thread(() -> readScript(queue), "db-script-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        Database database = new Database();
+        CLI cli = new CLI(database, new Scanner(InputStream.nullInputStream()));
+        ScriptScheduler scheduler = new ScriptScheduler(cli, database, continueOnError);
+        int failed = 0;
+        long scriptStart = System.nanoTime();
+        try {
+            while (true) {
+                ScriptLine line = queue.take();
+                if (line.readError != null) {
+                    System.out.println("ERROR: Could not read script '" + scriptPath + "': " + line.readError);
+                    failed++;
+                    break;
+                }
+                if (line.number < 0 || !scheduler.submit(line.number, line.text, line.command)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("WARNING: Script interrupted.");
+            failed++;
+        } finally {
+            reader.interrupt();
+            scheduler.finish();
+            cli.endSession();
+        }
+        failed += scheduler.getFailed();
+        System.err.printf("-- Script finished: %d command(s) run, %d failed, %.1f ms in total.%n",
+                scheduler.getExecuted(), failed, (System.nanoTime() - scriptStart) / 1_000_000.0);
+        return failed == 0;
+    }
+
+    /**
+     * Reads and parses the lines of the script into the queue, ending with an end marker,
+     * or with a read error if the file cannot be read to the end. Runs on the reader thread.
+     * @param queue The queue of parsed lines.
+     */
+    private void readScript(BlockingQueue<ScriptLine> queue) {
+        try {
+            ScriptLine end;
+            try (BufferedReader in = Files.newBufferedReader(scriptPath, StandardCharsets.UTF_8)) {
+                String text;
+                int number = 0;
+                while ((text = in.readLine()) != null) {
+                    number++;
+                    text = text.trim();
+                    if (text.isEmpty() || text.startsWith("#")) {
+                        continue;
+                    }
+                    CLI.CommandLine command = CLI.parse(text);
+                    if (command != null) {
+                        queue.put(new ScriptLine(number, text, command, null));
+                    }
+                }
+                end = new ScriptLine(-1, null, null, null);
+            } catch (IOException e) {
+                end = new ScriptLine(-1, null, null, e.getMessage());
+            }
+            queue.put(end);
+        } catch (InterruptedException e) {
+            // The script stopped before all of it was read.
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the commands of a script in parallel where they use different tables.
+ * Each command's {@link TableAccess} gives the tables it reads and writes; a command waits for the
+ * earlier commands that write a table it uses and for the earlier commands that read a table it writes,
+ * so commands that touch the same table run in script order, and the others run at the same time on
+ * a pool of worker threads. Commands that create result tables from the same base name also run in
+ * script order, so each table gets the name it would get if the script ran one command at a time.
+ * Unless the script continues after errors, every command also waits for the command before it, since
+ * no command may run once an earlier one has failed; the commands then run one at a time.
+ * The output of each command is buffered and written in script order.
+ * Some commands are barriers that run alone on the calling thread after every earlier command has ended:
+ * unknown commands, commands that need exclusive access or use a view, commands that use a table that is
+ * not registered yet, since an earlier command may be creating it, and every command of a transaction,
+ * since a transaction belongs to one thread.
+ * The number of worker threads is set with the system property "db.script.threads", and defaults to the
+ * number of processors.
+ */
+public class ScriptScheduler {
+
+    private static final int IN_FLIGHT_PER_THREAD = 4; // Scheduled commands whose output is not written yet, per worker
+
+    private final CLI cli;
+    private final Database database;
+    private final boolean continueOnError;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final Deque<Step> inFlight;                            // Scheduled commands, in script order
+    private final Map<String, Step> lastWriters;                   // Last scheduled command writing each table
+    private final Map<String, List<Step>> readersSinceWrite;       // Commands reading each table since its last writer
+    private final Map<String, Step> lastCreators;                  // Last scheduled command creating a table from each base name
+    private final AtomicBoolean stopped;                           // Set when a command fails and the script must stop
+    private boolean inTransaction;
+    private int executed;
+    private int failed;
+
+    /**
+     * One command of the script, with its buffered output once it has run.
+     */
+    private static class Step {
+        final int lineNumber;
+        final String text;
+        final CLI.CommandLine command;
+        final ByteArrayOutputStream output;
+        CompletableFuture<Void> done;
+        volatile boolean ran;
+        volatile boolean failed;
+        volatile double millis;
+
+        /**
+         * Constructs a step.
+         * @param lineNumber The line number in the script.
+         * @param text The text of the line.
+         * @param command The parsed command.
+         */
+        Step(int lineNumber, String text, CLI.CommandLine command) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+            this.command = command;
+            this.output = new ByteArrayOutputStream();
+        }
+    }
+
+    /**
+     * Constructs a scheduler.
+     * @param cli The CLI the commands run on.
+     * @param database The database of the CLI, for checking which names are tables or views.
+     * @param continueOnError True to run the remaining commands after a command fails, false to stop.
+     */
+    public ScriptScheduler(CLI cli, Database database, boolean continueOnError) {
+        this.cli = cli;
+        this.database = database;
+        this.continueOnError = continueOnError;
+        int threads = Math.max(1, Integer.getInteger("db.script.threads", Runtime.getRuntime().availableProcessors()));
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "db-script-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+        this.inFlight = new ArrayDeque<>();
+        this.lastWriters = new HashMap<>();
+        this.readersSinceWrite = new HashMap<>();
+        this.lastCreators = new HashMap<>();
+        this.stopped = new AtomicBoolean();
+    }
+
+    /**
+     * Schedules the next command of the script. It runs once the earlier commands it depends on have ended,
+     * and, unless the script continues after errors, once the command before it has ended.
+     * @param lineNumber The line number in the script.
+     * @param text The text of the line, for the timing output.
+     * @param command The parsed command.
+     * @return False if a command failed and the script must stop, true to go on.
+     */
+    public boolean submit(int lineNumber, String text, CLI.CommandLine command) {
+        if (stopped.get()) {
+            return false;
+        }
+        Step step = new Step(lineNumber, text, command);
+        TableAccess access = cli.getTableAccess(command);
+        if (isBarrier(command, access)) {
+            writeFinished(0);
+            if (!stopped.get()) {
+                runOnCallingThread(step);
+            }
+            return !stopped.get();
+        }
+        List<Step> dependencies = new ArrayList<>();
+        if (!continueOnError) {
+            addIfPresent(dependencies, inFlight.peekLast());
+        }
+        for (String table : access.getReads()) {
+            addIfPresent(dependencies, lastWriters.get(table));
+            readersSinceWrite.computeIfAbsent(table, name -> new ArrayList<>()).add(step);
+        }
+        List<String> written = new ArrayList<>(access.getWrites());
+        written.addAll(access.getAlters());
+        for (String table : written) {
+            addIfPresent(dependencies, lastWriters.get(table));
+            List<Step> readers = readersSinceWrite.remove(table);
+            if (readers != null) {
+                dependencies.addAll(readers);
+            }
+            lastWriters.put(table, step);
+        }
+        for (String baseName : access.getCreates()) {
+            addIfPresent(dependencies, lastCreators.get(baseName));
+            lastCreators.put(baseName, step);
+        }
+        CompletableFuture<?>[] waitFor = new CompletableFuture<?>[dependencies.size()];
+        for (int i = 0; i < waitFor.length; i++) {
+            waitFor[i] = dependencies.get(i).done;
+        }
+        step.done = CompletableFuture.allOf(waitFor).thenRunAsync(() -> runOnWorker(step), workers);
+        inFlight.addLast(step);
+        writeFinished(maxInFlight);
+        return !stopped.get();
+    }
+
+    /**
+     * Waits for every scheduled command to end and writes the remaining output, then stops the workers.
+     */
+    public void finish() {
+        writeFinished(0);
+        workers.shutdown();
+    }
+
+    /**
+     * Gets the number of commands that ran.
+     * @return The number of commands run so far.
+     */
+    public int getExecuted() {
+        return executed;
+    }
+
+    /**
+     * Gets the number of commands that failed.
+     * @return The number of failed commands so far.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Checks whether a command must run alone, after every earlier command has ended.
+     * Also tracks whether the script is inside a transaction.
+     * @param command The parsed command.
+     * @param access The access the command declares, or null if the command is unknown.
+     * @return True for a barrier.
+     */
+    private boolean isBarrier(CLI.CommandLine command, TableAccess access) {
+        if (command.command.equals("begin")) {
+            inTransaction = true;
+            return true;
+        }
+        if (command.command.equals("commit") || command.command.equals("rollback")) {
+            inTransaction = false;
+            return true;
+        }
+        if (inTransaction || access == null || access.isExclusive()) {
+            return true;
+        }
+        for (String table : access.getTables()) {
+            if (database.isView(table) || database.isMaterializedView(table) || !database.isTableRegistered(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a step to a list unless it is null.
+     * @param steps The list.
+     * @param step The step, or null.
+     */
+    private static void addIfPresent(List<Step> steps, Step step) {
+        if (step != null) {
+            steps.add(step);
+        }
+    }
+
+    /**
+     * Runs a barrier on the calling thread, writing its output directly. Every earlier command has ended,
+     * so nothing else runs at the same time and the table tracking starts over.
+     * @param step The barrier.
+     */
+    private void runOnCallingThread(Step step) {
+        lastWriters.clear();
+        readersSinceWrite.clear();
+        lastCreators.clear();
+        ErrorWatcher watcher = new ErrorWatcher(OutputRouter.console());
+        PrintStream output = new PrintStream(watcher, true);
+        OutputRouter.route(output);
+        try {
+            long start = System.nanoTime();
+            cli.execute(step.command);
+            step.millis = (System.nanoTime() - start) / 1_000_000.0;
+            output.flush();
+        } finally {
+            OutputRouter.clear();
+        }
+        step.ran = true;
+        step.failed = watcher.sawError();
+        report(step);
+    }
+
+    /**
+     * Runs a command on a worker thread, buffering its output. Skips it if the script has stopped.
+     * @param step The command.
+     */
+    private void runOnWorker(Step step) {
+        if (stopped.get()) {
+            return;
+        }
+        ErrorWatcher watcher = new ErrorWatcher(step.output);
+        PrintStream output = new PrintStream(watcher, true);
+        OutputRouter.route(output);
+        try {
+            long start = System.nanoTime();
+            cli.execute(step.command);
+            step.millis = (System.nanoTime() - start) / 1_000_000.0;
+            output.flush();
+        } finally {
+            OutputRouter.clear();
+        }
+        step.failed = watcher.sawError();
+        step.ran = true;
+        if (step.failed && !continueOnError) {
+            stopped.set(true);
+        }
+    }
+
+    /**
+     * Writes the output of the scheduled commands that have ended, in script order, stopping at the first
+     * one still running, then waits for the oldest commands until at most the given number are left.
+     * @param keep The number of scheduled commands that may still be running afterwards.
+     */
+    private void writeFinished(int keep) {
+        while (!inFlight.isEmpty()) {
+            Step step = inFlight.peekFirst();
+            if (!step.done.isDone() && inFlight.size() <= keep) {
+                break;
+            }
+            step.done.join();
+            inFlight.removeFirst();
+            if (step.ran) {
+                OutputRouter.console().write(step.output.toByteArray(), 0, step.output.size());
+                OutputRouter.console().flush();
+                report(step);
+            }
+        }
+    }
+
+    /**
+     * Counts a command that ran and writes its time to standard error.
+     * @param step The command.
+     */
+    private void report(Step step) {
+        executed++;
+        if (step.failed) {
+            failed++;
+            System.err.printf("-- line %d failed after %.1f ms: %s%n", step.lineNumber, step.millis, step.text);
+            if (!continueOnError) {
+                stopped.set(true);
+                System.err.println("-- Script stopped at line " + step.lineNumber + "; the remaining commands were skipped.");
+            }
+        } else {
+            System.err.printf("-- line %d: %.1f ms: %s%n", step.lineNumber, step.millis, step.text);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package project;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The result of a select: the columns of the table and an iterator over the matching rows.
+ * The rows are produced from an ongoing scan as they are read, so the iterator can be read only once,
+ * and must be read on the thread that made the select while it holds the table's locks.
+ * Values are typed according to the columns: Integer for INTEGER, Double for DOUBLE, String for STRING,
+ * and null for NULL.
+ */
+public class SelectResult {
+
+    private final String tableName;
+    private final List<Column> columns;
+    private final Iterator<Row> rows;
+
+    /**
+     * Constructs a select result.
+     * @param tableName The name of the selected table.
+     * @param columns The columns of the table.
+     * @param rows The matching rows, in table order.
+     */
+    SelectResult(String tableName, List<Column> columns, Iterator<Row> rows) {
+        this.tableName = tableName;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * Gets the name of the selected table.
+     * @return The table name.
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the columns of the rows.
+     * @return The columns, with their names and types.
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the index of a column by name.
+     * @param name The column name.
+     * @return The index, or -1 if no column has that name.
+     */
+    public int getColumnIndex(String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the matching rows.
+     * @return An iterator over the matching rows, in table order.
+     */
+    public Iterator<Row> getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,181 @@
+package project;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A temporary file that holds rows which do not fit in memory, such as sorted runs of an
+ * external sort or partitions of a hash join.
+ * Rows are written sequentially in a compact binary form and can then be read back in the same
+ * order. The file is deleted when the spill file is closed.
+ */
+public class SpillFile implements Closeable {
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INTEGER = 1;
+    private static final byte TAG_DOUBLE = 2;
+    private static final byte TAG_STRING = 3;
+
+    private final File file;
+    private DataOutputStream output;
+    private long rowCount;
+
+    /**
+     * Creates a new, empty spill file in the system temporary directory, ready for writing.
+     * @throws DatabaseOperationException If the file cannot be created.
+     */
+    public SpillFile() throws DatabaseOperationException {
+        try {
+            this.file = File.createTempFile("db-spill-", ".tmp");
+            this.file.deleteOnExit();
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            this.rowCount = 0;
+        } catch (IOException e) {
+            throw new DatabaseOperationException("ERROR: Creating temporary spill file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends a row to the file.
+     * @param row The {@link Row} to write.
+     * @throws DatabaseOperationException If the file was already finished or an I/O error occurs.
+     */
+    public void write(Row row) throws DatabaseOperationException {
+        if (output == null)
+            throw new DatabaseOperationException("ERROR: Spill file '" + file.getName() + "' is no longer open for writing.");
+        try {
+            output.writeInt(row.size());
+            for (int i = 0; i < row.size(); i++) {
+                Object value = row.getValue(i);
+                if (value == null) {
+                    output.writeByte(TAG_NULL);
+                } else if (value instanceof Integer) {
+                    output.writeByte(TAG_INTEGER);
+                    output.writeInt((Integer) value);
+                } else if (value instanceof Double) {
+                    output.writeByte(TAG_DOUBLE);
+                    output.writeDouble((Double) value);
+                } else {
+                    byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                    output.writeByte(TAG_STRING);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+            }
+            rowCount++;
+        } catch (IOException e) {
+            throw new DatabaseOperationException("ERROR: Writing spill file '" + file.getName() + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the number of rows written to the file.
+     * @return The row count.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Finishes writing and opens the file for reading from the beginning.
+     * No more rows can be written afterwards.
+     * @return A {@link Reader} over the rows in the order they were written.
+     * @throws DatabaseOperationException If an I/O error occurs.
+     */
+    public Reader openReader() throws DatabaseOperationException {
+        try {
+            if (output != null) {
+                output.close();
+                output = null;
+            }
+            return new Reader(new DataInputStream(new BufferedInputStream(new FileInputStream(file))));
+        } catch (IOException e) {
+            throw new DatabaseOperationException("ERROR: Reading spill file '" + file.getName() + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Closes the file and deletes it from disk.
+     */
+    @Override
+    public void close() {
+        try {
+            if (output != null) {
+                output.close();
+                output = null;
+            }
+        } catch (IOException e) {
+            // The file is deleted anyway.
+        }
+        if (file.exists() && !file.delete()) {
+            System.out.println("WARNING: Could not delete temporary file '" + file.getPath() + "'.");
+        }
+    }
+
+    /**
+     * Reads rows back from a spill file, one at a time.
+     */
+    public class Reader implements Closeable {
+        private final DataInputStream input;
+        private long rowsRead;
+
+        private Reader(DataInputStream input) {
+            this.input = input;
+            this.rowsRead = 0;
+        }
+
+        /**
+         * Reads the next row.
+         * @return The next {@link Row}, or null if all rows have been read.
+         * @throws DatabaseOperationException If an I/O error occurs or the file is corrupt.
+         */
+        public Row next() throws DatabaseOperationException {
+            if (rowsRead >= rowCount) {
+                return null;
+            }
+            try {
+                int size = input.readInt();
+                List<Object> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    byte tag = input.readByte();
+                    switch (tag) {
+                        case TAG_NULL:
+                            values.add(null);
+                            break;
+                        case TAG_INTEGER:
+                            values.add(input.readInt());
+                            break;
+                        case TAG_DOUBLE:
+                            values.add(input.readDouble());
+                            break;
+                        case TAG_STRING:
+                            byte[] bytes = new byte[input.readInt()];
+                            input.readFully(bytes);
+                            values.add(new String(bytes, StandardCharsets.UTF_8));
+                            break;
+                        default:
+                            throw new DatabaseOperationException("ERROR: Corrupt spill file '" + file.getName() + "': unknown value tag " + tag + ".");
+                    }
+                }
+                rowsRead++;
+                return new Row(values);
+            } catch (IOException e) {
+                throw new DatabaseOperationException("ERROR: Reading spill file '" + file.getName() + "': " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Closes the reader. The underlying file is kept until the spill file itself is closed.
+         */
+        @Override
+        public void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // Nothing left to release.
+            }
+        }
+    }
+}
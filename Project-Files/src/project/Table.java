@@ -1,15 +1,45 @@
 package project;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Represents a table in the database, consisting of a name, a list of columns, and a list of rows.
+ * Once a table belongs to a database, its rows are multi-versioned (see {@link VersionClock}):
+ * inserts, changes and deletes are pending until the writing command commits, and a reader with a
+ * snapshot sees the rows and values as of its snapshot. Deleted rows and older values are kept until
+ * no snapshot needs them. The column summaries, indexes and Bloom filters describe the latest rows
+ * only, so a reader whose snapshot is older gets summaries built from its own rows, or none.
+ * While an {@link UndoLog} is bound to the current thread, every change is also recorded in it.
  */
 public class Table {
     private String name;
     private List<Column> columns;
     private List<Row> rows;
+    private List<ColumnStatistics> statistics; // One entry per column, kept in step with the rows
+    private List<ColumnSketch> sketches;       // One entry per column, updated on insert
+    private Map<Integer, OrderedIndex> indexes; // Ordered indexes by column index
+    private Map<Integer, BloomFilter> bloomFilters; // Optional Bloom filters by column index
+    private final List<TableChangeListener> changeListeners; // Notified of every row change
+    private VersionClock versionClock;  // Null while the table is not part of a database
+    private final Set<Row> pendingRows; // Rows inserted, changed or deleted since the last commit
+    private final Set<Row> rowsWithHistory; // Rows keeping older values for snapshots
+    private List<Row> deletedRows;      // Deleted rows kept for snapshots, including pending deletes
+    private boolean pendingChanges;     // True while changes wait for the writing command to commit
+    private long lastCommitTime;        // Commit time of the last committed change
+    private final Set<RowCursor> openCursors; // Cursors reading the rows in place, copied before rows move
+    // Fraction of a column's rows that may be removed or overwritten before its sketch is rebuilt.
+    private static final double MAX_STALE_SKETCH_FRACTION = 0.1;
+    // Smallest number of values a Bloom filter is sized for, so small tables do not rebuild on every insert.
+    private static final int MIN_BLOOM_CAPACITY = 1024;
 
     /**
      * Constructs a new Table with a name and a list of columns.
@@ -26,6 +56,19 @@ public class Table {
         this.name = name;
         this.columns = new ArrayList<>(columns);
         this.rows = new ArrayList<>();
+        this.statistics = new ArrayList<>();
+        this.sketches = new ArrayList<>();
+        for (Column column : this.columns) {
+            this.statistics.add(new ColumnStatistics());
+            this.sketches.add(new ColumnSketch(column.getType()));
+        }
+        this.indexes = new HashMap<>();
+        this.bloomFilters = new HashMap<>();
+        this.changeListeners = new ArrayList<>();
+        this.pendingRows = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.rowsWithHistory = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.deletedRows = new ArrayList<>();
+        this.openCursors = Collections.newSetFromMap(new WeakHashMap<>());
     }
 
     /**
@@ -40,6 +83,26 @@ public class Table {
         if (rows == null)
             throw new IllegalArgumentException("ERROR: Row list cannot be null.");
         this.rows = new ArrayList<>(rows);
+        rebuildColumnSummaries();
+    }
+
+    /**
+     * Constructs a table loaded from a file together with the column statistics saved with it,
+     * so that only the sketches are built from the rows.
+     * @param name The name of the table. Cannot be null or empty.
+     * @param columns The list of {@link Column} objects. Cannot be null.
+     * @param rows The rows read from the file.
+     * @param statistics The saved statistics of each column, which must describe the rows.
+     */
+    Table(String name, List<Column> columns, List<Row> rows, List<ColumnStatistics> statistics) {
+        this(name, columns);
+        this.rows = new ArrayList<>(rows);
+        this.statistics = new ArrayList<>(statistics);
+        for (Row row : this.rows) {
+            for (int i = 0; i < row.size() && i < columns.size(); i++) {
+                sketches.get(i).add(row.getValue(i));
+            }
+        }
     }
 
     /**
@@ -70,11 +133,59 @@ public class Table {
     }
 
     /**
-     * Gets a copy of the list of rows in this table.
+     * Gets a copy of the list of rows in this table, as seen by the current thread's snapshot.
+     * Rows deleted after the snapshot follow the other rows.
      * @return A new list containing the {@link Row} objects. Modifying this list will not affect the table.
      */
-    public List<Row> getRows() {
-        return new ArrayList<>(rows);
+    public synchronized List<Row> getRows() {
+        long snapshot = VersionClock.currentSnapshotTime();
+        if (isCurrentFor(snapshot)) {
+            return new ArrayList<>(rows);
+        }
+        List<Row> visibleRows = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.insertedAt <= snapshot) {
+                visibleRows.add(row);
+            }
+        }
+        for (Row row : deletedRows) {
+            if (row.insertedAt <= snapshot && row.deletedAt > snapshot) {
+                visibleRows.add(row);
+            }
+        }
+        return visibleRows;
+    }
+
+    /**
+     * Gets an iterator over the rows seen by the current thread's snapshot, starting at a position, in
+     * the order of {@link #getRows()}. The rows are read in place rather than copied, so when the snapshot
+     * sees the latest rows the iterator starts directly at the position. A change that moves rows while
+     * the iterator is in use first copies the rows it has still to return, so it keeps to its snapshot.
+     * @param from The number of rows to skip.
+     * @return An iterator over the rows after the first {@code from} rows.
+     */
+    public synchronized Iterator<Row> getRowsFrom(int from) {
+        long snapshot = VersionClock.currentSnapshotTime();
+        RowCursor cursor = new RowCursor(snapshot);
+        openCursors.add(cursor);
+        if (isCurrentFor(snapshot)) {
+            cursor.rowPosition = Math.min(from, rows.size());
+            cursor.deletedPosition = deletedRows.size();
+        } else {
+            for (int skipped = 0; skipped < from && cursor.hasNext(); skipped++) {
+                cursor.next();
+            }
+        }
+        return cursor;
+    }
+
+    /**
+     * Gets the number of rows in this table, as seen by the current thread's snapshot,
+     * without copying the row list when the snapshot sees the latest rows.
+     * @return The row count.
+     */
+    public synchronized int getRowCount() {
+        return isCurrentFor(VersionClock.currentSnapshotTime()) ? rows.size() : getRows().size();
     }
 
     /**
@@ -92,13 +203,31 @@ public class Table {
 
     /**
      * Replaces all rows in the table with a new list of rows.
+     * The change is not versioned, so it must not run while snapshot readers use the table.
+     * Column statistics, sketches, indexes and Bloom filters are rebuilt from the new rows.
      * @param newRows The new list of {@link Row} objects. Cannot be null.
      * @throws IllegalArgumentException If newRows is null.
      */
-    public void setRows(List<Row> newRows) {
+    public synchronized void setRows(List<Row> newRows) {
         if (newRows == null)
             throw new IllegalArgumentException("ERROR: New row list cannot be null.");
+        UndoLog undoLog = UndoLog.current();
+        if (undoLog != null) {
+            undoLog.rowsReplaced(this, this.rows);
+        }
+        discardHistory();
+        structureChanged();
         this.rows = new ArrayList<>(newRows);
+        rebuildColumnSummaries();
+        for (Integer columnIndex : new ArrayList<>(indexes.keySet())) {
+            indexes.put(columnIndex, new OrderedIndex(columnIndex, this.rows));
+        }
+        for (Integer columnIndex : new ArrayList<>(bloomFilters.keySet())) {
+            bloomFilters.put(columnIndex, buildBloomFilter(columnIndex));
+        }
+        for (TableChangeListener listener : changeListeners) {
+            listener.rowsReplaced(this);
+        }
     }
 
     /**
@@ -135,31 +264,68 @@ public class Table {
      * @param row The {@link Row} object to add.
      * @throws DatabaseOperationException If the row's size does not match the table's column count.
      */
-    public void addRow(Row row) throws DatabaseOperationException {
+    public synchronized void addRow(Row row) throws DatabaseOperationException {
         // Ensure row structure matches table structure.
         if (row.size() != this.columns.size()) {
             throw new DatabaseOperationException("ERROR: Cannot add row, size (" + row.size()
                     + ") does not match table column count (" + this.columns.size() + ") in table '" + this.name + "'.");
         }
         this.rows.add(row);
+        if (versionClock != null) {
+            row.insertedAt = VersionClock.PENDING;
+            recordChange(row);
+        }
+        UndoLog undoLog = UndoLog.current();
+        if (undoLog != null) {
+            undoLog.rowAdded(this, row);
+        }
+        for (int i = 0; i < row.size(); i++) {
+            Object value = row.getValue(i);
+            statistics.get(i).append(value);
+            sketches.get(i).add(value);
+        }
+        for (OrderedIndex index : indexes.values()) {
+            index.add(row);
+        }
+        for (Map.Entry<Integer, BloomFilter> entry : bloomFilters.entrySet()) {
+            entry.getValue().add(row.getValue(entry.getKey()));
+        }
+        for (TableChangeListener listener : changeListeners) {
+            listener.rowAdded(this, row);
+        }
     }
 
     /**
      * Adds a new column to the table definition.
      * All existing rows will be extended with a null value for this new column.
+     * The change is not versioned: older row versions and deleted rows kept for snapshots are dropped,
+     * so it must not run while snapshot readers use the table.
      * @param column The {@link Column} object to add.
      * @throws DatabaseOperationException If a column with the same name already exists (case-insensitive).
      */
-    public void addColumn(Column column) throws DatabaseOperationException {
+    public synchronized void addColumn(Column column) throws DatabaseOperationException {
         // Check for duplicate column names and update existing rows.
         for (Column existingCol : this.columns) {
             if (existingCol.getName().equalsIgnoreCase(column.getName())) {
                 throw new DatabaseOperationException("ERROR: Column '" + column.getName() + "' already exists in table '" + name + "'.");
             }
         }
+        discardHistory();
+        structureChanged();
         this.columns.add(column);
+        ColumnStatistics newColumnStatistics = new ColumnStatistics();
         for (Row row : this.rows) {
             row.addValue(null);
+            newColumnStatistics.add(null);
+        }
+        for (Row row : this.deletedRows) { // Pending deletes, which a rollback may bring back
+            row.addValue(null);
+        }
+        this.statistics.add(newColumnStatistics);
+        this.sketches.add(new ColumnSketch(column.getType()));
+        UndoLog undoLog = UndoLog.current();
+        if (undoLog != null) {
+            undoLog.columnAdded(this);
         }
     }
 
@@ -168,7 +334,730 @@ public class Table {
      * @param row The {@link Row} object to remove.
      * @return True if the row was found and removed, false otherwise.
      */
-    public boolean removeRow(Row row) {
-        return this.rows.remove(row);
+    public synchronized boolean removeRow(Row row) {
+        int position = this.rows.indexOf(row);
+        if (position < 0) {
+            return false;
+        }
+        detachCursors();
+        this.rows.remove(position);
+        rowRemoved(row);
+        UndoLog undoLog = UndoLog.current();
+        if (undoLog != null) {
+            undoLog.rowsRemoved(this, Collections.singletonList(row), new int[] {position});
+        }
+        return true;
+    }
+
+    /**
+     * Removes several rows of the table in a single pass over the rows.
+     * @param rowsToRemove The {@link Row} objects to remove. Rows not in the table are ignored.
+     * @return The number of rows removed.
+     */
+    public synchronized int removeRows(List<Row> rowsToRemove) {
+        Map<Row, Boolean> removeSet = new IdentityHashMap<>();
+        for (Row row : rowsToRemove) {
+            removeSet.put(row, Boolean.TRUE);
+        }
+        List<Row> remainingRows = new ArrayList<>(Math.max(0, rows.size() - removeSet.size()));
+        List<Row> removedRows = new ArrayList<>();
+        UndoLog undoLog = UndoLog.current();
+        int[] positions = undoLog != null ? new int[removeSet.size()] : null;
+        detachCursors();
+        for (int position = 0; position < rows.size(); position++) {
+            Row row = rows.get(position);
+            if (removeSet.containsKey(row)) {
+                if (positions != null) {
+                    positions[removedRows.size()] = position;
+                }
+                removedRows.add(row);
+            } else {
+                remainingRows.add(row);
+            }
+        }
+        this.rows = remainingRows;
+        for (Row row : removedRows) {
+            rowRemoved(row);
+        }
+        if (undoLog != null && !removedRows.isEmpty()) {
+            undoLog.rowsRemoved(this, removedRows, positions);
+        }
+        return removedRows.size();
+    }
+
+    /**
+     * Updates the column summaries, indexes and Bloom filters for a row that was taken out of the rows,
+     * keeps the row for the snapshots that still see it, and notifies the change listeners.
+     * @param row The removed row.
+     */
+    private void rowRemoved(Row row) {
+        if (versionClock != null) {
+            row.deletedAt = VersionClock.PENDING;
+            deletedRows.add(row);
+            recordChange(row);
+        }
+        removeFromSummaries(row);
+    }
+
+    /**
+     * Updates the column summaries, indexes and Bloom filters for a row that is no longer in the rows,
+     * and notifies the change listeners.
+     * @param row The removed row.
+     */
+    private void removeFromSummaries(Row row) {
+        for (int i = 0; i < row.size(); i++) {
+            statistics.get(i).remove(row.getLatestValue(i));
+            sketches.get(i).markStale();
+        }
+        for (OrderedIndex index : indexes.values()) {
+            index.remove(row);
+        }
+        for (Map.Entry<Integer, BloomFilter> entry : bloomFilters.entrySet()) {
+            if (row.getLatestValue(entry.getKey()) != null) {
+                entry.getValue().markStale();
+            }
+        }
+        for (TableChangeListener listener : changeListeners) {
+            listener.rowRemoved(this, row);
+        }
+    }
+
+    /**
+     * Sets the value of a cell in one of this table's rows, keeping the column statistics up to date.
+     * Changes to rows that belong to a table should go through this method rather than
+     * {@link Row#setValue(int, Object)}, which bypasses the statistics and changes the values in place
+     * instead of creating a new version of the row.
+     * @param row The {@link Row} of this table to modify.
+     * @param columnIndex The zero-based index of the column to set.
+     * @param value The new value.
+     * @throws IndexOutOfBoundsException If the column index is out of range for the row.
+     */
+    public synchronized void setValue(Row row, int columnIndex, Object value) throws IndexOutOfBoundsException {
+        Object oldValue = row.getLatestValue(columnIndex); // Not the value a snapshot of the thread sees
+        UndoLog undoLog = UndoLog.current();
+        if (undoLog != null) {
+            undoLog.valueChanged(this, row, columnIndex, oldValue, value);
+        }
+        changeValue(row, columnIndex, oldValue, value);
+    }
+
+    /**
+     * Puts back a value changed by a transaction that is rolled back.
+     * The summaries and indexes are updated with the recorded values rather than the values the row
+     * holds, so they stay right whichever version of the row the current thread sees.
+     * @param row The changed row.
+     * @param columnIndex The index of the changed column.
+     * @param replacedValue The value the transaction set, which the row holds now.
+     * @param value The value the row held before, to put back.
+     */
+    synchronized void undoSetValue(Row row, int columnIndex, Object replacedValue, Object value) {
+        changeValue(row, columnIndex, replacedValue, value);
+    }
+
+    /**
+     * Sets the value of a cell and updates the column summaries, indexes and Bloom filters, and notifies
+     * the change listeners.
+     * @param row The row to modify.
+     * @param columnIndex The zero-based index of the column to set.
+     * @param oldValue The value the cell holds now.
+     * @param value The new value.
+     */
+    private void changeValue(Row row, int columnIndex, Object oldValue, Object value) {
+        if (versionClock != null) {
+            row.setVersionedValue(columnIndex, value);
+            recordChange(row);
+        } else {
+            row.setValue(columnIndex, value);
+        }
+        ColumnStatistics columnStatistics = statistics.get(columnIndex);
+        columnStatistics.remove(oldValue);
+        columnStatistics.add(value);
+        columnStatistics.markUnsorted();
+        ColumnSketch columnSketch = sketches.get(columnIndex);
+        columnSketch.markStale();
+        columnSketch.add(value);
+        OrderedIndex index = indexes.get(columnIndex);
+        if (index != null) {
+            index.update(row, oldValue, value);
+        }
+        BloomFilter bloomFilter = bloomFilters.get(columnIndex);
+        if (bloomFilter != null) {
+            if (oldValue != null) {
+                bloomFilter.markStale();
+            }
+            bloomFilter.add(value);
+        }
+        for (TableChangeListener listener : changeListeners) {
+            listener.valueChanged(this, row, columnIndex, oldValue);
+        }
+    }
+
+    /**
+     * Takes back a row added by a transaction that is rolled back.
+     * The row is looked for from the end, where the most recently added rows are.
+     * @param row The added row.
+     */
+    synchronized void undoAddRow(Row row) {
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (rows.get(i) == row) {
+                detachCursors();
+                rows.remove(i);
+                pendingRows.remove(row);
+                removeFromSummaries(row);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts back rows removed by a transaction that is rolled back, each at the position it had.
+     * The rows are merged into the row list in one pass.
+     * @param removedRows The removed rows.
+     * @param positions The position each row had before the removal, in ascending order.
+     */
+    synchronized void undoRemoveRows(List<Row> removedRows, int[] positions) {
+        detachCursors();
+        List<Row> restoredRows = new ArrayList<>(rows.size() + removedRows.size());
+        int next = 0;
+        for (Row row : rows) {
+            while (next < removedRows.size() && positions[next] == restoredRows.size()) {
+                restoredRows.add(removedRows.get(next++));
+            }
+            restoredRows.add(row);
+        }
+        while (next < removedRows.size()) {
+            restoredRows.add(removedRows.get(next++));
+        }
+        this.rows = restoredRows;
+        for (int r = removedRows.size() - 1; r >= 0; r--) {
+            Row row = removedRows.get(r);
+            if (row.deletedAt == VersionClock.PENDING) {
+                row.deletedAt = 0;
+                for (int i = deletedRows.size() - 1; i >= 0; i--) { // Deleted last, so found near the end
+                    if (deletedRows.get(i) == row) {
+                        deletedRows.remove(i);
+                        break;
+                    }
+                }
+            }
+        }
+        for (Row row : removedRows) {
+            for (int i = 0; i < row.size(); i++) {
+                Object value = row.getLatestValue(i);
+                statistics.get(i).add(value);
+                sketches.get(i).add(value);
+            }
+            for (OrderedIndex index : indexes.values()) {
+                index.add(row);
+            }
+            for (Map.Entry<Integer, BloomFilter> entry : bloomFilters.entrySet()) {
+                entry.getValue().add(row.getLatestValue(entry.getKey()));
+            }
+            for (TableChangeListener listener : changeListeners) {
+                listener.rowAdded(this, row);
+            }
+        }
+    }
+
+    /**
+     * Takes back the last column, added by a transaction that is rolled back, with its values,
+     * summaries, index and Bloom filter.
+     */
+    synchronized void undoAddColumn() {
+        int columnIndex = columns.size() - 1;
+        columns.remove(columnIndex);
+        statistics.remove(columnIndex);
+        sketches.remove(columnIndex);
+        indexes.remove(columnIndex);
+        bloomFilters.remove(columnIndex);
+        for (Row row : rows) {
+            row.removeLastValue();
+        }
+        for (Row row : deletedRows) {
+            row.removeLastValue();
+        }
+    }
+
+    /**
+     * Registers a listener to be notified of every row added, removed or changed from now on.
+     * @param listener The listener.
+     */
+    public void addChangeListener(TableChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Stops notifying a listener.
+     * @param listener The listener.
+     * @return True if the listener was registered.
+     */
+    public boolean removeChangeListener(TableChangeListener listener) {
+        return changeListeners.remove(listener);
+    }
+
+    /**
+     * Creates an ordered index on a column, replacing any existing index on it.
+     * The index is kept up to date as rows are added, removed and updated.
+     * @param columnIndex The zero-based index of the column to index.
+     * @return The new {@link OrderedIndex}.
+     * @throws DatabaseOperationException If the index is out of range for the columns.
+     */
+    public synchronized OrderedIndex createIndex(int columnIndex) throws DatabaseOperationException {
+        getColumn(columnIndex); // Validates column index
+        OrderedIndex index = new OrderedIndex(columnIndex, rows);
+        indexes.put(columnIndex, index);
+        structureChanged();
+        return index;
+    }
+
+    /**
+     * Removes the ordered index on a column.
+     * @param columnIndex The zero-based index of the column.
+     * @return True if an index existed and was removed, false otherwise.
+     */
+    public synchronized boolean dropIndex(int columnIndex) {
+        if (indexes.remove(columnIndex) == null) {
+            return false;
+        }
+        structureChanged();
+        return true;
+    }
+
+    /**
+     * Gets the ordered index on a column, if one exists.
+     * A reader with a snapshot gets a copy, which writers do not change while it is used,
+     * or null if its snapshot is older than the latest rows.
+     * @param columnIndex The zero-based index of the column.
+     * @return The {@link OrderedIndex}, or null if the column is not indexed.
+     */
+    public synchronized OrderedIndex getIndex(int columnIndex) {
+        OrderedIndex index = indexes.get(columnIndex);
+        long snapshot = VersionClock.currentSnapshotTime();
+        if (index == null || snapshot == VersionClock.LATEST) {
+            return index;
+        }
+        return isCurrentFor(snapshot) ? index.copy() : null;
+    }
+
+    /**
+     * Creates a Bloom filter on a column, replacing any existing filter on it.
+     * New values are added to the filter as rows are inserted and updated. Removed or overwritten
+     * values stay in the filter, so it is rebuilt from the rows when it is next used after too many
+     * of them, or after more rows were added than it was sized for.
+     * @param columnIndex The zero-based index of the column.
+     * @return The new {@link BloomFilter}.
+     * @throws DatabaseOperationException If the index is out of range for the columns.
+     */
+    public synchronized BloomFilter createBloomFilter(int columnIndex) throws DatabaseOperationException {
+        getColumn(columnIndex); // Validates column index
+        BloomFilter bloomFilter = buildBloomFilter(columnIndex);
+        bloomFilters.put(columnIndex, bloomFilter);
+        structureChanged();
+        return bloomFilter;
+    }
+
+    /**
+     * Removes the Bloom filter on a column.
+     * @param columnIndex The zero-based index of the column.
+     * @return True if a filter existed and was removed, false otherwise.
+     */
+    public synchronized boolean dropBloomFilter(int columnIndex) {
+        if (bloomFilters.remove(columnIndex) == null) {
+            return false;
+        }
+        structureChanged();
+        return true;
+    }
+
+    /**
+     * Checks whether a column has a Bloom filter.
+     * @param columnIndex The zero-based index of the column.
+     * @return True if the column has a filter.
+     */
+    public synchronized boolean hasBloomFilter(int columnIndex) {
+        return bloomFilters.containsKey(columnIndex);
+    }
+
+    /**
+     * Gets the Bloom filter on a column, rebuilding it first if it has become too stale or too full.
+     * Synchronized, since readers that share the table may trigger the rebuild at the same time.
+     * A reader whose snapshot is older than the latest rows gets no filter, since the filter may have
+     * been rebuilt without values that only that snapshot still sees.
+     * @param columnIndex The zero-based index of the column.
+     * @return The {@link BloomFilter}, or null if the column has no filter.
+     */
+    public synchronized BloomFilter getBloomFilter(int columnIndex) {
+        if (!isCurrentFor(VersionClock.currentSnapshotTime())) {
+            return null;
+        }
+        BloomFilter bloomFilter = bloomFilters.get(columnIndex);
+        if (bloomFilter != null && (bloomFilter.isOverCapacity()
+                || bloomFilter.getStaleChanges() > rows.size() * MAX_STALE_SKETCH_FRACTION)) {
+            bloomFilter = buildBloomFilter(columnIndex);
+            bloomFilters.put(columnIndex, bloomFilter);
+        }
+        return bloomFilter;
+    }
+
+    /**
+     * Checks whether a search value may occur in a column, using the column's Bloom filter.
+     * Returns true whenever the filter cannot rule the value out: when there is no filter,
+     * when the value is NULL, or when it cannot be parsed for the column type.
+     * @param columnIndex The zero-based index of the column.
+     * @param searchValue The value to look for, as entered by the user.
+     * @return False only if the value is definitely not in the column.
+     * @throws DatabaseOperationException If the index is out of range for the columns.
+     */
+    public boolean mightContainValue(int columnIndex, String searchValue) throws DatabaseOperationException {
+        Column column = getColumn(columnIndex);
+        BloomFilter bloomFilter = getBloomFilter(columnIndex);
+        if (bloomFilter == null) {
+            return true;
+        }
+        Object searchKey;
+        try {
+            searchKey = TypeParser.parse(searchValue, column.getType());
+        } catch (DatabaseOperationException e) {
+            return true;
+        }
+        return searchKey == null || bloomFilter.mightContain(searchKey);
+    }
+
+    /**
+     * Builds a Bloom filter from the current values of a column, sized for twice the current row count.
+     * @param columnIndex The zero-based index of the column.
+     * @return The new {@link BloomFilter}.
+     */
+    private BloomFilter buildBloomFilter(int columnIndex) {
+        BloomFilter bloomFilter = new BloomFilter(Math.max(MIN_BLOOM_CAPACITY, 2L * rows.size()));
+        for (Row row : rows) {
+            bloomFilter.add(row.getValue(columnIndex));
+        }
+        return bloomFilter;
+    }
+
+    /**
+     * Gets the indexes of all columns that have an ordered index.
+     * @return An unmodifiable set of column indexes.
+     */
+    public Set<Integer> getIndexedColumns() {
+        return Collections.unmodifiableSet(indexes.keySet());
+    }
+
+    /**
+     * Gets the statistics of a column.
+     * Statistics that lost the column's minimum or maximum are rebuilt from the current rows first.
+     * A reader with a snapshot gets a copy, which writers do not change while it is used,
+     * or statistics computed from its own rows if its snapshot is older than the latest rows.
+     * @param index The zero-based index of the column.
+     * @return The {@link ColumnStatistics} for the column.
+     * @throws DatabaseOperationException If the index is out of range for the columns.
+     */
+    public synchronized ColumnStatistics getColumnStatistics(int index) throws DatabaseOperationException {
+        getColumn(index); // Validates column index
+        long snapshot = VersionClock.currentSnapshotTime();
+        if (isCurrentFor(snapshot) && statistics.get(index).needsRebuild()) {
+            ColumnStatistics rebuilt = new ColumnStatistics();
+            for (Row row : rows) {
+                rebuilt.append(row.getLatestValue(index));
+            }
+            statistics.set(index, rebuilt);
+        }
+        if (snapshot == VersionClock.LATEST) {
+            return statistics.get(index);
+        }
+        if (isCurrentFor(snapshot)) {
+            return new ColumnStatistics(statistics.get(index));
+        }
+        ColumnStatistics snapshotStatistics = new ColumnStatistics();
+        for (Row row : getRows()) {
+            snapshotStatistics.append(row.getValue(index));
+        }
+        return snapshotStatistics;
+    }
+
+    /**
+     * Gets the approximate-summary sketch of a column.
+     * If too many of the column's values were removed or overwritten since the sketch was built,
+     * it is rebuilt from the current rows first. Synchronized, since readers that share the table
+     * may trigger the rebuild at the same time.
+     * A reader with a snapshot gets a copy, or a sketch of its own rows if its snapshot is older than
+     * the latest rows.
+     * @param index The zero-based index of the column.
+     * @return The {@link ColumnSketch} for the column.
+     * @throws DatabaseOperationException If the index is out of range for the columns.
+     */
+    public synchronized ColumnSketch getColumnSketch(int index) throws DatabaseOperationException {
+        Column column = getColumn(index); // Validates column index
+        long snapshot = VersionClock.currentSnapshotTime();
+        if (!isCurrentFor(snapshot)) {
+            ColumnSketch snapshotSketch = new ColumnSketch(column.getType());
+            for (Row row : getRows()) {
+                snapshotSketch.add(row.getValue(index));
+            }
+            return snapshotSketch;
+        }
+        ColumnSketch columnSketch = sketches.get(index);
+        if (columnSketch.getStaleChanges() > rows.size() * MAX_STALE_SKETCH_FRACTION) {
+            columnSketch = new ColumnSketch(column.getType());
+            for (Row row : rows) {
+                columnSketch.add(row.getValue(index));
+            }
+            sketches.set(index, columnSketch);
+        }
+        if (snapshot != VersionClock.LATEST) {
+            ColumnSketch copy = new ColumnSketch(column.getType());
+            copy.merge(columnSketch);
+            return copy;
+        }
+        return columnSketch;
+    }
+
+    /**
+     * Counts the rows whose value in a column matches a search value, in the sense of
+     * {@link TypeParser#looselyEquals(Object, String, DataType)}, using only the column statistics.
+     * @param columnIndex The zero-based index of the search column.
+     * @param searchValue The search value as entered by the user.
+     * @return The number of matching rows, or -1 if the statistics cannot answer and the rows must be scanned,
+     * which is also the case for a reader whose snapshot is older than the latest rows.
+     * @throws DatabaseOperationException If the index is out of range for the columns.
+     */
+    public synchronized long countMatchesFromStatistics(int columnIndex, String searchValue) throws DatabaseOperationException {
+        Column column = getColumn(columnIndex);
+        if (!isCurrentFor(VersionClock.currentSnapshotTime())) {
+            return -1;
+        }
+        if (searchValue == null) {
+            return 0;
+        }
+        Object searchKey;
+        try {
+            searchKey = TypeParser.parse(searchValue, column.getType());
+        } catch (DatabaseOperationException e) {
+            return 0; // A value that cannot be parsed for the column type never matches.
+        }
+        try {
+            return statistics.get(columnIndex).getCount(searchKey);
+        } catch (ClassCastException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Makes the rows of the table multi-versioned, once the table belongs to a database.
+     * @param versionClock The clock of the database.
+     */
+    synchronized void setVersionClock(VersionClock versionClock) {
+        this.versionClock = versionClock;
+    }
+
+    /**
+     * Checks whether the current thread's snapshot sees the latest rows of the table, so that the
+     * column summaries and cached query results of the latest rows apply to it.
+     * @return True if the thread has no snapshot, or no change was made since its snapshot.
+     */
+    public synchronized boolean isCurrentForSnapshot() {
+        return isCurrentFor(VersionClock.currentSnapshotTime());
+    }
+
+    /**
+     * Checks whether a snapshot sees the latest rows of the table.
+     * @param snapshot The time of the snapshot, or {@link VersionClock#LATEST}.
+     * @return True if no change was made since the snapshot.
+     */
+    private boolean isCurrentFor(long snapshot) {
+        return snapshot == VersionClock.LATEST || (!pendingChanges && lastCommitTime <= snapshot);
+    }
+
+    /**
+     * Records a pending change of a row, to be committed when the writing command ends.
+     * @param row The inserted, changed or deleted row.
+     */
+    private void recordChange(Row row) {
+        pendingRows.add(row);
+        if (!pendingChanges) {
+            pendingChanges = true;
+            versionClock.recordWrite(this);
+        }
+        ReplicationLog.changeMade();
+    }
+
+    /**
+     * Records a change of the rows or structure of a table of the database, made outside
+     * {@link #recordChange(Row)}, so that the running command is logged for read replicas.
+     */
+    private void structureChanged() {
+        if (versionClock != null) {
+            ReplicationLog.changeMade();
+        }
+    }
+
+    /**
+     * Commits the pending changes, giving every changed row the commit time.
+     * @param time The commit time.
+     * @return True if the table keeps older row versions or deleted rows for snapshots.
+     */
+    synchronized boolean commitChanges(long time) {
+        for (Row row : pendingRows) {
+            row.commit(time);
+            if (row.hasOlderVersions()) {
+                rowsWithHistory.add(row);
+            }
+        }
+        pendingRows.clear();
+        pendingChanges = false;
+        lastCommitTime = time;
+        return !rowsWithHistory.isEmpty() || !deletedRows.isEmpty();
+    }
+
+    /**
+     * Drops the older row versions and deleted rows that no snapshot at or after a time can see.
+     * @param horizon The time of the oldest snapshot that may still read the table.
+     * @return True if the table still keeps older row versions or deleted rows.
+     */
+    synchronized boolean vacuum(long horizon) {
+        rowsWithHistory.removeIf(row -> !row.pruneVersions(horizon));
+        for (Row row : deletedRows) {
+            if (row.deletedAt <= horizon) {
+                detachCursors();
+                break;
+            }
+        }
+        deletedRows.removeIf(row -> row.deletedAt <= horizon);
+        return !rowsWithHistory.isEmpty() || !deletedRows.isEmpty();
+    }
+
+    /**
+     * Drops all older row versions and deleted rows, before a change that is not versioned.
+     */
+    private void discardHistory() {
+        for (Row row : rowsWithHistory) {
+            row.pruneVersions(VersionClock.LATEST);
+        }
+        rowsWithHistory.clear();
+        detachCursors();
+        deletedRows.removeIf(row -> row.deletedAt != VersionClock.PENDING);
+    }
+
+    /**
+     * Makes every open cursor copy the rows it has still to return, before a change moves rows to other
+     * positions in the row lists. Cursors that are never read again are not kept alive by the table.
+     */
+    private void detachCursors() {
+        for (RowCursor cursor : openCursors) {
+            cursor.detach();
+        }
+        openCursors.clear();
+    }
+
+    /**
+     * An iterator over the rows a snapshot sees, which reads the live rows and then the deleted rows
+     * by position, under the table's lock, until a change that moves rows detaches it.
+     */
+    private final class RowCursor implements Iterator<Row> {
+        private final long snapshot;
+        private int rowPosition;     // Next position in rows
+        private int deletedPosition; // Next position in deletedRows, once rows are done
+        private List<Row> detachedRows; // Rows still to return, copied when the cursor was detached
+        private Row next;            // Row found by hasNext and not yet returned
+
+        /**
+         * Constructs a cursor at the first row.
+         * @param snapshot The time of the snapshot whose rows are returned.
+         */
+        RowCursor(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Checks whether the snapshot sees another row, finding it if needed.
+         * @return True if there is another row.
+         */
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                synchronized (Table.this) {
+                    next = findNext();
+                    if (next == null) {
+                        openCursors.remove(this);
+                    }
+                }
+            }
+            return next != null;
+        }
+
+        /**
+         * Gets the next row the snapshot sees.
+         * @return The row.
+         * @throws NoSuchElementException If there are no more rows.
+         */
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Row row = next;
+            next = null;
+            return row;
+        }
+
+        /**
+         * Finds the next row the snapshot sees, from the copied rows once the cursor was detached.
+         * Must be called while holding the table's lock.
+         * @return The row, or null if there are no more rows.
+         */
+        private Row findNext() {
+            if (detachedRows != null) {
+                return rowPosition < detachedRows.size() ? detachedRows.get(rowPosition++) : null;
+            }
+            while (rowPosition < rows.size()) {
+                Row row = rows.get(rowPosition++);
+                if (row.insertedAt <= snapshot) {
+                    return row;
+                }
+            }
+            while (deletedPosition < deletedRows.size()) {
+                Row row = deletedRows.get(deletedPosition++);
+                if (row.insertedAt <= snapshot && row.deletedAt > snapshot) {
+                    return row;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Copies the rows the cursor has still to return, so that it no longer reads the row lists.
+         * Must be called while holding the table's lock.
+         */
+        void detach() {
+            if (detachedRows != null) {
+                return;
+            }
+            List<Row> remainingRows = new ArrayList<>();
+            for (Row row = findNext(); row != null; row = findNext()) {
+                remainingRows.add(row);
+            }
+            detachedRows = remainingRows;
+            rowPosition = 0;
+        }
+    }
+
+    /**
+     * Recomputes the statistics and sketches of every column from the current rows.
+     */
+    private void rebuildColumnSummaries() {
+        this.statistics = new ArrayList<>();
+        this.sketches = new ArrayList<>();
+        for (Column column : columns) {
+            this.statistics.add(new ColumnStatistics());
+            this.sketches.add(new ColumnSketch(column.getType()));
+        }
+        for (Row row : rows) {
+            for (int i = 0; i < row.size() && i < columns.size(); i++) {
+                Object value = row.getValue(i);
+                statistics.get(i).append(value);
+                sketches.get(i).add(value);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,199 @@
+package project;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The tables a command reads and writes, declared before it runs so that it can be given the
+ * matching locks. A command that writes rows is distinguished from one that alters a table's
+ * structure, such as its columns or indexes, since only the latter must wait for the readers of the table.
+ * A command that changes the catalog itself, such as opening, saving or renaming,
+ * or whose tables cannot be known in advance, needs exclusive access to the whole database.
+ * A command that ends a transaction works on the latest versions of the rows, its own pending changes,
+ * so unlike a command that only reads it never reads a snapshot.
+ * A command that creates a result table also declares the base name it reserves the table's name from,
+ * see {@link Database#reserveTableName(String)}.
+ */
+public class TableAccess {
+
+    private static final TableAccess EXCLUSIVE = new TableAccess(Collections.emptySet(), Collections.emptySet(), Collections.emptySet(),
+            Collections.emptySet(), true, false);
+    private static final TableAccess TRANSACTION_CONTROL = new TableAccess(Collections.emptySet(), Collections.emptySet(), Collections.emptySet(),
+            Collections.emptySet(), false, true);
+
+    private final Set<String> reads;
+    private final Set<String> writes;
+    private final Set<String> alters;
+    private final Set<String> creates; // Base names of the result tables created
+    private final boolean exclusive;
+    private final boolean transactionControl;
+
+    /**
+     * Constructs a table access.
+     * @param reads The tables read and not written.
+     * @param writes The tables whose rows are written.
+     * @param alters The tables whose structure is changed.
+     * @param creates The base names of the result tables created.
+     * @param exclusive True if the command needs the whole database to itself.
+     * @param transactionControl True if the command begins or ends a transaction.
+     */
+    private TableAccess(Set<String> reads, Set<String> writes, Set<String> alters, Set<String> creates,
+                        boolean exclusive, boolean transactionControl) {
+        this.reads = reads;
+        this.writes = writes;
+        this.alters = alters;
+        this.creates = creates;
+        this.exclusive = exclusive;
+        this.transactionControl = transactionControl;
+    }
+
+    /**
+     * Creates the access of a command that needs the whole database to itself.
+     * @return The exclusive access.
+     */
+    public static TableAccess exclusive() {
+        return EXCLUSIVE;
+    }
+
+    /**
+     * Creates the access of a command that begins, commits or rolls back a transaction. It uses no
+     * tables beyond the ones the transaction holds, but must not run while the catalog changes, and
+     * must not read a snapshot, since rolling back puts back values in place of the pending ones.
+     * @return The transaction control access.
+     */
+    public static TableAccess transactionControl() {
+        return TRANSACTION_CONTROL;
+    }
+
+    /**
+     * Creates the access of a command that only reads tables.
+     * A command that reads no tables, but must not run while the catalog changes, reads none.
+     * @param tables The names of the tables read.
+     * @return The access.
+     */
+    public static TableAccess read(String... tables) {
+        return new TableAccess(sorted(tables), Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), false, false);
+    }
+
+    /**
+     * Creates the access of a command that inserts, updates or deletes rows of tables.
+     * @param tables The names of the tables written.
+     * @return The access.
+     */
+    public static TableAccess write(String... tables) {
+        return new TableAccess(Collections.emptySet(), sorted(tables), Collections.emptySet(), Collections.emptySet(), false, false);
+    }
+
+    /**
+     * Creates the access of a command that changes the structure of tables, such as their columns,
+     * indexes or Bloom filters.
+     * @param tables The names of the tables altered.
+     * @return The access.
+     */
+    public static TableAccess alter(String... tables) {
+        return new TableAccess(Collections.emptySet(), Collections.emptySet(), sorted(tables), Collections.emptySet(), false, false);
+    }
+
+    /**
+     * Creates the same access for a command that also creates a result table, whose name it reserves
+     * from a base name. The name does not need a lock, since no other command can use it yet, but a
+     * {@link ScriptScheduler} runs the commands creating tables from the same base name in script order,
+     * so that each gets the name it would get if the script ran one command at a time.
+     * @param baseName The base name of the result table.
+     * @return The access.
+     */
+    public TableAccess creating(String baseName) {
+        return new TableAccess(reads, writes, alters, sorted(baseName), exclusive, transactionControl);
+    }
+
+    /**
+     * Checks whether the command needs the whole database to itself.
+     * @return True for exclusive access.
+     */
+    public boolean isExclusive() {
+        return exclusive;
+    }
+
+    /**
+     * Gets the tables that are read but not written.
+     * @return An unmodifiable set of table names, in sorted order.
+     */
+    public Set<String> getReads() {
+        return reads;
+    }
+
+    /**
+     * Gets the tables whose rows are written.
+     * @return An unmodifiable set of table names, in sorted order.
+     */
+    public Set<String> getWrites() {
+        return writes;
+    }
+
+    /**
+     * Gets the tables whose structure is changed.
+     * @return An unmodifiable set of table names, in sorted order.
+     */
+    public Set<String> getAlters() {
+        return alters;
+    }
+
+    /**
+     * Gets the base names of the result tables the command creates.
+     * @return An unmodifiable set of base names, in sorted order.
+     */
+    public Set<String> getCreates() {
+        return creates;
+    }
+
+    /**
+     * Checks whether the command only reads, so that it can read a snapshot of the tables.
+     * @return True if the command neither writes nor alters tables, does not need exclusive access and
+     * does not control a transaction.
+     */
+    public boolean isReadOnly() {
+        return !exclusive && !transactionControl && writes.isEmpty() && alters.isEmpty();
+    }
+
+    /**
+     * Gets every table the command uses.
+     * @return An unmodifiable set of table names, in sorted order.
+     */
+    public Set<String> getTables() {
+        Set<String> tables = new TreeSet<>(reads);
+        tables.addAll(writes);
+        tables.addAll(alters);
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * Builds a sorted set of names, skipping nulls.
+     * @param tables The names.
+     * @return An unmodifiable sorted set.
+     */
+    private static Set<String> sorted(String... tables) {
+        Set<String> names = new TreeSet<>();
+        for (String table : tables) {
+            if (table != null) {
+                names.add(table);
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Describes the access, for messages.
+     * @return A description such as "read [Audi], write [Colors], alter []", "exclusive" or "transaction control".
+     */
+    @Override
+    public String toString() {
+        if (exclusive) {
+            return "exclusive";
+        }
+        if (transactionControl) {
+            return "transaction control";
+        }
+        return "read " + reads + ", write " + writes + ", alter " + alters;
+    }
+}
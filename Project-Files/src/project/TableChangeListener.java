@@ -0,0 +1,36 @@
+package project;
+
+/**
+ * Receives the changes made to the rows of a {@link Table}, as they are made.
+ * Structures derived from a table register a listener to stay up to date without rescanning it.
+ */
+public interface TableChangeListener {
+    /**
+     * Called after a row was added to the table.
+     * @param table The table.
+     * @param row The added row.
+     */
+    void rowAdded(Table table, Row row);
+
+    /**
+     * Called after a row was removed from the table.
+     * @param table The table.
+     * @param row The removed row, with the values it had in the table.
+     */
+    void rowRemoved(Table table, Row row);
+
+    /**
+     * Called after a value of a row was changed.
+     * @param table The table.
+     * @param row The changed row, already holding the new value.
+     * @param columnIndex The index of the changed column.
+     * @param oldValue The value the column held before.
+     */
+    void valueChanged(Table table, Row row, int columnIndex, Object oldValue);
+
+    /**
+     * Called after all rows of the table were replaced at once.
+     * @param table The table, holding its new rows.
+     */
+    void rowsReplaced(Table table);
+}
@@ -0,0 +1,122 @@
+package project;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a table data file one row at a time, so that large results can be streamed to disk
+ * without first being collected into a {@link Table}.
+ * The file has the same format as files written by {@link FileHandler#writeTableToFile(Table, String)}
+ * and can be read back with {@link FileHandler#readTableFromFile(String)}. Because the rows are not
+ * known in advance, column widths are taken from the headers only.
+ */
+public class TableFileWriter implements RowSink, AutoCloseable {
+
+    private final String filename;
+    private final int columnCount;
+    private final List<Integer> columnWidths;
+    private final PrintWriter writer;
+    private long rowCount;
+    private boolean closed;
+
+    /**
+     * Creates the table file and writes its name and column header lines.
+     * Any statistics sidecar left over from an earlier file with the same name is removed.
+     * @param tableName The name of the table.
+     * @param columns The columns of the table.
+     * @param filename The path of the file to write.
+     * @throws DatabaseOperationException If the file cannot be created.
+     */
+    public TableFileWriter(String tableName, List<Column> columns, String filename) throws DatabaseOperationException {
+        this.filename = filename;
+        this.columnCount = columns.size();
+        this.columnWidths = new ArrayList<>();
+        this.rowCount = 0;
+        this.closed = false;
+        try {
+            this.writer = new PrintWriter(new FileWriter(FileHandler.getWritePath(filename)));
+        } catch (IOException e) {
+            throw new DatabaseOperationException("ERROR: Writing table file '" + filename + "': " + e.getMessage(), e);
+        }
+        File staleStatistics = new File(FileHandler.getWritePath(FileHandler.getStatisticsFilePath(filename)));
+        if (staleStatistics.exists() && !staleStatistics.delete()) {
+            System.out.println("WARNING: Could not remove outdated statistics file '" + staleStatistics.getName() + "'.");
+        }
+
+        writer.println(FileHandler.TABLE_NAME_PREFIX + tableName);
+        if (columns.isEmpty()) {
+            writer.println("| (Table has no columns) |");
+            return;
+        }
+        StringBuilder headerLine = new StringBuilder("|");
+        StringBuilder separatorLine = new StringBuilder("|");
+        for (int i = 0; i < columns.size(); i++) {
+            String headerText = columns.get(i).getName() + " - " + columns.get(i).getType().name();
+            int width = Math.max(headerText.length(), 5);
+            columnWidths.add(width);
+            headerLine.append(FileHandler.padRight(headerText, width));
+            separatorLine.append(FileHandler.repeatChar('-', width));
+            if (i < columns.size() - 1) {
+                headerLine.append(FileHandler.DELIMITER_WRITE);
+                separatorLine.append(FileHandler.HEADER_SEPARATOR_DELIMITER_WRITE);
+            }
+        }
+        writer.println(headerLine.append("|"));
+        writer.println(separatorLine.append("|"));
+    }
+
+    /**
+     * Appends a row to the file.
+     * @param row The {@link Row} to write. Its size must match the column count.
+     * @throws DatabaseOperationException If the writer is closed, the row size is wrong, or an I/O error occurs.
+     */
+    @Override
+    public void accept(Row row) throws DatabaseOperationException {
+        if (closed)
+            throw new DatabaseOperationException("ERROR: Table file '" + filename + "' is already closed.");
+        if (row.size() != columnCount)
+            throw new DatabaseOperationException("ERROR: Cannot write row, size (" + row.size()
+                    + ") does not match column count (" + columnCount + ") for file '" + filename + "'.");
+        StringBuilder line = new StringBuilder("|");
+        for (int j = 0; j < columnCount; j++) {
+            line.append(FileHandler.padRight(FileHandler.formatValueForSave(row.getValue(j)), columnWidths.get(j)));
+            if (j < columnCount - 1) {
+                line.append(FileHandler.DELIMITER_WRITE);
+            }
+        }
+        writer.println(line.append(" |"));
+        rowCount++;
+        if (writer.checkError())
+            throw new DatabaseOperationException("ERROR: Writing table file '" + filename + "' failed.");
+    }
+
+    /**
+     * Gets the number of rows written so far.
+     * @return The row count.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Finishes the file. If no rows were written, the "no rows" placeholder line is added.
+     * @throws DatabaseOperationException If an I/O error occurred while writing.
+     */
+    @Override
+    public void close() throws DatabaseOperationException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (rowCount == 0 && columnCount > 0) {
+            writer.println(FileHandler.NO_ROWS_PLACEHOLDER + " |");
+        }
+        writer.close();
+        if (writer.checkError())
+            throw new DatabaseOperationException("ERROR: Writing table file '" + filename + "' failed.");
+    }
+}
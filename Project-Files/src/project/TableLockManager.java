@@ -0,0 +1,206 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Reader-writer locks that let commands run at the same time.
+ * There is one lock for the catalog and two for each table. Every command holds the catalog lock:
+ * shared by commands that work on tables, exclusive for commands that change the catalog itself.
+ * A command that works on tables then holds the structure lock of each table it uses: shared by
+ * the readers and writers of its rows, exclusive for a command that alters the table's structure.
+ * A command that writes rows also holds the table's writer lock, so that one writer changes the
+ * rows at a time. Readers read a snapshot of the rows (see {@link VersionClock}), so readers and
+ * the writer of a table never wait for each other, and commands on different tables never do.
+ * Table locks are always taken in name order, so two commands can never wait for each other's locks.
+ * A transaction keeps the locks of its commands until it ends, so it may take them out of order;
+ * it waits for them only for a limited time instead, given in milliseconds by the system property
+ * "db.transaction.lockTimeoutMillis". A command that needs the whole database waits no longer than
+ * that either, since an open transaction holds the shared catalog lock until it ends, even while idle.
+ */
+public class TableLockManager {
+
+    /** Longest time a command of a transaction, or a command that needs the whole database, waits for a lock, in milliseconds. */
+    public static final long TRANSACTION_LOCK_TIMEOUT_MILLIS = Long.getLong("db.transaction.lockTimeoutMillis", 10_000);
+
+    private final ReentrantReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    private final ConcurrentHashMap<String, TableLocks> tableLocks = new ConcurrentHashMap<>();
+
+    /**
+     * The locks of one table.
+     */
+    private static class TableLocks {
+        private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+        private final ReentrantLock writerLock = new ReentrantLock();
+    }
+
+    /**
+     * The locks held for one command or transaction, released together when it ends.
+     */
+    public static class Locks implements AutoCloseable {
+        private final List<Lock> held = new ArrayList<>();
+
+        /**
+         * Takes a lock and records it for release.
+         * @param lock The lock.
+         */
+        private void take(Lock lock) {
+            lock.lock();
+            held.add(lock);
+        }
+
+        /**
+         * Takes a lock if it becomes free within a time limit, and records it for release.
+         * @param lock The lock.
+         * @param timeoutMillis The longest time to wait, in milliseconds.
+         * @return True if the lock was taken.
+         */
+        private boolean tryTake(Lock lock, long timeoutMillis) {
+            try {
+                if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            held.add(lock);
+            return true;
+        }
+
+        /**
+         * Releases the locks taken after a point, in the reverse of the order they were taken.
+         * @param mark The number of locks to keep.
+         */
+        private void releaseFrom(int mark) {
+            for (int i = held.size() - 1; i >= mark; i--) {
+                held.remove(i).unlock();
+            }
+        }
+
+        /**
+         * Releases the locks, in the reverse of the order they were taken.
+         */
+        @Override
+        public void close() {
+            releaseFrom(0);
+        }
+    }
+
+    /**
+     * Takes the locks a command needs, waiting until they are free. Exclusive access is waited for
+     * only for {@link #TRANSACTION_LOCK_TIMEOUT_MILLIS}, since an open transaction may hold the catalog
+     * lock for as long as its session stays idle.
+     * @param access The tables the command reads, writes and alters.
+     * @param needsExclusive Tells whether using a name requires exclusive access, such as a view whose
+     * query may read any table; it is checked once the catalog can no longer change.
+     * @return The held locks, to be closed when the command ends.
+     * @throws DatabaseOperationException If the command needs exclusive access and it is not free in time.
+     */
+    public Locks acquire(TableAccess access, Predicate<String> needsExclusive) throws DatabaseOperationException {
+        Locks locks = new Locks();
+        if (access.isExclusive()) {
+            takeExclusive(locks);
+            return locks;
+        }
+        locks.take(catalogLock.readLock());
+        for (String table : access.getTables()) {
+            if (needsExclusive.test(table)) {
+                locks.close();
+                takeExclusive(locks);
+                return locks;
+            }
+        }
+        for (String table : access.getTables()) { // In name order
+            TableLocks tableLock = tableLocks.computeIfAbsent(table, name -> new TableLocks());
+            if (access.getAlters().contains(table)) {
+                locks.take(tableLock.structureLock.writeLock());
+            } else {
+                locks.take(tableLock.structureLock.readLock());
+                if (access.getWrites().contains(table)) {
+                    locks.take(tableLock.writerLock);
+                }
+            }
+        }
+        return locks;
+    }
+
+    /**
+     * Takes the exclusive catalog lock if it becomes free within {@link #TRANSACTION_LOCK_TIMEOUT_MILLIS}.
+     * @param locks The locks to add it to.
+     * @throws DatabaseOperationException If other commands or a transaction hold the catalog for longer.
+     */
+    private void takeExclusive(Locks locks) throws DatabaseOperationException {
+        if (!locks.tryTake(catalogLock.writeLock(), TRANSACTION_LOCK_TIMEOUT_MILLIS)) {
+            throw new DatabaseOperationException("ERROR: Timed out waiting for the whole database, which other commands or an open transaction are using."
+                    + " Commit or roll back open transactions and try again.");
+        }
+    }
+
+    /**
+     * Takes the locks a command of a transaction needs, adding them to the locks the transaction
+     * already holds, which are kept until it ends. Locks the transaction holds are not taken again.
+     * A lock that is not free within {@link #TRANSACTION_LOCK_TIMEOUT_MILLIS} fails the command, since
+     * the transaction may hold a lock that the other command waits for.
+     * @param held The locks of the transaction.
+     * @param access The tables the command reads, writes and alters.
+     * @param needsExclusive Tells whether using a name requires exclusive access, as for
+     * {@link #acquire(TableAccess, Predicate)}.
+     * @throws DatabaseOperationException If the command needs exclusive access, would alter a table the
+     * transaction already uses, or a lock is not free in time. No new locks are kept in that case.
+     */
+    public void acquireWithin(Locks held, TableAccess access, Predicate<String> needsExclusive) throws DatabaseOperationException {
+        if (access.isExclusive()) {
+            throw new DatabaseOperationException("ERROR: The command needs the whole database and cannot run inside a transaction.");
+        }
+        int mark = held.held.size();
+        if (catalogLock.getReadHoldCount() == 0 && !held.tryTake(catalogLock.readLock(), TRANSACTION_LOCK_TIMEOUT_MILLIS)) {
+            throw new DatabaseOperationException("ERROR: Timed out waiting for a command that changes the catalog.");
+        }
+        for (String table : access.getTables()) {
+            if (needsExclusive.test(table)) {
+                held.releaseFrom(mark);
+                throw new DatabaseOperationException("ERROR: '" + table + "' is a view or materialized view and cannot be used inside a transaction.");
+            }
+        }
+        for (String table : access.getTables()) { // In name order
+            TableLocks tableLock = tableLocks.computeIfAbsent(table, name -> new TableLocks());
+            ReentrantReadWriteLock structureLock = tableLock.structureLock;
+            boolean taken = true;
+            if (access.getAlters().contains(table)) {
+                if (!structureLock.isWriteLockedByCurrentThread()) {
+                    if (structureLock.getReadHoldCount() > 0) {
+                        held.releaseFrom(mark);
+                        throw new DatabaseOperationException("ERROR: Table '" + table + "' was already used in this transaction and cannot be altered in it.");
+                    }
+                    taken = held.tryTake(structureLock.writeLock(), TRANSACTION_LOCK_TIMEOUT_MILLIS);
+                }
+            } else {
+                if (structureLock.getReadHoldCount() == 0 && !structureLock.isWriteLockedByCurrentThread()) {
+                    taken = held.tryTake(structureLock.readLock(), TRANSACTION_LOCK_TIMEOUT_MILLIS);
+                }
+                if (taken && access.getWrites().contains(table) && !tableLock.writerLock.isHeldByCurrentThread()) {
+                    taken = held.tryTake(tableLock.writerLock, TRANSACTION_LOCK_TIMEOUT_MILLIS);
+                }
+            }
+            if (!taken) {
+                held.releaseFrom(mark);
+                throw new DatabaseOperationException("ERROR: Timed out waiting for table '" + table + "', which another command or transaction is using.");
+            }
+        }
+    }
+
+    /**
+     * Forgets the locks of tables that no longer exist, after the catalog has been closed or changed.
+     * Must only be called while holding exclusive access.
+     */
+    public void clearTableLocks() {
+        tableLocks.clear();
+    }
+}
@@ -0,0 +1,152 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The transaction of one session, started with "begin" and ended with "commit" or "rollback".
+ * Between them, the changes of the session's commands are recorded in an {@link UndoLog} and stay
+ * pending, so other sessions' readers do not see them until the commit, and a rollback undoes
+ * all of them. The locks of every command are kept until the transaction ends, so no other command
+ * changes a table the transaction used. Commands that need the whole database, such as save, open
+ * or rename, cannot run inside a transaction. On a replication primary, the transaction's commands are
+ * written to the {@link ReplicationLog} together when it commits.
+ */
+public class Transaction {
+
+    private final Database database;
+    private TableLockManager.Locks locks;   // Null while no transaction is active
+    private final UndoLog undoLog;
+    private final Set<String> writtenTables; // Tables whose writer lock the transaction holds
+    private final List<ReplicationLog.Change> replicatedChanges; // Commands to log for replicas when the transaction commits
+
+    /**
+     * Constructs the transaction state of a session, with no transaction active.
+     * @param database The database the session works on.
+     */
+    public Transaction(Database database) {
+        this.database = database;
+        this.locks = null;
+        this.undoLog = new UndoLog();
+        this.writtenTables = new HashSet<>();
+        this.replicatedChanges = new ArrayList<>();
+    }
+
+    /**
+     * Checks whether a transaction is active.
+     * @return True between "begin" and "commit" or "rollback".
+     */
+    public boolean isActive() {
+        return locks != null;
+    }
+
+    /**
+     * Starts a transaction.
+     * @throws DatabaseOperationException If a transaction is already active.
+     */
+    public void begin() throws DatabaseOperationException {
+        if (isActive()) {
+            throw new DatabaseOperationException("ERROR: A transaction is already active. Use 'commit' or 'rollback' to end it first.");
+        }
+        locks = new TableLockManager.Locks();
+    }
+
+    /**
+     * Takes the locks a command of the transaction needs and keeps them until the transaction ends.
+     * A command that only reads tables the transaction changed reads its own pending changes, so it
+     * gets writer access to all its tables instead of a snapshot, which keeps out the pending changes
+     * of other commands.
+     * @param access The tables the command declares.
+     * @return The access the command runs with: read-only commands read a snapshot.
+     * @throws DatabaseOperationException If the command cannot run inside a transaction or its locks are not free in time.
+     */
+    TableAccess lock(TableAccess access) throws DatabaseOperationException {
+        TableAccess effective = access;
+        if (access.isReadOnly()) {
+            for (String table : access.getTables()) {
+                if (writtenTables.contains(table)) {
+                    effective = TableAccess.write(access.getTables().toArray(new String[0]));
+                    break;
+                }
+            }
+        }
+        database.lockTablesWithin(locks, effective);
+        writtenTables.addAll(effective.getWrites());
+        writtenTables.addAll(effective.getAlters());
+        return effective;
+    }
+
+    /**
+     * Gets the log of the transaction's changes, to be bound to the thread while its commands run.
+     * @return The undo log.
+     */
+    UndoLog getUndoLog() {
+        return undoLog;
+    }
+
+    /**
+     * Records a command of the transaction that succeeded, to be written to the replication log if the transaction commits.
+     * @param change The command.
+     */
+    void recordReplicatedChange(ReplicationLog.Change change) {
+        replicatedChanges.add(change);
+    }
+
+    /**
+     * Commits the transaction: its changes become visible to new snapshots and its locks are released.
+     * @return The number of changes committed.
+     * @throws DatabaseOperationException If no transaction is active.
+     */
+    public int commit() throws DatabaseOperationException {
+        if (!isActive()) {
+            throw new DatabaseOperationException("ERROR: No transaction is active.");
+        }
+        int changes = undoLog.size();
+        undoLog.clear();
+        ReplicationLog replicationLog = database.getReplicationLog();
+        if (replicationLog != null && !replicatedChanges.isEmpty()) {
+            replicationLog.appendTransaction(replicatedChanges); // Before the locks are released, to keep the order of changes
+        }
+        end();
+        return changes;
+    }
+
+    /**
+     * Rolls back the transaction: every change it made is undone, newest first, and its locks are released.
+     * @return The number of changes undone.
+     * @throws DatabaseOperationException If no transaction is active, or a change cannot be undone.
+     */
+    public int rollback() throws DatabaseOperationException {
+        if (!isActive()) {
+            throw new DatabaseOperationException("ERROR: No transaction is active.");
+        }
+        int changes = undoLog.size();
+        try {
+            List<Table> changedTables = undoLog.rollback();
+            for (Table table : changedTables) {
+                if (database.getLoadedTable(table.getName()) == table) {
+                    database.dataModified(table.getName()); // Drops results cached from the undone changes
+                }
+            }
+        } finally {
+            end();
+        }
+        return changes;
+    }
+
+    /**
+     * Commits the pending changes and releases the locks, ending the transaction.
+     */
+    private void end() {
+        try {
+            database.commitChanges();
+        } finally {
+            locks.close();
+            locks = null;
+            writtenTables.clear();
+            replicatedChanges.clear();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory log of the changes made to tables during a transaction, with what is needed to undo them.
+ * While a log is bound to the current thread, {@link Table} records every row it adds, removes or
+ * changes, every replacement of all its rows and every column it adds. Rolling back undoes the
+ * entries from the newest to the oldest, so its cost depends on the number of changes and not
+ * on the size of the database.
+ */
+public class UndoLog {
+
+    private static final ThreadLocal<UndoLog> CURRENT = new ThreadLocal<>();
+
+    private final List<UndoEntry> entries;
+    private final Set<Table> tables; // Tables with at least one entry
+
+    /**
+     * One change, able to undo itself.
+     */
+    private interface UndoEntry {
+        /**
+         * Undoes the change.
+         * @throws DatabaseOperationException If the table no longer allows it.
+         */
+        void undo() throws DatabaseOperationException;
+    }
+
+    /**
+     * Constructs an empty log.
+     */
+    public UndoLog() {
+        this.entries = new ArrayList<>();
+        this.tables = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Binds a log to the current thread, so that the changes the thread makes to tables are recorded in it.
+     * @param undoLog The log, or null to stop recording.
+     */
+    public static void setCurrent(UndoLog undoLog) {
+        if (undoLog == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(undoLog);
+        }
+    }
+
+    /**
+     * Gets the log bound to the current thread.
+     * @return The log, or null if changes are not recorded.
+     */
+    static UndoLog current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Records a row added at the end of a table.
+     * @param table The table.
+     * @param row The added row.
+     */
+    void rowAdded(Table table, Row row) {
+        add(table, () -> table.undoAddRow(row));
+    }
+
+    /**
+     * Records rows removed from a table in one operation.
+     * @param table The table.
+     * @param rows The removed rows.
+     * @param positions The position each row had in the table before the removal, in ascending order.
+     */
+    void rowsRemoved(Table table, List<Row> rows, int[] positions) {
+        add(table, () -> table.undoRemoveRows(rows, positions));
+    }
+
+    /**
+     * Records a changed value.
+     * @param table The table.
+     * @param row The changed row.
+     * @param columnIndex The index of the changed column.
+     * @param oldValue The value the column held before.
+     * @param newValue The value the column holds after the change, which undoing it replaces.
+     */
+    void valueChanged(Table table, Row row, int columnIndex, Object oldValue, Object newValue) {
+        add(table, () -> table.undoSetValue(row, columnIndex, newValue, oldValue));
+    }
+
+    /**
+     * Records the replacement of all rows of a table.
+     * @param table The table.
+     * @param oldRows The rows the table held before.
+     */
+    void rowsReplaced(Table table, List<Row> oldRows) {
+        add(table, () -> table.setRows(oldRows));
+    }
+
+    /**
+     * Records a column added at the end of a table.
+     * @param table The table.
+     */
+    void columnAdded(Table table) {
+        add(table, table::undoAddColumn);
+    }
+
+    /**
+     * Appends an entry.
+     * @param table The changed table.
+     * @param entry The entry.
+     */
+    private void add(Table table, UndoEntry entry) {
+        entries.add(entry);
+        tables.add(table);
+    }
+
+    /**
+     * Gets the number of recorded changes.
+     * @return The number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Undoes every recorded change, newest first, and empties the log.
+     * Nothing is recorded while the changes are undone.
+     * @return The tables that were changed.
+     * @throws DatabaseOperationException If a change cannot be undone; the older changes are then kept.
+     */
+    public List<Table> rollback() throws DatabaseOperationException {
+        UndoLog bound = CURRENT.get();
+        CURRENT.remove();
+        try {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                entries.get(i).undo();
+                entries.remove(i);
+            }
+        } finally {
+            setCurrent(bound);
+        }
+        return clear();
+    }
+
+    /**
+     * Forgets every recorded change, when they are committed.
+     * @return The tables that were changed.
+     */
+    public List<Table> clear() {
+        List<Table> changed = new ArrayList<>(tables);
+        entries.clear();
+        tables.clear();
+        return changed;
+    }
+}
@@ -0,0 +1,52 @@
+package project;
+
+/**
+ * Hashing of column values for probabilistic structures and hash partitioning.
+ * Unlike {@link Object#hashCode()}, the hashes are 64 bits wide and well mixed in every bit,
+ * so any range of bits can be used to pick a register, bucket or partition.
+ */
+public final class ValueHash {
+
+    private ValueHash() {
+    }
+
+    /**
+     * Computes a well-mixed 64-bit hash of a column value.
+     * Numbers are hashed from their bit patterns and strings from their characters,
+     * so equal values always produce equal hashes.
+     * @param value The value to hash. Must not be null.
+     * @return The 64-bit hash.
+     */
+    public static long hash64(Object value) {
+        long h;
+        if (value instanceof Integer) {
+            h = (Integer) value;
+        } else if (value instanceof Double) {
+            h = Double.doubleToLongBits((Double) value);
+        } else {
+            // 64-bit FNV-1a over the characters of the string form.
+            String s = value.toString();
+            h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+        }
+        return mix(h);
+    }
+
+    /**
+     * Spreads the bits of a 64-bit value over all bits of the result, so that nearby inputs
+     * produce unrelated hashes. Distinct inputs always produce distinct outputs.
+     * @param h The value to mix.
+     * @return The mixed value.
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
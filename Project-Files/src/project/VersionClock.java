@@ -0,0 +1,182 @@
+package project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Commit timestamps and read snapshots for multi-version concurrency.
+ * Tables of the database keep the old versions of changed and deleted rows: a change made by a
+ * command stays pending until the command ends, and is then committed with the next timestamp.
+ * A reading command takes a snapshot when it starts and sees every row as of the last commit before
+ * that, so writers never wait for it and it never sees half of a change.
+ * Old versions are dropped once no open snapshot is older than the commit that replaced them.
+ * A thread without a snapshot, such as a writer or a command with exclusive access, sees the latest data.
+ */
+public class VersionClock {
+
+    /** Time seen by a thread without a snapshot: every committed and pending change is visible. */
+    public static final long LATEST = Long.MAX_VALUE;
+    /** Stamp of a change that is not committed yet; only threads without a snapshot see it. */
+    static final long PENDING = Long.MAX_VALUE;
+
+    private static final ThreadLocal<Snapshot> CURRENT_SNAPSHOT = new ThreadLocal<>();
+
+    private volatile long lastCommitted;                   // Time of the last commit
+    private final TreeMap<Long, Integer> activeSnapshots;  // Number of open snapshots at each time
+    private final Object commitLock;
+    private final ThreadLocal<Set<Table>> pendingTables;   // Tables changed by the current thread's command
+    private final Set<Table> tablesWithHistory;            // Tables that keep old row versions
+
+    /**
+     * A consistent view of the data as of one commit, held by a reading command while it runs.
+     */
+    public class Snapshot implements AutoCloseable {
+        private final long time;
+        private boolean closed;
+
+        /**
+         * Constructs a snapshot.
+         * @param time The time of the last commit the snapshot sees.
+         */
+        private Snapshot(long time) {
+            this.time = time;
+        }
+
+        /**
+         * Gets the time of the snapshot.
+         * @return The time of the last commit the snapshot sees.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Ends the snapshot and drops the row versions that only it still needed.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            CURRENT_SNAPSHOT.remove();
+            synchronized (VersionClock.this) {
+                Integer count = activeSnapshots.get(time);
+                if (count != null && count > 1) {
+                    activeSnapshots.put(time, count - 1);
+                } else {
+                    activeSnapshots.remove(time);
+                }
+            }
+            vacuum();
+        }
+    }
+
+    /**
+     * Constructs a clock with no commits and no open snapshots.
+     */
+    public VersionClock() {
+        this.lastCommitted = 0;
+        this.activeSnapshots = new TreeMap<>();
+        this.commitLock = new Object();
+        this.pendingTables = ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+        this.tablesWithHistory = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Takes a snapshot of the last commit for the current thread, which then sees the rows of every
+     * table as they were at that commit until the snapshot is closed.
+     * @return The snapshot, to be closed when the command ends.
+     */
+    public Snapshot openSnapshot() {
+        Snapshot snapshot;
+        synchronized (this) {
+            snapshot = new Snapshot(lastCommitted);
+            activeSnapshots.merge(snapshot.time, 1, Integer::sum);
+        }
+        CURRENT_SNAPSHOT.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Gets the time the current thread reads at.
+     * @return The time of the thread's snapshot, or {@link #LATEST} if it has none.
+     */
+    public static long currentSnapshotTime() {
+        Snapshot snapshot = CURRENT_SNAPSHOT.get();
+        return snapshot == null ? LATEST : snapshot.time;
+    }
+
+    /**
+     * Gets the time of the last commit.
+     * @return The commit time, or 0 if nothing was committed yet.
+     */
+    public long getLastCommitted() {
+        return lastCommitted;
+    }
+
+    /**
+     * Records that the current thread's command changed a table, so that the change is committed
+     * when the command ends.
+     * @param table The changed table.
+     */
+    void recordWrite(Table table) {
+        pendingTables.get().add(table);
+    }
+
+    /**
+     * Commits the changes of the current thread's command: every table it changed gets the next
+     * commit time, after which new snapshots see the changes. Does nothing if nothing was changed.
+     */
+    public void commit() {
+        Set<Table> tables = pendingTables.get();
+        if (tables.isEmpty()) {
+            return;
+        }
+        synchronized (commitLock) {
+            long time = lastCommitted + 1;
+            for (Table table : tables) {
+                if (table.commitChanges(time)) {
+                    tablesWithHistory.add(table);
+                }
+            }
+            synchronized (this) {
+                lastCommitted = time;
+            }
+        }
+        tables.clear();
+        vacuum();
+    }
+
+    /**
+     * Drops the row versions that no open snapshot needs any more.
+     */
+    private void vacuum() {
+        if (tablesWithHistory.isEmpty()) {
+            return;
+        }
+        synchronized (commitLock) { // A table is not forgotten while a commit gives it new history
+            long horizon;
+            synchronized (this) {
+                horizon = activeSnapshots.isEmpty() ? lastCommitted : activeSnapshots.firstKey();
+            }
+            for (Table table : new ArrayList<>(tablesWithHistory)) {
+                if (!table.vacuum(horizon)) {
+                    tablesWithHistory.remove(table);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the tables that keep old row versions, after the catalog has been closed.
+     * Must only be called while holding exclusive access.
+     */
+    public void clear() {
+        tablesWithHistory.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package project;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A named query stored in the catalog in place of a result table.
+ * A view holds no data of its own: its query is evaluated when the view is first read, and the
+ * result is kept together with the versions of the tables and views it read, so it can be reused
+ * until one of them changes.
+ */
+public class View {
+
+    private final String name;
+    private final String query;
+    private Table result;
+    private Map<String, Long> dependencies; // Version of every table or view read by the last evaluation
+
+    /**
+     * Constructs a view that has not been evaluated yet.
+     * @param name The name of the view.
+     * @param query The query text.
+     */
+    public View(String name, String query) {
+        this.name = name;
+        this.query = query;
+        this.result = null;
+        this.dependencies = Collections.emptyMap();
+    }
+
+    /**
+     * Gets the name of the view.
+     * @return The view name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the query text of the view.
+     * @return The query.
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the result of the last evaluation.
+     * @return The result table, or null if the view has not been evaluated.
+     */
+    public Table getResult() {
+        return result;
+    }
+
+    /**
+     * Gets the tables and views read by the last evaluation, with the versions that were read.
+     * @return An unmodifiable map of name to version.
+     */
+    public Map<String, Long> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Stores the result of an evaluation.
+     * @param result The result table.
+     * @param dependencies The versions of the tables and views the evaluation read.
+     */
+    void setResult(Table result, Map<String, Long> dependencies) {
+        this.result = result;
+        this.dependencies = Collections.unmodifiableMap(dependencies);
+    }
+
+    /**
+     * Drops the stored result, so the query is evaluated again on the next read.
+     */
+    void clearResult() {
+        this.result = null;
+        this.dependencies = Collections.emptyMap();
+    }
+}
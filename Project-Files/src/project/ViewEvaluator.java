@@ -0,0 +1,16 @@
+package project;
+
+/**
+ * Evaluates the query text of a view. Each {@link Database} creates its own, a {@link CommandViewEvaluator},
+ * which knows how to parse a query and which command runs it.
+ */
+public interface ViewEvaluator {
+    /**
+     * Evaluates a view's query.
+     * @param viewName The name of the view, used as the name of the result table.
+     * @param query The query text, a command line such as "innerjoin Audi 2 Colors 0".
+     * @return The result table.
+     * @throws DatabaseOperationException If the query is not a valid query command or fails.
+     */
+    Table evaluate(String viewName, String query) throws DatabaseOperationException;
+}
@@ -36,7 +36,7 @@ public class AddColumnCommand implements CommandHandler {
             String colName = args[1];
             String typeName = args[2];
 
-            Table table = database.getTable(tableName);
+            Table table = database.getTableForUpdate(tableName);
 
             DataType colType;
             try {
@@ -54,4 +54,14 @@ public class AddColumnCommand implements CommandHandler {
             System.out.println("ERROR: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Alters the structure of the given table; other tables stay available to other commands.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.alter(args.length > 0 ? args[0] : null);
+    }
+}
@@ -11,6 +11,7 @@ import java.util.*;
 public class AggregateCommand implements CommandHandler {
 
     private final Database database;
+    private final QueryEngine queries;
 
     /**
      * Constructs an AggregateCommand.
@@ -18,12 +19,15 @@ public class AggregateCommand implements CommandHandler {
      */
     public AggregateCommand(Database database) {
         this.database = database;
+        this.queries = new QueryEngine(database);
     }
 
     /**
      * Executes the aggregate command.
      * Performs an aggregation (sum, product, min, max) on a target numeric column
      * for rows that match a specific value in a search column.
+     * The aggregate is computed by {@link QueryEngine#aggregate}, which answers minimum and maximum from
+     * the column statistics when every row matches or when the search and target columns are the same.
      * Usage: aggregate &lt;table&gt; &lt;search column index&gt; &lt;search value&gt; &lt;target column index&gt; &lt;operation&gt;
      * Valid operations: sum, product, maximum, minimum.
      * Target column must be of type INTEGER or DOUBLE.
@@ -53,7 +57,7 @@ public class AggregateCommand implements CommandHandler {
                 return;
             }
 
-            Column searchColumn = table.getColumn(searchColIndex); // Might throw if index out of bounds
+            table.getColumn(searchColIndex); // Might throw if index out of bounds
             Column targetColumn = table.getColumn(targetColIndex); // Might throw if index out of bounds
             DataType targetType = targetColumn.getType();
 
@@ -62,79 +66,45 @@ public class AggregateCommand implements CommandHandler {
                 return;
             }
 
-            List<Number> targetValues = new ArrayList<>();
-            try {
-                // Filter rows and collect target numeric values.
-                // Iterate through each row in the table.
-                for (Row row : table.getRows()) {
-                    if (TypeParser.looselyEquals(row.getValue(searchColIndex), searchVal, searchColumn.getType())) {
-                        Object targetCellValue = row.getValue(targetColIndex);
-                        if (targetCellValue instanceof Number) {
-                            targetValues.add((Number) targetCellValue);
-                        }
-                    }
-                }
-            } catch (IndexOutOfBoundsException e) {
-                throw new DatabaseOperationException("ERROR: During aggregate filter - column index out of bounds.", e);
-            }
-
-            if (targetValues.isEmpty()) {
-                System.out.println("WARNING: No matching rows with numeric target values (INTEGER or DOUBLE) found for aggregation.");
+            AggregateOperation aggregateOperation = AggregateOperation.fromName(operation);
+            if (aggregateOperation == null) {
+                System.out.println("WARNING: Unknown operation: '" + args[4] + "'. Valid operations are: sum, product, maximum, minimum.");
                 return;
             }
 
-            // Perform the specified aggregation.
-            double sum = 0;
-            double product = 1;
-            Double max = null;
-            Double min = null;
-            boolean first = true;
-
-            for (Number num : targetValues) {
-                double val = num.doubleValue();
-                sum += val;
-                product *= val;
-                if (first) {
-                    max = val;
-                    min = val;
-                    first = false;
-                } else {
-                    if (val > max) max = val;
-                    if (val < min) min = val;
-                }
-            }
-
-            Optional<Double> result = Optional.empty();
-            switch (operation) {
-                case "sum":
-                    result = Optional.of(sum);
-                    break;
-                case "product":
-                    result = Optional.of(product);
-                    break;
-                case "maximum":
-                    result = (max != null) ? Optional.of(max) : Optional.empty();
-                    break;
-                case "minimum":
-                    result = (min != null) ? Optional.of(min) : Optional.empty();
-                    break;
-                default:
-                    System.out.println("WARNING: Unknown operation: '" + args[4] + "'. Valid operations are: sum, product, maximum, minimum.");
-                    return;
-            }
-
+            OptionalDouble result = queries.aggregate(tableName, searchColIndex, searchVal, targetColIndex, aggregateOperation);
             if (result.isPresent()) {
-                double resValue = result.get();
-                if (targetType == DataType.INTEGER && resValue == Math.floor(resValue) && !Double.isInfinite(resValue)) {
-                    System.out.println("Result (" + operation + "): " + (int) resValue);
-                } else {
-                    System.out.println("Result (" + operation + "): " + resValue);
-                }
+                System.out.println(formatResult(operation, result.getAsDouble(), targetType));
             } else {
-                System.out.println("ERROR: Could not compute result for operation '" + operation + "'.");
+                System.out.println("WARNING: No matching rows with numeric target values (INTEGER or DOUBLE) found for aggregation.");
             }
         } catch (DatabaseOperationException e) {
             System.out.println("ERROR: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Formats the result line of an aggregation.
+     * Whole-number results on INTEGER columns are shown without a fractional part.
+     * @param operation The aggregate operation name.
+     * @param resValue The computed value.
+     * @param targetType The data type of the target column.
+     * @return The formatted result line.
+     */
+    private String formatResult(String operation, double resValue, DataType targetType) {
+        if (targetType == DataType.INTEGER && resValue == Math.floor(resValue) && !Double.isInfinite(resValue)) {
+            return "Result (" + operation + "): " + (int) resValue;
+        }
+        return "Result (" + operation + "): " + resValue;
+    }
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,61 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for estimating the number of distinct values in a column.
+ */
+public class ApproxDistinctCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs an ApproxDistinctCommand.
+     * @param database The database instance to operate on.
+     */
+    public ApproxDistinctCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the approxdistinct command.
+     * Estimates the number of distinct non-null values in a column from its HyperLogLog sketch,
+     * which is maintained as rows are inserted, so the answer comes back without a scan.
+     * Usage: approxdistinct &lt;table&gt; &lt;column index&gt;
+     * @param args Command arguments: table name, column index.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 2) {
+                System.out.println("Usage: approxdistinct <table> <column index>");
+                return;
+            }
+            String tableName = args[0];
+            Table table = database.getTable(tableName);
+            int columnIndex;
+            try {
+                columnIndex = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid index. Column index must be a number.");
+                return;
+            }
+
+            Column column = table.getColumn(columnIndex);
+            long estimate = table.getColumnSketch(columnIndex).estimateDistinct();
+            System.out.println("Approximate distinct count of '" + column.getName() + "': " + estimate);
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,83 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for estimating a quantile of a numeric column.
+ */
+public class ApproxQuantileCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs an ApproxQuantileCommand.
+     * @param database The database instance to operate on.
+     */
+    public ApproxQuantileCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the approxquantile command.
+     * Estimates the value at quantile q of a numeric column's non-null values from its KLL sketch,
+     * which is maintained as rows are inserted, so the answer comes back without a scan.
+     * Usage: approxquantile &lt;table&gt; &lt;column index&gt; &lt;q&gt;
+     * The quantile q must be between 0 and 1 (0.5 is the median).
+     * @param args Command arguments: table name, column index, quantile.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 3) {
+                System.out.println("Usage: approxquantile <table> <column index> <q>\nThe quantile q must be between 0 and 1 (0.5 is the median).");
+                return;
+            }
+            String tableName = args[0];
+            Table table = database.getTable(tableName);
+            int columnIndex;
+            double q;
+            try {
+                columnIndex = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid index. Column index must be a number.");
+                return;
+            }
+            try {
+                q = Double.parseDouble(args[2]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid quantile '" + args[2] + "'. Quantile must be a number between 0 and 1.");
+                return;
+            }
+            if (q < 0 || q > 1) {
+                System.out.println("ERROR: Invalid quantile '" + args[2] + "'. Quantile must be a number between 0 and 1.");
+                return;
+            }
+
+            Column column = table.getColumn(columnIndex);
+            if (column.getType() != DataType.INTEGER && column.getType() != DataType.DOUBLE) {
+                System.out.println("WARNING: Column '" + column.getName() + "' must be numeric (INTEGER or DOUBLE) for quantiles.");
+                return;
+            }
+            double estimate = table.getColumnSketch(columnIndex).estimateQuantile(q);
+            if (Double.isNaN(estimate)) {
+                System.out.println("WARNING: Column '" + column.getName() + "' has no non-null values.");
+            } else if (column.getType() == DataType.INTEGER) {
+                System.out.println("Approximate " + q + " quantile of '" + column.getName() + "': " + (long) estimate);
+            } else {
+                System.out.println("Approximate " + q + " quantile of '" + column.getName() + "': " + estimate);
+            }
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,51 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for starting a transaction in the current session.
+ */
+public class BeginCommand implements CommandHandler {
+
+    private final Transaction transaction;
+
+    /**
+     * Constructs a BeginCommand.
+     * @param transaction The transaction state of the session.
+     */
+    public BeginCommand(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    /**
+     * Executes the begin command.
+     * Starts a transaction: the changes of the following commands stay pending until 'commit',
+     * or are undone by 'rollback', and the tables they use stay locked until then.
+     * Usage: begin
+     * @param args Command arguments (not used for this command).
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length != 0) {
+            System.out.println("Usage: begin");
+            return;
+        }
+        try {
+            transaction.begin();
+            System.out.println("Transaction started. Use 'commit' to keep its changes or 'rollback' to undo them.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uses no table data beyond the transaction's own, but must not run while the catalog changes,
+     * and must see the transaction's pending changes rather than a snapshot.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.transactionControl();
+    }
+}
@@ -0,0 +1,54 @@
+package project.commands;
+
+import project.*;
+
+import java.util.Arrays;
+
+/**
+ * Command handler for running a command as a background job.
+ */
+public class BgCommand implements CommandHandler {
+
+    private final JobManager jobs;
+
+    /**
+     * Constructs a BgCommand.
+     * @param jobs The background jobs of the session.
+     */
+    public BgCommand(JobManager jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * Executes the bg command.
+     * Starts the given command on its own thread and returns at once, so that long joins, imports and
+     * saves do not hold up the session. The job reports its output when it finishes, before the next prompt;
+     * 'jobs' shows its progress and 'cancel' stops it. Commands that prompt for input or control the
+     * session, such as 'close' or 'begin', cannot run in the background.
+     * Usage: bg &lt;command&gt; [args...]
+     * @param args Command arguments: the command to run, followed by its own arguments.
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: bg <command> [args...]");
+            return;
+        }
+        try {
+            int id = jobs.start(args[0], Arrays.copyOfRange(args, 1, args.length));
+            System.out.println("[" + id + "] Started in the background. Use 'jobs' to follow it or 'cancel " + id + "' to stop it.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uses no table data. The session runs this command without taking locks.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
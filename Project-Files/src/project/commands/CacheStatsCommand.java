@@ -0,0 +1,54 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for displaying hit and miss statistics of the query result cache.
+ */
+public class CacheStatsCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a CacheStatsCommand.
+     * @param database The database instance whose query cache is reported.
+     */
+    public CacheStatsCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the cachestats command.
+     * Prints the number of cache hits, misses and evictions, the hit ratio,
+     * and how many results are currently cached.
+     * Usage: cachestats
+     * @param args Command arguments (not used for this command).
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length != 0) {
+            System.out.println("Usage: cachestats");
+            return;
+        }
+        QueryCache cache = database.getQueryCache();
+        long lookups = cache.getHits() + cache.getMisses();
+        double hitRatio = lookups == 0 ? 0.0 : (cache.getHits() * 100.0) / lookups;
+
+        System.out.println("Query cache statistics:");
+        System.out.println("  Entries:   " + cache.size() + " / " + cache.getCapacity());
+        System.out.println("  Hits:      " + cache.getHits());
+        System.out.println("  Misses:    " + cache.getMisses());
+        System.out.println("  Evictions: " + cache.getEvictions());
+        System.out.printf("  Hit ratio: %.1f%%\n", hitRatio);
+    }
+
+    /**
+     * Uses no table data, but must not run while the catalog changes.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
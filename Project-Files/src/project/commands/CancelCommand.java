@@ -0,0 +1,56 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for cancelling a background job.
+ */
+public class CancelCommand implements CommandHandler {
+
+    private final JobManager jobs;
+
+    /**
+     * Constructs a CancelCommand.
+     * @param jobs The background jobs of the session.
+     */
+    public CancelCommand(JobManager jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * Executes the cancel command.
+     * Asks a background job to stop. The job stops at the next progress check of its scan, within a few
+     * thousand rows; a join or save that is stopped leaves no partial result file behind.
+     * Usage: cancel &lt;job id&gt;
+     * @param args Command arguments: the job number shown by 'bg' and 'jobs'.
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: cancel <job id>");
+            return;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(args[0]);
+        } catch (NumberFormatException e) {
+            System.out.println("ERROR: Invalid job id. It must be a number.");
+            return;
+        }
+        if (jobs.cancel(id)) {
+            System.out.println("[" + id + "] Cancellation requested.");
+        } else {
+            System.out.println("ERROR: No running job " + id + ".");
+        }
+    }
+
+    /**
+     * Uses no table data. The session runs this command without taking locks.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
@@ -24,7 +24,8 @@ public class CloseCommand implements CommandHandler {
     /**
      * Executes the close command.
      * If a database catalog is open, it will be closed.
-     * If there are unsaved changes, the user is prompted for confirmation before closing.
+     * If there are unsaved changes, the user is prompted for confirmation before closing,
+     * unless prompts are turned off with the system property "db.input.prompts", in which case the close is aborted.
      * Closing a database clears its loaded tables from memory and resets its state.
      * @param args Command arguments (not used for this command).
      */
@@ -37,6 +38,10 @@ public class CloseCommand implements CommandHandler {
 
         // Handle unsaved changes before closing
         if (database.hasUnsavedChanges()) {
+            if (!Boolean.parseBoolean(System.getProperty("db.input.prompts", "true"))) {
+                System.out.println("ERROR: Unsaved changes. Close aborted because prompts are turned off. Please 'save' or 'saveas' your changes first.");
+                return;
+            }
             System.out.print("WARNING: Unsaved changes. Close anyway? (Y/N): ");
             String confirmation = "";
             try {
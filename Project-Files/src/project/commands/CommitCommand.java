@@ -0,0 +1,51 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for committing the transaction of the current session.
+ */
+public class CommitCommand implements CommandHandler {
+
+    private final Transaction transaction;
+
+    /**
+     * Constructs a CommitCommand.
+     * @param transaction The transaction state of the session.
+     */
+    public CommitCommand(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    /**
+     * Executes the commit command.
+     * Ends the active transaction, keeping its changes: they become visible to other sessions
+     * and the tables it used are unlocked. The changes are saved to disk only by 'save'.
+     * Usage: commit
+     * @param args Command arguments (not used for this command).
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length != 0) {
+            System.out.println("Usage: commit");
+            return;
+        }
+        try {
+            int changes = transaction.commit();
+            System.out.println("Transaction committed with " + changes + " change(s).");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uses no table data beyond the transaction's own, but must not run while the catalog changes,
+     * and must see the transaction's pending changes rather than a snapshot.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.transactionControl();
+    }
+}
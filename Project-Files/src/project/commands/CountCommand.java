@@ -7,20 +7,21 @@ import project.*;
  */
 public class CountCommand implements CommandHandler {
 
-    private final Database database;
+    private final QueryEngine queries;
 
     /**
      * Constructs a CountCommand.
      * @param database The database instance to operate on.
      */
     public CountCommand(Database database) {
-        this.database = database;
+        this.queries = new QueryEngine(database);
     }
 
     /**
      * Executes the count command.
      * Counts the number of rows in a specified table where the value in a given column
      * matches a specified search value.
+     * The count is made by {@link QueryEngine#count}, which avoids a scan where it can.
      * Usage: count &lt;table&gt; &lt;column index&gt; &lt;value&gt;
      * @param args Command arguments: table name, search column index, search value.
      */
@@ -35,34 +36,27 @@ public class CountCommand implements CommandHandler {
             String searchColNStr = args[1];
             String searchValue = args[2];
 
-            Table table = database.getTable(tableName);
             int searchColIndex;
-
             try {
                 searchColIndex = Integer.parseInt(searchColNStr);
             } catch (NumberFormatException e) {
                 System.out.println("ERROR: Invalid index. Column index must be a number.");
                 return;
             }
-
-            Column searchColumn = table.getColumn(searchColIndex); // Validates column index
-            int count = 0;
-
-            try {
-                // Iterate through each row and check for a match using TypeParser.looselyEquals
-                for (Row row : table.getRows()) {
-                    if (TypeParser.looselyEquals(row.getValue(searchColIndex), searchValue, searchColumn.getType())) {
-                        count++;
-                    }
-                }
-            } catch (IndexOutOfBoundsException e) {
-
-                throw new DatabaseOperationException("ERROR: During count - column index out of bounds for a row.", e);
-            }
-            System.out.println("Count: " + count);
+            System.out.println("Count: " + queries.count(tableName, searchColIndex, searchValue));
 
         } catch (DatabaseOperationException e) {
             System.out.println("ERROR: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
+    }
+}
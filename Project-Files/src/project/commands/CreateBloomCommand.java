@@ -0,0 +1,65 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for creating an in-memory Bloom filter on a table column.
+ */
+public class CreateBloomCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a CreateBloomCommand.
+     * @param database The database instance containing the table.
+     */
+    public CreateBloomCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the createbloom command.
+     * Builds a Bloom filter on a column, which lets select and count skip the scan for values that
+     * are not in the column. New values are added as rows are inserted and updated, and the filter
+     * is rebuilt after many deletes. Filters are held in memory only and are not saved with the table.
+     * Usage: createbloom &lt;table&gt; &lt;column index&gt;
+     * @param args Command arguments: table name, column index.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 2) {
+                System.out.println("Usage: createbloom <table> <column index>");
+                return;
+            }
+            String tableName = args[0];
+            Table table = database.getTable(tableName);
+            int columnIndex;
+            try {
+                columnIndex = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid index. Column index must be a number.");
+                return;
+            }
+            Column column = table.getColumn(columnIndex);
+            if (table.getBloomFilter(columnIndex) != null) {
+                System.out.println("WARNING: Column " + columnIndex + " ('" + column.getName() + "') of table '" + tableName + "' already has a Bloom filter. Rebuilding it.");
+            }
+            BloomFilter bloomFilter = table.createBloomFilter(columnIndex);
+            System.out.println("Bloom filter created on column " + columnIndex + " ('" + column.getName() + "') of table '" + tableName + "' with "
+                    + bloomFilter.getBitCount() + " bits and " + bloomFilter.getHashCount() + " hash functions.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the given table's access structures, so the table is altered.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.alter(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,64 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for creating an in-memory ordered index on a table column.
+ */
+public class CreateIndexCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a CreateIndexCommand.
+     * @param database The database instance containing the table.
+     */
+    public CreateIndexCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the createindex command.
+     * Builds an ordered index on a column. The index is kept up to date as rows are inserted,
+     * deleted and updated, and lets innerjoin read the table in key order for a merge join.
+     * Indexes are held in memory only and are not saved with the table.
+     * Usage: createindex &lt;table&gt; &lt;column index&gt;
+     * @param args Command arguments: table name, column index.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 2) {
+                System.out.println("Usage: createindex <table> <column index>");
+                return;
+            }
+            String tableName = args[0];
+            Table table = database.getTable(tableName);
+            int columnIndex;
+            try {
+                columnIndex = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid index. Column index must be a number.");
+                return;
+            }
+            Column column = table.getColumn(columnIndex);
+            if (table.getIndex(columnIndex) != null) {
+                System.out.println("WARNING: Column " + columnIndex + " ('" + column.getName() + "') of table '" + tableName + "' is already indexed. Rebuilding the index.");
+            }
+            OrderedIndex index = table.createIndex(columnIndex);
+            System.out.println("Index created on column " + columnIndex + " ('" + column.getName() + "') of table '" + tableName + "' with " + index.getKeyCount() + " distinct keys.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the given table's access structures, so the table is altered.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.alter(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,47 @@
+package project.commands;
+
+import project.*;
+
+import java.util.Arrays;
+
+/**
+ * Command handler for defining a materialized aggregate view over a table.
+ */
+public class CreateMatViewCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a CreateMatViewCommand.
+     * @param database The database instance in which to define the view.
+     */
+    public CreateMatViewCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the creatematview command.
+     * Defines a view holding the sum, count, minimum, maximum or average of a column, either over the
+     * whole table or grouped by the values of another column. The table is scanned once to build the
+     * view; after that, every insert, update and delete on the table adjusts the view directly, so reading
+     * it never rescans the table, except to find a new minimum or maximum after the old one was removed.
+     * The view can be read like a table by print, select, count, aggregate and the other read commands.
+     * Usage: creatematview &lt;name&gt; &lt;table&gt; &lt;target column index&gt; &lt;sum|count|min|max|avg&gt; [group &lt;column index&gt;]
+     * @param args Command arguments: view name, table name, target column index, operation, optional group column.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 4 && args.length != 6) {
+                System.out.println("Usage: creatematview <name> <table> <target column index> <sum|count|min|max|avg> [group <column index>]");
+                return;
+            }
+            MaterializedAggregate materializedView = MaterializedAggregate.parse(args[0], Arrays.copyOfRange(args, 1, args.length));
+            database.createMaterializedView(materializedView);
+            System.out.println("Materialized view '" + args[0] + "' created over '" + materializedView.getTableName()
+                    + "' with " + database.getTable(args[0]).getRowCount() + " row(s).");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+}
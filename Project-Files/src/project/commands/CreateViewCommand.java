@@ -0,0 +1,46 @@
+package project.commands;
+
+import project.*;
+
+import java.util.Arrays;
+
+/**
+ * Command handler for defining a view: a named query that other commands can read like a table.
+ */
+public class CreateViewCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a CreateViewCommand.
+     * @param database The database instance in which to define the view.
+     */
+    public CreateViewCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the createview command.
+     * Stores the query under the view name in the catalog. The query is not run now: it is evaluated
+     * when a command such as print, select, count or aggregate first reads the view, and its result is
+     * reused until one of the tables or views it reads changes. The query can be any select, orderby,
+     * innerjoin, join, semijoin, antijoin or leftjoin command line.
+     * Usage: createview &lt;name&gt; &lt;query...&gt;
+     * @param args Command arguments: the view name, followed by the words of the query.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length < 2) {
+                System.out.println("Usage: createview <name> <query...>");
+                return;
+            }
+            String viewName = args[0];
+            String query = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+            database.createView(viewName, query);
+            System.out.println("View '" + viewName + "' created. It will be evaluated when first used.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class DeleteCommand implements CommandHandler {
             String searchColNStr = args[1];
             String searchValue = args[2];
 
-            Table table = database.getTable(tableName);
+            Table table = database.getTableForUpdate(tableName);
             int searchColIndex;
             try {
                 searchColIndex = Integer.parseInt(searchColNStr);
@@ -47,25 +47,22 @@ public class DeleteCommand implements CommandHandler {
             }
 
             Column searchColumn = table.getColumn(searchColIndex);
-            List<Row> remainingRows = new ArrayList<>();
-            List<Row> currentRows = table.getRows();
-            int originalRowCount = currentRows.size();
+            List<Row> matchingRows = new ArrayList<>();
 
             try {
-                //Iterate through rows and keep only those that do not match the criteria.
-                for (Row row : currentRows) {
-                    if (!TypeParser.looselyEquals(row.getValue(searchColIndex), searchValue, searchColumn.getType())) {
-                        remainingRows.add(row);
+                //Iterate through rows and collect those that match the criteria.
+                for (Row row : table.getRows()) {
+                    if (TypeParser.looselyEquals(row.getValue(searchColIndex), searchValue, searchColumn.getType())) {
+                        matchingRows.add(row);
                     }
                 }
             } catch (IndexOutOfBoundsException e) {
                 throw new DatabaseOperationException("ERROR: During delete - column index out of bounds for a row's values.", e);
             }
 
-            int deletedCount = originalRowCount - remainingRows.size();
-
-            if (deletedCount > 0) {
-                table.setRows(remainingRows);
+            if (!matchingRows.isEmpty()) {
+                // Rows are removed one by one, so statistics and change listeners see each deletion.
+                int deletedCount = table.removeRows(matchingRows);
                 database.dataModified(tableName);
                 System.out.println("Deleted " + deletedCount + " row(s) from '" + tableName + "'.");
             } else {
@@ -75,4 +72,14 @@ public class DeleteCommand implements CommandHandler {
             System.out.println("ERROR: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the given table; other tables stay available to other commands.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.write(args.length > 0 ? args[0] : null);
+    }
+}
@@ -51,4 +51,14 @@ public class DescribeCommand implements CommandHandler {
             System.out.println("ERROR: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,246 @@
+package project.commands;
+
+import project.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Column projection and row window options of the commands that display rows:
+ * "cols &lt;index,index...&gt;" to show only some columns, in the given order,
+ * "limit &lt;N&gt;" to show at most N rows, "offset &lt;M&gt;" to skip the first M rows and
+ * "nopage" to write all rows at once without pagination prompts, for output that is piped to a file.
+ * Pagination is also turned off for all commands by setting the system property "db.output.paging" to false,
+ * and for commands that run as background jobs.
+ * The options follow the command's own arguments and may be given in any order.
+ */
+final class DisplayOptions {
+
+    /** Usage text of the options, for the usage lines of the commands. */
+    static final String USAGE = "[cols <index,index...>] [limit <N>] [offset <M>] [nopage]";
+
+    private final int[] columnIndexes; // Projected columns, or null for all columns
+    private final int limit;           // Maximum number of rows, or -1 for no limit
+    private final int offset;          // Number of rows to skip
+    private final boolean streaming;   // Write all rows without pagination prompts
+
+    /**
+     * Constructs display options.
+     * @param columnIndexes The projected columns, or null for all columns.
+     * @param limit The maximum number of rows, or -1 for no limit.
+     * @param offset The number of rows to skip.
+     * @param streaming True to write all rows without pagination prompts.
+     */
+    private DisplayOptions(int[] columnIndexes, int limit, int offset, boolean streaming) {
+        this.columnIndexes = columnIndexes;
+        this.limit = limit;
+        this.offset = offset;
+        this.streaming = streaming;
+    }
+
+    /**
+     * Parses the options that follow a command's own arguments.
+     * Prints the problem and returns null if they are invalid.
+     * @param args All command arguments.
+     * @param start The position of the first option.
+     * @param table The table the options apply to, for validating column indexes.
+     * @return The options, or null if they are invalid.
+     * @throws DatabaseOperationException If a projected column index is out of range.
+     */
+    static DisplayOptions parse(String[] args, int start, Table table) throws DatabaseOperationException {
+        int[] columnIndexes = null;
+        int limit = -1;
+        int offset = 0;
+        boolean streaming = !Boolean.parseBoolean(System.getProperty("db.output.paging", "true"))
+                || CommandProgress.current().isBackground(); // A background job cannot answer prompts
+        for (int i = start; i < args.length; i += 2) {
+            String option = args[i].toLowerCase();
+            if (option.equals("nopage")) {
+                streaming = true;
+                i--; // The option takes no value.
+                continue;
+            }
+            if (i + 1 == args.length || !(option.equals("cols") || option.equals("limit") || option.equals("offset"))) {
+                System.out.println("ERROR: Invalid option '" + args[i] + "'. Expected " + USAGE + ".");
+                return null;
+            }
+            String value = args[i + 1];
+            try {
+                if (option.equals("cols")) {
+                    columnIndexes = InnerJoinCommand.parseIndexList(value);
+                    for (int columnIndex : columnIndexes) {
+                        table.getColumn(columnIndex); // Validates column index
+                    }
+                } else if (option.equals("limit")) {
+                    limit = Integer.parseInt(value);
+                    if (limit <= 0) {
+                        System.out.println("ERROR: Limit must be a positive number.");
+                        return null;
+                    }
+                } else {
+                    offset = Integer.parseInt(value);
+                    if (offset < 0) {
+                        System.out.println("ERROR: Offset cannot be negative.");
+                        return null;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid " + option + " '" + value + "'. Expected a number" + (option.equals("cols") ? " list." : "."));
+                return null;
+            }
+        }
+        return new DisplayOptions(columnIndexes, limit, offset, streaming);
+    }
+
+    /**
+     * Gets the indexes of the columns to show.
+     * @param table The table being shown.
+     * @return The projected column indexes, or every column index in order if there is no projection.
+     */
+    int[] getColumnIndexes(Table table) {
+        if (columnIndexes != null) {
+            return columnIndexes;
+        }
+        int[] all = new int[table.getColumns().size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    /**
+     * Gets the columns to show.
+     * @param table The table being shown.
+     * @return The projected columns, in display order.
+     */
+    List<Column> getColumns(Table table) {
+        List<Column> columns = new ArrayList<>();
+        for (int columnIndex : getColumnIndexes(table)) {
+            columns.add(table.getColumns().get(columnIndex));
+        }
+        return columns;
+    }
+
+    /**
+     * Checks whether a limit was given.
+     * @return True if the number of rows is limited.
+     */
+    boolean hasLimit() {
+        return limit >= 0;
+    }
+
+    /**
+     * Checks whether the rows are written all at once instead of page by page.
+     * @return True if there are no pagination prompts.
+     */
+    boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Gets the number of rows to skip.
+     * @return The offset.
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the number of rows needed to fill the window, counting the skipped rows.
+     * @return Offset plus limit, or Integer.MAX_VALUE if there is no limit.
+     */
+    private int getRowsNeeded() {
+        return hasLimit() ? (int) Math.min(Integer.MAX_VALUE, (long) offset + limit) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Produces the window of rows to show from a list of rows, starting directly at the offset.
+     * @param rows The rows, in order.
+     * @return An iterator over the rows after the offset, up to the limit.
+     */
+    Iterator<Row> window(List<Row> rows) {
+        return RowPager.iterate(rows, offset, hasLimit() ? limit : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Produces the window of rows to show from a table, as seen by the current thread's snapshot.
+     * The rows are read in place from the offset on, so the table is not copied.
+     * @param table The table.
+     * @return An iterator over the rows after the offset, up to the limit.
+     */
+    Iterator<Row> window(Table table) {
+        Iterator<Row> rows = table.getRowsFrom(offset);
+        return new Iterator<Row>() {
+            private int returned = 0;
+
+            @Override
+            public boolean hasNext() {
+                return (!hasLimit() || returned < limit) && rows.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                returned++;
+                return rows.next();
+            }
+        };
+    }
+
+    /**
+     * Produces the window of rows to show from rows produced on demand. The skipped rows are pulled
+     * from the source when the window is first used, and no rows are pulled past the limit.
+     * @param rows The rows, in order.
+     * @return An iterator over the rows after the offset, up to the limit.
+     */
+    Iterator<Row> window(Iterator<Row> rows) {
+        return new Iterator<Row>() {
+            private int skipped = 0;
+            private int returned = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (skipped < offset && rows.hasNext()) {
+                    rows.next();
+                    skipped++;
+                }
+                return (!hasLimit() || returned < limit) && rows.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                returned++;
+                return rows.next();
+            }
+        };
+    }
+
+    /**
+     * Describes the options that were given, for messages.
+     * @return A description such as " (rows 11-20, columns 0,3)", or an empty string if there are no options.
+     */
+    String describe() {
+        List<String> parts = new ArrayList<>();
+        if (offset > 0 || hasLimit()) {
+            parts.add("rows " + (offset + 1) + "-" + (hasLimit() ? String.valueOf(getRowsNeeded()) : "end"));
+        }
+        if (columnIndexes != null) {
+            StringBuilder list = new StringBuilder();
+            for (int columnIndex : columnIndexes) {
+                if (list.length() > 0) {
+                    list.append(',');
+                }
+                list.append(columnIndex);
+            }
+            parts.add("columns " + list);
+        }
+        return parts.isEmpty() ? "" : " (" + String.join(", ", parts) + ")";
+    }
+}
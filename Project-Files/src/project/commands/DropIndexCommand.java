@@ -0,0 +1,62 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for dropping an in-memory ordered index on a table column.
+ */
+public class DropIndexCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a DropIndexCommand.
+     * @param database The database instance containing the table.
+     */
+    public DropIndexCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the dropindex command.
+     * Removes the ordered index on a column, if there is one.
+     * Usage: dropindex &lt;table&gt; &lt;column index&gt;
+     * @param args Command arguments: table name, column index.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 2) {
+                System.out.println("Usage: dropindex <table> <column index>");
+                return;
+            }
+            String tableName = args[0];
+            Table table = database.getTable(tableName);
+            int columnIndex;
+            try {
+                columnIndex = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid index. Column index must be a number.");
+                return;
+            }
+            Column column = table.getColumn(columnIndex);
+            if (table.dropIndex(columnIndex)) {
+                System.out.println("Index on column " + columnIndex + " ('" + column.getName() + "') of table '" + tableName + "' dropped.");
+            } else {
+                System.out.println("WARNING: Column " + columnIndex + " ('" + column.getName() + "') of table '" + tableName + "' has no index.");
+            }
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the given table's access structures, so the table is altered.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.alter(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,39 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for removing a materialized view.
+ */
+public class DropMatViewCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a DropMatViewCommand.
+     * @param database The database instance containing the view.
+     */
+    public DropMatViewCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the dropmatview command.
+     * Removes the materialized view from the catalog and stops maintaining it. The table it reads is not affected.
+     * Usage: dropmatview &lt;name&gt;
+     * @param args Command arguments: the view name.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 1) {
+                System.out.println("Usage: dropmatview <name>");
+                return;
+            }
+            database.dropMaterializedView(args[0]);
+            System.out.println("Materialized view '" + args[0] + "' dropped.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+}
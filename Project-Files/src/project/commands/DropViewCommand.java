@@ -0,0 +1,39 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for removing a view definition.
+ */
+public class DropViewCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a DropViewCommand.
+     * @param database The database instance containing the view.
+     */
+    public DropViewCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the dropview command.
+     * Removes the view from the catalog. Tables it reads are not affected.
+     * Usage: dropview &lt;name&gt;
+     * @param args Command arguments: the view name.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 1) {
+                System.out.println("Usage: dropview <name>");
+                return;
+            }
+            database.dropView(args[0]);
+            System.out.println("View '" + args[0] + "' dropped.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+}
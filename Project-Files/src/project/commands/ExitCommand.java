@@ -25,13 +25,18 @@ public class ExitCommand implements CommandHandler {
     /**
      * Executes the exit command.
      * If a database catalog is open and has unsaved changes, the user is prompted
-     * for confirmation before exiting. Otherwise, the program terminates.
+     * for confirmation before exiting, unless prompts are turned off with the system property
+     * "db.input.prompts", in which case the exit is aborted. Otherwise, the program terminates.
      * @param args Command arguments (not used for this command).
      */
     @Override
     public void execute(String[] args) {
         // Check for unsaved changes before exiting.
         if (database.isCatalogOpen() && database.hasUnsavedChanges()) {
+            if (!Boolean.parseBoolean(System.getProperty("db.input.prompts", "true"))) {
+                System.out.println("ERROR: Unsaved changes exist. Exit aborted because prompts are turned off. Use 'save' or 'saveas' to save changes first.");
+                return;
+            }
             System.out.print("WARNING: Unsaved changes exist. Exit anyway without saving? (Y/N): ");
             String confirmation = "";
             try {
@@ -47,4 +47,14 @@ public class ExportCommand implements CommandHandler {
             System.out.println("ERROR: An unexpected error occurred during export: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
+    }
+}
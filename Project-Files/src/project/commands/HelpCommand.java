@@ -1,6 +1,7 @@
 package project.commands;
 
 import project.CommandHandler;
+import project.TableAccess;
 
 /**
  * Command handler for displaying help information about available commands.
@@ -18,6 +19,14 @@ public class HelpCommand implements CommandHandler {
         System.out.println("close                  - Closes the currently open database file");
         System.out.println("save                   - Saves changes to the current database and table files");
         System.out.println("saveas <file>          - Saves changes to a new database <file> and associated table files");
+        System.out.println("begin                  - Starts a transaction: changes stay pending and tables stay locked until commit or rollback");
+        System.out.println("commit                 - Ends the transaction, keeping its changes");
+        System.out.println("rollback               - Ends the transaction, undoing its changes");
+        System.out.println("bg <command> [args...] - Runs a command as a background job, reporting its output when it finishes");
+        System.out.println("jobs                   - Lists background jobs with rows processed, throughput and estimated time left");
+        System.out.println("cancel <job id>        - Stops a background job at its next progress check");
+        System.out.println("timeout [millis]       - Shows or sets the time after which commands are stopped (0 for none)");
+        System.out.println("replication            - Shows the replication log of a primary, or how far a read replica has caught up");
         System.out.println("help                   - Prints this information");
         System.out.println("exit                   - Exits the program");
         System.out.println("--------------------------------------------------");
@@ -25,16 +34,43 @@ public class HelpCommand implements CommandHandler {
         System.out.println("import <file.txt>      - Import table from TXT file and add to database");
         System.out.println("showtables             - List all tables registered in the database");
         System.out.println("describe <table>       - Show table structure");
-        System.out.println("print <table>          - Display table contents (loads if needed)");
+        System.out.println("stats <table>          - Show row count and per-column null/distinct/min/max statistics");
+        System.out.println("createindex <table> <column index> - Build an in-memory ordered index on a column");
+        System.out.println("dropindex <table> <column index>   - Remove the ordered index on a column");
+        System.out.println("createbloom <table> <column index> - Build an in-memory Bloom filter to skip scans for absent values");
+        System.out.println("dropbloom <table> <column index>   - Remove the Bloom filter on a column");
+        System.out.println("print <table> [cols <index,index...>] [limit <N>] [offset <M>] [nopage] - Display table contents (loads if needed); nopage writes all rows without prompts");
         System.out.println("export <table> <file.txt> - Export specific table to a TXT file");
-        System.out.println("select <table> <column index> <value> - Select rows with value");
+        System.out.println("select <table> <column index> <value> [cols <index,index...>] [limit <N>] [offset <M>] [nopage] - Select rows with value");
         System.out.println("addcolumn <table> <column name> <column type> - Add new column");
         System.out.println("update <table> <search column index> <search value> <target column index> <target value> - Update rows value");
         System.out.println("delete <table> <column index> <value> - Delete rows by matching rules");
         System.out.println("insert <table> <values...> - Insert new row (provide values for all columns)");
-        System.out.println("innerjoin <table1> <column1 index> <table2> <column2 index> - Join two tables (auto-names new table)");
+        System.out.println("innerjoin <table1> <column1 index[,index...]> <table2> <column2 index[,index...]> - Join two tables on one or more columns (auto-names new table)");
+        System.out.println("join <table1> <table2> [<table3>...] on <tableA>.<column index>=<tableB>.<column index>... - Join several tables in one pass");
+        System.out.println("semijoin <table1> <column1 index[,index...]> <table2> <column2 index[,index...]> - Keep table1 rows that have a match in table2");
+        System.out.println("antijoin <table1> <column1 index[,index...]> <table2> <column2 index[,index...]> - Keep table1 rows that have no match in table2");
+        System.out.println("leftjoin <table1> <column1 index[,index...]> <table2> <column2 index[,index...]> - Join two tables, keeping unmatched table1 rows with NULLs");
+        System.out.println("orderby <table> <column index> [asc|desc] [limit <N>] - Sort rows into a new table (auto-names new table)");
+        System.out.println("createview <name> <query...> - Define a view over a select, orderby or join query, evaluated when used");
+        System.out.println("dropview <name>        - Remove a view definition");
+        System.out.println("creatematview <name> <table> <target column index> <sum|count|min|max|avg> [group <column index>] - Define an aggregate kept up to date on every change");
+        System.out.println("dropmatview <name>     - Remove a materialized view");
         System.out.println("rename <old> <new>     - Rename table (also renames associated file)");
         System.out.println("count <table> <column index> <value> - Count matching rows");
         System.out.println("aggregate <table> <search column index> <search value> <target column index> <operation> - Perform aggregation");
+        System.out.println("cachestats             - Show query result cache hit/miss statistics");
+        System.out.println("approxdistinct <table> <column index> - Estimate distinct values (HyperLogLog)");
+        System.out.println("approxquantile <table> <column index> <q> - Estimate quantile q in [0,1] of a numeric column (KLL)");
     }
-}
\ No newline at end of file
+
+    /**
+     * Uses no table data, but must not run while the catalog changes.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
@@ -8,9 +8,10 @@ import java.io.File;
 /**
  * Command handler for performing an inner join operation on two tables.
  */
-public class InnerJoinCommand implements CommandHandler {
+public class InnerJoinCommand implements QueryCommand {
 
     private final Database database;
+    private final QueryEngine queries;
 
     /**
      * Constructs an InnerJoinCommand.
@@ -18,18 +19,22 @@ public class InnerJoinCommand implements CommandHandler {
      */
     public InnerJoinCommand(Database database) {
         this.database = database;
+        this.queries = new QueryEngine(database);
     }
 
     /**
      * Executes the inner join command.
-     * Joins two tables based on equality of values in specified columns.
+     * Joins two tables based on equality of values in specified columns. Several columns can be given
+     * per table as a comma-separated list (e.g., "0,2"); rows then match when every pair of columns is equal.
      * A new table is created to store the result of the join. Column names in the new table
      * are prefixed with their original table names to avoid ambiguity (e.g., "table1.colA").
      * The new table is automatically named (e.g., "join_table1_table2") and registered
-     * in the database. Its data is also saved to a new file.
-     * Usage: innerjoin &lt;table1_name&gt; &lt;table1_column_index&gt; &lt;table2_name&gt; &lt;table2_column_index&gt;
-     * @param args Command arguments: name of the first table, index of join column in first table,
-     * name of the second table, index of join column in second table.
+     * in the database. Its rows are streamed directly to a new file while the join runs,
+     * and the table is loaded into memory only when it is first used.
+     * The join strategy is chosen by {@link InnerJoin}.
+     * Usage: innerjoin &lt;table1_name&gt; &lt;table1_column_index[,index...]&gt; &lt;table2_name&gt; &lt;table2_column_index[,index...]&gt;
+     * @param args Command arguments: name of the first table, indexes of join columns in first table,
+     * name of the second table, indexes of join columns in second table.
      */
     @Override
     public void execute(String[] args) {
@@ -38,76 +43,28 @@ public class InnerJoinCommand implements CommandHandler {
             return;
         }
         try {
-            if (args.length != 4) {
-                System.out.println("Usage: innerjoin <table1> <column1_index> <table2> <column2_index>");
+            InnerJoin join = parseJoin(args);
+            if (join == null) {
                 return;
             }
-            String t1Name = args[0];
-            String c1IdxStr = args[1];
-            String t2Name = args[2];
-            String c2IdxStr = args[3];
 
-            Table t1 = database.getTable(t1Name);
-            Table t2 = database.getTable(t2Name);
-
-            if (t1Name.equalsIgnoreCase(t2Name)) {
-                System.out.println("WARNING: Self-join is not supported by this command. Tables must be different.");
-                return;
-            }
-
-            int c1Idx, c2Idx;
-            try {
-                c1Idx = Integer.parseInt(c1IdxStr);
-                c2Idx = Integer.parseInt(c2IdxStr);
-            } catch (NumberFormatException e) {
-                System.out.println("ERROR: Invalid index. Column indices must be numbers.");
-                return;
-            }
-
-            Column col1 = t1.getColumn(c1Idx);
-            Column col2 = t2.getColumn(c2Idx);
-
-            // Construct columns for the new joined table.
-            // Column names are prefixed with original table names to avoid clashes.
-            List<Column> joinedCols = new ArrayList<>();
-            for (Column c : t1.getColumns()) {
-                joinedCols.add(new Column(t1Name + "." + c.getName(), c.getType()));
-            }
-            for (Column c : t2.getColumns()) {
-                joinedCols.add(new Column(t2Name + "." + c.getName(), c.getType()));
-            }
-
-            String finalJoinedTableName = generateUniqueJoinName(t1Name, t2Name);
+            String finalJoinedTableName = database.reserveTableName(resultBaseName(args));
             String finalJoinedTablePath = finalJoinedTableName + ".txt";
-            Table joinedTable = new Table(finalJoinedTableName, joinedCols);
-            int rowsJoined = 0;
-
-            // Perform the join by iterating through rows of both tables.
-            try {
-                for (Row r1 : t1.getRows()) {
-                    Object v1 = r1.getValue(c1Idx);
-                    if (v1 == null) continue;
 
-                    for (Row r2 : t2.getRows()) {
-                        Object v2 = r2.getValue(c2Idx);
-                        if (v2 == null) continue;
-
-                        // If the values in the join columns are equal, create a new combined row.
-                        if (v1.equals(v2)) {
-                            List<Object> vals = new ArrayList<>(r1.getValues());
-                            vals.addAll(r2.getValues());
-                            joinedTable.addRow(new Row(vals));
-                            rowsJoined++;
-                        }
-                    }
-                }
-            } catch (IndexOutOfBoundsException | DatabaseOperationException e) {
-                throw new DatabaseOperationException("ERROR: An issue occurred during the join operation process.", e);
+            // Joined rows are streamed straight into the result file instead of being collected in memory;
+            // the result table is loaded on first use.
+            // A join that fails or is cancelled part way leaves no partial result behind.
+            long rowsJoined;
+            try (TableFileWriter writer = new TableFileWriter(finalJoinedTableName, join.getColumns(), finalJoinedTablePath)) {
+                rowsJoined = join.run(writer);
+            } catch (DatabaseOperationException e) {
+                new File(FileHandler.getWritePath(finalJoinedTablePath)).delete();
+                database.releaseTableName(finalJoinedTableName);
+                throw e;
             }
 
-            database.registerNewTable(joinedTable, finalJoinedTablePath);
-            System.out.println("Inner join completed. New table '" + finalJoinedTableName + "' created with " + rowsJoined + " rows.");
-            FileHandler.writeTableToFile(joinedTable, finalJoinedTablePath);
+            database.registerTableFile(finalJoinedTableName, finalJoinedTablePath);
+            System.out.println("Inner join completed using " + join.getStrategy() + ". New table '" + finalJoinedTableName + "' created with " + rowsJoined + " rows.");
             System.out.println("Joined table '" + finalJoinedTableName + "' saved to '" + finalJoinedTablePath + "'.");
 
         } catch (DatabaseOperationException e) {
@@ -116,21 +73,83 @@ public class InnerJoinCommand implements CommandHandler {
     }
 
     /**
-     * Generates a unique name for the joined table to avoid naming conflicts.
-     * Starts with "join_table1_table2" and appends a suffix (_2, _3, etc.) if the name already exists.
-     * @param t1 Name of the first table.
-     * @param t2 Name of the second table.
-     * @return A unique name for the resulting joined table.
-     * @throws DatabaseOperationException if database access fails.
+     * Evaluates the inner join as the query of a view, collecting the joined rows in memory
+     * instead of writing them to a file. The join strategy is chosen as for {@link #execute(String[])}.
+     * @param resultName The name to give the result table.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The joined table.
+     * @throws DatabaseOperationException If the arguments are invalid or the join fails.
+     */
+    @Override
+    public Table evaluate(String resultName, String[] args) throws DatabaseOperationException {
+        InnerJoin join = parseJoin(args);
+        if (join == null) {
+            throw new DatabaseOperationException("ERROR: Invalid innerjoin query.");
+        }
+        Table result = new Table(resultName, join.getColumns());
+        join.run(QueryMemory.current().track(result::addRow, "the result of the join"));
+        return result;
+    }
+
+    /**
+     * Parses the command arguments into a validated join. Prints the usage or the problem and returns null if they are invalid.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The join, or null if the arguments are invalid.
+     * @throws DatabaseOperationException If a table is not found, the tables are the same or a column index is out of range.
+     */
+    private InnerJoin parseJoin(String[] args) throws DatabaseOperationException {
+        if (args.length != 4) {
+            System.out.println("Usage: innerjoin <table1> <column1_index[,index...]> <table2> <column2_index[,index...]>");
+            return null;
+        }
+        int[] c1Idxs;
+        int[] c2Idxs;
+        try {
+            c1Idxs = parseIndexList(args[1]);
+            c2Idxs = parseIndexList(args[3]);
+        } catch (NumberFormatException e) {
+            System.out.println("ERROR: Invalid index. Column indices must be numbers.");
+            return null;
+        }
+        if (args[0].equalsIgnoreCase(args[2])) {
+            System.out.println("WARNING: Self-join is not supported by this command. Tables must be different.");
+            return null;
+        }
+        return queries.prepareInnerJoin(args[0], c1Idxs, args[2], c2Idxs);
+    }
+
+    /**
+     * Parses a comma-separated list of column indexes, such as "0,2".
+     * @param list The list text.
+     * @return The column indexes, in the given order.
+     * @throws NumberFormatException If an entry is not a number.
      */
-    private String generateUniqueJoinName(String t1, String t2) throws DatabaseOperationException {
-        String base = "join_" + t1 + "_" + t2;
-        String name = base;
-        int suffix = 1;
-        Set<String> existingNames = database.getTableNames();
-        while (existingNames.contains(name)) {
-            name = base + "_" + (++suffix);
+    static int[] parseIndexList(String list) {
+        String[] parts = list.split(",", -1);
+        int[] indexes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            indexes[i] = Integer.parseInt(parts[i].trim());
         }
-        return name;
+        return indexes;
+    }
+
+    /**
+     * Reads the two joined tables. The result table is registered under a reserved name.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        TableAccess access = TableAccess.read(args.length > 0 ? args[0] : null, args.length > 2 ? args[2] : null);
+        return args.length > 2 ? access.creating(resultBaseName(args)) : access;
+    }
+
+    /**
+     * Gets the name the result table's name is reserved from.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The base name.
+     */
+    private static String resultBaseName(String[] args) {
+        return "join_" + args[0] + "_" + args[2];
     }
-}
\ No newline at end of file
+}
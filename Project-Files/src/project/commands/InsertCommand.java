@@ -9,6 +9,7 @@ import java.util.*;
 public class InsertCommand implements CommandHandler {
 
     private final Database database;
+    private final QueryEngine queries;
 
     /**
      * Constructs an InsertCommand.
@@ -16,13 +17,14 @@ public class InsertCommand implements CommandHandler {
      */
     public InsertCommand(Database database) {
         this.database = database;
+        this.queries = new QueryEngine(database);
     }
 
     /**
      * Executes the insert command.
      * Inserts a new row into the specified table with the given values.
      * The number of values provided must exactly match the number of columns in the table.
-     * Values are parsed according to their respective column data types.
+     * Values are parsed according to their respective column data types, then inserted with {@link QueryEngine#insert}.
      * Usage: insert &lt;table_name&gt; &lt;value1&gt; [&lt;value2&gt; ...]
      * @param args Command arguments: table name, followed by values for each column in order.
      */
@@ -34,7 +36,7 @@ public class InsertCommand implements CommandHandler {
                 return;
             }
             String tableName = args[0];
-            Table table = database.getTable(tableName);
+            Table table = database.getTableForUpdate(tableName);
             List<Column> columns = table.getColumns();
             int expectedValues = columns.size();
             int providedValues = args.length - 1;
@@ -66,8 +68,7 @@ public class InsertCommand implements CommandHandler {
                 }
             }
 
-            table.addRow(new Row(parsedValues));
-            database.dataModified(tableName);
+            queries.insert(tableName, parsedValues);
             System.out.println("Row inserted successfully into '" + tableName + "'.");
 
         } catch (DatabaseOperationException e) {
@@ -76,4 +77,14 @@ public class InsertCommand implements CommandHandler {
             System.out.println("ERROR: An unexpected error occurred during insert: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the given table; other tables stay available to other commands.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.write(args.length > 0 ? args[0] : null);
+    }
+}
@@ -0,0 +1,55 @@
+package project.commands;
+
+import project.*;
+
+import java.util.List;
+
+/**
+ * Command handler for listing the background jobs of the session.
+ */
+public class JobsCommand implements CommandHandler {
+
+    private final JobManager jobs;
+
+    /**
+     * Constructs a JobsCommand.
+     * @param jobs The background jobs of the session.
+     */
+    public JobsCommand(JobManager jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * Executes the jobs command.
+     * Lists the background jobs that are running or have finished without being reported yet, with their
+     * state, running time, rows processed, throughput and, where the amount of work is known, the estimated
+     * time remaining.
+     * Usage: jobs
+     * @param args Command arguments (not used for this command).
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length != 0) {
+            System.out.println("Usage: jobs");
+            return;
+        }
+        List<String> lines = jobs.describeJobs();
+        if (lines.isEmpty()) {
+            System.out.println("No background jobs.");
+            return;
+        }
+        for (String line : lines) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Uses no table data. The session runs this command without taking locks.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
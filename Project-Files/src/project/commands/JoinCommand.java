@@ -0,0 +1,210 @@
+package project.commands;
+
+import project.*;
+
+import java.util.*;
+
+/**
+ * Command handler for joining several tables at once.
+ */
+public class JoinCommand implements QueryCommand {
+
+    private final Database database;
+
+    /**
+     * Constructs a JoinCommand.
+     * @param database The database instance containing the tables to be joined.
+     */
+    public JoinCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the join command.
+     * Inner joins two or more tables on equality conditions, one fewer than the number of tables,
+     * each comparing a column of one table with a column of another (e.g., "Audi.2=Colors.0").
+     * The join order is chosen from row counts and distinct-value statistics, and printed. All tables
+     * are joined in one pipelined pass, so no intermediate tables are created, registered or saved.
+     * The result is streamed to a new file, named for example "join_table1_table2_table3", and
+     * registered in the database; columns are prefixed with their table names, in the order the tables were given.
+     * Usage: join &lt;table1&gt; &lt;table2&gt; [&lt;table3&gt;...] on &lt;tableA&gt;.&lt;column index&gt;=&lt;tableB&gt;.&lt;column index&gt;...
+     * @param args Command arguments: table names, the word "on", and the join conditions.
+     */
+    @Override
+    public void execute(String[] args) {
+        if (!database.isCatalogOpen()) {
+            System.out.println("ERROR: No database file open. Use 'open <filepath>'.");
+            return;
+        }
+        try {
+            List<String> tableNames = new ArrayList<>();
+            MultiJoin join = prepareJoin(args, tableNames);
+            if (join == null) {
+                return;
+            }
+
+            String resultTableName = database.reserveTableName(resultBaseName(tableNames));
+            String resultTablePath = resultTableName + ".txt";
+
+            System.out.println("Join order: " + join.getPlanDescription());
+            long rowsJoined;
+            try (TableFileWriter writer = new TableFileWriter(resultTableName, joinedColumns(tableNames), resultTablePath)) {
+                rowsJoined = join.execute(writer);
+            }
+
+            database.registerTableFile(resultTableName, resultTablePath);
+            System.out.println("Join of " + tableNames.size() + " tables completed. New table '" + resultTableName + "' created with " + rowsJoined + " rows.");
+            System.out.println("Joined table '" + resultTableName + "' saved to '" + resultTablePath + "'.");
+
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluates the join as the query of a view, collecting the joined rows in memory
+     * instead of writing them to a file.
+     * @param resultName The name to give the result table.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The joined table.
+     * @throws DatabaseOperationException If the arguments are invalid or the join fails.
+     */
+    @Override
+    public Table evaluate(String resultName, String[] args) throws DatabaseOperationException {
+        List<String> tableNames = new ArrayList<>();
+        MultiJoin join = prepareJoin(args, tableNames);
+        if (join == null) {
+            throw new DatabaseOperationException("ERROR: Invalid join query.");
+        }
+        Table result = new Table(resultName, joinedColumns(tableNames));
+        join.execute(QueryMemory.current().track(result::addRow, "the result of the join"));
+        return result;
+    }
+
+    /**
+     * Parses and validates the command arguments and plans the join.
+     * Prints the usage or the problem and returns null if they are invalid.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @param tableNames Receives the names of the joined tables, in the order given.
+     * @return The planned join, or null if the arguments are invalid.
+     * @throws DatabaseOperationException If a table is not found or the conditions are invalid.
+     */
+    private MultiJoin prepareJoin(String[] args, List<String> tableNames) throws DatabaseOperationException {
+        int onPosition = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("on")) {
+                onPosition = i;
+                break;
+            }
+        }
+        if (onPosition < 2 || onPosition == args.length - 1) {
+            System.out.println("Usage: join <table1> <table2> [<table3>...] on <tableA>.<column index>=<tableB>.<column index>...");
+            return null;
+        }
+
+        List<Table> tables = new ArrayList<>();
+        for (int i = 0; i < onPosition; i++) {
+            for (String existing : tableNames) {
+                if (existing.equalsIgnoreCase(args[i])) {
+                    System.out.println("WARNING: Table '" + args[i] + "' is listed twice. Self-joins are not supported by this command.");
+                    return null;
+                }
+            }
+            tableNames.add(args[i]);
+            tables.add(database.getTable(args[i]));
+        }
+
+        List<MultiJoin.Condition> conditions = new ArrayList<>();
+        for (int i = onPosition + 1; i < args.length; i++) {
+            String[] sides = args[i].split("=", -1);
+            if (sides.length != 2) {
+                System.out.println("ERROR: Invalid join condition '" + args[i] + "'. Expected <tableA>.<column index>=<tableB>.<column index>.");
+                return null;
+            }
+            int[] left = parseColumnReference(sides[0], tableNames);
+            int[] right = parseColumnReference(sides[1], tableNames);
+            if (left == null || right == null) {
+                return null;
+            }
+            conditions.add(new MultiJoin.Condition(left[0], left[1], right[0], right[1]));
+        }
+
+        return new MultiJoin(tables, conditions);
+    }
+
+    /**
+     * Builds the columns of the joined table: every column of every table, prefixed with its table name,
+     * in the order the tables were given.
+     * @param tableNames The names of the joined tables.
+     * @return The joined columns.
+     * @throws DatabaseOperationException If a table is not found.
+     */
+    private List<Column> joinedColumns(List<String> tableNames) throws DatabaseOperationException {
+        List<Column> joinedCols = new ArrayList<>();
+        for (String tableName : tableNames) {
+            for (Column c : database.getTable(tableName).getColumns()) {
+                joinedCols.add(new Column(tableName + "." + c.getName(), c.getType()));
+            }
+        }
+        return joinedCols;
+    }
+
+    /**
+     * Parses a column reference of the form &lt;table&gt;.&lt;column index&gt;.
+     * Prints an error and returns null if the reference is invalid.
+     * @param reference The reference text.
+     * @param tableNames The names of the tables being joined.
+     * @return A pair of {table position, column index}, or null if invalid.
+     */
+    private static int[] parseColumnReference(String reference, List<String> tableNames) {
+        int dot = reference.lastIndexOf('.');
+        if (dot <= 0 || dot == reference.length() - 1) {
+            System.out.println("ERROR: Invalid column reference '" + reference + "'. Expected <table>.<column index>.");
+            return null;
+        }
+        String tableName = reference.substring(0, dot);
+        int tablePosition = -1;
+        for (int i = 0; i < tableNames.size(); i++) {
+            if (tableNames.get(i).equalsIgnoreCase(tableName)) {
+                tablePosition = i;
+            }
+        }
+        if (tablePosition < 0) {
+            System.out.println("ERROR: Table '" + tableName + "' in join condition is not one of the joined tables.");
+            return null;
+        }
+        try {
+            return new int[]{tablePosition, Integer.parseInt(reference.substring(dot + 1))};
+        } catch (NumberFormatException e) {
+            System.out.println("ERROR: Invalid index. Column index must be a number.");
+            return null;
+        }
+    }
+
+    /**
+     * Reads the tables listed before "on". The result table is registered under a reserved name.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        List<String> tables = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("on")) {
+                break;
+            }
+            tables.add(arg);
+        }
+        TableAccess access = TableAccess.read(tables.toArray(new String[0]));
+        return tables.isEmpty() ? access : access.creating(resultBaseName(tables));
+    }
+
+    /**
+     * Gets the name the result table's name is reserved from.
+     * @param tableNames The joined tables, in the order given.
+     * @return The base name.
+     */
+    private static String resultBaseName(List<String> tableNames) {
+        return "join_" + String.join("_", tableNames);
+    }
+}
@@ -0,0 +1,195 @@
+package project.commands;
+
+import project.*;
+
+import java.util.*;
+
+/**
+ * Command handler for the semijoin, antijoin and leftjoin commands.
+ * They match rows of two tables the same way as {@link InnerJoinCommand} and run on the same
+ * {@link HashJoin}, building the hash table on the second table and probing it with the first.
+ */
+public class JoinVariantCommand implements QueryCommand {
+
+    private final Database database;
+    private final JoinType type;
+    private final String commandName;
+
+    /**
+     * Constructs a JoinVariantCommand.
+     * @param database The database instance containing the tables to be joined.
+     * @param type The kind of join: {@link JoinType#SEMI}, {@link JoinType#ANTI} or {@link JoinType#LEFT}.
+     */
+    public JoinVariantCommand(Database database, JoinType type) {
+        this.database = database;
+        this.type = type;
+        this.commandName = type.name().toLowerCase() + "join";
+    }
+
+    /**
+     * Executes the join command.
+     * A semi join keeps the rows of the first table that have at least one match in the second table,
+     * and an anti join keeps those that have none; both output the first table's columns only, and
+     * stop probing a row at its first match. A left join outputs every matching pair like an inner join,
+     * plus each row of the first table without a match, with NULL values for the second table's columns.
+     * Rows with a NULL join value never match. Several join columns can be given as comma-separated lists.
+     * The result is streamed to a new file, named for example "semijoin_table1_table2", and registered
+     * in the database; it is loaded into memory only when first used.
+     * Usage: semijoin|antijoin|leftjoin &lt;table1&gt; &lt;column1_index[,index...]&gt; &lt;table2&gt; &lt;column2_index[,index...]&gt;
+     * @param args Command arguments: name of the first table, indexes of join columns in first table,
+     * name of the second table, indexes of join columns in second table.
+     */
+    @Override
+    public void execute(String[] args) {
+        if (!database.isCatalogOpen()) {
+            System.out.println("ERROR: No database file open. Use 'open <filepath>'.");
+            return;
+        }
+        try {
+            HashJoin join = prepareJoin(args);
+            if (join == null) {
+                return;
+            }
+
+            String resultTableName = database.reserveTableName(resultBaseName(args));
+            String resultTablePath = resultTableName + ".txt";
+
+            long rowsProduced;
+            try (TableFileWriter writer = new TableFileWriter(resultTableName, resultColumns(args), resultTablePath)) {
+                rowsProduced = join.execute(writer);
+            }
+
+            database.registerTableFile(resultTableName, resultTablePath);
+            System.out.println(capitalize(type.name().toLowerCase()) + " join completed using " + join.getStrategy()
+                    + ". New table '" + resultTableName + "' created with " + rowsProduced + " rows.");
+            System.out.println("Joined table '" + resultTableName + "' saved to '" + resultTablePath + "'.");
+
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluates the join as the query of a view, collecting the result rows in memory
+     * instead of writing them to a file.
+     * @param resultName The name to give the result table.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The result table.
+     * @throws DatabaseOperationException If the arguments are invalid or the join fails.
+     */
+    @Override
+    public Table evaluate(String resultName, String[] args) throws DatabaseOperationException {
+        HashJoin join = prepareJoin(args);
+        if (join == null) {
+            throw new DatabaseOperationException("ERROR: Invalid " + commandName + " query.");
+        }
+        Table result = new Table(resultName, resultColumns(args));
+        // Semi and anti joins emit the first table's own rows, so they are copied.
+        RowSink sink = QueryMemory.current().track(result::addRow, "the result of the " + commandName);
+        join.execute(row -> sink.accept(new Row(row.getValues())));
+        return result;
+    }
+
+    /**
+     * Parses and validates the command arguments and sets up the join.
+     * Prints the usage or the problem and returns null if they are invalid.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The join, ready to run, or null if the arguments are invalid.
+     * @throws DatabaseOperationException If a table is not found or a column index is out of range.
+     */
+    private HashJoin prepareJoin(String[] args) throws DatabaseOperationException {
+        if (args.length != 4) {
+            System.out.println("Usage: " + commandName + " <table1> <column1_index[,index...]> <table2> <column2_index[,index...]>");
+            return null;
+        }
+        String t1Name = args[0];
+        String t2Name = args[2];
+
+        Table t1 = database.getTable(t1Name);
+        Table t2 = database.getTable(t2Name);
+
+        if (t1Name.equalsIgnoreCase(t2Name)) {
+            System.out.println("WARNING: Self-join is not supported by this command. Tables must be different.");
+            return null;
+        }
+
+        int[] c1Idxs, c2Idxs;
+        try {
+            c1Idxs = InnerJoinCommand.parseIndexList(args[1]);
+            c2Idxs = InnerJoinCommand.parseIndexList(args[3]);
+        } catch (NumberFormatException e) {
+            System.out.println("ERROR: Invalid index. Column indices must be numbers.");
+            return null;
+        }
+        if (c1Idxs.length != c2Idxs.length) {
+            System.out.println("ERROR: Both tables must be joined on the same number of columns (" + c1Idxs.length + " vs " + c2Idxs.length + ").");
+            return null;
+        }
+
+        boolean sameTypes = true;
+        List<DataType> keyTypes = new ArrayList<>();
+        for (int i = 0; i < c1Idxs.length; i++) {
+            DataType type1 = t1.getColumn(c1Idxs[i]).getType();
+            if (type1 != t2.getColumn(c2Idxs[i]).getType()) {
+                sameTypes = false;
+            }
+            keyTypes.add(type1);
+        }
+
+        boolean packed = sameTypes && JoinHashTable.canPack(keyTypes);
+        return new HashJoin(type, t1.getRows(), c1Idxs, t2.getRows(), c2Idxs, t2.getColumns().size(), packed);
+    }
+
+    /**
+     * Builds the columns of the result table.
+     * Semi and anti joins keep the first table's columns as they are; a left join prefixes
+     * column names with their table names, like an inner join.
+     * @param args Validated command arguments, as for {@link #execute(String[])}.
+     * @return The result columns.
+     * @throws DatabaseOperationException If a table is not found.
+     */
+    private List<Column> resultColumns(String[] args) throws DatabaseOperationException {
+        Table t1 = database.getTable(args[0]);
+        List<Column> resultCols = new ArrayList<>();
+        if (type == JoinType.LEFT) {
+            for (Column c : t1.getColumns()) {
+                resultCols.add(new Column(args[0] + "." + c.getName(), c.getType()));
+            }
+            for (Column c : database.getTable(args[2]).getColumns()) {
+                resultCols.add(new Column(args[2] + "." + c.getName(), c.getType()));
+            }
+        } else {
+            resultCols.addAll(t1.getColumns());
+        }
+        return resultCols;
+    }
+
+    /**
+     * Makes the first letter of a word upper case.
+     * @param word The word.
+     * @return The capitalized word.
+     */
+    private static String capitalize(String word) {
+        return word.isEmpty() ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    /**
+     * Reads the two joined tables. The result table is registered under a reserved name.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        TableAccess access = TableAccess.read(args.length > 0 ? args[0] : null, args.length > 2 ? args[2] : null);
+        return args.length > 2 ? access.creating(resultBaseName(args)) : access;
+    }
+
+    /**
+     * Gets the name the result table's name is reserved from.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The base name.
+     */
+    private String resultBaseName(String[] args) {
+        return commandName + "_" + args[0] + "_" + args[2];
+    }
+}
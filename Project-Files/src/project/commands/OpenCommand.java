@@ -52,8 +52,10 @@ public class OpenCommand implements CommandHandler {
 
         try {
             Map<String, String> registry = FileHandler.readCatalog(filePath);
+            Map<String, String> viewDefinitions = FileHandler.readViewDefinitions(filePath);
+            Map<String, String> materializedViewDefinitions = FileHandler.readMaterializedViewDefinitions(filePath);
 
-            database.loadCatalog(filePath, registry);
+            database.loadCatalog(filePath, registry, viewDefinitions, materializedViewDefinitions);
 
         } catch (DatabaseOperationException e) {
 
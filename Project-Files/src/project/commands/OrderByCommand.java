@@ -0,0 +1,432 @@
+package project.commands;
+
+import project.*;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Command handler for sorting the rows of a table by a column.
+ * The sorted rows are streamed to the file of a new table, which is registered in the database.
+ */
+public class OrderByCommand implements QueryCommand {
+
+    private final Database database;
+    // Number of rows sorted in memory at once before the sort spills runs to disk.
+    private static final int SORT_MEMORY_ROWS = Integer.getInteger("db.sort.memoryRows", 100_000);
+    // Estimated sort buffer sizes per row, for the query memory budget.
+    private static final int HEAP_BYTES_PER_ROW = 24;        // Boxed position and heap slot
+    private static final int COMPARATOR_BYTES_PER_ROW = 16;  // Copied reference and merge buffer slot
+    private static final int KEY_SORT_BYTES_PER_ROW = 32;    // Keys, positions, their buffers and the result slot
+    private static final int MIN_RUN_ROWS = 1024;
+
+    /**
+     * Constructs an OrderByCommand.
+     * @param database The database instance containing the table to sort.
+     */
+    public OrderByCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the orderby command.
+     * Sorts the rows of a table by the values of a column, ascending by default, with NULL values last.
+     * With a limit, only the first N rows are kept, using a bounded heap of size N.
+     * Without a limit, INTEGER and DOUBLE columns are sorted on primitive keys and STRING columns
+     * with a comparator; tables larger than the sort memory budget, or whose sort buffers do not fit in the
+     * query's memory budget, are sorted in runs that are spilled to disk and merged. Rows with equal keys keep
+     * their original order.
+     * The sorted rows are streamed straight into the file of a new table named "sorted_&lt;table&gt;", which is
+     * registered in the database and loaded into memory only when it is first used, so an external sort
+     * never holds the sorted table in memory.
+     * Usage: orderby &lt;table&gt; &lt;column index&gt; [asc|desc] [limit &lt;N&gt;]
+     * @param args Command arguments: table name, column index, optional direction, optional limit.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            SortRequest request = parseSortRequest(args);
+            if (request == null) {
+                return;
+            }
+
+            String resultTableName = database.reserveTableName(resultBaseName(request.tableName));
+            String resultTablePath = resultTableName + ".txt";
+
+            // A sort that fails or is cancelled part way leaves no partial result behind.
+            long rowsSorted;
+            try (TableFileWriter writer = new TableFileWriter(resultTableName, request.table.getColumns(), resultTablePath)) {
+                sort(request, writer);
+                rowsSorted = writer.getRowCount();
+            } catch (DatabaseOperationException e) {
+                new File(FileHandler.getWritePath(resultTablePath)).delete();
+                database.releaseTableName(resultTableName);
+                throw e;
+            }
+
+            database.registerTableFile(resultTableName, resultTablePath);
+            System.out.println("Sorted '" + request.tableName + "' by column " + request.columnIndex + " ('" + request.sortColumn.getName() + "') "
+                    + (request.descending ? "descending" : "ascending") + " using " + request.strategy + ".");
+            System.out.println("New table '" + resultTableName + "' created with " + rowsSorted + " rows.");
+            System.out.println("Sorted table '" + resultTableName + "' saved to '" + resultTablePath + "'.");
+
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluates the sort as the query of a view, returning the sorted rows as an in-memory table
+     * that is neither registered nor saved.
+     * @param resultName The name to give the result table.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The sorted table.
+     * @throws DatabaseOperationException If the arguments are invalid or the sort fails.
+     */
+    @Override
+    public Table evaluate(String resultName, String[] args) throws DatabaseOperationException {
+        SortRequest request = parseSortRequest(args);
+        if (request == null) {
+            throw new DatabaseOperationException("ERROR: Invalid orderby query.");
+        }
+        Table resultTable = new Table(resultName, request.table.getColumns());
+        RowSink result = QueryMemory.current().track(resultTable::addRow, "the sorted table");
+        sort(request, row -> result.accept(new Row(row.getValues())));
+        return resultTable;
+    }
+
+    /**
+     * The validated arguments of a sort.
+     */
+    private static class SortRequest {
+        private String tableName;
+        private Table table;
+        private int columnIndex;
+        private Column sortColumn;
+        private boolean descending;
+        private Integer limit;     // Null for no limit
+        private String strategy;   // Set once the rows are sorted
+    }
+
+    /**
+     * Parses and validates the command arguments. Prints the usage or the problem and returns null if they are invalid.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The sort request, or null if the arguments are invalid.
+     * @throws DatabaseOperationException If the table is not found or the column index is out of range.
+     */
+    private SortRequest parseSortRequest(String[] args) throws DatabaseOperationException {
+        if (args.length < 2 || args.length > 5) {
+            System.out.println("Usage: orderby <table> <column index> [asc|desc] [limit <N>]");
+            return null;
+        }
+        SortRequest request = new SortRequest();
+        request.tableName = args[0];
+        request.table = database.getTable(request.tableName);
+        try {
+            request.columnIndex = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            System.out.println("ERROR: Invalid index. Column index must be a number.");
+            return null;
+        }
+        request.sortColumn = request.table.getColumn(request.columnIndex);
+
+        int next = 2;
+        if (next < args.length && (args[next].equalsIgnoreCase("asc") || args[next].equalsIgnoreCase("desc"))) {
+            request.descending = args[next].equalsIgnoreCase("desc");
+            next++;
+        }
+        if (next < args.length) {
+            if (!args[next].equalsIgnoreCase("limit") || next + 2 != args.length) {
+                System.out.println("Usage: orderby <table> <column index> [asc|desc] [limit <N>]");
+                return null;
+            }
+            try {
+                request.limit = Integer.parseInt(args[next + 1]);
+            } catch (NumberFormatException e) {
+                System.out.println("ERROR: Invalid limit '" + args[next + 1] + "'. Limit must be a number.");
+                return null;
+            }
+            if (request.limit <= 0) {
+                System.out.println("ERROR: Limit must be a positive number.");
+                return null;
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Sorts the rows of the requested table, passing them to a sink in sort order, and records the strategy used.
+     * @param request The sort request.
+     * @param sink Receives the sorted rows; rows of an in-memory sort are shared with the source table.
+     * @throws DatabaseOperationException If an external sort fails, the sink fails or the sort does not fit
+     * in the query's memory budget.
+     */
+    private static void sort(SortRequest request, RowSink sink) throws DatabaseOperationException {
+        List<Row> rows = request.table.getRows();
+        Comparator<Row> order = rowComparator(request.columnIndex, request.descending);
+        DataType type = request.sortColumn.getType();
+        QueryMemory memory = QueryMemory.current();
+        if (request.limit != null) {
+            memory.reserve((long) Math.min(request.limit, rows.size()) * HEAP_BYTES_PER_ROW, "the heap of the sort");
+            request.strategy = "bounded heap of " + request.limit;
+            emit(topN(rows, order, request.limit), sink);
+            return;
+        }
+        long sortBytes = (long) rows.size() * (type == DataType.STRING ? COMPARATOR_BYTES_PER_ROW : KEY_SORT_BYTES_PER_ROW);
+        if (rows.size() <= SORT_MEMORY_ROWS && memory.tryReserve(sortBytes)) {
+            request.strategy = type == DataType.STRING ? "in-memory sort" : "in-memory primitive key sort";
+            try {
+                emit(sortInMemory(rows, request.columnIndex, type, request.descending, order), sink);
+            } finally {
+                memory.release(sortBytes);
+            }
+            return;
+        }
+        long budgetRows = memory.getAvailableBytes() / 2 / COMPARATOR_BYTES_PER_ROW;
+        int runRows = (int) Math.max(MIN_RUN_ROWS, Math.min(SORT_MEMORY_ROWS, budgetRows));
+        int runs = (rows.size() + runRows - 1) / runRows;
+        request.strategy = "external merge sort of " + runs + " runs";
+        externalSort(rows, order, runRows, memory, sink);
+    }
+
+    /**
+     * Passes sorted rows to a sink.
+     * @param sorted The sorted rows.
+     * @param sink The sink.
+     * @throws DatabaseOperationException If the sink fails.
+     */
+    private static void emit(List<Row> sorted, RowSink sink) throws DatabaseOperationException {
+        for (Row row : sorted) {
+            sink.accept(row);
+        }
+    }
+
+    /**
+     * Creates a comparator that orders rows by one column, with NULL values last in both directions.
+     * @param columnIndex The index of the sort column.
+     * @param descending True to sort from largest to smallest.
+     * @return The row comparator.
+     */
+    private static Comparator<Row> rowComparator(int columnIndex, boolean descending) {
+        return (a, b) -> {
+            Object va = a.getValue(columnIndex);
+            Object vb = b.getValue(columnIndex);
+            if (va == null || vb == null) {
+                return va == null ? (vb == null ? 0 : 1) : -1;
+            }
+            @SuppressWarnings("unchecked")
+            int c = ((Comparable<Object>) va).compareTo(vb);
+            return descending ? -c : c;
+        };
+    }
+
+    /**
+     * Selects the first N rows in sort order with a bounded max-heap, in O(n log N) time and O(N) memory.
+     * The heap keeps the N best rows seen so far with the worst of them on top.
+     * @param rows The rows to select from.
+     * @param order The sort order.
+     * @param limit The number of rows to keep.
+     * @return The first N rows in sort order.
+     */
+    private static List<Row> topN(List<Row> rows, Comparator<Row> order, int limit) {
+        // Break ties by position so that equal keys keep their original order.
+        Comparator<Integer> byPosition = (a, b) -> {
+            int c = order.compare(rows.get(a), rows.get(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, Math.max(rows.size(), 1)) + 1, byPosition.reversed());
+        for (int i = 0; i < rows.size(); i++) {
+            if (heap.size() < limit) {
+                heap.add(i);
+            } else if (byPosition.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        Integer[] positions = heap.toArray(new Integer[0]);
+        Arrays.sort(positions, byPosition);
+        List<Row> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add(rows.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * Sorts rows in memory. INTEGER and DOUBLE columns are sorted on an array of primitive keys
+     * with a stable merge sort, so no boxed values are compared; STRING columns use the comparator.
+     * @param rows The rows to sort.
+     * @param columnIndex The index of the sort column.
+     * @param type The data type of the sort column.
+     * @param descending True to sort from largest to smallest.
+     * @param order The comparator used for STRING columns.
+     * @return The sorted rows.
+     */
+    private static List<Row> sortInMemory(List<Row> rows, int columnIndex, DataType type, boolean descending, Comparator<Row> order) {
+        if (type == DataType.STRING) {
+            List<Row> sorted = new ArrayList<>(rows);
+            sorted.sort(order);
+            return sorted;
+        }
+        int n = rows.size();
+        long[] keys = new long[n];
+        int[] positions = new int[n];
+        List<Row> nullRows = new ArrayList<>();
+        int keyed = 0;
+        for (int i = 0; i < n; i++) {
+            Object value = rows.get(i).getValue(columnIndex);
+            if (value == null) {
+                nullRows.add(rows.get(i));
+                continue;
+            }
+            long key = sortableKey((Number) value, type);
+            keys[keyed] = descending ? ~key : key; // Bitwise NOT reverses the order exactly.
+            positions[keyed] = i;
+            keyed++;
+        }
+        mergeSort(keys, positions, keyed);
+
+        List<Row> sorted = new ArrayList<>(n);
+        for (int i = 0; i < keyed; i++) {
+            sorted.add(rows.get(positions[i]));
+        }
+        sorted.addAll(nullRows);
+        return sorted;
+    }
+
+    /**
+     * Maps a numeric value to a long whose signed order matches the numeric order.
+     * Doubles are mapped through their IEEE 754 bits, flipping the magnitude bits of negative values.
+     * @param value The numeric value.
+     * @param type The column type (INTEGER or DOUBLE).
+     * @return The sortable key.
+     */
+    private static long sortableKey(Number value, DataType type) {
+        if (type == DataType.INTEGER) {
+            return value.intValue();
+        }
+        long bits = Double.doubleToLongBits(value.doubleValue());
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the first n keys in ascending order, moving the positions along with them.
+     * Bottom-up merge sort, stable so that equal keys keep their original order.
+     * @param keys The sort keys.
+     * @param positions The row positions belonging to each key.
+     * @param n The number of entries to sort.
+     */
+    private static void mergeSort(long[] keys, int[] positions, int n) {
+        long[] keyBuffer = new long[n];
+        int[] positionBuffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int left = 0; left < n - width; left += 2 * width) {
+                int mid = left + width;
+                int right = Math.min(left + 2 * width, n);
+                int i = left, j = mid, k = left;
+                while (i < mid && j < right) {
+                    if (keys[j] < keys[i]) {
+                        keyBuffer[k] = keys[j];
+                        positionBuffer[k++] = positions[j++];
+                    } else {
+                        keyBuffer[k] = keys[i];
+                        positionBuffer[k++] = positions[i++];
+                    }
+                }
+                while (i < mid) {
+                    keyBuffer[k] = keys[i];
+                    positionBuffer[k++] = positions[i++];
+                }
+                while (j < right) {
+                    keyBuffer[k] = keys[j];
+                    positionBuffer[k++] = positions[j++];
+                }
+                System.arraycopy(keyBuffer, left, keys, left, right - left);
+                System.arraycopy(positionBuffer, left, positions, left, right - left);
+            }
+        }
+    }
+
+    /**
+     * Sorts rows that exceed the memory budget with an external merge sort.
+     * The rows are split into runs of at most the budget size; each run is sorted in memory and
+     * written to a temporary file. The runs are then merged with a priority queue holding the
+     * current head row of every run, and each merged row goes straight to the sink, so only one
+     * row per run is in memory during the merge.
+     * @param rows The rows to sort.
+     * @param order The sort order.
+     * @param runRows The number of rows per run.
+     * @param memory The memory accounting of the query.
+     * @param sink Receives the sorted rows, which are read back from disk as new rows.
+     * @throws DatabaseOperationException If writing or reading a temporary file fails, the sink fails,
+     * or the run buffer does not fit in the query's memory budget.
+     */
+    private static void externalSort(List<Row> rows, Comparator<Row> order, int runRows, QueryMemory memory,
+                                     RowSink sink) throws DatabaseOperationException {
+        List<SpillFile> runs = new ArrayList<>();
+        List<SpillFile.Reader> readers = new ArrayList<>();
+        try {
+            long runBytes = (long) Math.min(runRows, rows.size()) * COMPARATOR_BYTES_PER_ROW;
+            memory.reserve(runBytes, "the run buffer of the sort");
+            try {
+                for (int start = 0; start < rows.size(); start += runRows) {
+                    List<Row> run = new ArrayList<>(rows.subList(start, Math.min(start + runRows, rows.size())));
+                    run.sort(order);
+                    SpillFile runFile = new SpillFile();
+                    runs.add(runFile);
+                    for (Row row : run) {
+                        runFile.write(row);
+                    }
+                }
+            } finally {
+                memory.release(runBytes);
+            }
+
+            // Each heap entry is {run index}; ties go to the earlier run to keep the sort stable.
+            Row[] heads = new Row[runs.size()];
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(runs.size(), 1), (a, b) -> {
+                int c = order.compare(heads[a], heads[b]);
+                return c != 0 ? c : Integer.compare(a, b);
+            });
+            for (int i = 0; i < runs.size(); i++) {
+                readers.add(runs.get(i).openReader());
+                heads[i] = readers.get(i).next();
+                if (heads[i] != null) heap.add(i);
+            }
+
+            while (!heap.isEmpty()) {
+                int run = heap.poll();
+                sink.accept(heads[run]);
+                heads[run] = readers.get(run).next();
+                if (heads[run] != null) heap.add(run);
+            }
+        } finally {
+            for (SpillFile.Reader reader : readers) {
+                reader.close();
+            }
+            for (SpillFile run : runs) {
+                run.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the sorted table. The result table is registered under a reserved name.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        TableAccess access = TableAccess.read(args.length > 0 ? args[0] : null);
+        return args.length > 0 ? access.creating(resultBaseName(args[0])) : access;
+    }
+
+    /**
+     * Gets the name the result table's name is reserved from.
+     * @param tableName The name of the sorted table.
+     * @return The base name.
+     */
+    private static String resultBaseName(String tableName) {
+        return "sorted_" + tableName;
+    }
+}
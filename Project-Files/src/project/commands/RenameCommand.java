@@ -48,6 +48,11 @@ public class RenameCommand implements CommandHandler {
                 return;
             }
 
+            if (database.isView(oldName) || database.isMaterializedView(oldName)) {
+                System.out.println("ERROR: '" + oldName + "' is a view. Drop it and create it again under the new name.");
+                return;
+            }
+
             String oldFilePath = database.getTableFilePath(oldName);
             String newFilePath = newName + ".txt";
 
@@ -55,8 +60,9 @@ public class RenameCommand implements CommandHandler {
             database.renameTableRegistration(oldName, newName, newFilePath);
 
             // Attempt to rename the physical file on disk.
-            File oldFile = new File(oldFilePath);
-            File newFile = new File(newFilePath);
+            // A read replica renames only the files it wrote itself; the table is in its memory otherwise.
+            File oldFile = new File(FileHandler.getWritePath(oldFilePath));
+            File newFile = new File(FileHandler.getWritePath(newFilePath));
 
             if (oldFile.exists()) {
                 if (newFile.exists() && !oldFilePath.equalsIgnoreCase(newFilePath)) {
@@ -0,0 +1,52 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for showing the replication state of the database: the log a primary writes for its
+ * read replicas, or how far a replica has caught up with its primary.
+ */
+public class ReplicationCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a ReplicationCommand.
+     * @param database The database instance whose replication state is reported.
+     */
+    public ReplicationCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the replication command.
+     * Usage: replication
+     * @param args Command arguments (not used for this command).
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length != 0) {
+            System.out.println("Usage: replication");
+            return;
+        }
+        ReplicaFollower follower = database.getReplicaFollower();
+        ReplicationLog replicationLog = database.getReplicationLog();
+        if (follower != null) {
+            System.out.println(follower.describe());
+        } else if (replicationLog != null) {
+            System.out.println(replicationLog.describe());
+        } else {
+            System.out.println("Replication is off. Start a primary with -Ddb.replication.primary=true and a replica with --follower.");
+        }
+    }
+
+    /**
+     * Uses no table data, but must not run while the catalog changes.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
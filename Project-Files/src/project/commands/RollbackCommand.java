@@ -0,0 +1,52 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for rolling back the transaction of the current session.
+ */
+public class RollbackCommand implements CommandHandler {
+
+    private final Transaction transaction;
+
+    /**
+     * Constructs a RollbackCommand.
+     * @param transaction The transaction state of the session.
+     */
+    public RollbackCommand(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    /**
+     * Executes the rollback command.
+     * Ends the active transaction, undoing every row insert, delete and update and every added
+     * column since 'begin', newest first, and unlocks the tables it used.
+     * Tables created by commands of the transaction, such as join results, are kept.
+     * Usage: rollback
+     * @param args Command arguments (not used for this command).
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length != 0) {
+            System.out.println("Usage: rollback");
+            return;
+        }
+        try {
+            int changes = transaction.rollback();
+            System.out.println("Transaction rolled back; " + changes + " change(s) undone.");
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uses no table data beyond the transaction's own, but must not run while the catalog changes,
+     * and must see the transaction's pending changes rather than a snapshot.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.transactionControl();
+    }
+}
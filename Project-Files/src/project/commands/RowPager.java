@@ -0,0 +1,186 @@
+package project.commands;
+
+import project.*;
+
+import java.util.*;
+
+/**
+ * Interactive, page-by-page display of rows that are produced on demand.
+ * Rows are pulled from an iterator, typically an ongoing table scan, only as far as needed to show
+ * the current page plus one page of look-ahead, which tells whether a next page exists. Rows already
+ * shown are kept so that earlier pages can be shown again. The total number of rows is reported
+ * once the iterator is exhausted. Column widths are calculated for each page from the rows on it.
+ * The rows can also be streamed to the output without prompts, for output that is piped to a file.
+ */
+final class RowPager {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final String title;
+    private final List<Column> columns;
+    private final Iterator<Row> source;
+    private final Scanner inputScanner;
+    private final List<Row> fetched;   // Rows pulled from the source so far
+    private boolean exhausted;
+    private final TableRenderer renderer;
+
+    /**
+     * Constructs a pager.
+     * @param title The title to display above each page.
+     * @param columns The displayed columns, for the header.
+     * @param columnIndexes The index in the rows of each displayed column.
+     * @param source The rows to display, produced on demand.
+     * @param inputScanner The scanner for reading the navigation choices.
+     */
+    RowPager(String title, List<Column> columns, int[] columnIndexes, Iterator<Row> source, Scanner inputScanner) {
+        this.title = title;
+        this.columns = columns;
+        this.source = source;
+        this.inputScanner = inputScanner;
+        this.fetched = new ArrayList<>();
+        this.exhausted = false;
+        this.renderer = new TableRenderer(columns, columnIndexes);
+    }
+
+    /**
+     * Creates an iterator over a list of rows by position, starting at an offset and stopping
+     * at the end of the list or after a number of rows. Rows appended while iterating are included
+     * if the limit allows, and the list is never copied.
+     * @param rows The rows.
+     * @param from The position of the first row.
+     * @param maxRows The maximum number of rows to return, or Integer.MAX_VALUE for no limit.
+     * @return The iterator.
+     */
+    static Iterator<Row> iterate(List<Row> rows, int from, int maxRows) {
+        return new Iterator<Row>() {
+            private int position = from;
+            private int returned = 0;
+
+            @Override
+            public boolean hasNext() {
+                return returned < maxRows && position < rows.size();
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                returned++;
+                return rows.get(position++);
+            }
+        };
+    }
+
+    /**
+     * Checks whether there is at least one row to display, pulling it from the source if needed.
+     * @return True if the source produces at least one row.
+     */
+    boolean hasRows() {
+        fill(1);
+        return !fetched.isEmpty();
+    }
+
+    /**
+     * Displays the rows page by page, letting the user move to the next or previous page or exit.
+     * The first page is shown as soon as its rows and the look-ahead are available.
+     */
+    void display() {
+        if (columns == null || columns.isEmpty()) {
+            System.out.println("No columns defined to display for: " + title);
+            return;
+        }
+        if (!hasRows()) {
+            System.out.println("No rows to display for: " + title);
+            return;
+        }
+        int currentPage = 1;
+        while (true) {
+            int start = (currentPage - 1) * PAGE_SIZE;
+            fill(start + 2 * PAGE_SIZE); // The current page plus one page of look-ahead.
+            int end = Math.min(start + PAGE_SIZE, fetched.size());
+            boolean lastPage = exhausted && end == fetched.size();
+
+            printPage(currentPage, start, end);
+
+            if (currentPage == 1 && lastPage) break;
+            System.out.print("Options: [N]ext, [P]revious, [E]xit > ");
+            String choice;
+            try {
+                choice = inputScanner.nextLine().trim().toUpperCase();
+            } catch (Exception e) {
+                System.out.println("ERROR: Incorrect input. Exiting pagination for '" + title + "'.");
+                break;
+            }
+            if (choice.equals("N")) {
+                if (!lastPage) currentPage++;
+                else System.out.println("Already on the last page.");
+            } else if (choice.equals("P")) {
+                if (currentPage > 1) currentPage--;
+                else System.out.println("Already on the first page.");
+            } else if (choice.equals("E")) {
+                break;
+            } else {
+                System.out.println("ERROR: Invalid option. Please use N, P, or E.");
+            }
+        }
+    }
+
+    /**
+     * Writes all rows without pagination prompts, pulling them from the source as they are written.
+     */
+    void stream() {
+        if (columns == null || columns.isEmpty()) {
+            System.out.println("No columns defined to display for: " + title);
+            return;
+        }
+        Iterator<Row> rows = new Iterator<Row>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < fetched.size() || source.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                return position < fetched.size() ? fetched.get(position++) : source.next();
+            }
+        };
+        renderer.stream("--- " + title + " ---", rows);
+    }
+
+    /**
+     * Pulls rows from the source until a number of rows have been fetched or the source is exhausted.
+     * Each fetched row is kept for paging back, and is reserved from the query's memory budget; once the
+     * budget is used up, no more rows are fetched.
+     * @param count The number of rows wanted.
+     */
+    private void fill(int count) {
+        QueryMemory memory = QueryMemory.current();
+        while (fetched.size() < count && !exhausted) {
+            if (!source.hasNext()) {
+                exhausted = true;
+            } else if (memory.tryReserve(QueryMemory.REFERENCE_BYTES)) {
+                fetched.add(source.next());
+            } else {
+                System.out.println("WARNING: Stopped reading rows for '" + title + "' after " + fetched.size() + " rows: the query memory budget is used up.");
+                exhausted = true;
+            }
+        }
+    }
+
+    /**
+     * Prints one page: title, header, rows and a footer with the row positions, in one write.
+     * @param page The page number, starting at 1.
+     * @param start The position of the first row of the page.
+     * @param end The position after the last row of the page.
+     */
+    private void printPage(int page, int start, int end) {
+        String pageLabel = exhausted
+                ? "Page " + page + "/" + Math.max(1, (fetched.size() + PAGE_SIZE - 1) / PAGE_SIZE)
+                : "Page " + page;
+        renderer.renderPage("--- " + title + " (" + pageLabel + ") ---", fetched, start, end,
+                "--- Rows " + (start + 1) + "-" + end + (exhausted ? " of " + fetched.size() : ", more rows follow") + " ---");
+    }
+}
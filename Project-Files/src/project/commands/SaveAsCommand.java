@@ -45,7 +45,13 @@ public class SaveAsCommand implements CommandHandler {
         try {
 
             System.out.println("Attempting to save database to new catalog file: '" + newCatalogPath + "'...");
-            FileHandler.saveCatalogAndTables(database, newCatalogPath);
+            database.markSaveStarted(newCatalogPath);
+            try {
+                FileHandler.saveCatalogAndTables(database, newCatalogPath);
+            } catch (DatabaseOperationException | RuntimeException e) {
+                database.markSaveFailed();
+                throw e;
+            }
 
             database.markCatalogAsSaved(newCatalogPath);
             System.out.println("Database successfully saved as '" + newCatalogPath + "'. All changes committed.");
@@ -52,7 +52,13 @@ public class SaveCommand implements CommandHandler {
         try {
 
             System.out.println("Saving changes to database '" + currentPath + "'...");
-            FileHandler.saveCatalogAndTables(database, currentPath);
+            database.markSaveStarted(currentPath);
+            try {
+                FileHandler.saveCatalogAndTables(database, currentPath);
+            } catch (DatabaseOperationException | RuntimeException e) {
+                database.markSaveFailed();
+                throw e;
+            }
 
             database.markCatalogAsSaved(currentPath);
 
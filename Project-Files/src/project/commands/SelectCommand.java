@@ -6,13 +6,13 @@ import java.util.*;
 
 /**
  * Command handler for selecting and displaying rows from a table that match a specific criterion.
- * The display is paginated.
+ * The display is paginated, and each page is produced from an ongoing scan when it is shown.
  */
-public class SelectCommand implements CommandHandler {
+public class SelectCommand implements QueryCommand {
 
     private final Database database;
+    private final QueryEngine queries;
     private final Scanner inputScanner;
-    private static final int PAGE_SIZE = 10;
 
     /**
      * Constructs a SelectCommand.
@@ -21,6 +21,7 @@ public class SelectCommand implements CommandHandler {
      */
     public SelectCommand(Database database, Scanner scanner) {
         this.database = database;
+        this.queries = new QueryEngine(database);
         this.inputScanner = scanner;
     }
 
@@ -28,14 +29,20 @@ public class SelectCommand implements CommandHandler {
      * Executes the select command.
      * Finds rows in the specified table where the value in a given column (by index)
      * matches a specified search value. The matching rows are then displayed in a paginated format.
-     * Usage: select &lt;table&gt; &lt;column_index&gt; &lt;value_to_match&gt;
-     * @param args Command arguments: table name, column index for search, value to match.
+     * The rows come from {@link QueryEngine#select}, which skips the scan if the column has a Bloom filter
+     * that rules the value out.
+     * Only the given columns are shown if "cols" is given, and only the matches in the window given by
+     * "offset" and "limit". The table is scanned only as far as needed for the page being shown and one
+     * page of look-ahead, so the first page appears at once however large the table is; the scan stops
+     * for good at the limit or when the user leaves the display.
+     * Usage: select &lt;table&gt; &lt;column_index&gt; &lt;value_to_match&gt; [cols &lt;index,index...&gt;] [limit &lt;N&gt;] [offset &lt;M&gt;] [nopage]
+     * @param args Command arguments: table name, column index for search, value to match, optional display options.
      */
     @Override
     public void execute(String[] args) {
         try {
-            if (args.length != 3) {
-                System.out.println("Usage: select <table> <column_index> <value>");
+            if (args.length < 3) {
+                System.out.println("Usage: select <table> <column_index> <value> " + DisplayOptions.USAGE);
                 return;
             }
             String tableName = args[0];
@@ -52,30 +59,29 @@ public class SelectCommand implements CommandHandler {
             }
 
             Column searchColumn = table.getColumn(columnIndex);
-
-            List<Row> matchingRows = new ArrayList<>();
-            try {
-
-                for (Row row : table.getRows()) {
-                    if (TypeParser.looselyEquals(row.getValue(columnIndex), searchValue, searchColumn.getType())) {
-                        matchingRows.add(row);
-                    }
-                }
-            } catch (IndexOutOfBoundsException e) {
-
-                throw new DatabaseOperationException("ERROR: During select - internal error accessing row data by index.", e);
+            DisplayOptions options = DisplayOptions.parse(args, 3, table);
+            if (options == null) {
+                return;
             }
 
-            if (matchingRows.isEmpty()) {
+            SelectResult result = queries.select(tableName, columnIndex, searchValue);
+            RowPager pager = new RowPager(tableName + " (Selected Results)", options.getColumns(table), options.getColumnIndexes(table),
+                    options.window(result.getRows()), inputScanner);
+
+            if (!pager.hasRows()) {
                 System.out.println("WARNING: No rows found in table '" + tableName + "' matching the criteria " +
-                        "(column '" + searchColumn.getName() + "' == '" + searchValue + "').");
+                        "(column '" + searchColumn.getName() + "' == '" + searchValue + "')" + options.describe() + ".");
                 return;
             }
 
             System.out.println("Selected rows from '" + tableName + "' where column " + columnIndex +
-                    " ('" + searchColumn.getName() + "') == '" + searchValue + "':");
+                    " ('" + searchColumn.getName() + "') == '" + searchValue + "'" + options.describe() + ":");
 
-            displayRowsPaginated(tableName + " (Selected Results)", table.getColumns(), matchingRows);
+            if (options.isStreaming()) {
+                pager.stream();
+            } else {
+                pager.display();
+            }
             System.out.println("Finished displaying selected rows.");
 
         } catch (DatabaseOperationException e) {
@@ -87,108 +93,52 @@ public class SelectCommand implements CommandHandler {
     }
 
     /**
-     * Displays rows in a paginated manner. Shared with PrintCommand.
-     * Calculates column widths based on header and data content for better readability.
-     * Allows user to navigate through pages or exit the view.
-     * @param title The title to display for the current view.
-     * @param columns The list of {@link Column} objects for header display.
-     * @param rowsToDisplay The list of {@link Row} objects to be displayed.
+     * Evaluates the select as the query of a view, returning the matching rows as an in-memory table.
+     * Display options select the columns and the window of rows that the table holds.
+     * @param resultName The name to give the result table.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return A table with the projected columns of the source table and the matching rows.
+     * @throws DatabaseOperationException If the arguments are invalid or the table is not found.
      */
-    private void displayRowsPaginated(String title, List<Column> columns, List<Row> rowsToDisplay) {
-
-        if (rowsToDisplay == null || rowsToDisplay.isEmpty()) {
-            System.out.println("No rows to display for: " + title);
-            return;
-        }
-        if (columns == null || columns.isEmpty()) {
-            System.out.println("No columns defined to display for: " + title);
-            return;
+    @Override
+    public Table evaluate(String resultName, String[] args) throws DatabaseOperationException {
+        if (args.length < 3) {
+            throw new DatabaseOperationException("ERROR: Invalid select query. Expected: select <table> <column_index> <value> " + DisplayOptions.USAGE);
         }
-
-        int totalRows = rowsToDisplay.size();
-        int totalPages = (int) Math.ceil((double) totalRows / PAGE_SIZE);
-        int currentPage = 1;
-        Map<Integer, Integer> columnWidths = new HashMap<>();
-
+        Table table = database.getTable(args[0]);
+        int columnIndex;
         try {
-            for (int i = 0; i < columns.size(); i++) {
-                String headerText = columns.get(i).getName() + " - " + columns.get(i).getType().name();
-                int maxWidth = headerText.length();
-                for (Row row : rowsToDisplay) {
-                    if (i < row.size()) {
-                        maxWidth = Math.max(maxWidth, FileHandler.formatValueAsString(row.getValue(i)).length());
-                    }
-                }
-                columnWidths.put(i, Math.max(maxWidth, 5));
-            }
-        } catch (IndexOutOfBoundsException e) {
-            System.out.println("ERROR: Calculating display widths for '" + title + "': " + e.getMessage());
-            return;
+            columnIndex = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            throw new DatabaseOperationException("ERROR: Invalid column index '" + args[1] + "'. Index must be a number.");
         }
-
-        while (true) {
-            System.out.println("\n--- " + title + " (Page " + currentPage + "/" + totalPages + ") ---");
-            try {
-                StringBuilder headerLine = new StringBuilder("|");
-                StringBuilder separatorLine = new StringBuilder("|");
-                for (int i = 0; i < columns.size(); i++) {
-                    String headerText = columns.get(i).getName() + " - " + columns.get(i).getType().name();
-                    String paddedHeader = FileHandler.padRight(headerText, columnWidths.get(i));
-                    headerLine.append(paddedHeader);
-                    separatorLine.append(FileHandler.repeatChar('-', columnWidths.get(i)));
-                    if (i < columns.size() - 1) {
-                        headerLine.append(" | ");
-                        separatorLine.append("-+-");
-                    }
-                }
-                headerLine.append(" |");
-                separatorLine.append(" |");
-                System.out.println(headerLine.toString());
-                System.out.println(separatorLine.toString());
-
-                int start = (currentPage - 1) * PAGE_SIZE;
-                int end = Math.min(start + PAGE_SIZE, totalRows);
-                for (int i = start; i < end; i++) {
-                    Row row = rowsToDisplay.get(i);
-                    System.out.print("|");
-                    for (int j = 0; j < columns.size(); j++) {
-                        String valStr;
-                        if (j < row.size()) {
-                            valStr = FileHandler.formatValueAsString(row.getValue(j));
-                        } else {
-                            valStr = "[NoData]";
-                        }
-                        System.out.print(FileHandler.padRight(valStr, columnWidths.get(j)));
-                        if (j < columns.size() - 1) System.out.print(" | ");
-                    }
-                    System.out.println(" |");
-                }
-                System.out.println("--- Rows " + (start + 1) + "-" + end + " of " + totalRows + " ---");
-            } catch (IndexOutOfBoundsException e) {
-                System.out.println("ERROR: Displaying row data for '" + title + "': " + e.getMessage());
-                break;
-            }
-
-            if (totalPages <= 1) break;
-            System.out.print("Options: [N]ext, [P]revious, [E]xit > ");
-            String choice;
-            try {
-                choice = inputScanner.nextLine().trim().toUpperCase();
-            } catch (Exception e) {
-                System.out.println("ERROR: Incorrect input. Exiting pagination for '" + title + "'.");
-                break;
-            }
-            if (choice.equals("N")) {
-                if (currentPage < totalPages) currentPage++;
-                else System.out.println("Already on the last page.");
-            } else if (choice.equals("P")) {
-                if (currentPage > 1) currentPage--;
-                else System.out.println("Already on the first page.");
-            } else if (choice.equals("E")) {
-                break;
-            } else {
-                System.out.println("ERROR: Invalid option. Please use N, P, or E.");
+        table.getColumn(columnIndex); // Validates column index
+        DisplayOptions options = DisplayOptions.parse(args, 3, table);
+        if (options == null) {
+            throw new DatabaseOperationException("ERROR: Invalid select query options.");
+        }
+        int[] columnIndexes = options.getColumnIndexes(table);
+        Table result = new Table(resultName, options.getColumns(table));
+        Iterator<Row> matches = options.window(queries.select(args[0], columnIndex, args[2]).getRows());
+        RowSink sink = QueryMemory.current().track(result::addRow, "the result of the select");
+        while (matches.hasNext()) {
+            Row row = matches.next();
+            List<Object> values = new ArrayList<>(columnIndexes.length);
+            for (int index : columnIndexes) {
+                values.add(row.getValue(index));
             }
+            sink.accept(new Row(values));
         }
+        return result;
+    }
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package project.commands;
 
 import project.CommandHandler;
 import project.Database;
+import project.TableAccess;
 
 import java.util.*;
 
@@ -23,7 +24,7 @@ public class ShowTablesCommand implements CommandHandler {
     /**
      * Executes the showtables command.
      * Retrieves the set of all registered table names from the database,
-     * sorts them alphabetically, and prints them to the console.
+     * sorts them alphabetically, and prints them to the console, followed by the defined views and materialized views.
      * If no database is open or if the catalog is empty, appropriate messages are displayed.
      * @param args Command arguments (not used for this command).
      */
@@ -36,8 +37,10 @@ public class ShowTablesCommand implements CommandHandler {
         try {
 
             Set<String> tableNamesSet = database.getTableNames();
+            List<String> viewNamesList = new ArrayList<>(database.getViewDefinitions().keySet());
+            List<String> materializedViewNamesList = new ArrayList<>(database.getMaterializedViewDefinitions().keySet());
 
-            if (tableNamesSet.isEmpty()) {
+            if (tableNamesSet.isEmpty() && viewNamesList.isEmpty() && materializedViewNamesList.isEmpty()) {
                 System.out.println("WARNING: No tables are currently registered in the database catalog.");
             } else {
                 List<String> tableNamesList = new ArrayList<>(tableNamesSet);
@@ -47,9 +50,27 @@ public class ShowTablesCommand implements CommandHandler {
                 for (String name : tableNamesList) {
                     System.out.println("  - " + name);
                 }
+                Collections.sort(viewNamesList);
+                for (String name : viewNamesList) {
+                    System.out.println("  - " + name + " (view)");
+                }
+                Collections.sort(materializedViewNamesList);
+                for (String name : materializedViewNamesList) {
+                    System.out.println("  - " + name + " (materialized view)");
+                }
             }
         } catch (Exception e) {
             System.out.println("ERROR: An unexpected error occurred while listing tables: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Uses no table data, but must not run while the catalog changes.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
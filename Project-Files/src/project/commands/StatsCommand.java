@@ -0,0 +1,71 @@
+package project.commands;
+
+import project.*;
+
+import java.util.*;
+
+/**
+ * Command handler for displaying the maintained statistics of a table's columns.
+ */
+public class StatsCommand implements CommandHandler {
+
+    private final Database database;
+
+    /**
+     * Constructs a StatsCommand.
+     * @param database The database instance to query for table statistics.
+     */
+    public StatsCommand(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Executes the stats command.
+     * Displays the row count of the table and, for each column, its null count,
+     * distinct count, minimum and maximum, and whether it is sorted, indexed or has a Bloom filter. The values come from statistics that are
+     * maintained as the table changes, so no scan of the rows is needed.
+     * Usage: stats &lt;table&gt;
+     * @param args Command arguments: table name.
+     */
+    @Override
+    public void execute(String[] args) {
+        try {
+            if (args.length != 1) {
+                System.out.println("Usage: stats <table>");
+                return;
+            }
+            String tableName = args[0];
+            Table table = database.getTable(tableName);
+            List<Column> columns = table.getColumns();
+
+            System.out.println("Statistics for Table: '" + table.getName() + "'");
+            System.out.println("Rows: " + table.getRowCount());
+            if (columns.isEmpty()) {
+                System.out.println("  (No columns defined for this table)");
+                return;
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                Column col = columns.get(i);
+                ColumnStatistics columnStatistics = table.getColumnStatistics(i);
+                System.out.printf("  [%d] %s (%s): nulls=%d, distinct=%d, min=%s, max=%s, sorted=%s, indexed=%s, bloom=%s\n", i, col.getName(), col.getType(),
+                        columnStatistics.getNullCount(), columnStatistics.getDistinctCount(),
+                        FileHandler.formatValueAsString(columnStatistics.getMin()),
+                        FileHandler.formatValueAsString(columnStatistics.getMax()),
+                        columnStatistics.isSorted() ? "yes" : "no", table.getIndexedColumns().contains(i) ? "yes" : "no",
+                        table.hasBloomFilter(i) ? "yes" : "no");
+            }
+        } catch (DatabaseOperationException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads only the given table, so the command shares it with other readers.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read(args.length > 0 ? args[0] : null);
+    }
+}
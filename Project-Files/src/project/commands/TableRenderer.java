@@ -0,0 +1,235 @@
+package project.commands;
+
+import project.*;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Console renderer for rows shown as a table, shared by the commands that display rows.
+ * A whole page is formatted into one reusable buffer and written to the output in a single call,
+ * instead of one write per cell. The buffer is copied to the output through a reusable array of
+ * characters, so writing it does not create a string either. Values are appended to the buffer directly and padded by appending
+ * spaces, so no padded or formatted strings are created per cell.
+ * Besides single pages, the renderer can stream any number of rows without pagination prompts,
+ * writing them in batches, for output that is piped to a file.
+ */
+final class TableRenderer {
+
+    private static final int MIN_WIDTH = 5;
+    private static final int STREAM_BATCH_ROWS = 1000;
+    private static final String MISSING_VALUE = "[NoData]";
+    private static final int WRITE_CHUNK_CHARS = 8192;
+
+    private final int[] columnIndexes;
+    private final String[] headers;
+    private final int[] widths;
+    private final StringBuilder buffer;
+    private final PrintStream out;
+    private final Writer writer;  // Encodes characters onto out the way System.out does
+    private final char[] chunk;   // Reused for copying the buffer to the writer
+
+    /**
+     * Constructs a renderer that writes to the current standard output.
+     * @param columns The displayed columns, for the header.
+     * @param columnIndexes The index in the rows of each displayed column.
+     */
+    TableRenderer(List<Column> columns, int[] columnIndexes) {
+        this.columnIndexes = columnIndexes;
+        this.headers = new String[columns.size()];
+        for (int i = 0; i < headers.length; i++) {
+            headers[i] = columns.get(i).getName() + " - " + columns.get(i).getType().name();
+        }
+        this.widths = new int[columns.size()];
+        this.buffer = new StringBuilder(4096);
+        this.out = System.out;
+        this.writer = new OutputStreamWriter(out, Charset.defaultCharset());
+        this.chunk = new char[WRITE_CHUNK_CHARS];
+    }
+
+    /**
+     * Renders one page: title line, header, the rows of the page and a footer line.
+     * Column widths are calculated from the header and the rows on the page.
+     * @param title The line shown above the page.
+     * @param rows The rows the page is taken from.
+     * @param start The position of the first row of the page.
+     * @param end The position after the last row of the page.
+     * @param footer The line shown below the page.
+     */
+    void renderPage(String title, List<Row> rows, int start, int end, String footer) {
+        fitWidths(rows.subList(start, end).iterator(), Integer.MAX_VALUE, null);
+        buffer.append('\n').append(title).append('\n');
+        appendHeader();
+        for (int r = start; r < end; r++) {
+            appendRow(rows.get(r));
+        }
+        buffer.append(footer).append('\n');
+        flush();
+    }
+
+    /**
+     * Streams all rows without pagination prompts. Column widths are calculated from the header and
+     * the first batch of rows and then kept, so that the rows line up; a longer value later on is
+     * written in full. Each batch is written to the output in one call.
+     * @param title The line shown above the rows.
+     * @param rows The rows to write, produced on demand.
+     * @return The number of rows written.
+     */
+    long stream(String title, Iterator<Row> rows) {
+        Row[] batch = new Row[STREAM_BATCH_ROWS];
+        int batchSize = fitWidths(rows, STREAM_BATCH_ROWS, batch);
+        buffer.append('\n').append(title).append('\n');
+        appendHeader();
+        long written = 0;
+        while (batchSize > 0) {
+            for (int i = 0; i < batchSize; i++) {
+                appendRow(batch[i]);
+                batch[i] = null;
+            }
+            written += batchSize;
+            flush();
+            batchSize = 0;
+            while (batchSize < STREAM_BATCH_ROWS && rows.hasNext()) {
+                batch[batchSize++] = rows.next();
+            }
+        }
+        buffer.append("--- ").append(written).append(written == 1 ? " row" : " rows").append(" ---\n");
+        flush();
+        return written;
+    }
+
+    /**
+     * Calculates the column widths from the header and up to a number of rows.
+     * @param rows The rows to measure.
+     * @param maxRows The maximum number of rows to take from the iterator.
+     * @param taken If not null, receives the rows taken from the iterator, in order.
+     * @return The number of rows taken.
+     */
+    private int fitWidths(Iterator<Row> rows, int maxRows, Row[] taken) {
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = Math.max(headers[i].length(), MIN_WIDTH);
+        }
+        int count = 0;
+        while (count < maxRows && rows.hasNext()) {
+            Row row = rows.next();
+            if (taken != null) {
+                taken[count] = row;
+            }
+            count++;
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = Math.max(widths[i], valueLength(row, columnIndexes[i]));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Appends the header line and the separator line.
+     */
+    private void appendHeader() {
+        buffer.append('|');
+        for (int i = 0; i < headers.length; i++) {
+            if (i > 0) {
+                buffer.append(" | ");
+            }
+            buffer.append(headers[i]);
+            pad(widths[i] - headers[i].length());
+        }
+        buffer.append(" |\n|");
+        for (int i = 0; i < widths.length; i++) {
+            if (i > 0) {
+                buffer.append("-+-");
+            }
+            for (int w = 0; w < widths[i]; w++) {
+                buffer.append('-');
+            }
+        }
+        buffer.append(" |\n");
+    }
+
+    /**
+     * Appends one row, with each value padded to its column width.
+     * @param row The row.
+     */
+    private void appendRow(Row row) {
+        buffer.append('|');
+        for (int i = 0; i < columnIndexes.length; i++) {
+            if (i > 0) {
+                buffer.append(" | ");
+            }
+            int valueStart = buffer.length();
+            appendValue(row, columnIndexes[i]);
+            pad(widths[i] - (buffer.length() - valueStart));
+        }
+        buffer.append(" |\n");
+    }
+
+    /**
+     * Appends the display form of a value, as given by {@link FileHandler#formatValueAsString(Object)},
+     * without creating a string for numbers.
+     * @param row The row.
+     * @param columnIndex The index of the value in the row.
+     */
+    private void appendValue(Row row, int columnIndex) {
+        if (columnIndex >= row.size()) {
+            buffer.append(MISSING_VALUE);
+            return;
+        }
+        Object value = row.getValue(columnIndex);
+        if (value == null) {
+            buffer.append("NULL");
+        } else if (value instanceof Integer) {
+            buffer.append(((Integer) value).intValue());
+        } else if (value instanceof Double) {
+            buffer.append(((Double) value).doubleValue());
+        } else {
+            buffer.append(value.toString());
+        }
+    }
+
+    /**
+     * Measures the display length of a value by appending it to the end of the buffer and removing it again.
+     * @param row The row.
+     * @param columnIndex The index of the value in the row.
+     * @return The number of characters the value takes.
+     */
+    private int valueLength(Row row, int columnIndex) {
+        int mark = buffer.length();
+        appendValue(row, columnIndex);
+        int length = buffer.length() - mark;
+        buffer.setLength(mark);
+        return length;
+    }
+
+    /**
+     * Appends spaces.
+     * @param count The number of spaces; nothing is appended if it is zero or negative.
+     */
+    private void pad(int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.append(' ');
+        }
+    }
+
+    /**
+     * Writes the buffer to the output, a chunk of characters at a time, and empties it for reuse.
+     */
+    private void flush() {
+        try {
+            for (int start = 0; start < buffer.length(); start += chunk.length) {
+                int end = Math.min(start + chunk.length, buffer.length());
+                buffer.getChars(start, end, chunk, 0);
+                writer.write(chunk, 0, end - start);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            out.println("ERROR: Writing rows to the output: " + e.getMessage());
+        }
+        buffer.setLength(0);
+    }
+}
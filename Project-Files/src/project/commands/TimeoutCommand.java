@@ -0,0 +1,63 @@
+package project.commands;
+
+import project.*;
+
+/**
+ * Command handler for showing or setting the command timeout of the session.
+ */
+public class TimeoutCommand implements CommandHandler {
+
+    private final JobManager jobs;
+
+    /**
+     * Constructs a TimeoutCommand.
+     * @param jobs The background jobs of the session, which hold its command timeout.
+     */
+    public TimeoutCommand(JobManager jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * Executes the timeout command.
+     * Without an argument, shows the current timeout. With one, sets the time after which the following
+     * commands and background jobs of the session are stopped; 0 turns the timeout off. Like cancellation,
+     * the timeout is checked as scans progress, so a command waiting for a lock is not stopped while it waits.
+     * Usage: timeout [millis]
+     * @param args Command arguments: optionally, the timeout in milliseconds.
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length > 1) {
+            System.out.println("Usage: timeout [millis]");
+            return;
+        }
+        if (args.length == 0) {
+            long current = jobs.getTimeoutMillis();
+            System.out.println(current == 0 ? "No command timeout set." : "Command timeout: " + current + " ms.");
+            return;
+        }
+        long millis;
+        try {
+            millis = Long.parseLong(args[0]);
+        } catch (NumberFormatException e) {
+            System.out.println("ERROR: Invalid timeout. It must be a number of milliseconds.");
+            return;
+        }
+        if (millis < 0) {
+            System.out.println("ERROR: Timeout cannot be negative.");
+            return;
+        }
+        jobs.setTimeoutMillis(millis);
+        System.out.println(millis == 0 ? "Command timeout turned off." : "Command timeout set to " + millis + " ms.");
+    }
+
+    /**
+     * Uses no table data. The session runs this command without taking locks.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.read();
+    }
+}
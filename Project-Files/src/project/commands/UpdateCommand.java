@@ -10,6 +10,7 @@ import java.util.*;
 public class UpdateCommand implements CommandHandler {
 
     private final Database database;
+    private final QueryEngine queries;
 
     /**
      * Constructs an UpdateCommand.
@@ -17,6 +18,7 @@ public class UpdateCommand implements CommandHandler {
      */
     public UpdateCommand(Database database) {
         this.database = database;
+        this.queries = new QueryEngine(database);
     }
 
     /**
@@ -24,7 +26,8 @@ public class UpdateCommand implements CommandHandler {
      * Finds rows in the specified table where the value in a search column (by index)
      * matches a given search value. For each matching row, it updates the value
      * in a target column (by index) to a new target value.
-     * The new target value is parsed according to the data type of the target column.
+     * The new target value is parsed according to the data type of the target column,
+     * and the rows are updated with {@link QueryEngine#update}.
      * Usage: update &lt;table&gt; &lt;search_column_index&gt; &lt;search_value&gt; &lt;target_column_index&gt; &lt;new_target_value&gt;
      * @param args Command arguments: table name, search column index, search value,
      * target column index, and the new target value.
@@ -42,7 +45,7 @@ public class UpdateCommand implements CommandHandler {
             String targetColNStr = args[3];
             String targetValStr = args[4];
 
-            Table table = database.getTable(tableName);
+            Table table = database.getTableForUpdate(tableName);
             int searchColIndex, targetColIndex;
 
             try {
@@ -53,8 +56,6 @@ public class UpdateCommand implements CommandHandler {
                 return;
             }
 
-
-            Column searchColumn = table.getColumn(searchColIndex);
             Column targetColumn = table.getColumn(targetColIndex);
 
             Object targetValueObject;
@@ -67,23 +68,8 @@ public class UpdateCommand implements CommandHandler {
                 return;
             }
 
-            int updatedCount = 0;
-            try {
-                List<Row> rows = table.getRows();
-                for (Row row : rows) {
-                    if (TypeParser.looselyEquals(row.getValue(searchColIndex), searchVal, searchColumn.getType())) {
-                        row.setValue(targetColIndex, targetValueObject);
-                        updatedCount++;
-                    }
-                }
-
-
-            } catch (IndexOutOfBoundsException e) {
-                throw new DatabaseOperationException("ERROR: During update - internal error accessing row data by index.", e);
-            }
-
+            int updatedCount = queries.update(tableName, searchColIndex, searchVal, targetColIndex, targetValueObject);
             if (updatedCount > 0) {
-                database.dataModified(tableName);
                 System.out.println("Updated " + updatedCount + " row(s) in table '" + tableName + "'.");
             } else {
                 System.out.println("WARNING: No rows matched the update criteria in table '" + tableName + "'.");
@@ -92,4 +78,14 @@ public class UpdateCommand implements CommandHandler {
             System.out.println("ERROR: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the given table; other tables stay available to other commands.
+     * @param args Command arguments, as for {@link #execute(String[])}.
+     * @return The tables used.
+     */
+    @Override
+    public TableAccess getTableAccess(String[] args) {
+        return TableAccess.write(args.length > 0 ? args[0] : null);
+    }
+}